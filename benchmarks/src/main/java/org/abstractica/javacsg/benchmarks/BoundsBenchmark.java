@@ -0,0 +1,47 @@
+package org.abstractica.javacsg.benchmarks;
+
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.JavaCSG;
+import org.abstractica.javacsg.Vector3D;
+import org.abstractica.javacsg.impl.JavaCSGImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundsBenchmark
+{
+	@Param({"10", "100", "1000"})
+	public int depth;
+
+	private JavaCSG csg;
+	private Geometry3D box;
+
+	@Setup
+	public void setup()
+	{
+		csg = new JavaCSGImpl(new StubJavaCSGBase());
+		box = csg.box3D(1, 1, 1, false);
+	}
+
+	// Builds the tree and asks for its bounds, the way a model does when it places parts relative to each other.
+	@Benchmark
+	public Vector3D deepTreeBounds()
+	{
+		Geometry3D geometry = box;
+		for(int i = 0; i < depth; i++)
+		{
+			Geometry3D moved = csg.translate3D(0, 0, 1).transform(geometry);
+			Geometry3D cutout = csg.rotate3DZ(csg.degrees(i)).transform(box);
+			geometry = csg.difference3D(csg.union3D(geometry, moved), cutout);
+		}
+		Vector3D min = geometry.getConservativeMin();
+		Vector3D max = geometry.getConservativeMax();
+		return csg.vector3D(max.x() - min.x(), max.y() - min.y(), max.z() - min.z());
+	}
+}
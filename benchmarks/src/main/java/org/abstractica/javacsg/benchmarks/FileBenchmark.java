@@ -0,0 +1,103 @@
+package org.abstractica.javacsg.benchmarks;
+
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.JavaCSG;
+import org.abstractica.javacsg.JavaCSGFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading need real triangles, so these run on the mesh backend, which needs no OpenSCAD either.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark
+{
+	// A build plate of small parts, the case that 3MF files with one object per part are meant for.
+	private static final int PLATE_PARTS = 200;
+
+	@Param({"32", "128"})
+	public int angularResolution;
+
+	private JavaCSG csg;
+	private Geometry3D geometry;
+	private List<Geometry3D> plate;
+	private Path directory;
+	private String saveFile;
+	private String save3MFFile;
+	private String loadFile;
+	private String load3MFFile;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		csg = JavaCSGFactory.createMesh();
+		geometry = csg.cache(csg.sphere3D(10, angularResolution, false));
+		directory = Files.createTempDirectory("javacsg-benchmark");
+		saveFile = directory.resolve("save.stl").toString();
+		save3MFFile = directory.resolve("save.3mf").toString();
+		loadFile = directory.resolve("load.stl").toString();
+		load3MFFile = directory.resolve("load.3mf").toString();
+		csg.saveSTL(loadFile, geometry);
+		csg.save3MF(load3MFFile, geometry);
+		plate = new ArrayList<>();
+		for(int i = 0; i < PLATE_PARTS; i++)
+		{
+			plate.add(csg.cache(csg.translate3D(25 * (i % 20), 25 * (i / 20), 0).transform(geometry)));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(Path.of(saveFile));
+		Files.deleteIfExists(Path.of(save3MFFile));
+		Files.deleteIfExists(Path.of(loadFile));
+		Files.deleteIfExists(Path.of(load3MFFile));
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public void saveSTL() throws IOException
+	{
+		csg.saveSTL(saveFile, geometry);
+	}
+
+	@Benchmark
+	public void saveBinarySTL() throws IOException
+	{
+		csg.saveBinarySTL(saveFile, geometry);
+	}
+
+	@Benchmark
+	public void save3MF() throws IOException
+	{
+		csg.save3MF(save3MFFile, geometry);
+	}
+
+	@Benchmark
+	public void save3MFPlate() throws IOException
+	{
+		csg.save3MF(save3MFFile, plate);
+	}
+
+	@Benchmark
+	public Geometry3D loadSTL() throws IOException
+	{
+		return csg.loadSTL(loadFile);
+	}
+
+	@Benchmark
+	public Geometry3D load3MF() throws IOException
+	{
+		return csg.load3MF(load3MFFile);
+	}
+}
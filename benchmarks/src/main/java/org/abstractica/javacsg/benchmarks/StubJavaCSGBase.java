@@ -0,0 +1,601 @@
+package org.abstractica.javacsg.benchmarks;
+
+import org.abstractica.javacsg.*;
+import org.abstractica.javacsg.impl.baseimpl.Affine2D;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+import org.abstractica.javacsg.impl.baseimpl.Bounds2D;
+import org.abstractica.javacsg.impl.baseimpl.Bounds3D;
+import org.abstractica.javacsg.impl.baseimpl.JavaCSGBase;
+
+import java.util.List;
+import java.util.Map;
+
+// A base that only tracks bounds instead of building real geometry. It measures the cost of
+// JavaCSGImpl itself, and it gives the same numbers on every machine whether OpenSCAD is installed or not.
+public class StubJavaCSGBase implements JavaCSGBase
+{
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices)
+	{
+		return new StubGeometry2D(Bounds2D.of(vertices));
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths)
+	{
+		return new StubGeometry2D(Bounds2D.of(vertices).inexact());
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		return new StubGeometry2D(Bounds2D.of(xy));
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		return new StubGeometry2D(Bounds2D.of(xy).inexact());
+	}
+
+	@Override
+	public Transform2D identity2D()
+	{
+		return new StubTransform2D(Affine2D.IDENTITY);
+	}
+
+	@Override
+	public Transform2D compose2D(List<Transform2D> transforms)
+	{
+		Affine2D result = Affine2D.IDENTITY;
+		for(Transform2D transform : transforms)
+		{
+			result = result.multiply(((StubTransform2D) transform).affine);
+		}
+		return new StubTransform2D(result);
+	}
+
+	@Override
+	public Transform2D translate2D(double x, double y)
+	{
+		return new StubTransform2D(Affine2D.translation(x, y));
+	}
+
+	@Override
+	public Transform2D rotate2D(Angle angle)
+	{
+		return new StubTransform2D(Affine2D.rotation(angle.asRadians()));
+	}
+
+	@Override
+	public Transform2D scale2D(double x, double y)
+	{
+		return new StubTransform2D(Affine2D.scaling(x, y));
+	}
+
+	@Override
+	public Transform2D mirror2D(double normX, double normY)
+	{
+		return new StubTransform2D(Affine2D.mirror(normX, normY));
+	}
+
+	@Override
+	public Geometry2D union2D(Iterable<Geometry2D> geometries)
+	{
+		Bounds2D bounds = Bounds2D.EMPTY;
+		for(Geometry2D geometry : geometries)
+		{
+			bounds = bounds.union(((StubGeometry2D) geometry).bounds);
+		}
+		return new StubGeometry2D(bounds);
+	}
+
+	@Override
+	public Geometry2D intersection2D(Iterable<Geometry2D> geometries)
+	{
+		Bounds2D bounds = Bounds2D.UNKNOWN;
+		for(Geometry2D geometry : geometries)
+		{
+			bounds = bounds.intersection(((StubGeometry2D) geometry).bounds);
+		}
+		return new StubGeometry2D(bounds);
+	}
+
+	@Override
+	public Geometry2D difference2D(Geometry2D filled, Iterable<Geometry2D> cutouts)
+	{
+		return new StubGeometry2D(((StubGeometry2D) filled).bounds.inexact());
+	}
+
+	@Override
+	public Geometry2D hull2D(Iterable<Geometry2D> geometries)
+	{
+		return union2D(geometries);
+	}
+
+	@Override
+	public Geometry2D minkowski2D(Iterable<Geometry2D> geometries)
+	{
+		Bounds2D bounds = null;
+		for(Geometry2D geometry : geometries)
+		{
+			Bounds2D childBounds = ((StubGeometry2D) geometry).bounds;
+			bounds = bounds == null ? childBounds : bounds.minkowski(childBounds);
+		}
+		return new StubGeometry2D(bounds == null ? Bounds2D.EMPTY : bounds);
+	}
+
+	@Override
+	public Geometry2D offset2D(double delta, boolean chamfer, Iterable<Geometry2D> geometries)
+	{
+		StubGeometry2D union = (StubGeometry2D) union2D(geometries);
+		return new StubGeometry2D(union.bounds.expanded(Math.abs(delta) * Math.sqrt(2.0)));
+	}
+
+	@Override
+	public Geometry2D offsetRound2D(double radius, int angularResolution, Iterable<Geometry2D> geometries)
+	{
+		StubGeometry2D union = (StubGeometry2D) union2D(geometries);
+		return new StubGeometry2D(union.bounds.expanded(Math.abs(radius)));
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, int angularResolution)
+	{
+		return char2D(ch, width, charHeight2D(width), angularResolution);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, double height, int angularResolution)
+	{
+		return new StubGeometry2D(new Bounds2D(0, 0, width, height, false));
+	}
+
+	@Override
+	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
+	{
+		return new StubGeometry2D(new Bounds2D(0, 0, text.length() * letterWidth, letterHeight, false));
+	}
+
+	@Override
+	public double charHeight2D(double width)
+	{
+		return 2 * width;
+	}
+
+	@Override
+	public double charBaseline2D(double height)
+	{
+		return 0.2 * height;
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
+	{
+		return new StubGeometry3D(Bounds3D.of(vertices));
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		return new StubGeometry3D(Bounds3D.of(xyz));
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height,
+	                                Angle twist,
+	                                double scale,
+	                                int slices,
+	                                boolean centerZ,
+	                                Geometry2D geometry)
+	{
+		StubGeometry2D profile = (StubGeometry2D) geometry;
+		Bounds3D bounds = Bounds3D.linearExtrude(profile.bounds, height, twist.asDegrees(), scale, centerZ);
+		return new StubGeometry3D(bounds);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, boolean centerZ, Geometry2D geometry)
+	{
+		StubGeometry2D profile = (StubGeometry2D) geometry;
+		return new StubGeometry3D(Bounds3D.linearExtrude(profile.bounds, height, 0, 1, centerZ));
+	}
+
+	@Override
+	public Geometry3D rotateExtrude(Angle angle, int angularResolution, Geometry2D geometry)
+	{
+		StubGeometry2D profile = (StubGeometry2D) geometry;
+		return new StubGeometry3D(Bounds3D.rotateExtrude(profile.bounds));
+	}
+
+	@Override
+	public Geometry2D project(boolean cutAtZeroZ, Geometry3D geometry)
+	{
+		StubGeometry3D source = (StubGeometry3D) geometry;
+		return new StubGeometry2D(source.bounds.projected().inexact());
+	}
+
+	@Override
+	public Transform3D identity3D()
+	{
+		return new StubTransform3D(Affine3D.IDENTITY);
+	}
+
+	@Override
+	public Transform3D compose3D(List<Transform3D> transforms)
+	{
+		Affine3D result = Affine3D.IDENTITY;
+		for(Transform3D transform : transforms)
+		{
+			result = result.multiply(((StubTransform3D) transform).affine);
+		}
+		return new StubTransform3D(result);
+	}
+
+	@Override
+	public Transform3D translate3D(double x, double y, double z)
+	{
+		return new StubTransform3D(Affine3D.translation(x, y, z));
+	}
+
+	@Override
+	public Transform3D rotate3DX(Angle angle)
+	{
+		return new StubTransform3D(Affine3D.rotationX(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3DY(Angle angle)
+	{
+		return new StubTransform3D(Affine3D.rotationY(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3DZ(Angle angle)
+	{
+		return new StubTransform3D(Affine3D.rotationZ(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		return new StubTransform3D(Affine3D.rotation(rotation.w(), rotation.x(), rotation.y(), rotation.z()));
+	}
+
+	@Override
+	public Transform3D scale3D(double x, double y, double z)
+	{
+		return new StubTransform3D(Affine3D.scaling(x, y, z));
+	}
+
+	@Override
+	public Transform3D mirror3D(double normX, double normY, double normZ)
+	{
+		return new StubTransform3D(Affine3D.mirror(normX, normY, normZ));
+	}
+
+	@Override
+	public Geometry3D union3D(Iterable<Geometry3D> geometries)
+	{
+		Bounds3D bounds = Bounds3D.EMPTY;
+		for(Geometry3D geometry : geometries)
+		{
+			bounds = bounds.union(((StubGeometry3D) geometry).bounds);
+		}
+		return new StubGeometry3D(bounds);
+	}
+
+	@Override
+	public Geometry3D intersection3D(Iterable<Geometry3D> geometries)
+	{
+		Bounds3D bounds = Bounds3D.UNKNOWN;
+		for(Geometry3D geometry : geometries)
+		{
+			bounds = bounds.intersection(((StubGeometry3D) geometry).bounds);
+		}
+		return new StubGeometry3D(bounds);
+	}
+
+	@Override
+	public Geometry3D difference3D(Geometry3D filled, Iterable<Geometry3D> cutouts)
+	{
+		return new StubGeometry3D(((StubGeometry3D) filled).bounds.inexact());
+	}
+
+	@Override
+	public Geometry3D hull3D(Iterable<Geometry3D> geometries)
+	{
+		return union3D(geometries);
+	}
+
+	@Override
+	public Geometry3D minkowski3D(Iterable<Geometry3D> geometries)
+	{
+		Bounds3D bounds = null;
+		for(Geometry3D geometry : geometries)
+		{
+			Bounds3D childBounds = ((StubGeometry3D) geometry).bounds;
+			bounds = bounds == null ? childBounds : bounds.minkowski(childBounds);
+		}
+		return new StubGeometry3D(bounds == null ? Bounds3D.EMPTY : bounds);
+	}
+
+	@Override
+	public Geometry3D color3D(Color color, Geometry3D geometry)
+	{
+		StubGeometry3D child = (StubGeometry3D) geometry;
+		return new StubGeometry3D(child.bounds);
+	}
+
+	@Override
+	public void view(Geometry2D geometry)
+	{
+	}
+
+	@Override
+	public void view(Geometry3D geometry)
+	{
+	}
+
+	@Override
+	public void view(Geometry2D geometry, int windowID)
+	{
+	}
+
+	@Override
+	public void view(Geometry3D geometry, int windowID)
+	{
+	}
+
+	@Override
+	public Geometry2D cache(Geometry2D geometry)
+	{
+		return geometry;
+	}
+
+	@Override
+	public Geometry3D cache(Geometry3D geometry)
+	{
+		return geometry;
+	}
+
+	@Override
+	public Geometry3D loadSTL(String fileName)
+	{
+		throw new UnsupportedOperationException("The stub base does not read files!");
+	}
+
+	@Override
+	public void saveSTL(String fileName, Geometry3D geometry)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public Geometry3D load3MF(String fileName)
+	{
+		throw new UnsupportedOperationException("The stub base does not read files!");
+	}
+
+	@Override
+	public void save3MF(String fileName, Geometry3D geometry)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects)
+	{
+		throw new UnsupportedOperationException("The stub base does not write files!");
+	}
+
+	@Override
+	public boolean isMarkedOrDisabled(Geometry geometry)
+	{
+		return false;
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+	}
+
+	static final class StubGeometry2D implements Geometry2D
+	{
+		private final Bounds2D bounds;
+
+		private StubGeometry2D(Bounds2D bounds)
+		{
+			this.bounds = bounds;
+		}
+
+		@Override
+		public void debugMark()
+		{
+		}
+
+		@Override
+		public void disable()
+		{
+		}
+
+		@Override
+		public Vector2D getMin()
+		{
+			return bounds.min();
+		}
+
+		@Override
+		public Vector2D getMax()
+		{
+			return bounds.max();
+		}
+
+		@Override
+		public Vector2D getConservativeMin()
+		{
+			return bounds.min();
+		}
+
+		@Override
+		public Vector2D getConservativeMax()
+		{
+			return bounds.max();
+		}
+	}
+
+	static final class StubGeometry3D implements Geometry3D
+	{
+		private final Bounds3D bounds;
+
+		private StubGeometry3D(Bounds3D bounds)
+		{
+			this.bounds = bounds;
+		}
+
+		@Override
+		public void debugMark()
+		{
+		}
+
+		@Override
+		public void disable()
+		{
+		}
+
+		@Override
+		public Vector3D getMin()
+		{
+			return bounds.min();
+		}
+
+		@Override
+		public Vector3D getMax()
+		{
+			return bounds.max();
+		}
+
+		@Override
+		public Vector3D getConservativeMin()
+		{
+			return bounds.min();
+		}
+
+		@Override
+		public Vector3D getConservativeMax()
+		{
+			return bounds.max();
+		}
+	}
+
+	private static final class StubTransform2D implements Transform2D
+	{
+		private final Affine2D affine;
+
+		private StubTransform2D(Affine2D affine)
+		{
+			this.affine = affine;
+		}
+
+		@Override
+		public Transform2D inverse()
+		{
+			return new StubTransform2D(affine.inverse());
+		}
+
+		@Override
+		public Vector2D transformPoint(Vector2D vector)
+		{
+			return affine.transformPoint(vector);
+		}
+
+		@Override
+		public PointBuffer2D transformPoints(PointBuffer2D points)
+		{
+			return affine.transformPoints(points);
+		}
+
+		@Override
+		public Vector2D transformDirection(Vector2D vector)
+		{
+			return affine.transformDirection(vector);
+		}
+
+		@Override
+		public Geometry2D transform(Geometry2D geometry)
+		{
+			StubGeometry2D child = (StubGeometry2D) geometry;
+			return new StubGeometry2D(child.bounds.transformed(affine));
+		}
+
+		@Override
+		public Transform3D asTransform3D()
+		{
+			return new StubTransform3D(affine.asAffine3D());
+		}
+	}
+
+	private static final class StubTransform3D implements Transform3D
+	{
+		private final Affine3D affine;
+
+		private StubTransform3D(Affine3D affine)
+		{
+			this.affine = affine;
+		}
+
+		@Override
+		public Transform3D inverse()
+		{
+			return new StubTransform3D(affine.inverse());
+		}
+
+		@Override
+		public Vector3D transformPoint(Vector3D vector)
+		{
+			return affine.transformPoint(vector);
+		}
+
+		@Override
+		public PointBuffer3D transformPoints(PointBuffer3D points)
+		{
+			return affine.transformPoints(points);
+		}
+
+		@Override
+		public Vector3D transformDirection(Vector3D vector)
+		{
+			return affine.transformDirection(vector);
+		}
+
+		@Override
+		public Geometry3D transform(Geometry3D geometry)
+		{
+			StubGeometry3D child = (StubGeometry3D) geometry;
+			return new StubGeometry3D(child.bounds.transformed(affine));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.abstractica.javacsg.benchmarks;
+
+import org.abstractica.javacsg.JavaCSG;
+import org.abstractica.javacsg.PointBuffer3D;
+import org.abstractica.javacsg.Transform3D;
+import org.abstractica.javacsg.Vector3D;
+import org.abstractica.javacsg.impl.JavaCSGImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark
+{
+	private JavaCSG csg;
+	private Transform3D a;
+	private Transform3D b;
+	private Transform3D c;
+	private Transform3D composed;
+	private Vector3D point;
+	private PointBuffer3D points;
+	private Vector3D from;
+	private Vector3D to;
+
+	@Setup
+	public void setup()
+	{
+		csg = new JavaCSGImpl(new StubJavaCSGBase());
+		a = csg.translate3D(1, 2, 3);
+		b = csg.rotate3DZ(csg.degrees(30));
+		c = csg.scale3D(2, 1, 0.5);
+		composed = csg.compose3D(a, b, c);
+		point = csg.vector3D(1, 1, 1);
+		points = new PointBuffer3D(1_000_000);
+		for(int i = 0; i < points.size(); i++)
+		{
+			points.set(i, i, 2 * i, 3 * i);
+		}
+		from = csg.vector3D(0, 0, 1);
+		to = csg.vector3D(1, 2, 3);
+	}
+
+	@Benchmark
+	public Transform3D compose3D()
+	{
+		return csg.compose3D(a, b, c);
+	}
+
+	@Benchmark
+	public Vector3D transformPoint()
+	{
+		return composed.transformPoint(point);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public PointBuffer3D transformMillionPoints()
+	{
+		return composed.transformPoints(points);
+	}
+
+	@Benchmark
+	public Transform3D rotate3DVectorIntoVector()
+	{
+		return csg.rotate3DVectorIntoVector(from, to);
+	}
+}
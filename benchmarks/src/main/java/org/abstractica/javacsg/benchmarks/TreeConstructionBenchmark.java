@@ -0,0 +1,70 @@
+package org.abstractica.javacsg.benchmarks;
+
+import org.abstractica.javacsg.Geometry2D;
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.JavaCSG;
+import org.abstractica.javacsg.impl.JavaCSGImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeConstructionBenchmark
+{
+	@Param({"10", "100", "1000"})
+	public int n;
+
+	@Param({"64", "256"})
+	public int angularResolution;
+
+	private JavaCSG csg;
+	private String text;
+
+	@Setup
+	public void setup()
+	{
+		csg = new JavaCSGImpl(new StubJavaCSGBase());
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < n; i++)
+		{
+			sb.append((char) ('A' + i % 26));
+		}
+		text = sb.toString();
+	}
+
+	@Benchmark
+	public Geometry3D unionOfBoxes()
+	{
+		List<Geometry3D> boxes = new ArrayList<>(n);
+		for(int i = 0; i < n; i++)
+		{
+			boxes.add(csg.translate3D(i, 0, 0).transform(csg.box3D(1, 1, 1, false)));
+		}
+		return csg.union3D(boxes);
+	}
+
+	@Benchmark
+	public Geometry2D text()
+	{
+		return csg.text2D(text, 5, angularResolution);
+	}
+
+	@Benchmark
+	public Geometry3D sphere()
+	{
+		return csg.sphere3D(10, angularResolution, false);
+	}
+
+	@Benchmark
+	public Geometry3D torus()
+	{
+		return csg.torus3D(2, 10, angularResolution, angularResolution, false);
+	}
+}
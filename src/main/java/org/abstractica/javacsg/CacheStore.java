@@ -0,0 +1,39 @@
+package org.abstractica.javacsg;
+
+import java.io.IOException;
+
+/**
+ * A key/value store that rendered subtrees are shared through, for example between the machines of
+ * a render farm.
+ * <p>
+ * Pass a store to {@link JavaCSGFactory#createMesh(String, long, CacheStore)} or
+ * {@link JavaCSGFactory#createCached(String, long, CacheStore)}. A subtree that is not in the local
+ * directory is looked for here before it is computed, and every subtree saved locally is also
+ * written here in the background. The keys are derived from the structure of the
+ * subtree, so equal keys always mean equal content, and a value is never replaced by a different one.
+ * <p>
+ * {@link JavaCSGFactory#createDirectoryCacheStore(String)} and
+ * {@link JavaCSGFactory#createHttpCacheStore(String)} create the stores that come with JavaCSG. Other
+ * stores only need to implement the two methods below. Methods may be called from any thread, so
+ * implementations must be thread safe.
+ */
+public interface CacheStore
+{
+	/**
+	 * Returns the value stored under a key.
+	 *
+	 * @param key a key made of letters, digits, dashes and dots
+	 * @return the value, or null if nothing is stored under the key
+	 * @throws IOException if the store could not be read
+	 */
+	byte[] load(String key) throws IOException;
+
+	/**
+	 * Stores a value under a key.
+	 *
+	 * @param key a key made of letters, digits, dashes and dots
+	 * @param value the value to store
+	 * @throws IOException if the store could not be written
+	 */
+	void save(String key, byte[] value) throws IOException;
+}
@@ -29,4 +29,27 @@ public interface Geometry3D extends Geometry
 	 * @return the maximum coordinate as a {@link Vector3D}
 	 */
 	Vector3D getMax();
+
+	/**
+	 * Returns a minimum coordinate that is guaranteed to be at most the exact minimum of this geometry.
+	 * <p>
+	 * Unlike {@link #getMin()}, this method does not render the geometry. The bounds are propagated
+	 * arithmetically through the geometry tree, so they may be larger than the exact bounds, for example
+	 * after rotations or intersections. Use this method when a box that contains the geometry is enough.
+	 * </p>
+	 *
+	 * @return the conservative minimum coordinate as a {@link Vector3D}
+	 */
+	Vector3D getConservativeMin();
+
+	/**
+	 * Returns a maximum coordinate that is guaranteed to be at least the exact maximum of this geometry.
+	 * <p>
+	 * Use this method together with {@link #getConservativeMin()} to obtain a box that contains
+	 * the geometry without rendering it.
+	 * </p>
+	 *
+	 * @return the conservative maximum coordinate as a {@link Vector3D}
+	 */
+	Vector3D getConservativeMax();
 }
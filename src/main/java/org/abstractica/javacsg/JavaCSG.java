@@ -2,6 +2,7 @@ package org.abstractica.javacsg;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides a comprehensive set of immutable geometric modeling operations for both 2D and 3D.
@@ -249,6 +250,35 @@ public interface JavaCSG
 	 */
 	Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths);
 
+	/**
+	 * Creates a 2D polygon from a flat array of coordinates.
+	 * <p>
+	 * This is the same as {@link #polygon2D(Iterable)}, but no object is created per vertex, which
+	 * matters for polygons with very many vertices. The array is copied, so it may be reused afterwards.
+	 *
+	 * @param xy the vertex coordinates, x and y of the first vertex followed by x and y of the second and so on
+	 * @return a new {@link Geometry2D} polygon
+	 * @throws IllegalArgumentException if the length of the array is odd
+	 */
+	Geometry2D polygon2D(double[] xy);
+
+	/**
+	 * Creates a 2D polygon with possibly multiple paths or holes from flat arrays.
+	 * <p>
+	 * This is the same as {@link #polygon2D(Iterable, Iterable)}, but no object is created per vertex
+	 * or index. Path {@code i} consists of the vertices {@code pathIndices[pathOffsets[i]]} up to but not
+	 * including {@code pathIndices[pathOffsets[i + 1]]}, so {@code pathOffsets} has one more entry than
+	 * there are paths, starts with 0 and ends with {@code pathIndices.length}. The arrays are copied, so
+	 * they may be reused afterwards.
+	 *
+	 * @param xy the vertex coordinates, x and y of the first vertex followed by x and y of the second and so on
+	 * @param pathOffsets where each path starts in {@code pathIndices}, followed by the total number of indices
+	 * @param pathIndices the vertex indices of all the paths, one path after the other
+	 * @return a new {@link Geometry2D} polygon
+	 * @throws IllegalArgumentException if the offsets are inconsistent or an index is out of range
+	 */
+	Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices);
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// 2D transformations
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -566,6 +596,25 @@ public interface JavaCSG
 	 */
 	Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution);
 
+	/**
+	 * Creates a 2D geometry representing a text string, made from the glyph outlines of a TrueType font on
+	 * the class path. Unlike {@link #text2D(String, double, double, int)} the text is built from plain
+	 * polygons, so it looks the same on every host and every backend can create it without rendering.
+	 * The baseline lies on the x axis, the digit zero advances {@code letterWidth} and the ascent and
+	 * descent of the font together span {@code letterHeight}. Curves are replaced by straight lines that
+	 * stay within {@code flatness} of them, so a smaller flatness gives smoother and larger polygons.
+	 *
+	 * @param fontResource the class path resource of the font, for example {@code "fonts/DejaVuSansMono.ttf"}
+	 * @param text the text string
+	 * @param letterWidth the width of each character
+	 * @param letterHeight the height of each character
+	 * @param flatness the largest distance between a curve and the lines replacing it
+	 * @return a new {@link Geometry2D} representing the text
+	 * @throws IllegalArgumentException if the font can not be found or is not a TrueType font
+	 * @throws java.io.UncheckedIOException if the font can not be read
+	 */
+	Geometry2D fontText2D(String fontResource, String text, double letterWidth, double letterHeight, double flatness);
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// 2D shapes
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -787,6 +836,75 @@ public interface JavaCSG
 	 */
 	Vector3D fromTo(Vector3D from, Vector3D to);
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Quaternion
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Creates a new {@link Quaternion} with the specified components.
+	 *
+	 * @param w the scalar part
+	 * @param x the x-component of the vector part
+	 * @param y the y-component of the vector part
+	 * @param z the z-component of the vector part
+	 * @return a new {@link Quaternion}
+	 */
+	Quaternion quaternion(double w, double x, double y, double z);
+
+	/**
+	 * Creates a unit {@link Quaternion} that rotates by an angle around an axis.
+	 *
+	 * @param axis the rotation axis as a {@link Vector3D}, which does not need to have unit length
+	 * @param angle the rotation angle as an {@link Angle}, counterclockwise when looking against the axis
+	 * @return a new unit {@link Quaternion}
+	 */
+	Quaternion quaternion(Vector3D axis, Angle angle);
+
+	/**
+	 * Creates a unit {@link Quaternion} that rotates one direction into another along the shortest arc.
+	 *
+	 * @param from the start direction as a {@link Vector3D}
+	 * @param to the end direction as a {@link Vector3D}
+	 * @return a new unit {@link Quaternion}
+	 */
+	Quaternion quaternionVectorIntoVector(Vector3D from, Vector3D to);
+
+	/**
+	 * Multiplies two quaternions. The product of two rotations rotates by {@code quaternion2}
+	 * first and then by {@code quaternion1}, in the same order as {@link #compose3D(Transform3D...)}.
+	 *
+	 * @param quaternion1 the first {@link Quaternion}
+	 * @param quaternion2 the second {@link Quaternion}
+	 * @return a new {@link Quaternion} representing the product
+	 */
+	Quaternion mul(Quaternion quaternion1, Quaternion quaternion2);
+
+	/**
+	 * Computes the inverse of a quaternion. The inverse of a rotation rotates the other way.
+	 *
+	 * @param quaternion the {@link Quaternion} to invert
+	 * @return a new {@link Quaternion} representing the inverse
+	 */
+	Quaternion inverse(Quaternion quaternion);
+
+	/**
+	 * Normalizes the given quaternion to unit length.
+	 *
+	 * @param quaternion the {@link Quaternion} to normalize
+	 * @return a new unit-length {@link Quaternion}
+	 */
+	Quaternion normalized(Quaternion quaternion);
+
+	/**
+	 * Interpolates spherically between two rotations at constant angular speed, along the shortest arc.
+	 *
+	 * @param from the rotation at t = 0 as a {@link Quaternion}
+	 * @param to the rotation at t = 1 as a {@link Quaternion}
+	 * @param t the interpolation parameter in the interval [0.0,1.0]
+	 * @return a new unit {@link Quaternion}
+	 */
+	Quaternion slerp(Quaternion from, Quaternion to, double t);
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Polyhedron3D
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -800,6 +918,25 @@ public interface JavaCSG
 	 */
 	Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces);
 
+	/**
+	 * Creates a 3D polyhedron from flat arrays of vertex coordinates and face indices.
+	 * <p>
+	 * This is the same as {@link #polyhedron3D(Iterable, Iterable)}, but no object is created per
+	 * vertex or index, which keeps meshes with millions of faces cheap to build. Face {@code i} consists
+	 * of the vertices {@code faceIndices[faceOffsets[i]]} up to but not including
+	 * {@code faceIndices[faceOffsets[i + 1]]}, so {@code faceOffsets} has one more entry than there are
+	 * faces, starts with 0 and ends with {@code faceIndices.length}. As with the other overload, faces
+	 * are listed clockwise when seen from the outside. The arrays are copied, so they may be reused
+	 * afterwards.
+	 *
+	 * @param xyz the vertex coordinates, x, y and z of the first vertex followed by those of the second and so on
+	 * @param faceOffsets where each face starts in {@code faceIndices}, followed by the total number of indices
+	 * @param faceIndices the vertex indices of all the faces, one face after the other
+	 * @return a new {@link Geometry3D} polyhedron
+	 * @throws IllegalArgumentException if the offsets are inconsistent or an index is out of range
+	 */
+	Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices);
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// 2D to 3D operations
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -1020,6 +1157,17 @@ public interface JavaCSG
 	 */
 	Transform3D rotate3DVectorIntoVector(Vector3D from, Vector3D to);
 
+	/**
+	 * Creates a 3D rotation transformation from a quaternion.
+	 * <p>
+	 * The rotation becomes a single transformation, no matter how many rotations were multiplied
+	 * into the quaternion.
+	 *
+	 * @param rotation the rotation as a {@link Quaternion}, which does not need to have unit length
+	 * @return a new {@link Transform3D}
+	 */
+	Transform3D rotate3D(Quaternion rotation);
+
 	/**
 	 * Creates a 3D scaling transformation.
 	 *
@@ -1496,6 +1644,41 @@ public interface JavaCSG
 	 */
 	void saveSTL(String fileName, Geometry3D geometry) throws IOException;
 
+	/**
+	 * Saves a 3D geometry to a binary STL file.
+	 * <p>
+	 * Binary STL files are about five times smaller than the ASCII STL files written by
+	 * {@link #saveSTL(String, Geometry3D)} and much faster to write and read. Coordinates are stored
+	 * as single precision floating point numbers.
+	 *
+	 * @param fileName the path to the output STL file
+	 * @param geometry the {@link Geometry3D} to save
+	 * @throws IOException if an I/O error occurs while writing the file
+	 */
+	void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException;
+
+	/**
+	 * Saves a number of 3D geometries to STL files.
+	 * <p>
+	 * This is meant for families of models, such as the same part in many sizes, where the geometries have
+	 * subtrees like hardware cutouts in common. Subtrees contained in more than one of the geometries are
+	 * rendered first, each of them once, and the geometries are then rendered and written side by side.
+	 * When rendering with OpenSCAD, only subtrees passed through {@link #cache(Geometry3D)} are shared.
+	 *
+	 * @param files the geometries to save, keyed by the path of their output STL file
+	 * @throws IOException if an I/O error occurs while writing one of the files
+	 */
+	void saveSTL(Map<String, Geometry3D> files) throws IOException;
+
+	/**
+	 * Saves a number of 3D geometries to binary STL files, sharing work between them like
+	 * {@link #saveSTL(Map)}.
+	 *
+	 * @param files the geometries to save, keyed by the path of their output STL file
+	 * @throws IOException if an I/O error occurs while writing one of the files
+	 */
+	void saveBinarySTL(Map<String, Geometry3D> files) throws IOException;
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Save and load 3MF
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -1517,4 +1700,39 @@ public interface JavaCSG
 	 * @throws IOException if an I/O error occurs while writing the file
 	 */
 	void save3MF(String fileName, Geometry3D geometry) throws IOException;
+
+	/**
+	 * Saves a number of 3D geometries as separate objects in one 3MF file.
+	 * <p>
+	 * This is meant for build plates with many parts. Every geometry becomes an object of its own, placed
+	 * where it is, so slicers see the parts rather than one merged solid. Colors given with
+	 * {@link #color3D(Color, Geometry3D)} are written as materials. When rendering with OpenSCAD, the
+	 * geometries are saved as their union.
+	 *
+	 * @param fileName the path to the output 3MF file
+	 * @param objects the {@link Geometry3D} objects to save
+	 * @throws IOException if an I/O error occurs while writing the file
+	 */
+	void save3MF(String fileName, List<Geometry3D> objects) throws IOException;
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Instrumentation
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Registers a listener that is told about the operations performed, the geometries rendered and
+	 * the files written from now on.
+	 * <p>
+	 * Use a {@link RenderStatistics} to find out where the time goes when a model renders.
+	 *
+	 * @param listener the {@link RenderListener} to register
+	 */
+	void addRenderListener(RenderListener listener);
+
+	/**
+	 * Unregisters a listener registered with {@link #addRenderListener(RenderListener)}.
+	 *
+	 * @param listener the {@link RenderListener} to unregister
+	 */
+	void removeRenderListener(RenderListener listener);
 }
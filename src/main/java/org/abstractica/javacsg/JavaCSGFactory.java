@@ -1,8 +1,14 @@
 package org.abstractica.javacsg;
 
+import org.abstractica.javacsg.impl.baseimpl.DirectoryCacheStore;
+import org.abstractica.javacsg.impl.baseimpl.HttpCacheStore;
 import org.abstractica.javacsg.impl.baseimpl.JavaCSGBase;
 import org.abstractica.javacsg.impl.JavaCSGImpl;
+import org.abstractica.javacsg.impl.baseimpl.RenderScheduler;
 import org.abstractica.javacsg.impl.baseimpl.javaopenscad.JavaCSGBaseOpenSCADImpl;
+import org.abstractica.javacsg.impl.baseimpl.mesh.JavaCSGBaseMeshImpl;
+
+import java.nio.file.Path;
 
 /**
  * A factory class for creating {@link JavaCSG} instances configured in various ways.
@@ -45,4 +51,176 @@ public class JavaCSGFactory
 		JavaCSG javaCSG = new JavaCSGImpl(base);
 		return javaCSG;
 	}
+
+	/**
+	 * Creates a cache-configured {@link JavaCSG} instance that limits how many geometries render at once.
+	 * <p>
+	 * Every call to {@code cache} starts rendering its geometry in the background, so independent
+	 * cached parts of an assembly render concurrently. By default as many renders run at once as
+	 * there are available processors.
+	 *
+	 * @param cacheDirectory a string representing the directory path where cached geometries will be stored
+	 * @param maxConcurrentRenders the maximum number of OpenSCAD renders running at the same time
+	 * @return a newly created {@link JavaCSG} instance with caching configuration
+	 */
+	public static JavaCSG createCached(String cacheDirectory, int maxConcurrentRenders)
+	{
+		return createCached(cacheDirectory, maxConcurrentRenders, JavaCSGBaseOpenSCADImpl.DEFAULT_MEMORY_CACHE_ENTRIES);
+	}
+
+	/**
+	 * Creates a cache-configured {@link JavaCSG} instance with a custom in-memory cache size.
+	 * <p>
+	 * Cached geometries are remembered in memory in front of the cache directory, so a geometry that
+	 * was cached before is found again without touching the file system. The least recently used
+	 * geometries are dropped when the memory cache holds more than the given number of geometries.
+	 *
+	 * @param cacheDirectory a string representing the directory path where cached geometries will be stored
+	 * @param maxConcurrentRenders the maximum number of OpenSCAD renders running at the same time
+	 * @param memoryCacheEntries the number of cached geometries remembered in memory
+	 * @return a newly created {@link JavaCSG} instance with caching configuration
+	 */
+	public static JavaCSG createCached(String cacheDirectory, int maxConcurrentRenders, int memoryCacheEntries)
+	{
+		RenderScheduler scheduler = new RenderScheduler(maxConcurrentRenders);
+		JavaCSGBase base = new JavaCSGBaseOpenSCADImpl(cacheDirectory, scheduler, memoryCacheEntries);
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a cache-configured {@link JavaCSG} instance that keeps its renders in a store of limited
+	 * size and can share them through a {@link CacheStore}.
+	 * <p>
+	 * Unlike {@link #createCached(String)}, every cached geometry is rendered to a triangle mesh once and
+	 * stored compressed in the directory under its structural hash, and OpenSCAD imports the mesh from
+	 * there. Colors inside a cached geometry are therefore not kept. Several processes may use the same
+	 * directory at once. A geometry one of them is rendering is waited for by the others rather than
+	 * rendered again, and the renders used least recently are removed from the directory when it grows
+	 * beyond the given number of bytes.
+	 * <p>
+	 * A geometry that is not in the directory is looked for in the remote store before it is rendered,
+	 * and every render stored in the directory is also written to the remote store in the background.
+	 * If the remote store fails, it is not used for the rest of the run and rendering goes on with the
+	 * directory alone.
+	 *
+	 * @param cacheDirectory a string representing the directory path where cached geometries will be stored
+	 * @param maxCacheBytes the number of bytes the directory may grow to
+	 * @param remoteStore the store the renders are shared through, or null to use the directory alone
+	 * @return a newly created {@link JavaCSG} instance with caching configuration
+	 */
+	public static JavaCSG createCached(String cacheDirectory, long maxCacheBytes, CacheStore remoteStore)
+	{
+		JavaCSGBase base = new JavaCSGBaseOpenSCADImpl(cacheDirectory, maxCacheBytes, remoteStore);
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a {@link JavaCSG} instance that evaluates geometries in-process.
+	 * <p>
+	 * Use this method to obtain a {@link JavaCSG} object that renders geometries on an in-memory
+	 * triangle mesh instead of running OpenSCAD. Text is made from the outlines of the monospaced
+	 * font of the Java runtime, so it looks different from the text OpenSCAD renders; use
+	 * {@link JavaCSG#fontText2D} for text that looks the same everywhere.
+	 *
+	 * @return a newly created {@link JavaCSG} instance using the in-process mesh backend
+	 */
+	public static JavaCSG createMesh()
+	{
+		JavaCSGBase base = new JavaCSGBaseMeshImpl();
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a {@link JavaCSG} instance that evaluates geometries in-process and remembers the
+	 * results between runs.
+	 * <p>
+	 * Every subtree that takes noticeable time to evaluate is stored in the given directory under its
+	 * structural hash. When the model is built again, subtrees that did not change are loaded from
+	 * the directory instead of being evaluated, so after changing one part of a large assembly only
+	 * that part and the operations containing it are recomputed. Register a {@link RenderStatistics}
+	 * to see what was recomputed. The directory may be deleted at any time to start over.
+	 * <p>
+	 * Several processes may use the same directory at once. A subtree one of them is computing is
+	 * waited for by the others rather than computed again. When the directory grows beyond 1 GiB, the
+	 * subtrees used least recently are removed from it.
+	 *
+	 * @param storeDirectory the directory where evaluated subtrees are stored
+	 * @return a newly created {@link JavaCSG} instance using the in-process mesh backend
+	 */
+	public static JavaCSG createMesh(String storeDirectory)
+	{
+		JavaCSGBase base = new JavaCSGBaseMeshImpl(storeDirectory);
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a {@link JavaCSG} instance that evaluates geometries in-process and remembers the
+	 * results between runs in a directory of limited size.
+	 * <p>
+	 * This works like {@link #createMesh(String)}, except that the subtrees used least recently are
+	 * removed from the directory when it grows beyond the given number of bytes.
+	 *
+	 * @param storeDirectory the directory where evaluated subtrees are stored
+	 * @param maxStoreBytes the number of bytes the directory may grow to
+	 * @return a newly created {@link JavaCSG} instance using the in-process mesh backend
+	 */
+	public static JavaCSG createMesh(String storeDirectory, long maxStoreBytes)
+	{
+		JavaCSGBase base = new JavaCSGBaseMeshImpl(storeDirectory, maxStoreBytes);
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a {@link JavaCSG} instance that evaluates geometries in-process and shares the results
+	 * through a {@link CacheStore}.
+	 * <p>
+	 * This works like {@link #createMesh(String, long)}. In addition, a subtree that is not in the
+	 * directory is looked for in the remote store before it is evaluated, and every subtree stored in
+	 * the directory is also written to the remote store in the background. If the remote store fails,
+	 * it is not used for the rest of the run and rendering goes on with the directory alone.
+	 *
+	 * @param storeDirectory the directory where evaluated subtrees are stored
+	 * @param maxStoreBytes the number of bytes the directory may grow to
+	 * @param remoteStore the store the evaluated subtrees are shared through
+	 * @return a newly created {@link JavaCSG} instance using the in-process mesh backend
+	 */
+	public static JavaCSG createMesh(String storeDirectory, long maxStoreBytes, CacheStore remoteStore)
+	{
+		JavaCSGBase base = new JavaCSGBaseMeshImpl(storeDirectory, maxStoreBytes, remoteStore);
+		JavaCSG javaCSG = new JavaCSGImpl(base);
+		return javaCSG;
+	}
+
+	/**
+	 * Creates a {@link CacheStore} that keeps its values as files in a directory.
+	 * <p>
+	 * The directory is typically on a file server that several machines mount.
+	 *
+	 * @param directory the directory where the values are stored
+	 * @return a newly created {@link CacheStore}
+	 */
+	public static CacheStore createDirectoryCacheStore(String directory)
+	{
+		return new DirectoryCacheStore(Path.of(directory));
+	}
+
+	/**
+	 * Creates a {@link CacheStore} on an HTTP server.
+	 * <p>
+	 * A value is written with PUT and read with GET on the base URL followed by its key, which is what
+	 * common build cache servers and plain WebDAV servers support. A GET answered with 404 means that
+	 * nothing is stored under the key.
+	 *
+	 * @param baseUrl the http or https URL the keys are appended to
+	 * @return a newly created {@link CacheStore}
+	 */
+	public static CacheStore createHttpCacheStore(String baseUrl)
+	{
+		return new HttpCacheStore(baseUrl);
+	}
 }
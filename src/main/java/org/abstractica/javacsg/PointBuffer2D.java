@@ -0,0 +1,152 @@
+package org.abstractica.javacsg;
+
+import org.abstractica.javacsg.impl.Vector2DImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-size buffer of 2D points stored as two primitive arrays, one per coordinate.
+ * <p>
+ * Use a point buffer instead of a list of {@link Vector2D} when transforming many points at once with
+ * {@link Transform2D#transformPoints(PointBuffer2D)}. No object is created per point, and the
+ * coordinates lie next to each other in memory, so large point clouds are transformed in one tight loop.
+ * <p>
+ * Unlike the other types in this package, a point buffer is mutable. JavaCSG never modifies a buffer
+ * passed to it; operations return a new buffer instead.
+ */
+public final class PointBuffer2D
+{
+	private final double[] x;
+	private final double[] y;
+
+	/**
+	 * Creates a buffer of points that all lie at the origin.
+	 *
+	 * @param size the number of points
+	 */
+	public PointBuffer2D(int size)
+	{
+		this(new double[size], new double[size]);
+	}
+
+	/**
+	 * Creates a buffer backed by the given arrays. The arrays are not copied, so later changes to
+	 * them are seen by the buffer and the other way around.
+	 *
+	 * @param x the x-coordinates of the points
+	 * @param y the y-coordinates of the points
+	 * @throws IllegalArgumentException if the arrays do not have the same length
+	 */
+	public PointBuffer2D(double[] x, double[] y)
+	{
+		if(x.length != y.length)
+		{
+			throw new IllegalArgumentException("The coordinate arrays must have the same length: " +
+					x.length + ", " + y.length);
+		}
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Creates a buffer holding the given points.
+	 *
+	 * @param points the points as {@link Vector2D}
+	 * @return a new buffer holding the points in iteration order
+	 */
+	public static PointBuffer2D of(Iterable<Vector2D> points)
+	{
+		List<Vector2D> list = new ArrayList<>();
+		points.forEach(list::add);
+		PointBuffer2D buffer = new PointBuffer2D(list.size());
+		for(int i = 0; i < list.size(); i++)
+		{
+			Vector2D point = list.get(i);
+			buffer.set(i, point.x(), point.y());
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns the number of points in this buffer.
+	 *
+	 * @return the number of points
+	 */
+	public int size()
+	{
+		return x.length;
+	}
+
+	/**
+	 * Returns the x-coordinate of a point.
+	 *
+	 * @param index the index of the point
+	 * @return the x-coordinate
+	 */
+	public double x(int index)
+	{
+		return x[index];
+	}
+
+	/**
+	 * Returns the y-coordinate of a point.
+	 *
+	 * @param index the index of the point
+	 * @return the y-coordinate
+	 */
+	public double y(int index)
+	{
+		return y[index];
+	}
+
+	/**
+	 * Returns a point as a {@link Vector2D}.
+	 *
+	 * @param index the index of the point
+	 * @return a new {@link Vector2D}
+	 */
+	public Vector2D get(int index)
+	{
+		return new Vector2DImpl(x[index], y[index]);
+	}
+
+	/**
+	 * Sets the coordinates of a point.
+	 *
+	 * @param index the index of the point
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 */
+	public void set(int index, double x, double y)
+	{
+		this.x[index] = x;
+		this.y[index] = y;
+	}
+
+	/**
+	 * Returns the array holding the x-coordinates. Changes to the array are seen by the buffer.
+	 *
+	 * @return the backing array of x-coordinates
+	 */
+	public double[] xArray()
+	{
+		return x;
+	}
+
+	/**
+	 * Returns the array holding the y-coordinates. Changes to the array are seen by the buffer.
+	 *
+	 * @return the backing array of y-coordinates
+	 */
+	public double[] yArray()
+	{
+		return y;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PointBuffer2D(" + x.length + " points)";
+	}
+}
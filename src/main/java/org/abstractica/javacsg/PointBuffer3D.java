@@ -0,0 +1,178 @@
+package org.abstractica.javacsg;
+
+import org.abstractica.javacsg.impl.Vector3DImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-size buffer of 3D points stored as three primitive arrays, one per coordinate.
+ * <p>
+ * Use a point buffer instead of a list of {@link Vector3D} when transforming many points at once with
+ * {@link Transform3D#transformPoints(PointBuffer3D)}. No object is created per point, and the
+ * coordinates lie next to each other in memory, so large point clouds are transformed in one tight loop.
+ * <p>
+ * Unlike the other types in this package, a point buffer is mutable. JavaCSG never modifies a buffer
+ * passed to it; operations return a new buffer instead.
+ */
+public final class PointBuffer3D
+{
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+
+	/**
+	 * Creates a buffer of points that all lie at the origin.
+	 *
+	 * @param size the number of points
+	 */
+	public PointBuffer3D(int size)
+	{
+		this(new double[size], new double[size], new double[size]);
+	}
+
+	/**
+	 * Creates a buffer backed by the given arrays. The arrays are not copied, so later changes to
+	 * them are seen by the buffer and the other way around.
+	 *
+	 * @param x the x-coordinates of the points
+	 * @param y the y-coordinates of the points
+	 * @param z the z-coordinates of the points
+	 * @throws IllegalArgumentException if the arrays do not have the same length
+	 */
+	public PointBuffer3D(double[] x, double[] y, double[] z)
+	{
+		if(x.length != y.length || x.length != z.length)
+		{
+			throw new IllegalArgumentException("The coordinate arrays must have the same length: " +
+					x.length + ", " + y.length + ", " + z.length);
+		}
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Creates a buffer holding the given points.
+	 *
+	 * @param points the points as {@link Vector3D}
+	 * @return a new buffer holding the points in iteration order
+	 */
+	public static PointBuffer3D of(Iterable<Vector3D> points)
+	{
+		List<Vector3D> list = new ArrayList<>();
+		points.forEach(list::add);
+		PointBuffer3D buffer = new PointBuffer3D(list.size());
+		for(int i = 0; i < list.size(); i++)
+		{
+			Vector3D point = list.get(i);
+			buffer.set(i, point.x(), point.y(), point.z());
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns the number of points in this buffer.
+	 *
+	 * @return the number of points
+	 */
+	public int size()
+	{
+		return x.length;
+	}
+
+	/**
+	 * Returns the x-coordinate of a point.
+	 *
+	 * @param index the index of the point
+	 * @return the x-coordinate
+	 */
+	public double x(int index)
+	{
+		return x[index];
+	}
+
+	/**
+	 * Returns the y-coordinate of a point.
+	 *
+	 * @param index the index of the point
+	 * @return the y-coordinate
+	 */
+	public double y(int index)
+	{
+		return y[index];
+	}
+
+	/**
+	 * Returns the z-coordinate of a point.
+	 *
+	 * @param index the index of the point
+	 * @return the z-coordinate
+	 */
+	public double z(int index)
+	{
+		return z[index];
+	}
+
+	/**
+	 * Returns a point as a {@link Vector3D}.
+	 *
+	 * @param index the index of the point
+	 * @return a new {@link Vector3D}
+	 */
+	public Vector3D get(int index)
+	{
+		return new Vector3DImpl(x[index], y[index], z[index]);
+	}
+
+	/**
+	 * Sets the coordinates of a point.
+	 *
+	 * @param index the index of the point
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 * @param z the z-coordinate
+	 */
+	public void set(int index, double x, double y, double z)
+	{
+		this.x[index] = x;
+		this.y[index] = y;
+		this.z[index] = z;
+	}
+
+	/**
+	 * Returns the array holding the x-coordinates. Changes to the array are seen by the buffer.
+	 *
+	 * @return the backing array of x-coordinates
+	 */
+	public double[] xArray()
+	{
+		return x;
+	}
+
+	/**
+	 * Returns the array holding the y-coordinates. Changes to the array are seen by the buffer.
+	 *
+	 * @return the backing array of y-coordinates
+	 */
+	public double[] yArray()
+	{
+		return y;
+	}
+
+	/**
+	 * Returns the array holding the z-coordinates. Changes to the array are seen by the buffer.
+	 *
+	 * @return the backing array of z-coordinates
+	 */
+	public double[] zArray()
+	{
+		return z;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PointBuffer3D(" + x.length + " points)";
+	}
+}
@@ -0,0 +1,40 @@
+package org.abstractica.javacsg;
+
+/**
+ * Represents an immutable quaternion defined by a scalar part w and a vector part (x, y, z).
+ * <p>
+ * Unit quaternions describe rotations in 3D space without the gimbal lock of Euler angles.
+ * Create and combine them through {@link JavaCSG}, and turn them into a {@link Transform3D}
+ * with {@link JavaCSG#rotate3D(Quaternion)}.
+ * </p>
+ */
+public interface Quaternion
+{
+	/**
+	 * Returns the scalar part of this quaternion.
+	 *
+	 * @return the w-component as a double
+	 */
+	double w();
+
+	/**
+	 * Returns the x-component of the vector part of this quaternion.
+	 *
+	 * @return the x-component as a double
+	 */
+	double x();
+
+	/**
+	 * Returns the y-component of the vector part of this quaternion.
+	 *
+	 * @return the y-component as a double
+	 */
+	double y();
+
+	/**
+	 * Returns the z-component of the vector part of this quaternion.
+	 *
+	 * @return the z-component as a double
+	 */
+	double z();
+}
@@ -0,0 +1,84 @@
+package org.abstractica.javacsg;
+
+/**
+ * Receives events about the work done while geometries are built and rendered.
+ * <p>
+ * Register a listener with {@link JavaCSG#addRenderListener(RenderListener)} to find out where the
+ * time goes in a long render. All methods have empty default implementations, so a listener only
+ * needs to implement the events it is interested in. Events may be delivered from any thread, so
+ * implementations must be thread safe. {@link RenderStatistics} is a ready-made listener that adds
+ * the events up.
+ */
+public interface RenderListener
+{
+	/**
+	 * Called every time the backend performs a basic operation, such as {@code union3D},
+	 * {@code minkowski3D} or {@code cache}.
+	 *
+	 * @param operation the name of the operation
+	 */
+	default void operationCalled(String operation)
+	{
+	}
+
+	/**
+	 * Called when a geometry passed to {@code cache} has finished rendering.
+	 * <p>
+	 * The geometry is the one that was passed to {@code cache}, so it can be used to tell which
+	 * sub-assembly the time was spent on.
+	 *
+	 * @param geometry the geometry that was rendered
+	 * @param nanos the wall time spent rendering it, in nanoseconds
+	 */
+	default void geometryRendered(Geometry3D geometry, long nanos)
+	{
+	}
+
+	/**
+	 * Called when a geometry passed to {@code cache} is looked up in the in-memory cache.
+	 *
+	 * @param hit true if the geometry had been rendered before and was found in the cache
+	 */
+	default void cacheAccessed(boolean hit)
+	{
+	}
+
+	/**
+	 * Called when a subtree has been evaluated. The mesh backend sends this event for every subtree
+	 * worth storing, and the OpenSCAD backend for every cached geometry when it keeps its renders in a
+	 * store.
+	 * <p>
+	 * With a mesh store (see {@link JavaCSGFactory#createMesh(String)}) or a render store (see
+	 * {@link JavaCSGFactory#createCached(String, long, CacheStore)}) subtrees that were evaluated in an
+	 * earlier run are loaded instead of computed, and the subtrees below them are not evaluated at all.
+	 * The events with {@code reused} false therefore tell which parts of a model were recomputed.
+	 *
+	 * @param operation the name of the operation at the root of the subtree, for example {@code "union3D"}
+	 * @param reused true if the result was loaded from the store, false if it was computed
+	 * @param nanos the wall time spent, including evaluating the children, in nanoseconds
+	 */
+	default void subtreeEvaluated(String operation, boolean reused, long nanos)
+	{
+	}
+
+	/**
+	 * Called when a geometry has been saved to a file.
+	 *
+	 * @param fileName the name of the file written
+	 * @param bytes the size of the file written
+	 * @param nanos the wall time spent rendering and writing the file, in nanoseconds
+	 */
+	default void fileWritten(String fileName, long bytes, long nanos)
+	{
+	}
+
+	/**
+	 * Called when a call to OpenSCAD has returned. Only the OpenSCAD backend sends this event.
+	 *
+	 * @param operation the name of the operation OpenSCAD was called for
+	 * @param nanos the wall time spent waiting for OpenSCAD, in nanoseconds
+	 */
+	default void openSCADCalled(String operation, long nanos)
+	{
+	}
+}
@@ -0,0 +1,290 @@
+package org.abstractica.javacsg;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RenderListener} that adds up the events it receives.
+ * <p>
+ * Register an instance with {@link JavaCSG#addRenderListener(RenderListener)} and print it when the
+ * model has been saved to get an overview of the operations performed, the time spent rendering and
+ * how well the cache worked. Instances are thread safe.
+ */
+public class RenderStatistics implements RenderListener
+{
+	private final ConcurrentHashMap<String, LongAdder> operations = new ConcurrentHashMap<>();
+	private final LongAdder renders = new LongAdder();
+	private final LongAdder renderNanos = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final ConcurrentHashMap<String, LongAdder> recomputed = new ConcurrentHashMap<>();
+	private final LongAdder recomputeNanos = new LongAdder();
+	private final LongAdder reused = new LongAdder();
+	private final LongAdder filesWritten = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder fileNanos = new LongAdder();
+	private final LongAdder openSCADCalls = new LongAdder();
+	private final LongAdder openSCADNanos = new LongAdder();
+
+	@Override
+	public void operationCalled(String operation)
+	{
+		operations.computeIfAbsent(operation, name -> new LongAdder()).increment();
+	}
+
+	@Override
+	public void geometryRendered(Geometry3D geometry, long nanos)
+	{
+		renders.increment();
+		renderNanos.add(nanos);
+	}
+
+	@Override
+	public void cacheAccessed(boolean hit)
+	{
+		(hit ? cacheHits : cacheMisses).increment();
+	}
+
+	@Override
+	public void subtreeEvaluated(String operation, boolean reused, long nanos)
+	{
+		if(reused)
+		{
+			this.reused.increment();
+		}
+		else
+		{
+			recomputed.computeIfAbsent(operation, name -> new LongAdder()).increment();
+			recomputeNanos.add(nanos);
+		}
+	}
+
+	@Override
+	public void fileWritten(String fileName, long bytes, long nanos)
+	{
+		filesWritten.increment();
+		bytesWritten.add(bytes);
+		fileNanos.add(nanos);
+	}
+
+	@Override
+	public void openSCADCalled(String operation, long nanos)
+	{
+		openSCADCalls.increment();
+		openSCADNanos.add(nanos);
+	}
+
+	/**
+	 * Returns how many times an operation has been performed.
+	 *
+	 * @param operation the name of the operation, for example {@code "union3D"}
+	 * @return the number of times the operation has been performed
+	 */
+	public long getOperationCount(String operation)
+	{
+		LongAdder count = operations.get(operation);
+		return count == null ? 0 : count.sum();
+	}
+
+	/**
+	 * Returns how many times each operation has been performed.
+	 *
+	 * @return a map from operation names, in alphabetical order, to counts
+	 */
+	public Map<String, Long> getOperationCounts()
+	{
+		Map<String, Long> result = new TreeMap<>();
+		operations.forEach((operation, count) -> result.put(operation, count.sum()));
+		return result;
+	}
+
+	/**
+	 * Returns the number of cached geometries that have been rendered.
+	 *
+	 * @return the number of renders
+	 */
+	public long getRenderCount()
+	{
+		return renders.sum();
+	}
+
+	/**
+	 * Returns the total wall time spent rendering cached geometries. Renders running at the same
+	 * time are all counted, so this can exceed the time that has passed.
+	 *
+	 * @return the render time in nanoseconds
+	 */
+	public long getRenderNanos()
+	{
+		return renderNanos.sum();
+	}
+
+	/**
+	 * Returns the number of cached geometries found in the in-memory cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getCacheHits()
+	{
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Returns the number of cached geometries not found in the in-memory cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getCacheMisses()
+	{
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * Returns the fraction of cache lookups that were hits.
+	 *
+	 * @return the hit ratio in the interval [0.0,1.0], or 0.0 if there have been no lookups
+	 */
+	public double getCacheHitRatio()
+	{
+		long hits = getCacheHits();
+		long lookups = hits + getCacheMisses();
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Returns the number of subtrees that were computed rather than loaded from the store.
+	 *
+	 * @return the number of recomputed subtrees
+	 */
+	public long getSubtreesRecomputed()
+	{
+		long result = 0;
+		for(LongAdder count : recomputed.values())
+		{
+			result += count.sum();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns how many subtrees were recomputed, by the operation at their root. Together with
+	 * {@link #getSubtreesReused()} this tells how much of a model was affected by a change.
+	 *
+	 * @return a map from operation names, in alphabetical order, to counts
+	 */
+	public Map<String, Long> getRecomputedOperationCounts()
+	{
+		Map<String, Long> result = new TreeMap<>();
+		recomputed.forEach((operation, count) -> result.put(operation, count.sum()));
+		return result;
+	}
+
+	/**
+	 * Returns the wall time spent computing the subtrees that were recomputed. Nested subtrees are
+	 * counted both on their own and as part of their parent.
+	 *
+	 * @return the recompute time in nanoseconds
+	 */
+	public long getRecomputeNanos()
+	{
+		return recomputeNanos.sum();
+	}
+
+	/**
+	 * Returns the number of subtrees loaded from the store instead of being computed.
+	 *
+	 * @return the number of reused subtrees
+	 */
+	public long getSubtreesReused()
+	{
+		return reused.sum();
+	}
+
+	/**
+	 * Returns the number of files saved.
+	 *
+	 * @return the number of files written
+	 */
+	public long getFilesWritten()
+	{
+		return filesWritten.sum();
+	}
+
+	/**
+	 * Returns the total size of the files saved.
+	 *
+	 * @return the number of bytes written
+	 */
+	public long getBytesWritten()
+	{
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * Returns the total wall time spent saving files, including rendering geometry that was not cached.
+	 *
+	 * @return the time spent saving files in nanoseconds
+	 */
+	public long getFileNanos()
+	{
+		return fileNanos.sum();
+	}
+
+	/**
+	 * Returns the number of calls to OpenSCAD.
+	 *
+	 * @return the number of calls to OpenSCAD
+	 */
+	public long getOpenSCADCalls()
+	{
+		return openSCADCalls.sum();
+	}
+
+	/**
+	 * Returns the total wall time spent waiting for OpenSCAD.
+	 *
+	 * @return the time spent in OpenSCAD in nanoseconds
+	 */
+	public long getOpenSCADNanos()
+	{
+		return openSCADNanos.sum();
+	}
+
+	/**
+	 * Sets all counters back to zero.
+	 */
+	public void reset()
+	{
+		operations.clear();
+		recomputed.clear();
+		for(LongAdder adder : new LongAdder[]{renders, renderNanos, cacheHits, cacheMisses, recomputeNanos, reused,
+				filesWritten, bytesWritten, fileNanos, openSCADCalls, openSCADNanos})
+		{
+			adder.reset();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Renders: %d in %.3f s%n", getRenderCount(), getRenderNanos() * 1e-9));
+		sb.append(String.format("Cache: %d hits, %d misses (%.1f%%)%n",
+				getCacheHits(), getCacheMisses(), 100.0 * getCacheHitRatio()));
+		sb.append(String.format("Subtrees: %d recomputed, %d reused%n", getSubtreesRecomputed(), getSubtreesReused()));
+		sb.append(String.format("Files: %d written, %d bytes in %.3f s%n",
+				getFilesWritten(), getBytesWritten(), getFileNanos() * 1e-9));
+		sb.append(String.format("OpenSCAD: %d calls in %.3f s%n", getOpenSCADCalls(), getOpenSCADNanos() * 1e-9));
+		sb.append("Operations:");
+		getOperationCounts().forEach((operation, count) -> sb.append(String.format("%n  %-16s %d", operation, count)));
+		if(!recomputed.isEmpty())
+		{
+			sb.append(String.format("%nRecomputed:"));
+			getRecomputedOperationCounts().forEach((operation, count) ->
+					sb.append(String.format("%n  %-16s %d", operation, count)));
+		}
+		return sb.toString();
+	}
+}
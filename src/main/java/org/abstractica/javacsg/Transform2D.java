@@ -36,6 +36,18 @@ public interface Transform2D
 	 */
 	Vector2D transformPoint(Vector2D vector);
 
+	/**
+	 * Transforms all points in the given buffer according to this transformation.
+	 * <p>
+	 * Use this instead of {@link #transformPoint(Vector2D)} when transforming many points, since
+	 * no object is created per point.
+	 * </p>
+	 *
+	 * @param points the points to transform as a {@link PointBuffer2D}, which is left unchanged
+	 * @return a new {@link PointBuffer2D} holding the transformed points in the same order
+	 */
+	PointBuffer2D transformPoints(PointBuffer2D points);
+
 	/**
 	 * Transforms the given direction vector according to this transformation.
 	 * <p>
@@ -35,6 +35,18 @@ public interface Transform3D
 	 */
 	Vector3D transformPoint(Vector3D vector);
 
+	/**
+	 * Transforms all points in the given buffer according to this transformation.
+	 * <p>
+	 * Use this instead of {@link #transformPoint(Vector3D)} when transforming many points, since
+	 * no object is created per point.
+	 * </p>
+	 *
+	 * @param points the points to transform as a {@link PointBuffer3D}, which is left unchanged
+	 * @return a new {@link PointBuffer3D} holding the transformed points in the same order
+	 */
+	PointBuffer3D transformPoints(PointBuffer3D points);
+
 	/**
 	 * Transforms the given direction vector according to this transformation.
 	 * <p>
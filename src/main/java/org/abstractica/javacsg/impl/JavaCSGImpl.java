@@ -1,12 +1,16 @@
 package org.abstractica.javacsg.impl;
 
 import org.abstractica.javacsg.*;
+import org.abstractica.javacsg.impl.baseimpl.FontOutlines;
+import org.abstractica.javacsg.impl.baseimpl.InstrumentedJavaCSGBase;
 import org.abstractica.javacsg.impl.baseimpl.JavaCSGBase;
+import org.abstractica.javacsg.impl.baseimpl.SimplifyingJavaCSGBase;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public class JavaCSGImpl implements JavaCSG
 {
@@ -15,7 +19,7 @@ public class JavaCSGImpl implements JavaCSG
 	private final JavaCSGBase base;
 	public JavaCSGImpl(JavaCSGBase base)
 	{
-		this.base = base;
+		this.base = new SimplifyingJavaCSGBase(new InstrumentedJavaCSGBase(base));
 	}
 
 	private Geometry2D d1Circle2D(int angularResolution)
@@ -179,6 +183,18 @@ public class JavaCSGImpl implements JavaCSG
 		return base.polygon2D(vertices, paths);
 	}
 
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		return base.polygon2D(xy);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		return base.polygon2D(xy, pathOffsets, pathIndices);
+	}
+
 	@Override
 	public Transform2D identity2D()
 	{
@@ -384,25 +400,20 @@ public class JavaCSGImpl implements JavaCSG
 	@Override
 	public Geometry2D text2D(String text, double letterWidth, int angularResolution)
 	{
-		List<Geometry2D> chars = new ArrayList<>();
-		for(int i = 0; i < text.length(); i++)
-		{
-			Transform2D t = translate2D(i*letterWidth, 0);
-			chars.add(t.transform(char2D(text.charAt(i), letterWidth, angularResolution)));
-		}
-		return base.union2D(chars);
+		return base.text2D(text, letterWidth, base.charHeight2D(letterWidth), angularResolution);
 	}
 
 	@Override
 	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
 	{
-		List<Geometry2D> chars = new ArrayList<>();
-		for(int i = 0; i < text.length(); i++)
-		{
-			Transform2D t = translate2D(i*letterWidth, 0);
-			chars.add(t.transform(char2D(text.charAt(i), letterWidth, letterHeight, angularResolution)));
-		}
-		return base.union2D(chars);
+		return base.text2D(text, letterWidth, letterHeight, angularResolution);
+	}
+
+	@Override
+	public Geometry2D fontText2D(String fontResource, String text, double letterWidth, double letterHeight, double flatness)
+	{
+		FontOutlines.Contours contours = FontOutlines.load(fontResource).layout(text, letterWidth, letterHeight, flatness);
+		return base.polygon2D(contours.xy(), contours.pathOffsets(), contours.pathIndices());
 	}
 
 	@Override
@@ -619,12 +630,160 @@ public class JavaCSGImpl implements JavaCSG
 		return sub(to, from);
 	}
 
+	@Override
+	public Quaternion quaternion(double w, double x, double y, double z)
+	{
+		return new QuaternionImpl(w, x, y, z);
+	}
+
+	@Override
+	public Quaternion quaternion(Vector3D axis, Angle angle)
+	{
+		double length = length(axis);
+		if(length == 0.0)
+		{
+			throw new IllegalArgumentException("Zero-length rotation axis provided");
+		}
+		double halfAngle = angle.asRadians() / 2.0;
+		double s = Math.sin(halfAngle) / length;
+		return new QuaternionImpl(Math.cos(halfAngle), s * axis.x(), s * axis.y(), s * axis.z());
+	}
+
+	@Override
+	public Quaternion quaternionVectorIntoVector(Vector3D from, Vector3D to)
+	{
+		double normFrom = length(from);
+		double normTo = length(to);
+		if(normFrom < 1e-6 || normTo < 1e-6)
+		{
+			throw new IllegalArgumentException("Zero-length vector provided");
+		}
+		// The quaternion (1 + cos(theta), sin(theta) * axis) rotates by theta around the axis once it is
+		// normalized, so the rotation follows from the dot and cross products without any trigonometry.
+		double norm = normFrom * normTo;
+		double w = 1.0 + dot(from, to) / norm;
+		Vector3D axis = cross(from, to);
+		if(w < 1e-12)
+		{
+			// The vectors are opposite, so rotate half a turn around any perpendicular axis.
+			double absX = Math.abs(from.x());
+			double absY = Math.abs(from.y());
+			double absZ = Math.abs(from.z());
+			if(absX < absY && absX < absZ)
+			{
+				axis = new Vector3DImpl(0, -from.z(), from.y());
+			}
+			else if(absY < absZ)
+			{
+				axis = new Vector3DImpl(-from.z(), 0, from.x());
+			}
+			else
+			{
+				axis = new Vector3DImpl(-from.y(), from.x(), 0);
+			}
+			return normalized(new QuaternionImpl(0, axis.x(), axis.y(), axis.z()));
+		}
+		return normalized(new QuaternionImpl(w, axis.x() / norm, axis.y() / norm, axis.z() / norm));
+	}
+
+	@Override
+	public Quaternion mul(Quaternion quaternion1, Quaternion quaternion2)
+	{
+		double w1 = quaternion1.w(), x1 = quaternion1.x(), y1 = quaternion1.y(), z1 = quaternion1.z();
+		double w2 = quaternion2.w(), x2 = quaternion2.x(), y2 = quaternion2.y(), z2 = quaternion2.z();
+		return new QuaternionImpl
+				(
+						w1 * w2 - x1 * x2 - y1 * y2 - z1 * z2,
+						w1 * x2 + x1 * w2 + y1 * z2 - z1 * y2,
+						w1 * y2 - x1 * z2 + y1 * w2 + z1 * x2,
+						w1 * z2 + x1 * y2 - y1 * x2 + z1 * w2
+				);
+	}
+
+	@Override
+	public Quaternion inverse(Quaternion quaternion)
+	{
+		double sqrLength = sqrLength(quaternion);
+		return new QuaternionImpl
+				(
+						quaternion.w() / sqrLength,
+						-quaternion.x() / sqrLength,
+						-quaternion.y() / sqrLength,
+						-quaternion.z() / sqrLength
+				);
+	}
+
+	@Override
+	public Quaternion normalized(Quaternion quaternion)
+	{
+		double length = Math.sqrt(sqrLength(quaternion));
+		return new QuaternionImpl
+				(
+						quaternion.w() / length,
+						quaternion.x() / length,
+						quaternion.y() / length,
+						quaternion.z() / length
+				);
+	}
+
+	@Override
+	public Quaternion slerp(Quaternion from, Quaternion to, double t)
+	{
+		Quaternion a = normalized(from);
+		Quaternion b = normalized(to);
+		double cosTheta = a.w() * b.w() + a.x() * b.x() + a.y() * b.y() + a.z() * b.z();
+		// q and -q are the same rotation, so take the one that gives the shorter arc.
+		double sign = 1.0;
+		if(cosTheta < 0)
+		{
+			cosTheta = -cosTheta;
+			sign = -1.0;
+		}
+		double fa;
+		double fb;
+		if(cosTheta > 0.9995)
+		{
+			// The rotations are so close that linear interpolation is just as accurate and does not divide by ~0.
+			fa = 1.0 - t;
+			fb = t;
+		}
+		else
+		{
+			double theta = Math.acos(cosTheta);
+			double sinTheta = Math.sin(theta);
+			fa = Math.sin((1.0 - t) * theta) / sinTheta;
+			fb = Math.sin(t * theta) / sinTheta;
+		}
+		fb *= sign;
+		return normalized(new QuaternionImpl
+				(
+						fa * a.w() + fb * b.w(),
+						fa * a.x() + fb * b.x(),
+						fa * a.y() + fb * b.y(),
+						fa * a.z() + fb * b.z()
+				));
+	}
+
+	private static double sqrLength(Quaternion quaternion)
+	{
+		return quaternion.w() * quaternion.w() +
+				quaternion.x() * quaternion.x() +
+				quaternion.y() * quaternion.y() +
+				quaternion.z() * quaternion.z();
+	}
+
 	@Override
 	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
 	{
 		return base.polyhedron3D(vertices, faces);
 	}
 
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		return base.polyhedron3D(xyz, faceOffsets, faceIndices);
+	}
+
 	@Override
 	public Geometry3D linearExtrude(double height, Angle twist, double scale, int slices, boolean centerZ, Geometry2D geometry)
 	{
@@ -769,74 +928,13 @@ public class JavaCSGImpl implements JavaCSG
 	@Override
 	public Transform3D rotate3DVectorIntoVector(Vector3D from, Vector3D to)
 	{
-		// Step 1: Compute the norms of the input vectors.
-		double normFrom = Math.sqrt(from.x() * from.x() + from.y() * from.y() + from.z() * from.z());
-		double normTo   = Math.sqrt(to.x() * to.x() + to.y() * to.y() + to.z() * to.z());
-		if (normFrom < 1e-6 || normTo < 1e-6)
-			throw new IllegalArgumentException("Zero-length vector provided");
-
-		// Step 2: Compute the dot product and the angle between the vectors.
-		double dot = from.x() * to.x() + from.y() * to.y() + from.z() * to.z();
-		double cosTheta = dot / (normFrom * normTo);
-		// Clamp cosTheta to avoid NaN due to floating-point inaccuracies.
-		cosTheta = Math.max(-1.0, Math.min(1.0, cosTheta));
-		double theta = Math.acos(cosTheta);
-
-		// Step 3: Compute the cross product to get the rotation axis.
-		double axisX = from.y() * to.z() - from.z() * to.y();
-		double axisY = from.z() * to.x() - from.x() * to.z();
-		double axisZ = from.x() * to.y() - from.y() * to.x();
-		double axisLength = Math.sqrt(axisX * axisX + axisY * axisY + axisZ * axisZ);
-
-		// Step 4: Handle cases where the vectors are parallel or anti-parallel.
-		if (axisLength < 1e-6) {
-			if (cosTheta > 0) {
-				// Vectors are in the same direction; no rotation is needed.
-				return identity3D();
-			} else {
-				// Vectors are opposite; choose an arbitrary perpendicular axis.
-				double absX = Math.abs(from.x());
-				double absY = Math.abs(from.y());
-				double absZ = Math.abs(from.z());
-				if (absX < absY && absX < absZ) {
-					axisX = 0;
-					axisY = -from.z();
-					axisZ = from.y();
-				} else if (absY < absZ) {
-					axisX = -from.z();
-					axisY = 0;
-					axisZ = from.x();
-				} else {
-					axisX = -from.y();
-					axisY = from.x();
-					axisZ = 0;
-				}
-				axisLength = Math.sqrt(axisX * axisX + axisY * axisY + axisZ * axisZ);
-			}
-		}
-
-		// Normalize the axis.
-		double ux = axisX / axisLength;
-		double uy = axisY / axisLength;
-		double uz = axisZ / axisLength;
-
-		// Step 5: Convert the axis-angle rotation into a quaternion.
-		double halfTheta = theta / 2.0;
-		double sinHalfTheta = Math.sin(halfTheta);
-		double cosHalfTheta = Math.cos(halfTheta);
-		// Quaternion representation: q = (w, x, y, z)
-		double q0 = cosHalfTheta;         // w
-		double q1 = sinHalfTheta * ux;      // x
-		double q2 = sinHalfTheta * uy;      // y
-		double q3 = sinHalfTheta * uz;      // z
-
-		// Step 6: Convert the quaternion into Euler angles.
-		// These formulas assume an intrinsic rotation sequence: X (roll), then Y (pitch), then Z (yaw).
-		double roll = Math.atan2(2 * (q0 * q1 + q2 * q3), 1 - 2 * (q1 * q1 + q2 * q2));
-		double pitch = Math.asin(2 * (q0 * q2 - q3 * q1));
-		double yaw = Math.atan2(2 * (q0 * q3 + q1 * q2), 1 - 2 * (q2 * q2 + q3 * q3));
+		return base.rotate3D(quaternionVectorIntoVector(from, to));
+	}
 
-		return rotate3D(radians(roll), radians(pitch), radians(yaw));
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		return base.rotate3D(rotation);
 	}
 
 	@Override
@@ -1187,8 +1285,8 @@ public class JavaCSGImpl implements JavaCSG
 	@Override
 	public Geometry3D slice3DX(double xMin, double xMax, Geometry3D geometry)
 	{
-		Vector3D min = geometry.getMin();
-		Vector3D max = geometry.getMax();
+		Vector3D min = geometry.getConservativeMin();
+		Vector3D max = geometry.getConservativeMax();
 		Geometry3D restrict = boxCorners3D
 			(
 				xMin,
@@ -1205,8 +1303,8 @@ public class JavaCSGImpl implements JavaCSG
 	@Override
 	public Geometry3D slice3DY(double yMin, double yMax, Geometry3D geometry)
 	{
-		Vector3D min = geometry.getMin();
-		Vector3D max = geometry.getMax();
+		Vector3D min = geometry.getConservativeMin();
+		Vector3D max = geometry.getConservativeMax();
 		Geometry3D restrict = boxCorners3D
 			(
 				min.x()-1,
@@ -1223,8 +1321,8 @@ public class JavaCSGImpl implements JavaCSG
 	@Override
 	public Geometry3D slice3DZ(double zMin, double zMax, Geometry3D geometry)
 	{
-		Vector3D min = geometry.getMin();
-		Vector3D max = geometry.getMax();
+		Vector3D min = geometry.getConservativeMin();
+		Vector3D max = geometry.getConservativeMax();
 		Geometry3D restrict = boxCorners3D
 			(
 				min.x()-1,
@@ -1286,6 +1384,24 @@ public class JavaCSGImpl implements JavaCSG
 		base.saveSTL(fileName, geometry);
 	}
 
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		base.saveBinarySTL(fileName, geometry);
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files) throws IOException
+	{
+		base.saveSTL(files);
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files) throws IOException
+	{
+		base.saveBinarySTL(files);
+	}
+
 	@Override
 	public Geometry3D load3MF(String fileName) throws IOException
 	{
@@ -1297,4 +1413,22 @@ public class JavaCSGImpl implements JavaCSG
 	{
 		base.save3MF(fileName, geometry);
 	}
+
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects) throws IOException
+	{
+		base.save3MF(fileName, objects);
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+		base.addRenderListener(listener);
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+		base.removeRenderListener(listener);
+	}
 }
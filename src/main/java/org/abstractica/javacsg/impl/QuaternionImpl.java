@@ -0,0 +1,49 @@
+package org.abstractica.javacsg.impl;
+
+import org.abstractica.javacsg.Quaternion;
+
+public class QuaternionImpl implements Quaternion
+{
+    private final double w;
+    private final double x;
+    private final double y;
+    private final double z;
+
+    public QuaternionImpl(double w, double x, double y, double z)
+    {
+        this.w = w;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    @Override
+    public double w()
+    {
+        return w;
+    }
+
+    @Override
+    public double x()
+    {
+        return x;
+    }
+
+    @Override
+    public double y()
+    {
+        return y;
+    }
+
+    @Override
+    public double z()
+    {
+        return z;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Quaternion(" + w + ", " + x + ", " + y + ", " + z + ")";
+    }
+}
@@ -0,0 +1,215 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.PointBuffer2D;
+import org.abstractica.javacsg.Vector2D;
+import org.abstractica.javacsg.impl.Vector2DImpl;
+
+public final class Affine2D
+{
+	public static final Affine2D IDENTITY = new Affine2D(
+			1, 0, 0,
+			0, 1, 0);
+
+	private final double m00, m01, m02;
+	private final double m10, m11, m12;
+
+	public Affine2D(double m00, double m01, double m02,
+	                double m10, double m11, double m12)
+	{
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+	}
+
+	public static Affine2D translation(double x, double y)
+	{
+		return new Affine2D(
+				1, 0, x,
+				0, 1, y);
+	}
+
+	public static Affine2D rotation(double rad)
+	{
+		double cos = Math.cos(rad);
+		double sin = Math.sin(rad);
+		return new Affine2D(
+				cos, -sin, 0,
+				sin, cos, 0);
+	}
+
+	public static Affine2D scaling(double x, double y)
+	{
+		return new Affine2D(
+				x, 0, 0,
+				0, y, 0);
+	}
+
+	public static Affine2D mirror(double normX, double normY)
+	{
+		double sqrLength = normX * normX + normY * normY;
+		if(sqrLength == 0.0)
+		{
+			return IDENTITY;
+		}
+		double f = 2.0 / sqrLength;
+		return new Affine2D(
+				1 - f * normX * normX, -f * normX * normY, 0,
+				-f * normY * normX, 1 - f * normY * normY, 0);
+	}
+
+	public double m00()
+	{
+		return m00;
+	}
+
+	public double m01()
+	{
+		return m01;
+	}
+
+	public double m02()
+	{
+		return m02;
+	}
+
+	public double m10()
+	{
+		return m10;
+	}
+
+	public double m11()
+	{
+		return m11;
+	}
+
+	public double m12()
+	{
+		return m12;
+	}
+
+	// this * other: applies other first and then this
+	public Affine2D multiply(Affine2D other)
+	{
+		return new Affine2D(
+				m00 * other.m00 + m01 * other.m10,
+				m00 * other.m01 + m01 * other.m11,
+				m00 * other.m02 + m01 * other.m12 + m02,
+				m10 * other.m00 + m11 * other.m10,
+				m10 * other.m01 + m11 * other.m11,
+				m10 * other.m02 + m11 * other.m12 + m12);
+	}
+
+	public double determinant()
+	{
+		return m00 * m11 - m01 * m10;
+	}
+
+	public Affine2D inverse()
+	{
+		double det = determinant();
+		if(det == 0.0)
+		{
+			throw new IllegalStateException("Transformation is not invertible");
+		}
+		double invDet = 1.0 / det;
+		double i00 = m11 * invDet;
+		double i01 = -m01 * invDet;
+		double i10 = -m10 * invDet;
+		double i11 = m00 * invDet;
+		return new Affine2D(
+				i00, i01, -(i00 * m02 + i01 * m12),
+				i10, i11, -(i10 * m02 + i11 * m12));
+	}
+
+	public boolean isIdentity()
+	{
+		return m00 == 1 && m01 == 0 && m02 == 0 &&
+				m10 == 0 && m11 == 1 && m12 == 0;
+	}
+
+	public double transformX(double x, double y)
+	{
+		return m00 * x + m01 * y + m02;
+	}
+
+	public double transformY(double x, double y)
+	{
+		return m10 * x + m11 * y + m12;
+	}
+
+	public Vector2D transformPoint(Vector2D vector)
+	{
+		double x = vector.x();
+		double y = vector.y();
+		return new Vector2DImpl(transformX(x, y), transformY(x, y));
+	}
+
+	public PointBuffer2D transformPoints(PointBuffer2D points)
+	{
+		double[] x = points.xArray();
+		double[] y = points.yArray();
+		PointBuffer2D result = new PointBuffer2D(x.length);
+		double[] rx = result.xArray();
+		double[] ry = result.yArray();
+		for(int i = 0; i < x.length; i++)
+		{
+			double px = x[i];
+			double py = y[i];
+			rx[i] = m00 * px + m01 * py + m02;
+			ry[i] = m10 * px + m11 * py + m12;
+		}
+		return result;
+	}
+
+	public Vector2D transformDirection(Vector2D vector)
+	{
+		double x = vector.x();
+		double y = vector.y();
+		return new Vector2DImpl(m00 * x + m01 * y, m10 * x + m11 * y);
+	}
+
+	public Affine3D asAffine3D()
+	{
+		return new Affine3D(
+				m00, m01, 0, m02,
+				m10, m11, 0, m12,
+				0, 0, 1, 0);
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(this == o)
+		{
+			return true;
+		}
+		if(!(o instanceof Affine2D other))
+		{
+			return false;
+		}
+		return Double.compare(m00, other.m00) == 0 && Double.compare(m01, other.m01) == 0 &&
+				Double.compare(m02, other.m02) == 0 && Double.compare(m10, other.m10) == 0 &&
+				Double.compare(m11, other.m11) == 0 && Double.compare(m12, other.m12) == 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int h = Double.hashCode(m00);
+		h = 31 * h + Double.hashCode(m01);
+		h = 31 * h + Double.hashCode(m02);
+		h = 31 * h + Double.hashCode(m10);
+		h = 31 * h + Double.hashCode(m11);
+		h = 31 * h + Double.hashCode(m12);
+		return h;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Affine2D([" + m00 + ", " + m01 + ", " + m02 + "], [" + m10 + ", " + m11 + ", " + m12 + "])";
+	}
+}
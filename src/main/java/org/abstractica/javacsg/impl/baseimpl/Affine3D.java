@@ -0,0 +1,328 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.PointBuffer3D;
+import org.abstractica.javacsg.Vector3D;
+import org.abstractica.javacsg.impl.Vector3DImpl;
+
+public final class Affine3D
+{
+	public static final Affine3D IDENTITY = new Affine3D(
+			1, 0, 0, 0,
+			0, 1, 0, 0,
+			0, 0, 1, 0);
+
+	private final double m00, m01, m02, m03;
+	private final double m10, m11, m12, m13;
+	private final double m20, m21, m22, m23;
+
+	public Affine3D(double m00, double m01, double m02, double m03,
+	                double m10, double m11, double m12, double m13,
+	                double m20, double m21, double m22, double m23)
+	{
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+	}
+
+	public static Affine3D translation(double x, double y, double z)
+	{
+		return new Affine3D(
+				1, 0, 0, x,
+				0, 1, 0, y,
+				0, 0, 1, z);
+	}
+
+	public static Affine3D rotationX(double rad)
+	{
+		double cos = Math.cos(rad);
+		double sin = Math.sin(rad);
+		return new Affine3D(
+				1, 0, 0, 0,
+				0, cos, -sin, 0,
+				0, sin, cos, 0);
+	}
+
+	public static Affine3D rotationY(double rad)
+	{
+		double cos = Math.cos(rad);
+		double sin = Math.sin(rad);
+		return new Affine3D(
+				cos, 0, sin, 0,
+				0, 1, 0, 0,
+				-sin, 0, cos, 0);
+	}
+
+	public static Affine3D rotationZ(double rad)
+	{
+		double cos = Math.cos(rad);
+		double sin = Math.sin(rad);
+		return new Affine3D(
+				cos, -sin, 0, 0,
+				sin, cos, 0, 0,
+				0, 0, 1, 0);
+	}
+
+	// The quaternion does not need to have unit length.
+	public static Affine3D rotation(double w, double x, double y, double z)
+	{
+		double sqrLength = w * w + x * x + y * y + z * z;
+		if(sqrLength == 0.0)
+		{
+			throw new IllegalArgumentException("A zero quaternion is not a rotation!");
+		}
+		double s = 2.0 / sqrLength;
+		double xx = s * x * x, yy = s * y * y, zz = s * z * z;
+		double xy = s * x * y, xz = s * x * z, yz = s * y * z;
+		double wx = s * w * x, wy = s * w * y, wz = s * w * z;
+		return new Affine3D(
+				1 - yy - zz, xy - wz, xz + wy, 0,
+				xy + wz, 1 - xx - zz, yz - wx, 0,
+				xz - wy, yz + wx, 1 - xx - yy, 0);
+	}
+
+	public static Affine3D scaling(double x, double y, double z)
+	{
+		return new Affine3D(
+				x, 0, 0, 0,
+				0, y, 0, 0,
+				0, 0, z, 0);
+	}
+
+	public static Affine3D mirror(double normX, double normY, double normZ)
+	{
+		double sqrLength = normX * normX + normY * normY + normZ * normZ;
+		if(sqrLength == 0.0)
+		{
+			return IDENTITY;
+		}
+		double f = 2.0 / sqrLength;
+		return new Affine3D(
+				1 - f * normX * normX, -f * normX * normY, -f * normX * normZ, 0,
+				-f * normY * normX, 1 - f * normY * normY, -f * normY * normZ, 0,
+				-f * normZ * normX, -f * normZ * normY, 1 - f * normZ * normZ, 0);
+	}
+
+	public double m00()
+	{
+		return m00;
+	}
+
+	public double m01()
+	{
+		return m01;
+	}
+
+	public double m02()
+	{
+		return m02;
+	}
+
+	public double m03()
+	{
+		return m03;
+	}
+
+	public double m10()
+	{
+		return m10;
+	}
+
+	public double m11()
+	{
+		return m11;
+	}
+
+	public double m12()
+	{
+		return m12;
+	}
+
+	public double m13()
+	{
+		return m13;
+	}
+
+	public double m20()
+	{
+		return m20;
+	}
+
+	public double m21()
+	{
+		return m21;
+	}
+
+	public double m22()
+	{
+		return m22;
+	}
+
+	public double m23()
+	{
+		return m23;
+	}
+
+	// this * other: applies other first and then this
+	public Affine3D multiply(Affine3D other)
+	{
+		return new Affine3D(
+				m00 * other.m00 + m01 * other.m10 + m02 * other.m20,
+				m00 * other.m01 + m01 * other.m11 + m02 * other.m21,
+				m00 * other.m02 + m01 * other.m12 + m02 * other.m22,
+				m00 * other.m03 + m01 * other.m13 + m02 * other.m23 + m03,
+				m10 * other.m00 + m11 * other.m10 + m12 * other.m20,
+				m10 * other.m01 + m11 * other.m11 + m12 * other.m21,
+				m10 * other.m02 + m11 * other.m12 + m12 * other.m22,
+				m10 * other.m03 + m11 * other.m13 + m12 * other.m23 + m13,
+				m20 * other.m00 + m21 * other.m10 + m22 * other.m20,
+				m20 * other.m01 + m21 * other.m11 + m22 * other.m21,
+				m20 * other.m02 + m21 * other.m12 + m22 * other.m22,
+				m20 * other.m03 + m21 * other.m13 + m22 * other.m23 + m23);
+	}
+
+	public double determinant()
+	{
+		return m00 * (m11 * m22 - m12 * m21)
+				- m01 * (m10 * m22 - m12 * m20)
+				+ m02 * (m10 * m21 - m11 * m20);
+	}
+
+	public Affine3D inverse()
+	{
+		double det = determinant();
+		if(det == 0.0)
+		{
+			throw new IllegalStateException("Transformation is not invertible");
+		}
+		double invDet = 1.0 / det;
+		double i00 = (m11 * m22 - m12 * m21) * invDet;
+		double i01 = (m02 * m21 - m01 * m22) * invDet;
+		double i02 = (m01 * m12 - m02 * m11) * invDet;
+		double i10 = (m12 * m20 - m10 * m22) * invDet;
+		double i11 = (m00 * m22 - m02 * m20) * invDet;
+		double i12 = (m02 * m10 - m00 * m12) * invDet;
+		double i20 = (m10 * m21 - m11 * m20) * invDet;
+		double i21 = (m01 * m20 - m00 * m21) * invDet;
+		double i22 = (m00 * m11 - m01 * m10) * invDet;
+		return new Affine3D(
+				i00, i01, i02, -(i00 * m03 + i01 * m13 + i02 * m23),
+				i10, i11, i12, -(i10 * m03 + i11 * m13 + i12 * m23),
+				i20, i21, i22, -(i20 * m03 + i21 * m13 + i22 * m23));
+	}
+
+	public boolean isIdentity()
+	{
+		return m00 == 1 && m01 == 0 && m02 == 0 && m03 == 0 &&
+				m10 == 0 && m11 == 1 && m12 == 0 && m13 == 0 &&
+				m20 == 0 && m21 == 0 && m22 == 1 && m23 == 0;
+	}
+
+	public double transformX(double x, double y, double z)
+	{
+		return m00 * x + m01 * y + m02 * z + m03;
+	}
+
+	public double transformY(double x, double y, double z)
+	{
+		return m10 * x + m11 * y + m12 * z + m13;
+	}
+
+	public double transformZ(double x, double y, double z)
+	{
+		return m20 * x + m21 * y + m22 * z + m23;
+	}
+
+	public Vector3D transformPoint(Vector3D vector)
+	{
+		double x = vector.x();
+		double y = vector.y();
+		double z = vector.z();
+		return new Vector3DImpl(transformX(x, y, z), transformY(x, y, z), transformZ(x, y, z));
+	}
+
+	public PointBuffer3D transformPoints(PointBuffer3D points)
+	{
+		double[] x = points.xArray();
+		double[] y = points.yArray();
+		double[] z = points.zArray();
+		PointBuffer3D result = new PointBuffer3D(x.length);
+		double[] rx = result.xArray();
+		double[] ry = result.yArray();
+		double[] rz = result.zArray();
+		for(int i = 0; i < x.length; i++)
+		{
+			double px = x[i];
+			double py = y[i];
+			double pz = z[i];
+			rx[i] = m00 * px + m01 * py + m02 * pz + m03;
+			ry[i] = m10 * px + m11 * py + m12 * pz + m13;
+			rz[i] = m20 * px + m21 * py + m22 * pz + m23;
+		}
+		return result;
+	}
+
+	public Vector3D transformDirection(Vector3D vector)
+	{
+		double x = vector.x();
+		double y = vector.y();
+		double z = vector.z();
+		return new Vector3DImpl(
+				m00 * x + m01 * y + m02 * z,
+				m10 * x + m11 * y + m12 * z,
+				m20 * x + m21 * y + m22 * z);
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(this == o)
+		{
+			return true;
+		}
+		if(!(o instanceof Affine3D other))
+		{
+			return false;
+		}
+		return Double.compare(m00, other.m00) == 0 && Double.compare(m01, other.m01) == 0 &&
+				Double.compare(m02, other.m02) == 0 && Double.compare(m03, other.m03) == 0 &&
+				Double.compare(m10, other.m10) == 0 && Double.compare(m11, other.m11) == 0 &&
+				Double.compare(m12, other.m12) == 0 && Double.compare(m13, other.m13) == 0 &&
+				Double.compare(m20, other.m20) == 0 && Double.compare(m21, other.m21) == 0 &&
+				Double.compare(m22, other.m22) == 0 && Double.compare(m23, other.m23) == 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int h = Double.hashCode(m00);
+		h = 31 * h + Double.hashCode(m01);
+		h = 31 * h + Double.hashCode(m02);
+		h = 31 * h + Double.hashCode(m03);
+		h = 31 * h + Double.hashCode(m10);
+		h = 31 * h + Double.hashCode(m11);
+		h = 31 * h + Double.hashCode(m12);
+		h = 31 * h + Double.hashCode(m13);
+		h = 31 * h + Double.hashCode(m20);
+		h = 31 * h + Double.hashCode(m21);
+		h = 31 * h + Double.hashCode(m22);
+		h = 31 * h + Double.hashCode(m23);
+		return h;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Affine3D([" + m00 + ", " + m01 + ", " + m02 + ", " + m03 + "], [" +
+				m10 + ", " + m11 + ", " + m12 + ", " + m13 + "], [" +
+				m20 + ", " + m21 + ", " + m22 + ", " + m23 + "])";
+	}
+}
@@ -0,0 +1,113 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Drops the operands of boolean operations that their bounds show can not change the result. Bounds always
+// contain their geometry, so an operand is only dropped when that holds for any geometry inside its bounds.
+public final class BooleanPruning
+{
+	private BooleanPruning()
+	{
+	}
+
+	// A cutout that does not overlap the solid removes nothing from it.
+	public static <G> List<G> cutouts(Bounds3D solid, Iterable<G> cutouts, Function<G, Bounds3D> bounds)
+	{
+		List<G> result = new ArrayList<>();
+		for(G cutout : cutouts)
+		{
+			if(solid.overlaps(bounds.apply(cutout)))
+			{
+				result.add(cutout);
+			}
+		}
+		return result;
+	}
+
+	// An operand that lies inside a filled box in the same union adds nothing to it. Empty operands add nothing.
+	// Of filled operands with the same box the first one is kept, so every dropped operand lies inside a kept one.
+	public static <G> List<G> union(Iterable<G> operands, Function<G, Bounds3D> bounds)
+	{
+		List<G> all = new ArrayList<>();
+		List<Integer> filled = new ArrayList<>();
+		for(G operand : operands)
+		{
+			Bounds3D operandBounds = bounds.apply(operand);
+			if(!operandBounds.isEmpty())
+			{
+				if(operandBounds.isFilled())
+				{
+					filled.add(all.size());
+				}
+				all.add(operand);
+			}
+		}
+		if(filled.isEmpty())
+		{
+			return all;
+		}
+		List<G> result = new ArrayList<>();
+		for(int i = 0; i < all.size(); i++)
+		{
+			Bounds3D operandBounds = bounds.apply(all.get(i));
+			boolean inside = false;
+			for(int j : filled)
+			{
+				Bounds3D box = bounds.apply(all.get(j));
+				if(j != i && box.contains(operandBounds) && (j < i || !operandBounds.contains(box)))
+				{
+					inside = true;
+					break;
+				}
+			}
+			if(!inside)
+			{
+				result.add(all.get(i));
+			}
+		}
+		return result;
+	}
+
+	// Returns null if the operands can not overlap, in which case the intersection is empty. Otherwise a filled
+	// operand that contains all the others is dropped, because intersecting with it changes nothing.
+	public static <G> List<G> intersection(Iterable<G> operands, Function<G, Bounds3D> bounds)
+	{
+		List<G> result = new ArrayList<>();
+		Bounds3D common = null;
+		for(G operand : operands)
+		{
+			Bounds3D operandBounds = bounds.apply(operand);
+			common = common == null ? operandBounds : common.intersection(operandBounds);
+			result.add(operand);
+		}
+		// A box without volume does not even overlap itself.
+		if(common != null && !common.overlaps(common))
+		{
+			return null;
+		}
+		for(int i = 0; i < result.size() && result.size() > 1; i++)
+		{
+			Bounds3D operandBounds = bounds.apply(result.get(i));
+			if(operandBounds.isFilled() && operandBounds.contains(commonOfOthers(result, i, bounds)))
+			{
+				result.remove(i--);
+			}
+		}
+		return result;
+	}
+
+	private static <G> Bounds3D commonOfOthers(List<G> operands, int skip, Function<G, Bounds3D> bounds)
+	{
+		Bounds3D common = Bounds3D.UNKNOWN;
+		for(int i = 0; i < operands.size(); i++)
+		{
+			if(i != skip)
+			{
+				common = common.intersection(bounds.apply(operands.get(i)));
+			}
+		}
+		return common;
+	}
+}
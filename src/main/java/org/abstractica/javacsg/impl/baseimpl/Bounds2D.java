@@ -0,0 +1,237 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.Vector2D;
+import org.abstractica.javacsg.impl.Vector2DImpl;
+
+// An axis aligned box that is known to contain a geometry. The box is exact if it is also the smallest such box,
+// and filled if the geometry is the box itself.
+public final class Bounds2D
+{
+	public static final Bounds2D EMPTY = new Bounds2D(
+			Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+			true);
+
+	public static final Bounds2D UNKNOWN = new Bounds2D(
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+			Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+			false);
+
+	private final double minX, minY;
+	private final double maxX, maxY;
+	private final boolean exact;
+	private final boolean filled;
+
+	public Bounds2D(double minX, double minY, double maxX, double maxY, boolean exact)
+	{
+		this(minX, minY, maxX, maxY, exact, false);
+	}
+
+	private Bounds2D(double minX, double minY, double maxX, double maxY, boolean exact, boolean filled)
+	{
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.exact = exact;
+		this.filled = filled && exact;
+	}
+
+	public static Bounds2D of(Iterable<Vector2D> points)
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for(Vector2D p : points)
+		{
+			minX = Math.min(minX, p.x());
+			minY = Math.min(minY, p.y());
+			maxX = Math.max(maxX, p.x());
+			maxY = Math.max(maxY, p.y());
+		}
+		return new Bounds2D(minX, minY, maxX, maxY, true);
+	}
+
+	public static Bounds2D of(double[] xy)
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i + 1 < xy.length; i += 2)
+		{
+			minX = Math.min(minX, xy[i]);
+			minY = Math.min(minY, xy[i + 1]);
+			maxX = Math.max(maxX, xy[i]);
+			maxY = Math.max(maxY, xy[i + 1]);
+		}
+		return new Bounds2D(minX, minY, maxX, maxY, true);
+	}
+
+	// The bounds of a polygon, which fills them if it is a rectangle traced around its four corners.
+	public static Bounds2D ofPolygon(double[] xy)
+	{
+		Bounds2D bounds = of(xy);
+		if(xy.length != 8 || !(bounds.minX < bounds.maxX && bounds.minY < bounds.maxY))
+		{
+			return bounds;
+		}
+		// Each point is a different corner, and each edge runs along a side to the next corner.
+		int corners = 0;
+		for(int i = 0; i < 4; i++)
+		{
+			double x = xy[2 * i], y = xy[2 * i + 1];
+			double nextX = xy[(2 * i + 2) % 8], nextY = xy[(2 * i + 3) % 8];
+			boolean corner = (x == bounds.minX || x == bounds.maxX) && (y == bounds.minY || y == bounds.maxY);
+			if(!corner || (x == nextX) == (y == nextY))
+			{
+				return bounds;
+			}
+			corners |= 1 << ((x == bounds.maxX ? 1 : 0) + (y == bounds.maxY ? 2 : 0));
+		}
+		if(corners != 0b1111)
+		{
+			return bounds;
+		}
+		return new Bounds2D(bounds.minX, bounds.minY, bounds.maxX, bounds.maxY, true, true);
+	}
+
+	public boolean isEmpty()
+	{
+		return minX > maxX || minY > maxY;
+	}
+
+	public boolean isBounded()
+	{
+		return isEmpty() || (Double.isFinite(minX) && Double.isFinite(minY) &&
+				Double.isFinite(maxX) && Double.isFinite(maxY));
+	}
+
+	public boolean isExact()
+	{
+		return exact;
+	}
+
+	public boolean isFilled()
+	{
+		return filled;
+	}
+
+	public double minX()
+	{
+		return minX;
+	}
+
+	public double minY()
+	{
+		return minY;
+	}
+
+	public double maxX()
+	{
+		return maxX;
+	}
+
+	public double maxY()
+	{
+		return maxY;
+	}
+
+	// An empty box has no corners, so it reports the origin.
+	public Vector2D min()
+	{
+		return isEmpty() ? new Vector2DImpl(0, 0) : new Vector2DImpl(minX, minY);
+	}
+
+	public Vector2D max()
+	{
+		return isEmpty() ? new Vector2DImpl(0, 0) : new Vector2DImpl(maxX, maxY);
+	}
+
+	public double maxRadius()
+	{
+		double x = Math.max(Math.abs(minX), Math.abs(maxX));
+		double y = Math.max(Math.abs(minY), Math.abs(maxY));
+		return Math.sqrt(x * x + y * y);
+	}
+
+	public Bounds2D inexact()
+	{
+		return exact ? new Bounds2D(minX, minY, maxX, maxY, false, false) : this;
+	}
+
+	public Bounds2D union(Bounds2D other)
+	{
+		if(isEmpty())
+		{
+			return other;
+		}
+		if(other.isEmpty())
+		{
+			return this;
+		}
+		return new Bounds2D(
+				Math.min(minX, other.minX), Math.min(minY, other.minY),
+				Math.max(maxX, other.maxX), Math.max(maxY, other.maxY),
+				exact && other.exact);
+	}
+
+	public Bounds2D intersection(Bounds2D other)
+	{
+		Bounds2D result = new Bounds2D(
+				Math.max(minX, other.minX), Math.max(minY, other.minY),
+				Math.min(maxX, other.maxX), Math.min(maxY, other.maxY),
+				filled && other.filled, filled && other.filled);
+		return result.isEmpty() ? EMPTY : result;
+	}
+
+	public Bounds2D minkowski(Bounds2D other)
+	{
+		if(isEmpty() || other.isEmpty())
+		{
+			return EMPTY;
+		}
+		return new Bounds2D(
+				minX + other.minX, minY + other.minY,
+				maxX + other.maxX, maxY + other.maxY,
+				exact && other.exact);
+	}
+
+	// Grows the box by the given distance on all sides. The result is conservative.
+	public Bounds2D expanded(double distance)
+	{
+		if(isEmpty())
+		{
+			return this;
+		}
+		return new Bounds2D(minX - distance, minY - distance, maxX + distance, maxY + distance, false);
+	}
+
+	public Bounds2D scaled(double factor)
+	{
+		return transformed(Affine2D.scaling(factor, factor));
+	}
+
+	// Each output coordinate is an affine function of the box coordinates, so its extremes are found per term.
+	public Bounds2D transformed(Affine2D t)
+	{
+		if(isEmpty() || t.isIdentity())
+		{
+			return this;
+		}
+		if(!isBounded())
+		{
+			return UNKNOWN;
+		}
+		double minResultX = t.m02() + Math.min(t.m00() * minX, t.m00() * maxX) + Math.min(t.m01() * minY, t.m01() * maxY);
+		double maxResultX = t.m02() + Math.max(t.m00() * minX, t.m00() * maxX) + Math.max(t.m01() * minY, t.m01() * maxY);
+		double minResultY = t.m12() + Math.min(t.m10() * minX, t.m10() * maxX) + Math.min(t.m11() * minY, t.m11() * maxY);
+		double maxResultY = t.m12() + Math.max(t.m10() * minX, t.m10() * maxX) + Math.max(t.m11() * minY, t.m11() * maxY);
+		boolean axisAligned = (t.m00() == 0 || t.m01() == 0) && (t.m10() == 0 || t.m11() == 0);
+		return new Bounds2D(minResultX, minResultY, maxResultX, maxResultY, exact && axisAligned, filled && axisAligned);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Bounds2D([" + minX + ", " + minY + "], [" + maxX + ", " + maxY + "], " +
+				(filled ? "filled" : exact ? "exact" : "conservative") + ")";
+	}
+}
@@ -0,0 +1,286 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.Vector3D;
+import org.abstractica.javacsg.impl.Vector3DImpl;
+
+// An axis aligned box that is known to contain a geometry. The box is exact if it is also the smallest such box,
+// and filled if the geometry is the box itself.
+public final class Bounds3D
+{
+	public static final Bounds3D EMPTY = new Bounds3D(
+			Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+			true);
+
+	public static final Bounds3D UNKNOWN = new Bounds3D(
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+			Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+			false);
+
+	private final double minX, minY, minZ;
+	private final double maxX, maxY, maxZ;
+	private final boolean exact;
+	private final boolean filled;
+
+	public Bounds3D(double minX, double minY, double minZ,
+	                double maxX, double maxY, double maxZ,
+	                boolean exact)
+	{
+		this(minX, minY, minZ, maxX, maxY, maxZ, exact, false);
+	}
+
+	private Bounds3D(double minX, double minY, double minZ,
+	                 double maxX, double maxY, double maxZ,
+	                 boolean exact, boolean filled)
+	{
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+		this.exact = exact;
+		this.filled = filled && exact;
+	}
+
+	public static Bounds3D of(Iterable<Vector3D> points)
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		for(Vector3D p : points)
+		{
+			minX = Math.min(minX, p.x());
+			minY = Math.min(minY, p.y());
+			minZ = Math.min(minZ, p.z());
+			maxX = Math.max(maxX, p.x());
+			maxY = Math.max(maxY, p.y());
+			maxZ = Math.max(maxZ, p.z());
+		}
+		return new Bounds3D(minX, minY, minZ, maxX, maxY, maxZ, true);
+	}
+
+	public static Bounds3D of(double[] xyz)
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i + 2 < xyz.length; i += 3)
+		{
+			minX = Math.min(minX, xyz[i]);
+			minY = Math.min(minY, xyz[i + 1]);
+			minZ = Math.min(minZ, xyz[i + 2]);
+			maxX = Math.max(maxX, xyz[i]);
+			maxY = Math.max(maxY, xyz[i + 1]);
+			maxZ = Math.max(maxZ, xyz[i + 2]);
+		}
+		return new Bounds3D(minX, minY, minZ, maxX, maxY, maxZ, true);
+	}
+
+	public static Bounds3D linearExtrude(Bounds2D profile,
+	                                     double height,
+	                                     double twistDegrees,
+	                                     double scale,
+	                                     boolean centerZ)
+	{
+		if(profile.isEmpty() || height <= 0)
+		{
+			return EMPTY;
+		}
+		double minZ = centerZ ? -height / 2 : 0;
+		double maxZ = minZ + height;
+		if(twistDegrees != 0)
+		{
+			// A twisted profile stays within the circle reaching its farthest corner.
+			double r = profile.maxRadius() * Math.max(1.0, Math.abs(scale));
+			return new Bounds3D(-r, -r, minZ, r, r, maxZ, false);
+		}
+		Bounds2D top = profile.scaled(scale);
+		Bounds2D all = profile.union(top);
+		// A straight extrusion of a filled rectangle is a filled box.
+		return new Bounds3D(all.minX(), all.minY(), minZ, all.maxX(), all.maxY(), maxZ, profile.isExact(),
+				profile.isFilled() && scale == 1);
+	}
+
+	public static Bounds3D rotateExtrude(Bounds2D profile)
+	{
+		if(profile.isEmpty())
+		{
+			return EMPTY;
+		}
+		double r = Math.max(Math.abs(profile.minX()), Math.abs(profile.maxX()));
+		return new Bounds3D(-r, -r, profile.minY(), r, r, profile.maxY(), false);
+	}
+
+	public boolean isEmpty()
+	{
+		return minX > maxX || minY > maxY || minZ > maxZ;
+	}
+
+	public boolean isBounded()
+	{
+		return isEmpty() || (Double.isFinite(minX) && Double.isFinite(minY) && Double.isFinite(minZ) &&
+				Double.isFinite(maxX) && Double.isFinite(maxY) && Double.isFinite(maxZ));
+	}
+
+	public boolean isExact()
+	{
+		return exact;
+	}
+
+	public boolean isFilled()
+	{
+		return filled;
+	}
+
+	// Boxes that only touch share no volume, so they do not overlap.
+	public boolean overlaps(Bounds3D other)
+	{
+		return minX < other.maxX && other.minX < maxX &&
+				minY < other.maxY && other.minY < maxY &&
+				minZ < other.maxZ && other.minZ < maxZ;
+	}
+
+	public boolean contains(Bounds3D other)
+	{
+		return other.isEmpty() || (minX <= other.minX && other.maxX <= maxX &&
+				minY <= other.minY && other.maxY <= maxY &&
+				minZ <= other.minZ && other.maxZ <= maxZ);
+	}
+
+	public double minX()
+	{
+		return minX;
+	}
+
+	public double minY()
+	{
+		return minY;
+	}
+
+	public double minZ()
+	{
+		return minZ;
+	}
+
+	public double maxX()
+	{
+		return maxX;
+	}
+
+	public double maxY()
+	{
+		return maxY;
+	}
+
+	public double maxZ()
+	{
+		return maxZ;
+	}
+
+	// An empty box has no corners, so it reports the origin.
+	public Vector3D min()
+	{
+		return isEmpty() ? new Vector3DImpl(0, 0, 0) : new Vector3DImpl(minX, minY, minZ);
+	}
+
+	public Vector3D max()
+	{
+		return isEmpty() ? new Vector3DImpl(0, 0, 0) : new Vector3DImpl(maxX, maxY, maxZ);
+	}
+
+	public Bounds3D inexact()
+	{
+		return exact ? new Bounds3D(minX, minY, minZ, maxX, maxY, maxZ, false, false) : this;
+	}
+
+	public Bounds3D union(Bounds3D other)
+	{
+		if(isEmpty())
+		{
+			return other;
+		}
+		if(other.isEmpty())
+		{
+			return this;
+		}
+		return new Bounds3D(
+				Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+				Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ),
+				exact && other.exact);
+	}
+
+	public Bounds3D intersection(Bounds3D other)
+	{
+		Bounds3D result = new Bounds3D(
+				Math.max(minX, other.minX), Math.max(minY, other.minY), Math.max(minZ, other.minZ),
+				Math.min(maxX, other.maxX), Math.min(maxY, other.maxY), Math.min(maxZ, other.maxZ),
+				filled && other.filled, filled && other.filled);
+		return result.isEmpty() ? EMPTY : result;
+	}
+
+	public Bounds3D minkowski(Bounds3D other)
+	{
+		if(isEmpty() || other.isEmpty())
+		{
+			return EMPTY;
+		}
+		return new Bounds3D(
+				minX + other.minX, minY + other.minY, minZ + other.minZ,
+				maxX + other.maxX, maxY + other.maxY, maxZ + other.maxZ,
+				exact && other.exact);
+	}
+
+	public Bounds2D projected()
+	{
+		if(isEmpty())
+		{
+			return Bounds2D.EMPTY;
+		}
+		return new Bounds2D(minX, minY, maxX, maxY, exact);
+	}
+
+	// Each output coordinate is an affine function of the box coordinates, so its extremes are found per term.
+	public Bounds3D transformed(Affine3D t)
+	{
+		if(isEmpty() || t.isIdentity())
+		{
+			return this;
+		}
+		if(!isBounded())
+		{
+			return UNKNOWN;
+		}
+		double[] x = range(t.m00(), t.m01(), t.m02(), t.m03());
+		double[] y = range(t.m10(), t.m11(), t.m12(), t.m13());
+		double[] z = range(t.m20(), t.m21(), t.m22(), t.m23());
+		boolean axisAligned =
+				nonZero(t.m00(), t.m01(), t.m02()) <= 1 &&
+				nonZero(t.m10(), t.m11(), t.m12()) <= 1 &&
+				nonZero(t.m20(), t.m21(), t.m22()) <= 1;
+		return new Bounds3D(x[0], y[0], z[0], x[1], y[1], z[1], exact && axisAligned, filled && axisAligned);
+	}
+
+	private double[] range(double a, double b, double c, double d)
+	{
+		double min = d;
+		double max = d;
+		min += Math.min(a * minX, a * maxX);
+		max += Math.max(a * minX, a * maxX);
+		min += Math.min(b * minY, b * maxY);
+		max += Math.max(b * minY, b * maxY);
+		min += Math.min(c * minZ, c * maxZ);
+		max += Math.max(c * minZ, c * maxZ);
+		return new double[]{min, max};
+	}
+
+	private static int nonZero(double a, double b, double c)
+	{
+		return (a != 0 ? 1 : 0) + (b != 0 ? 1 : 0) + (c != 0 ? 1 : 0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Bounds3D([" + minX + ", " + minY + ", " + minZ + "], [" + maxX + ", " + maxY + ", " + maxZ + "], " +
+				(filled ? "filled" : exact ? "exact" : "conservative") + ")";
+	}
+}
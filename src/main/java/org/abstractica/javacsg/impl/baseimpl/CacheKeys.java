@@ -0,0 +1,26 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+final class CacheKeys
+{
+	private CacheKeys()
+	{
+	}
+
+	// Keys become file names and URL path segments, so anything that could escape those is refused.
+	static void check(String key)
+	{
+		if(key.isEmpty() || key.startsWith("."))
+		{
+			throw new IllegalArgumentException("Not a valid cache key: " + key);
+		}
+		for(int i = 0; i < key.length(); i++)
+		{
+			char c = key.charAt(i);
+			boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.';
+			if(!valid)
+			{
+				throw new IllegalArgumentException("Not a valid cache key: " + key);
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.Vector2D;
+import org.abstractica.javacsg.Vector3D;
+
+import java.util.Arrays;
+
+// Flattens vertices into the primitive coordinate arrays the backends work on.
+public final class Coordinates
+{
+	private Coordinates()
+	{
+	}
+
+	public static double[] of2D(Iterable<Vector2D> vertices)
+	{
+		double[] result = new double[32];
+		int size = 0;
+		for(Vector2D vertex : vertices)
+		{
+			if(size + 2 > result.length)
+			{
+				result = Arrays.copyOf(result, 2 * result.length);
+			}
+			result[size++] = vertex.x();
+			result[size++] = vertex.y();
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	public static double[] of3D(Iterable<Vector3D> vertices)
+	{
+		double[] result = new double[48];
+		int size = 0;
+		for(Vector3D vertex : vertices)
+		{
+			if(size + 3 > result.length)
+			{
+				result = Arrays.copyOf(result, 2 * result.length);
+			}
+			result[size++] = vertex.x();
+			result[size++] = vertex.y();
+			result[size++] = vertex.z();
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	public static void check(double[] coordinates, int dimensions)
+	{
+		if(coordinates.length % dimensions != 0)
+		{
+			throw new IllegalArgumentException("The number of coordinates must be a multiple of " + dimensions + ": " +
+					coordinates.length);
+		}
+	}
+
+	public static GeometryHash.Builder addTo(GeometryHash.Builder hash, double[] coordinates)
+	{
+		for(double coordinate : coordinates)
+		{
+			hash.add(coordinate);
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,68 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.CacheStore;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// A cache store in a directory, typically one mounted from a file server that the build machines share.
+// Values are written to a temporary file first, so a reader on another machine never sees half a value.
+public final class DirectoryCacheStore implements CacheStore
+{
+	private final Path directory;
+
+	public DirectoryCacheStore(Path directory)
+	{
+		this.directory = directory;
+	}
+
+	@Override
+	public byte[] load(String key) throws IOException
+	{
+		try
+		{
+			return Files.readAllBytes(file(key));
+		} catch (NoSuchFileException e)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public void save(String key, byte[] value) throws IOException
+	{
+		Path file = file(key);
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, key, ".tmp");
+		try
+		{
+			Files.write(temp, value);
+			try
+			{
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private Path file(String key)
+	{
+		CacheKeys.check(key);
+		return directory.resolve(key);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "DirectoryCacheStore(" + directory + ")";
+	}
+}
@@ -0,0 +1,261 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Turns the glyph outlines of a TrueType font into polygon contours, so text is made of plain polygons that
+// look the same on every host instead of depending on the fonts the engine finds. The outline of a glyph is
+// flattened once per flatness and shared by every string using it.
+public final class FontOutlines
+{
+	// Outlines are read at this size and scaled afterwards, so the glyph cache does not depend on the letter size.
+	private static final float FONT_SIZE = 1000f;
+	// No transform and no hinting, so the outlines only depend on the font file.
+	private static final FontRenderContext RENDER_CONTEXT = new FontRenderContext(null, false, true);
+	private static final Map<String, FontOutlines> FONTS = new ConcurrentHashMap<>();
+
+	private final Font font;
+	private final double advance;
+	private final double height;
+	private final Map<Double, Map<Integer, Glyph>> glyphs = new ConcurrentHashMap<>();
+
+	private FontOutlines(Font font)
+	{
+		this.font = font;
+		LineMetrics metrics = font.getLineMetrics("0", RENDER_CONTEXT);
+		this.height = metrics.getAscent() + metrics.getDescent();
+		double zero = font.canDisplay('0') ? font.createGlyphVector(RENDER_CONTEXT, "0").getGlyphMetrics(0).getAdvanceX() : 0;
+		// Fonts without digits get letters half an em wide.
+		this.advance = zero > 0 ? zero : 0.5 * FONT_SIZE;
+	}
+
+	public static FontOutlines load(String resource)
+	{
+		return FONTS.computeIfAbsent(resource, FontOutlines::read);
+	}
+
+	// The monospaced font of the Java runtime, for backends without a font of their own. Which font that is
+	// depends on the host.
+	public static FontOutlines monospaced()
+	{
+		return FONTS.computeIfAbsent(Font.MONOSPACED, name -> new FontOutlines(new Font(name, Font.PLAIN, 1).deriveFont(FONT_SIZE)));
+	}
+
+	private static FontOutlines read(String resource)
+	{
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if(loader == null)
+		{
+			loader = FontOutlines.class.getClassLoader();
+		}
+		String name = resource.startsWith("/") ? resource.substring(1) : resource;
+		try(InputStream in = loader.getResourceAsStream(name))
+		{
+			if(in == null)
+			{
+				throw new IllegalArgumentException("Font not found on the class path: " + resource);
+			}
+			return new FontOutlines(Font.createFont(Font.TRUETYPE_FONT, in).deriveFont(FONT_SIZE));
+		} catch (FontFormatException e)
+		{
+			throw new IllegalArgumentException("Not a TrueType font: " + resource, e);
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException("Could not read the font " + resource, e);
+		}
+	}
+
+	// Lays out the text with its baseline on the x axis. The digit zero advances letterWidth and the ascent and
+	// descent of the font together span letterHeight, the way the engine sizes text. Flatness is the largest
+	// distance between a curve and the lines replacing it, in the units of the result.
+	public Contours layout(String text, double letterWidth, double letterHeight, double flatness)
+	{
+		if(!(letterWidth > 0 && letterHeight > 0))
+		{
+			throw new IllegalArgumentException("The letter size must be positive: " + letterWidth + " x " + letterHeight);
+		}
+		if(!(flatness > 0))
+		{
+			throw new IllegalArgumentException("flatness must be positive: " + flatness);
+		}
+		double scaleX = letterWidth / advance;
+		double scaleY = letterHeight / height;
+		double fontFlatness = flatness / Math.max(scaleX, scaleY);
+		Map<Integer, Glyph> cache = glyphs.computeIfAbsent(fontFlatness, f -> new ConcurrentHashMap<>());
+		GlyphVector vector = font.createGlyphVector(RENDER_CONTEXT, text);
+		int count = vector.getNumGlyphs();
+		Glyph[] laidOut = new Glyph[count];
+		double[] x = new double[count];
+		boolean overlapping = false;
+		for(int i = 0; i < count; i++)
+		{
+			int code = vector.getGlyphCode(i);
+			laidOut[i] = cache.computeIfAbsent(code, c -> flatten(glyphOutline(c), fontFlatness));
+			x[i] = vector.getGlyphPosition(i).getX();
+			// Contours of different glyphs may only be listed side by side when the glyphs do not overlap, since
+			// the polygon fills whatever an odd number of contours encloses.
+			for(int j = 0; j < i && !overlapping; j++)
+			{
+				overlapping = overlap(laidOut[j], x[j], laidOut[i], x[i]);
+			}
+		}
+		Contours result = new Contours();
+		if(overlapping)
+		{
+			Area area = new Area();
+			for(int i = 0; i < count; i++)
+			{
+				area.add(laidOut[i].outline.createTransformedArea(AffineTransform.getTranslateInstance(x[i], 0)));
+			}
+			result.add(flatten(area, fontFlatness), 0, scaleX, scaleY);
+		} else
+		{
+			for(int i = 0; i < count; i++)
+			{
+				result.add(laidOut[i], x[i], scaleX, scaleY);
+			}
+		}
+		return result;
+	}
+
+	private Area glyphOutline(int code)
+	{
+		// The area removes overlaps between the contours of a glyph, which TrueType fills by winding number.
+		return new Area(font.createGlyphVector(RENDER_CONTEXT, new int[]{code}).getOutline());
+	}
+
+	private static boolean overlap(Glyph a, double ax, Glyph b, double bx)
+	{
+		Rectangle2D bounds = a.outline.getBounds2D();
+		bounds.setRect(bounds.getX() + ax - bx, bounds.getY(), bounds.getWidth(), bounds.getHeight());
+		// Boxes overlap far more often than glyphs do, for instance in AV, so the outlines decide.
+		if(!bounds.intersects(b.outline.getBounds2D()))
+		{
+			return false;
+		}
+		Area common = a.outline.createTransformedArea(AffineTransform.getTranslateInstance(ax - bx, 0));
+		common.intersect(b.outline);
+		return !common.isEmpty();
+	}
+
+	private static Glyph flatten(Area outline, double flatness)
+	{
+		List<double[]> contours = new ArrayList<>();
+		double[] contour = new double[64];
+		int size = 0;
+		double[] coordinates = new double[6];
+		for(PathIterator path = outline.getPathIterator(null, flatness); !path.isDone(); path.next())
+		{
+			int type = path.currentSegment(coordinates);
+			if(type == PathIterator.SEG_MOVETO)
+			{
+				addContour(contours, contour, size);
+				size = 0;
+			}
+			if(type == PathIterator.SEG_CLOSE)
+			{
+				addContour(contours, contour, size);
+				size = 0;
+				continue;
+			}
+			if(size + 2 > contour.length)
+			{
+				contour = Arrays.copyOf(contour, 2 * contour.length);
+			}
+			contour[size++] = coordinates[0];
+			contour[size++] = coordinates[1];
+		}
+		addContour(contours, contour, size);
+		return new Glyph(outline, contours);
+	}
+
+	private static void addContour(List<double[]> contours, double[] contour, int size)
+	{
+		// Closed paths usually repeat their first point.
+		if(size >= 4 && contour[0] == contour[size - 2] && contour[1] == contour[size - 1])
+		{
+			size -= 2;
+		}
+		if(size >= 6)
+		{
+			contours.add(Arrays.copyOf(contour, size));
+		}
+	}
+
+	private static final class Glyph
+	{
+		private final Area outline;
+		private final List<double[]> contours;
+
+		private Glyph(Area outline, List<double[]> contours)
+		{
+			this.outline = outline;
+			this.contours = contours;
+		}
+	}
+
+	// The contours of a text, in the form taken by JavaCSG.polygon2D(double[], int[], int[]).
+	public static final class Contours
+	{
+		private double[] xy = new double[256];
+		private int[] offsets = new int[16];
+		private int vertices;
+		private int paths;
+
+		private void add(Glyph glyph, double x, double scaleX, double scaleY)
+		{
+			for(double[] contour : glyph.contours)
+			{
+				if(2 * vertices + contour.length > xy.length)
+				{
+					xy = Arrays.copyOf(xy, Math.max(2 * xy.length, 2 * vertices + contour.length));
+				}
+				// Font space has y pointing down.
+				for(int i = 0; i < contour.length; i += 2)
+				{
+					xy[2 * vertices + i] = (x + contour[i]) * scaleX;
+					xy[2 * vertices + i + 1] = -contour[i + 1] * scaleY;
+				}
+				vertices += contour.length / 2;
+				if(paths + 2 > offsets.length)
+				{
+					offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+				}
+				offsets[++paths] = vertices;
+			}
+		}
+
+		public double[] xy()
+		{
+			return Arrays.copyOf(xy, 2 * vertices);
+		}
+
+		public int[] pathOffsets()
+		{
+			return Arrays.copyOf(offsets, paths + 1);
+		}
+
+		// Every vertex belongs to exactly one path, in order.
+		public int[] pathIndices()
+		{
+			int[] indices = new int[vertices];
+			Arrays.setAll(indices, i -> i);
+			return indices;
+		}
+	}
+}
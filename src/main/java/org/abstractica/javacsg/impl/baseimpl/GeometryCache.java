@@ -0,0 +1,116 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// A least recently used cache of geometries in memory, keyed by their structural hash and bounded by the number
+// of entries. The values only refer to rendered files, so they are all about the same small size.
+public final class GeometryCache<V>
+{
+	private final int maxEntries;
+	private final LinkedHashMap<GeometryHash, V> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public GeometryCache(int maxEntries)
+	{
+		if(maxEntries < 0)
+		{
+			throw new IllegalArgumentException("The cache size can not be negative: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	public synchronized V get(GeometryHash key)
+	{
+		V value = entries.get(key);
+		if(value == null)
+		{
+			misses++;
+			return null;
+		}
+		hits++;
+		return value;
+	}
+
+	// The value is created while the cache is locked, so creating it must be cheap.
+	public synchronized V computeIfAbsent(GeometryHash key, Function<GeometryHash, V> create)
+	{
+		V value = get(key);
+		if(value == null)
+		{
+			value = create.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+
+	public synchronized void put(GeometryHash key, V value)
+	{
+		entries.remove(key);
+		if(maxEntries == 0)
+		{
+			return;
+		}
+		entries.put(key, value);
+		Iterator<Map.Entry<GeometryHash, V>> eldest = entries.entrySet().iterator();
+		while(entries.size() > maxEntries && eldest.hasNext())
+		{
+			eldest.next();
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized void remove(GeometryHash key)
+	{
+		entries.remove(key);
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	public synchronized double getHitRatio()
+	{
+		long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "GeometryCache(" + entries.size() + " of " + maxEntries + " entries, " +
+				hits + " hits, " + misses + " misses, " + evictions + " evictions)";
+	}
+}
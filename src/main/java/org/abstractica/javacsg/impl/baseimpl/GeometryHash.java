@@ -0,0 +1,166 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+// A 128 bit structural hash of a geometry. Geometries built by the same operations from the same
+// parameters and children get the same hash, no matter which objects they were built from.
+public final class GeometryHash
+{
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private final long high;
+	private final long low;
+
+	private GeometryHash(long high, long low)
+	{
+		this.high = high;
+		this.low = low;
+	}
+
+	public static Builder builder(String operation)
+	{
+		Builder builder = new Builder();
+		builder.operation = operation;
+		return builder.add(operation);
+	}
+
+	public long high()
+	{
+		return high;
+	}
+
+	public long low()
+	{
+		return low;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(this == o)
+		{
+			return true;
+		}
+		if(!(o instanceof GeometryHash other))
+		{
+			return false;
+		}
+		return high == other.high && low == other.low;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (int) (low ^ (low >>> 32));
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%016x%016x", high, low);
+	}
+
+	// The mixing steps follow MurmurHash3 x64 128, fed with one 64 bit value at a time.
+	public static final class Builder
+	{
+		private long h1 = 0x9368e53c2f6af274L;
+		private long h2 = 0x586dcd208f7cd3fdL;
+		private long length;
+		private String operation;
+
+		private Builder()
+		{
+		}
+
+		public String operation()
+		{
+			return operation;
+		}
+
+		public Builder add(long value)
+		{
+			long k1 = Long.rotateLeft(value * C1, 31) * C2;
+			h1 ^= k1;
+			h1 = Long.rotateLeft(h1, 27) + h2;
+			h1 = h1 * 5 + 0x52dce729;
+			long k2 = Long.rotateLeft(value * C2, 33) * C1;
+			h2 ^= k2;
+			h2 = Long.rotateLeft(h2, 31) + h1;
+			h2 = h2 * 5 + 0x38495ab5;
+			length++;
+			return this;
+		}
+
+		public Builder add(int value)
+		{
+			return add((long) value);
+		}
+
+		public Builder add(boolean value)
+		{
+			return add(value ? 1L : 0L);
+		}
+
+		// Negative zero and positive zero describe the same geometry.
+		public Builder add(double value)
+		{
+			return add(Double.doubleToLongBits(value == 0.0 ? 0.0 : value));
+		}
+
+		public Builder add(String value)
+		{
+			add(value.length());
+			for(int i = 0; i < value.length(); i += 4)
+			{
+				long packed = 0;
+				for(int j = i; j < Math.min(i + 4, value.length()); j++)
+				{
+					packed = (packed << 16) | value.charAt(j);
+				}
+				add(packed);
+			}
+			return this;
+		}
+
+		public Builder add(GeometryHash hash)
+		{
+			add(hash.high);
+			return add(hash.low);
+		}
+
+		public Builder add(Affine2D t)
+		{
+			add(t.m00()).add(t.m01()).add(t.m02());
+			return add(t.m10()).add(t.m11()).add(t.m12());
+		}
+
+		public Builder add(Affine3D t)
+		{
+			add(t.m00()).add(t.m01()).add(t.m02()).add(t.m03());
+			add(t.m10()).add(t.m11()).add(t.m12()).add(t.m13());
+			return add(t.m20()).add(t.m21()).add(t.m22()).add(t.m23());
+		}
+
+		public GeometryHash build()
+		{
+			long a = h1 ^ length;
+			long b = h2 ^ length;
+			a += b;
+			b += a;
+			a = fmix(a);
+			b = fmix(b);
+			a += b;
+			b += a;
+			return new GeometryHash(a, b);
+		}
+
+		private static long fmix(long k)
+		{
+			k ^= k >>> 33;
+			k *= 0xff51afd7ed558ccdL;
+			k ^= k >>> 33;
+			k *= 0xc4ceb9fe1a85ec53L;
+			k ^= k >>> 33;
+			return k;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hash-consing of what geometries have in common: the value interned for a structurally equal geometry is
+// replaced by the first one built, so equal subtrees share one. Values are held weakly and leave the table once
+// unused.
+public final class GeometryInterner<T>
+{
+	private final ConcurrentHashMap<GeometryHash, Entry<T>> table = new ConcurrentHashMap<>();
+	private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+	public T intern(GeometryHash hash, T candidate)
+	{
+		expunge();
+		while(true)
+		{
+			Entry<T> entry = table.get(hash);
+			if(entry != null)
+			{
+				T existing = entry.get();
+				if(existing != null)
+				{
+					return existing;
+				}
+				if(table.replace(hash, entry, new Entry<>(hash, candidate, queue)))
+				{
+					return candidate;
+				}
+			}
+			else if(table.putIfAbsent(hash, new Entry<>(hash, candidate, queue)) == null)
+			{
+				return candidate;
+			}
+		}
+	}
+
+	public int size()
+	{
+		expunge();
+		return table.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void expunge()
+	{
+		Entry<T> entry;
+		while((entry = (Entry<T>) queue.poll()) != null)
+		{
+			table.remove(entry.hash, entry);
+		}
+	}
+
+	private static final class Entry<T> extends WeakReference<T>
+	{
+		private final GeometryHash hash;
+
+		private Entry(GeometryHash hash, T value, ReferenceQueue<T> queue)
+		{
+			super(value, queue);
+			this.hash = hash;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.CacheStore;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// A cache store on an HTTP server that keeps whatever is PUT under a URL and returns it on GET, as the
+// build cache servers used by Gradle and Bazel do. Every key is a path below the base URL.
+public final class HttpCacheStore implements CacheStore
+{
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+	private final URI base;
+	private final HttpClient client;
+
+	public HttpCacheStore(String baseUrl)
+	{
+		this.base = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+		String scheme = base.getScheme();
+		if(!"http".equals(scheme) && !"https".equals(scheme))
+		{
+			throw new IllegalArgumentException("Not an HTTP URL: " + baseUrl);
+		}
+		this.client = HttpClient.newBuilder()
+				.connectTimeout(CONNECT_TIMEOUT)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+
+	@Override
+	public byte[] load(String key) throws IOException
+	{
+		HttpRequest request = HttpRequest.newBuilder(uri(key)).timeout(REQUEST_TIMEOUT).GET().build();
+		HttpResponse<byte[]> response = send(request);
+		int status = response.statusCode();
+		if(status == 404)
+		{
+			return null;
+		}
+		if(status / 100 != 2)
+		{
+			throw new IOException("GET " + request.uri() + " answered " + status);
+		}
+		return response.body();
+	}
+
+	@Override
+	public void save(String key, byte[] value) throws IOException
+	{
+		HttpRequest request = HttpRequest.newBuilder(uri(key))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Content-Type", "application/octet-stream")
+				.PUT(HttpRequest.BodyPublishers.ofByteArray(value))
+				.build();
+		int status = send(request).statusCode();
+		if(status / 100 != 2)
+		{
+			throw new IOException("PUT " + request.uri() + " answered " + status);
+		}
+	}
+
+	private URI uri(String key)
+	{
+		CacheKeys.check(key);
+		return base.resolve(key);
+	}
+
+	private HttpResponse<byte[]> send(HttpRequest request) throws IOException
+	{
+		try
+		{
+			return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while talking to " + request.uri());
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HttpCacheStore(" + base + ")";
+	}
+}
@@ -0,0 +1,143 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Lists of vertex indices, such as the faces of a polyhedron or the paths of a polygon, stored in two flat
+// arrays: list i holds indices[offsets[i]] up to but not including indices[offsets[i + 1]].
+public final class IndexLists
+{
+	private final int[] offsets;
+	private final int[] indices;
+
+	public IndexLists(int[] offsets, int[] indices)
+	{
+		if(offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != indices.length)
+		{
+			throw new IllegalArgumentException("The offsets must start at 0 and end at the number of indices: " +
+					indices.length);
+		}
+		for(int i = 1; i < offsets.length; i++)
+		{
+			if(offsets[i] < offsets[i - 1])
+			{
+				throw new IllegalArgumentException("The offsets must not decrease: " + offsets[i - 1] + ", " + offsets[i]);
+			}
+		}
+		this.offsets = offsets;
+		this.indices = indices;
+	}
+
+	public static IndexLists of(Iterable<? extends Iterable<Integer>> lists)
+	{
+		int[] offsets = new int[16];
+		int[] indices = new int[64];
+		int count = 0;
+		int size = 0;
+		for(Iterable<Integer> list : lists)
+		{
+			for(Integer index : list)
+			{
+				if(size == indices.length)
+				{
+					indices = Arrays.copyOf(indices, 2 * size);
+				}
+				indices[size++] = index;
+			}
+			if(count + 2 > offsets.length)
+			{
+				offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+			}
+			offsets[++count] = size;
+		}
+		return new IndexLists(Arrays.copyOf(offsets, count + 1), Arrays.copyOf(indices, size));
+	}
+
+	public int count()
+	{
+		return offsets.length - 1;
+	}
+
+	public int start(int list)
+	{
+		return offsets[list];
+	}
+
+	public int end(int list)
+	{
+		return offsets[list + 1];
+	}
+
+	public int index(int position)
+	{
+		return indices[position];
+	}
+
+	public int[] offsets()
+	{
+		return offsets;
+	}
+
+	public int[] indices()
+	{
+		return indices;
+	}
+
+	public IndexLists copy()
+	{
+		return new IndexLists(offsets.clone(), indices.clone());
+	}
+
+	public void checkRange(int vertexCount, String kind)
+	{
+		for(int index : indices)
+		{
+			if(index < 0 || index >= vertexCount)
+			{
+				throw new IllegalArgumentException(kind + " index out of range: " + index);
+			}
+		}
+	}
+
+	// Hashes the same values as hashing each list followed by its negated length, whichever form the lists came in.
+	public GeometryHash.Builder addTo(GeometryHash.Builder hash)
+	{
+		for(int list = 0; list < count(); list++)
+		{
+			for(int i = start(list); i < end(list); i++)
+			{
+				hash.add(indices[i]);
+			}
+			hash.add(-1 - (end(list) - start(list)));
+		}
+		return hash;
+	}
+
+	// A read-only view for APIs that take nested lists. Indices are boxed as they are read, not stored boxed.
+	public List<List<Integer>> asLists()
+	{
+		List<List<Integer>> result = new ArrayList<>(count());
+		for(int list = 0; list < count(); list++)
+		{
+			int start = start(list);
+			int size = end(list) - start;
+			result.add(new AbstractList<>()
+			{
+				@Override
+				public Integer get(int i)
+				{
+					return indices[start + i];
+				}
+
+				@Override
+				public int size()
+				{
+					return size;
+				}
+			});
+		}
+		return result;
+	}
+}
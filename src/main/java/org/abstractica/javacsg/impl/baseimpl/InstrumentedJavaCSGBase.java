@@ -0,0 +1,473 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Counts the operations performed by a backend and times the files it saves. Events that only the backend
+// itself can see, such as renders and cache lookups, are sent by the backend to the same listeners.
+public class InstrumentedJavaCSGBase implements JavaCSGBase
+{
+	private final JavaCSGBase base;
+	private final RenderListeners listeners = new RenderListeners();
+
+	public InstrumentedJavaCSGBase(JavaCSGBase base)
+	{
+		this.base = base;
+	}
+
+	@Override
+	public boolean isMarkedOrDisabled(Geometry geometry)
+	{
+		return base.isMarkedOrDisabled(geometry);
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+		listeners.add(listener);
+		base.addRenderListener(listener);
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+		listeners.remove(listener);
+		base.removeRenderListener(listener);
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices)
+	{
+		listeners.operationCalled("polygon2D");
+		return base.polygon2D(vertices);
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths)
+	{
+		listeners.operationCalled("polygon2D");
+		return base.polygon2D(vertices, paths);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		listeners.operationCalled("polygon2D");
+		return base.polygon2D(xy);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		listeners.operationCalled("polygon2D");
+		return base.polygon2D(xy, pathOffsets, pathIndices);
+	}
+
+	@Override
+	public Transform2D identity2D()
+	{
+		listeners.operationCalled("identity2D");
+		return base.identity2D();
+	}
+
+	@Override
+	public Transform2D compose2D(List<Transform2D> transforms)
+	{
+		listeners.operationCalled("compose2D");
+		return base.compose2D(transforms);
+	}
+
+	@Override
+	public Transform2D translate2D(double x, double y)
+	{
+		listeners.operationCalled("translate2D");
+		return base.translate2D(x, y);
+	}
+
+	@Override
+	public Transform2D rotate2D(Angle angle)
+	{
+		listeners.operationCalled("rotate2D");
+		return base.rotate2D(angle);
+	}
+
+	@Override
+	public Transform2D scale2D(double x, double y)
+	{
+		listeners.operationCalled("scale2D");
+		return base.scale2D(x, y);
+	}
+
+	@Override
+	public Transform2D mirror2D(double normX, double normY)
+	{
+		listeners.operationCalled("mirror2D");
+		return base.mirror2D(normX, normY);
+	}
+
+	@Override
+	public Geometry2D union2D(Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("union2D");
+		return base.union2D(geometries);
+	}
+
+	@Override
+	public Geometry2D intersection2D(Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("intersection2D");
+		return base.intersection2D(geometries);
+	}
+
+	@Override
+	public Geometry2D difference2D(Geometry2D filled, Iterable<Geometry2D> cutouts)
+	{
+		listeners.operationCalled("difference2D");
+		return base.difference2D(filled, cutouts);
+	}
+
+	@Override
+	public Geometry2D hull2D(Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("hull2D");
+		return base.hull2D(geometries);
+	}
+
+	@Override
+	public Geometry2D minkowski2D(Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("minkowski2D");
+		return base.minkowski2D(geometries);
+	}
+
+	@Override
+	public Geometry2D offset2D(double delta, boolean chamfer, Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("offset2D");
+		return base.offset2D(delta, chamfer, geometries);
+	}
+
+	@Override
+	public Geometry2D offsetRound2D(double radius, int angularResolution, Iterable<Geometry2D> geometries)
+	{
+		listeners.operationCalled("offsetRound2D");
+		return base.offsetRound2D(radius, angularResolution, geometries);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, int angularResolution)
+	{
+		listeners.operationCalled("char2D");
+		return base.char2D(ch, width, angularResolution);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, double height, int angularResolution)
+	{
+		listeners.operationCalled("char2D");
+		return base.char2D(ch, width, height, angularResolution);
+	}
+
+	@Override
+	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
+	{
+		listeners.operationCalled("text2D");
+		return base.text2D(text, letterWidth, letterHeight, angularResolution);
+	}
+
+	@Override
+	public double charHeight2D(double width)
+	{
+		return base.charHeight2D(width);
+	}
+
+	@Override
+	public double charBaseline2D(double height)
+	{
+		return base.charBaseline2D(height);
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
+	{
+		listeners.operationCalled("polyhedron3D");
+		return base.polyhedron3D(vertices, faces);
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		listeners.operationCalled("polyhedron3D");
+		return base.polyhedron3D(xyz, faceOffsets, faceIndices);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, Angle twist, double scale, int slices, boolean centerZ, Geometry2D geometry)
+	{
+		listeners.operationCalled("linearExtrude");
+		return base.linearExtrude(height, twist, scale, slices, centerZ, geometry);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, boolean centerZ, Geometry2D geometry)
+	{
+		listeners.operationCalled("linearExtrude");
+		return base.linearExtrude(height, centerZ, geometry);
+	}
+
+	@Override
+	public Geometry3D rotateExtrude(Angle angle, int angularResolution, Geometry2D geometry)
+	{
+		listeners.operationCalled("rotateExtrude");
+		return base.rotateExtrude(angle, angularResolution, geometry);
+	}
+
+	@Override
+	public Geometry2D project(boolean cutAtZeroZ, Geometry3D geometry)
+	{
+		listeners.operationCalled("project");
+		return base.project(cutAtZeroZ, geometry);
+	}
+
+	@Override
+	public Transform3D identity3D()
+	{
+		listeners.operationCalled("identity3D");
+		return base.identity3D();
+	}
+
+	@Override
+	public Transform3D compose3D(List<Transform3D> transforms)
+	{
+		listeners.operationCalled("compose3D");
+		return base.compose3D(transforms);
+	}
+
+	@Override
+	public Transform3D translate3D(double x, double y, double z)
+	{
+		listeners.operationCalled("translate3D");
+		return base.translate3D(x, y, z);
+	}
+
+	@Override
+	public Transform3D rotate3DX(Angle angle)
+	{
+		listeners.operationCalled("rotate3DX");
+		return base.rotate3DX(angle);
+	}
+
+	@Override
+	public Transform3D rotate3DY(Angle angle)
+	{
+		listeners.operationCalled("rotate3DY");
+		return base.rotate3DY(angle);
+	}
+
+	@Override
+	public Transform3D rotate3DZ(Angle angle)
+	{
+		listeners.operationCalled("rotate3DZ");
+		return base.rotate3DZ(angle);
+	}
+
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		listeners.operationCalled("rotate3D");
+		return base.rotate3D(rotation);
+	}
+
+	@Override
+	public Transform3D scale3D(double x, double y, double z)
+	{
+		listeners.operationCalled("scale3D");
+		return base.scale3D(x, y, z);
+	}
+
+	@Override
+	public Transform3D mirror3D(double normX, double normY, double normZ)
+	{
+		listeners.operationCalled("mirror3D");
+		return base.mirror3D(normX, normY, normZ);
+	}
+
+	@Override
+	public Geometry3D union3D(Iterable<Geometry3D> geometries)
+	{
+		listeners.operationCalled("union3D");
+		return base.union3D(geometries);
+	}
+
+	@Override
+	public Geometry3D intersection3D(Iterable<Geometry3D> geometries)
+	{
+		listeners.operationCalled("intersection3D");
+		return base.intersection3D(geometries);
+	}
+
+	@Override
+	public Geometry3D difference3D(Geometry3D filled, Iterable<Geometry3D> cutouts)
+	{
+		listeners.operationCalled("difference3D");
+		return base.difference3D(filled, cutouts);
+	}
+
+	@Override
+	public Geometry3D hull3D(Iterable<Geometry3D> geometries)
+	{
+		listeners.operationCalled("hull3D");
+		return base.hull3D(geometries);
+	}
+
+	@Override
+	public Geometry3D minkowski3D(Iterable<Geometry3D> geometries)
+	{
+		listeners.operationCalled("minkowski3D");
+		return base.minkowski3D(geometries);
+	}
+
+	@Override
+	public Geometry3D color3D(Color color, Geometry3D geometry)
+	{
+		listeners.operationCalled("color3D");
+		return base.color3D(color, geometry);
+	}
+
+	@Override
+	public void view(Geometry2D geometry)
+	{
+		listeners.operationCalled("view");
+		base.view(geometry);
+	}
+
+	@Override
+	public void view(Geometry3D geometry)
+	{
+		listeners.operationCalled("view");
+		base.view(geometry);
+	}
+
+	@Override
+	public void view(Geometry2D geometry, int windowID)
+	{
+		listeners.operationCalled("view");
+		base.view(geometry, windowID);
+	}
+
+	@Override
+	public void view(Geometry3D geometry, int windowID)
+	{
+		listeners.operationCalled("view");
+		base.view(geometry, windowID);
+	}
+
+	@Override
+	public Geometry2D cache(Geometry2D geometry)
+	{
+		listeners.operationCalled("cache2D");
+		return base.cache(geometry);
+	}
+
+	@Override
+	public Geometry3D cache(Geometry3D geometry)
+	{
+		listeners.operationCalled("cache3D");
+		return base.cache(geometry);
+	}
+
+	@Override
+	public Geometry3D loadSTL(String fileName) throws IOException
+	{
+		listeners.operationCalled("loadSTL");
+		return base.loadSTL(fileName);
+	}
+
+	@Override
+	public void saveSTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		listeners.operationCalled("saveSTL");
+		long start = System.nanoTime();
+		base.saveSTL(fileName, geometry);
+		fileWritten(fileName, start);
+	}
+
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		listeners.operationCalled("saveBinarySTL");
+		long start = System.nanoTime();
+		base.saveBinarySTL(fileName, geometry);
+		fileWritten(fileName, start);
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files) throws IOException
+	{
+		listeners.operationCalled("saveSTLBatch");
+		long start = System.nanoTime();
+		base.saveSTL(files);
+		filesWritten(files, start);
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files) throws IOException
+	{
+		listeners.operationCalled("saveBinarySTLBatch");
+		long start = System.nanoTime();
+		base.saveBinarySTL(files);
+		filesWritten(files, start);
+	}
+
+	@Override
+	public Geometry3D load3MF(String fileName) throws IOException
+	{
+		listeners.operationCalled("load3MF");
+		return base.load3MF(fileName);
+	}
+
+	@Override
+	public void save3MF(String fileName, Geometry3D geometry) throws IOException
+	{
+		listeners.operationCalled("save3MF");
+		long start = System.nanoTime();
+		base.save3MF(fileName, geometry);
+		fileWritten(fileName, start);
+	}
+
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects) throws IOException
+	{
+		listeners.operationCalled("save3MFObjects");
+		long start = System.nanoTime();
+		base.save3MF(fileName, objects);
+		fileWritten(fileName, start);
+	}
+
+	private void fileWritten(String fileName, long start) throws IOException
+	{
+		if(!listeners.isEmpty())
+		{
+			long nanos = System.nanoTime() - start;
+			listeners.fileWritten(fileName, Files.size(Path.of(fileName)), nanos);
+		}
+	}
+
+	// The files of a batch are written side by side, so the time of the batch is divided between them.
+	private void filesWritten(Map<String, Geometry3D> files, long start) throws IOException
+	{
+		if(!listeners.isEmpty() && !files.isEmpty())
+		{
+			long nanos = (System.nanoTime() - start) / files.size();
+			for(String fileName : files.keySet())
+			{
+				listeners.fileWritten(fileName, Files.size(Path.of(fileName)), nanos);
+			}
+		}
+	}
+}
@@ -4,6 +4,7 @@ import org.abstractica.javacsg.*;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface JavaCSGBase
 {
@@ -12,6 +13,8 @@ public interface JavaCSGBase
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     Geometry2D polygon2D(Iterable<Vector2D> vertices);
     Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths);
+    Geometry2D polygon2D(double[] xy);
+    Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices);
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     /// 2D transformations
@@ -41,11 +44,13 @@ public interface JavaCSGBase
     Geometry2D char2D(char ch, double width, double height, int angularResolution);
     double charHeight2D(double width);
     double charBaseline2D(double height);
+    Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution);
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     /// 3D Polyhedron
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces);
+    Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices);
 
     ////////////////////////////////////////////////////////////////////////////////////////////////
     // 2D to 3D operations
@@ -75,6 +80,7 @@ public interface JavaCSGBase
     Transform3D rotate3DX(Angle angle);
     Transform3D rotate3DY(Angle angle);
     Transform3D rotate3DZ(Angle angle);
+    Transform3D rotate3D(Quaternion rotation);
     Transform3D scale3D(double x, double y, double z);
     Transform3D mirror3D(double normX, double normY, double normZ);
 
@@ -111,10 +117,25 @@ public interface JavaCSGBase
     ////////////////////////////////////////////////////////////////////////////////////////////////
     Geometry3D loadSTL(String fileName) throws IOException;
     void saveSTL(String fileName, Geometry3D geometry) throws IOException;
+    void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException;
+    void saveSTL(Map<String, Geometry3D> files) throws IOException;
+    void saveBinarySTL(Map<String, Geometry3D> files) throws IOException;
 
     ////////////////////////////////////////////////////////////////////////////////////////////////
     // Save and load 3MF
     ////////////////////////////////////////////////////////////////////////////////////////////////
     Geometry3D load3MF(String fileName) throws IOException;
     void save3MF(String fileName, Geometry3D geometry) throws IOException;
+    void save3MF(String fileName, List<Geometry3D> objects) throws IOException;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Debugging
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    boolean isMarkedOrDisabled(Geometry geometry);
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Instrumentation
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    void addRenderListener(RenderListener listener);
+    void removeRenderListener(RenderListener listener);
 }
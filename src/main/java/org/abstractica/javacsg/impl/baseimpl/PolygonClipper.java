@@ -0,0 +1,849 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+// Boolean operations on polygons, done in Java instead of by a geometry engine. Every operand is a list of
+// contours holding x, y per vertex, implicitly closed and combined by the even-odd rule like the paths of an
+// OpenSCAD polygon. The coordinates are snapped to an integer grid, so every orientation is decided exactly.
+// The result is a list of contours that only meet at vertices, outer boundaries counterclockwise and holes
+// clockwise, so the filled area is always to the left of every edge.
+public final class PolygonClipper
+{
+	// Coordinates are scaled below this, so the cross product of two differences of doubled coordinates fits
+	// in a long.
+	private static final int GRID_BITS = 28;
+	private static final long GRID_OFFSET = 1L << GRID_BITS;
+	// Rounding an intersection bends both edges a little, which may make them cross edges they did not cross
+	// before. Splitting again until nothing crosses usually takes two or three rounds.
+	private static final int MAX_SPLIT_ROUNDS = 16;
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
+	private static final int QUERY = -1;
+	private static final int[] NONE = new int[0];
+
+	private PolygonClipper()
+	{
+	}
+
+	public static List<double[]> union(List<List<double[]>> operands)
+	{
+		return clip(UNION, operands);
+	}
+
+	public static List<double[]> intersection(List<List<double[]>> operands)
+	{
+		return clip(INTERSECTION, operands);
+	}
+
+	// The first operand minus all the others.
+	public static List<double[]> difference(List<List<double[]>> operands)
+	{
+		return clip(DIFFERENCE, operands);
+	}
+
+	private static List<double[]> clip(int operation, List<List<double[]>> operands)
+	{
+		if(operands.isEmpty() || (operation == DIFFERENCE && operands.getFirst().isEmpty()))
+		{
+			return List.of();
+		}
+		double maxAbs = 0;
+		for(List<double[]> operand : operands)
+		{
+			for(double[] contour : operand)
+			{
+				for(double value : contour)
+				{
+					maxAbs = Math.max(maxAbs, Math.abs(value));
+				}
+			}
+		}
+		if(!(maxAbs > 0 && maxAbs < Double.POSITIVE_INFINITY))
+		{
+			return List.of();
+		}
+		// A power of two, so coordinates that are already on the grid stay exact.
+		double scale = Math.scalb(1.0, GRID_BITS - 1 - Math.getExponent(maxAbs));
+		Segments segments = new Segments();
+		for(int operand = 0; operand < operands.size(); operand++)
+		{
+			for(double[] contour : operands.get(operand))
+			{
+				segments.addContour(contour, scale, operand);
+			}
+		}
+		for(int round = 0; round < MAX_SPLIT_ROUNDS; round++)
+		{
+			if(!segments.split())
+			{
+				break;
+			}
+		}
+		Edges edges = new Edges(segments, operands.size());
+		Boundary boundary = edges.classify(operation);
+		return boundary.contours(scale);
+	}
+
+	// Twice the signed area of the triangle a, b, c, positive when c lies to the left of a to b.
+	private static long orient(long ax, long ay, long bx, long by, long cx, long cy)
+	{
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	private static long key(long x, long y)
+	{
+		return (x + GRID_OFFSET) << 32 | (y + GRID_OFFSET);
+	}
+
+	// Sorts the indices by their first key and then their second key, stable.
+	private static void sort(int[] index, int size, long[] first, long[] second)
+	{
+		int[] buffer = new int[size];
+		int[] from = index;
+		int[] to = buffer;
+		for(int width = 1; width < size; width *= 2)
+		{
+			for(int start = 0; start < size; start += 2 * width)
+			{
+				int middle = Math.min(start + width, size);
+				int end = Math.min(start + 2 * width, size);
+				int i = start, j = middle, k = start;
+				while(i < middle && j < end)
+				{
+					int a = from[i];
+					int b = from[j];
+					boolean takeRight = first[b] < first[a] || (first[b] == first[a] && second[b] < second[a]);
+					to[k++] = takeRight ? from[j++] : from[i++];
+				}
+				while(i < middle)
+				{
+					to[k++] = from[i++];
+				}
+				while(j < end)
+				{
+					to[k++] = from[j++];
+				}
+			}
+			int[] temp = from;
+			from = to;
+			to = temp;
+		}
+		if(from != index)
+		{
+			System.arraycopy(from, 0, index, 0, size);
+		}
+	}
+
+	// Grid segments, each remembering the operand it came from.
+	private static final class Segments
+	{
+		private long[] coordinates = new long[64];
+		private int[] operands = new int[16];
+		private int size;
+
+		private void addContour(double[] contour, double scale, int operand)
+		{
+			int n = contour.length / 2;
+			if(n < 3)
+			{
+				return;
+			}
+			long previousX = Math.round(contour[2 * n - 2] * scale);
+			long previousY = Math.round(contour[2 * n - 1] * scale);
+			for(int i = 0; i < n; i++)
+			{
+				long x = Math.round(contour[2 * i] * scale);
+				long y = Math.round(contour[2 * i + 1] * scale);
+				add(previousX, previousY, x, y, operand);
+				previousX = x;
+				previousY = y;
+			}
+		}
+
+		private void add(long ax, long ay, long bx, long by, int operand)
+		{
+			if(ax == bx && ay == by)
+			{
+				return;
+			}
+			if(size == operands.length)
+			{
+				operands = Arrays.copyOf(operands, 2 * size);
+				coordinates = Arrays.copyOf(coordinates, 8 * size);
+			}
+			coordinates[4 * size] = ax;
+			coordinates[4 * size + 1] = ay;
+			coordinates[4 * size + 2] = bx;
+			coordinates[4 * size + 3] = by;
+			operands[size++] = operand;
+		}
+
+		// Splits the segments wherever they cross or touch another segment, so afterwards they only meet at
+		// their ends. Returns false if nothing had to be split.
+		private boolean split()
+		{
+			if(size == 0)
+			{
+				return false;
+			}
+			long[] box = new long[4 * size];
+			long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+			for(int s = 0; s < size; s++)
+			{
+				box[4 * s] = Math.min(coordinates[4 * s], coordinates[4 * s + 2]);
+				box[4 * s + 1] = Math.min(coordinates[4 * s + 1], coordinates[4 * s + 3]);
+				box[4 * s + 2] = Math.max(coordinates[4 * s], coordinates[4 * s + 2]);
+				box[4 * s + 3] = Math.max(coordinates[4 * s + 1], coordinates[4 * s + 3]);
+				minX = Math.min(minX, box[4 * s]);
+				minY = Math.min(minY, box[4 * s + 1]);
+				maxX = Math.max(maxX, box[4 * s + 2]);
+				maxY = Math.max(maxY, box[4 * s + 3]);
+			}
+			Grid grid = new Grid(box, size, minX, minY, maxX, maxY);
+			SplitPoints points = new SplitPoints();
+			// Only segments sharing a cell can meet. A pair is tested in the cell holding the lower left corner
+			// of the overlap of their boxes, so it is tested once however many cells they share.
+			for(int cell = 0; cell < grid.cellCount(); cell++)
+			{
+				for(int i = grid.offsets[cell]; i < grid.offsets[cell + 1]; i++)
+				{
+					int s = grid.entries[i];
+					for(int j = grid.offsets[cell]; j < i; j++)
+					{
+						int t = grid.entries[j];
+						long overlapX = Math.max(box[4 * s], box[4 * t]);
+						long overlapY = Math.max(box[4 * s + 1], box[4 * t + 1]);
+						if(overlapX > Math.min(box[4 * s + 2], box[4 * t + 2]) ||
+								overlapY > Math.min(box[4 * s + 3], box[4 * t + 3]) ||
+								grid.cell(overlapX, overlapY) != cell)
+						{
+							continue;
+						}
+						intersect(s, t, points);
+					}
+				}
+			}
+			if(points.size == 0)
+			{
+				return false;
+			}
+			rebuild(points);
+			return true;
+		}
+
+		private void intersect(int s, int t, SplitPoints points)
+		{
+			long ax = coordinates[4 * s], ay = coordinates[4 * s + 1];
+			long bx = coordinates[4 * s + 2], by = coordinates[4 * s + 3];
+			long cx = coordinates[4 * t], cy = coordinates[4 * t + 1];
+			long dx = coordinates[4 * t + 2], dy = coordinates[4 * t + 3];
+			long d1 = orient(ax, ay, bx, by, cx, cy);
+			long d2 = orient(ax, ay, bx, by, dx, dy);
+			long d3 = orient(cx, cy, dx, dy, ax, ay);
+			long d4 = orient(cx, cy, dx, dy, bx, by);
+			if(((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0)))
+			{
+				double u = (double) d3 / ((double) d3 - (double) d4);
+				long x = Math.round(ax + (bx - ax) * u);
+				long y = Math.round(ay + (by - ay) * u);
+				addInterior(s, x, y, points);
+				addInterior(t, x, y, points);
+				return;
+			}
+			// Touching and overlapping segments split each other at the ends lying inside the other.
+			if(d1 == 0)
+			{
+				addInterior(s, cx, cy, points);
+			}
+			if(d2 == 0)
+			{
+				addInterior(s, dx, dy, points);
+			}
+			if(d3 == 0)
+			{
+				addInterior(t, ax, ay, points);
+			}
+			if(d4 == 0)
+			{
+				addInterior(t, bx, by, points);
+			}
+		}
+
+		// Adds a point lying on, or for a rounded intersection next to, the segment unless it is one of its ends.
+		private void addInterior(int s, long x, long y, SplitPoints points)
+		{
+			long ax = coordinates[4 * s], ay = coordinates[4 * s + 1];
+			long bx = coordinates[4 * s + 2], by = coordinates[4 * s + 3];
+			if((x == ax && y == ay) || (x == bx && y == by))
+			{
+				return;
+			}
+			if(x < Math.min(ax, bx) || x > Math.max(ax, bx) || y < Math.min(ay, by) || y > Math.max(ay, by))
+			{
+				return;
+			}
+			points.add(s, x, y);
+		}
+
+		private void rebuild(SplitPoints points)
+		{
+			// Order the points by segment and then along the segment. The points lie within a grid step of the
+			// segment, so its longer axis orders them.
+			long[] segment = new long[points.size];
+			long[] along = new long[points.size];
+			int[] order = new int[points.size];
+			for(int p = 0; p < points.size; p++)
+			{
+				int s = points.segments[p];
+				long dx = coordinates[4 * s + 2] - coordinates[4 * s];
+				long dy = coordinates[4 * s + 3] - coordinates[4 * s + 1];
+				segment[p] = s;
+				along[p] = Math.abs(dx) >= Math.abs(dy) ?
+						(dx > 0 ? points.x[p] : -points.x[p]) :
+						(dy > 0 ? points.y[p] : -points.y[p]);
+				order[p] = p;
+			}
+			sort(order, points.size, segment, along);
+			long[] oldCoordinates = coordinates;
+			int[] oldOperands = operands;
+			int oldSize = size;
+			coordinates = new long[4 * (oldSize + points.size)];
+			operands = new int[oldSize + points.size];
+			size = 0;
+			int next = 0;
+			for(int s = 0; s < oldSize; s++)
+			{
+				long x = oldCoordinates[4 * s];
+				long y = oldCoordinates[4 * s + 1];
+				while(next < points.size && points.segments[order[next]] == s)
+				{
+					int p = order[next++];
+					add(x, y, points.x[p], points.y[p], oldOperands[s]);
+					x = points.x[p];
+					y = points.y[p];
+				}
+				add(x, y, oldCoordinates[4 * s + 2], oldCoordinates[4 * s + 3], oldOperands[s]);
+			}
+		}
+	}
+
+	// A uniform grid over the segments, listing every segment in each cell its box touches.
+	private static final class Grid
+	{
+		private final long minX;
+		private final long minY;
+		private final int columns;
+		private final int rows;
+		private final double cellSize;
+		private final int[] offsets;
+		private final int[] entries;
+
+		private Grid(long[] box, int size, long minX, long minY, long maxX, long maxY)
+		{
+			this.minX = minX;
+			this.minY = minY;
+			double width = maxX - minX + 1;
+			double height = maxY - minY + 1;
+			// About two segments per cell, with larger cells if long segments would be listed too often.
+			double cell = Math.max(Math.sqrt(width * height / Math.max(size / 2, 1)), 1);
+			while(true)
+			{
+				int c = (int) Math.min(Math.ceil(width / cell), 1 << 15);
+				int r = (int) Math.min(Math.ceil(height / cell), 1 << 15);
+				long listed = 0;
+				for(int s = 0; s < size; s++)
+				{
+					listed += (long) (index(box[4 * s + 2], minX, cell, c) - index(box[4 * s], minX, cell, c) + 1) *
+							(index(box[4 * s + 3], minY, cell, r) - index(box[4 * s + 1], minY, cell, r) + 1);
+				}
+				if(listed <= 8L * size + 64 || (c == 1 && r == 1))
+				{
+					this.columns = c;
+					this.rows = r;
+					this.cellSize = cell;
+					break;
+				}
+				cell *= 2;
+			}
+			offsets = new int[columns * rows + 1];
+			for(int s = 0; s < size; s++)
+			{
+				for(int y = row(box[4 * s + 1]); y <= row(box[4 * s + 3]); y++)
+				{
+					for(int x = column(box[4 * s]); x <= column(box[4 * s + 2]); x++)
+					{
+						offsets[y * columns + x + 1]++;
+					}
+				}
+			}
+			for(int i = 0; i < columns * rows; i++)
+			{
+				offsets[i + 1] += offsets[i];
+			}
+			entries = new int[offsets[columns * rows]];
+			int[] fill = Arrays.copyOf(offsets, columns * rows);
+			for(int s = 0; s < size; s++)
+			{
+				for(int y = row(box[4 * s + 1]); y <= row(box[4 * s + 3]); y++)
+				{
+					for(int x = column(box[4 * s]); x <= column(box[4 * s + 2]); x++)
+					{
+						entries[fill[y * columns + x]++] = s;
+					}
+				}
+			}
+		}
+
+		private static int index(long value, long min, double cell, int count)
+		{
+			return (int) Math.min((long) ((value - min) / cell), count - 1);
+		}
+
+		private int column(long x)
+		{
+			return index(x, minX, cellSize, columns);
+		}
+
+		private int row(long y)
+		{
+			return index(y, minY, cellSize, rows);
+		}
+
+		private int cell(long x, long y)
+		{
+			return row(y) * columns + column(x);
+		}
+
+		private int cellCount()
+		{
+			return columns * rows;
+		}
+	}
+
+	private static final class SplitPoints
+	{
+		private int[] segments = new int[16];
+		private long[] x = new long[16];
+		private long[] y = new long[16];
+		private int size;
+
+		private void add(int segment, long px, long py)
+		{
+			if(size == segments.length)
+			{
+				segments = Arrays.copyOf(segments, 2 * size);
+				x = Arrays.copyOf(x, 2 * size);
+				y = Arrays.copyOf(y, 2 * size);
+			}
+			segments[size] = segment;
+			x[size] = px;
+			y[size] = py;
+			size++;
+		}
+	}
+
+	// The distinct segments, each running from its lower to its upper end (from left to right if horizontal),
+	// with the operands whose parity changes across it. Segments lying on top of each other are merged.
+	private static final class Edges
+	{
+		private final int operandCount;
+		private long[] lowX;
+		private long[] lowY;
+		private long[] highX;
+		private long[] highY;
+		private int[][] toggles;
+		private int size;
+		private long queryX;
+		private long queryY;
+
+		private Edges(Segments segments, int operandCount)
+		{
+			this.operandCount = operandCount;
+			int n = segments.size;
+			long[] low = new long[n];
+			long[] high = new long[n];
+			int[] order = new int[n];
+			for(int s = 0; s < n; s++)
+			{
+				long ax = segments.coordinates[4 * s], ay = segments.coordinates[4 * s + 1];
+				long bx = segments.coordinates[4 * s + 2], by = segments.coordinates[4 * s + 3];
+				boolean forward = ay < by || (ay == by && ax < bx);
+				// The y coordinate goes first, so the keys order the ends from bottom to top.
+				low[s] = forward ? key(ay, ax) : key(by, bx);
+				high[s] = forward ? key(by, bx) : key(ay, ax);
+				order[s] = s;
+			}
+			sort(order, n, low, high);
+			lowX = new long[n];
+			lowY = new long[n];
+			highX = new long[n];
+			highY = new long[n];
+			toggles = new int[n][];
+			int[][] single = new int[operandCount][];
+			int[] run = new int[4];
+			for(int i = 0; i < n; )
+			{
+				int s = order[i];
+				int j = i;
+				int runSize = 0;
+				while(j < n && low[order[j]] == low[s] && high[order[j]] == high[s])
+				{
+					if(runSize == run.length)
+					{
+						run = Arrays.copyOf(run, 2 * runSize);
+					}
+					run[runSize++] = segments.operands[order[j++]];
+				}
+				i = j;
+				int[] changed;
+				if(runSize == 1)
+				{
+					int operand = run[0];
+					if(single[operand] == null)
+					{
+						single[operand] = new int[]{operand};
+					}
+					changed = single[operand];
+				}
+				else
+				{
+					changed = oddOperands(run, runSize);
+					if(changed.length == 0)
+					{
+						continue;
+					}
+				}
+				lowY[size] = (low[s] >>> 32) - GRID_OFFSET;
+				lowX[size] = (low[s] & 0xffffffffL) - GRID_OFFSET;
+				highY[size] = (high[s] >>> 32) - GRID_OFFSET;
+				highX[size] = (high[s] & 0xffffffffL) - GRID_OFFSET;
+				toggles[size++] = changed;
+			}
+		}
+
+		// The operands occurring an odd number of times. An operand crossed twice in the same place is not
+		// crossed at all.
+		private static int[] oddOperands(int[] run, int runSize)
+		{
+			Arrays.sort(run, 0, runSize);
+			int[] result = new int[runSize];
+			int count = 0;
+			for(int i = 0; i < runSize; )
+			{
+				int j = i;
+				while(j < runSize && run[j] == run[i])
+				{
+					j++;
+				}
+				if((j - i) % 2 != 0)
+				{
+					result[count++] = run[i];
+				}
+				i = j;
+			}
+			return Arrays.copyOf(result, count);
+		}
+
+		// Sweeps a horizontal line upwards over the edges. Edges do not cross, so the ones on the line keep their
+		// order, and the face to the left of a new edge is the face to the right of its neighbour. A face is known
+		// by the operands enclosing it an odd number of times. The edges with the result on one side only are
+		// kept, directed so that the result is on their left.
+		private Boundary classify(int operation)
+		{
+			Boundary boundary = new Boundary();
+			int[][] rightOf = new int[size][];
+			TreeSet<Integer> line = new TreeSet<>(this::compare);
+			int[] byHigh = new int[size];
+			int slanted = 0;
+			for(int e = 0; e < size; e++)
+			{
+				if(lowY[e] < highY[e])
+				{
+					byHigh[slanted++] = e;
+				}
+			}
+			sort(byHigh, slanted, highY, new long[size]);
+			List<Integer> batch = new ArrayList<>();
+			int removed = 0;
+			for(int first = 0; first < size; )
+			{
+				long y = lowY[first];
+				while(removed < slanted && highY[byHigh[removed]] <= y)
+				{
+					line.remove(byHigh[removed++]);
+				}
+				// The edges are ordered by their lower end, so those starting at this height follow each other.
+				int end = first;
+				batch.clear();
+				while(end < size && lowY[end] == y)
+				{
+					if(highY[end] > y)
+					{
+						batch.add(end);
+					}
+					end++;
+				}
+				batch.sort(this::compare);
+				for(int e : batch)
+				{
+					line.add(e);
+					Integer neighbour = line.lower(e);
+					int[] left = neighbour == null ? NONE : rightOf[neighbour];
+					rightOf[e] = odd(left, toggles[e]);
+					add(boundary, e, inside(operation, left), inside(operation, rightOf[e]));
+				}
+				for(int e = first; e < end; e++)
+				{
+					if(highY[e] == y)
+					{
+						// Above a horizontal edge lies the face to the right of the edge on the left of its middle.
+						queryX = lowX[e] + highX[e];
+						queryY = 2 * y;
+						Integer neighbour = line.lower(QUERY);
+						int[] above = neighbour == null ? NONE : rightOf[neighbour];
+						add(boundary, e, inside(operation, above), inside(operation, odd(above, toggles[e])));
+					}
+				}
+				first = end;
+			}
+			return boundary;
+		}
+
+		// The edge runs upwards or to the right, so its left side is the left or the upper side.
+		private void add(Boundary boundary, int e, boolean left, boolean right)
+		{
+			if(left && !right)
+			{
+				boundary.add(lowX[e], lowY[e], highX[e], highY[e]);
+			}
+			else if(right && !left)
+			{
+				boundary.add(highX[e], highY[e], lowX[e], lowY[e]);
+			}
+		}
+
+		private boolean inside(int operation, int[] odd)
+		{
+			return switch(operation)
+			{
+				case UNION -> odd.length > 0;
+				case INTERSECTION -> odd.length == operandCount;
+				default -> odd.length == 1 && odd[0] == 0;
+			};
+		}
+
+		// The operands in exactly one of the sorted lists.
+		private static int[] odd(int[] a, int[] b)
+		{
+			int[] result = new int[a.length + b.length];
+			int i = 0, j = 0, count = 0;
+			while(i < a.length || j < b.length)
+			{
+				if(j == b.length || (i < a.length && a[i] < b[j]))
+				{
+					result[count++] = a[i++];
+				}
+				else if(i == a.length || b[j] < a[i])
+				{
+					result[count++] = b[j++];
+				}
+				else
+				{
+					i++;
+					j++;
+				}
+			}
+			return count == result.length ? result : Arrays.copyOf(result, count);
+		}
+
+		// Orders two edges that both reach across the sweep line from left to right. The query stands for the
+		// point at queryX, queryY in doubled coordinates.
+		private int compare(int a, int b)
+		{
+			if(a == b)
+			{
+				return 0;
+			}
+			if(a == QUERY || b == QUERY)
+			{
+				int e = a == QUERY ? b : a;
+				long side = orient(2 * lowX[e], 2 * lowY[e], 2 * highX[e], 2 * highY[e], queryX, queryY);
+				// The point is never on an edge, or the edge would have been split there.
+				return (side > 0) == (a == QUERY) ? -1 : 1;
+			}
+			if(lowY[a] < lowY[b])
+			{
+				return -compare(b, a);
+			}
+			// The lower end of a lies on the sweep line when b does, so it tells on which side of b the edge is,
+			// unless both edges start from the same point.
+			long side = orient(lowX[b], lowY[b], highX[b], highY[b], lowX[a], lowY[a]);
+			if(side == 0)
+			{
+				side = orient(lowX[b], lowY[b], highX[b], highY[b], highX[a], highY[a]);
+			}
+			return side > 0 ? -1 : 1;
+		}
+	}
+
+	// The directed edges of the result, joined into contours.
+	private static final class Boundary
+	{
+		private long[] coordinates = new long[64];
+		private int size;
+
+		private void add(long ax, long ay, long bx, long by)
+		{
+			if(4 * size == coordinates.length)
+			{
+				coordinates = Arrays.copyOf(coordinates, 8 * size);
+			}
+			coordinates[4 * size] = ax;
+			coordinates[4 * size + 1] = ay;
+			coordinates[4 * size + 2] = bx;
+			coordinates[4 * size + 3] = by;
+			size++;
+		}
+
+		private List<double[]> contours(double scale)
+		{
+			long[] start = new long[size];
+			long[] none = new long[size];
+			int[] order = new int[size];
+			for(int e = 0; e < size; e++)
+			{
+				start[e] = key(coordinates[4 * e], coordinates[4 * e + 1]);
+				order[e] = e;
+			}
+			sort(order, size, start, none);
+			boolean[] used = new boolean[size];
+			List<double[]> result = new ArrayList<>();
+			long[] contour = new long[64];
+			for(int first = 0; first < size; first++)
+			{
+				if(used[first])
+				{
+					continue;
+				}
+				int length = 0;
+				int e = first;
+				while(true)
+				{
+					used[e] = true;
+					if(length + 2 > contour.length)
+					{
+						contour = Arrays.copyOf(contour, 2 * contour.length);
+					}
+					contour[length++] = coordinates[4 * e];
+					contour[length++] = coordinates[4 * e + 1];
+					e = next(e, first, order, start, used);
+					if(e == first || e < 0)
+					{
+						break;
+					}
+				}
+				// An open chain can only come from edges that failed to split, and is left out.
+				if(e == first)
+				{
+					double[] simplified = simplified(contour, length, scale);
+					if(simplified != null)
+					{
+						result.add(simplified);
+					}
+				}
+			}
+			return result;
+		}
+
+		// The edge continuing the contour after edge e. Where several edges leave the same vertex, the contour
+		// takes the first one turning clockwise from the way back, which bounds the same piece of the result.
+		// Returns -1 if no edge is left.
+		private int next(int e, int first, int[] order, long[] start, boolean[] used)
+		{
+			long vx = coordinates[4 * e + 2];
+			long vy = coordinates[4 * e + 3];
+			long backX = coordinates[4 * e] - vx;
+			long backY = coordinates[4 * e + 1] - vy;
+			long vertex = key(vx, vy);
+			int low = 0, high = size;
+			while(low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if(start[order[middle]] < vertex)
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle;
+				}
+			}
+			int best = -1;
+			for(int i = low; i < size && start[order[i]] == vertex; i++)
+			{
+				int candidate = order[i];
+				if(used[candidate] && candidate != first)
+				{
+					continue;
+				}
+				if(best < 0 || clockwiseBefore(backX, backY, candidate, best))
+				{
+					best = candidate;
+				}
+			}
+			return best;
+		}
+
+		// Whether edge a comes before edge b when turning clockwise from the direction back.
+		private boolean clockwiseBefore(long backX, long backY, int a, int b)
+		{
+			long ax = coordinates[4 * a + 2] - coordinates[4 * a];
+			long ay = coordinates[4 * a + 3] - coordinates[4 * a + 1];
+			long bx = coordinates[4 * b + 2] - coordinates[4 * b];
+			long by = coordinates[4 * b + 3] - coordinates[4 * b + 1];
+			int halfA = half(backX, backY, ax, ay);
+			int halfB = half(backX, backY, bx, by);
+			if(halfA != halfB)
+			{
+				return halfA < halfB;
+			}
+			return ax * by - ay * bx < 0;
+		}
+
+		// 0 for directions up to half a turn clockwise from the way back, 1 for the rest.
+		private static int half(long backX, long backY, long x, long y)
+		{
+			long cross = backX * y - backY * x;
+			if(cross != 0)
+			{
+				return cross < 0 ? 0 : 1;
+			}
+			return backX * x + backY * y < 0 ? 0 : 1;
+		}
+
+		// Leaves out the vertices lying on a straight line between their neighbours.
+		private static double[] simplified(long[] contour, int length, double scale)
+		{
+			int n = length / 2;
+			double[] result = new double[length];
+			int count = 0;
+			for(int i = 0; i < n; i++)
+			{
+				int previous = (i + n - 1) % n;
+				int next = (i + 1) % n;
+				if(orient(contour[2 * previous], contour[2 * previous + 1],
+						contour[2 * i], contour[2 * i + 1],
+						contour[2 * next], contour[2 * next + 1]) != 0)
+				{
+					result[count++] = contour[2 * i] / scale;
+					result[count++] = contour[2 * i + 1] / scale;
+				}
+			}
+			return count >= 6 ? Arrays.copyOf(result, count) : null;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.RenderListener;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The listeners registered with a backend. Events are passed on to every listener, in the order they were added.
+public final class RenderListeners implements RenderListener
+{
+	private final CopyOnWriteArrayList<RenderListener> listeners = new CopyOnWriteArrayList<>();
+
+	public void add(RenderListener listener)
+	{
+		listeners.addIfAbsent(listener);
+	}
+
+	public void remove(RenderListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	public boolean isEmpty()
+	{
+		return listeners.isEmpty();
+	}
+
+	@Override
+	public void operationCalled(String operation)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.operationCalled(operation);
+		}
+	}
+
+	@Override
+	public void geometryRendered(Geometry3D geometry, long nanos)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.geometryRendered(geometry, nanos);
+		}
+	}
+
+	@Override
+	public void cacheAccessed(boolean hit)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.cacheAccessed(hit);
+		}
+	}
+
+	@Override
+	public void subtreeEvaluated(String operation, boolean reused, long nanos)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.subtreeEvaluated(operation, reused, nanos);
+		}
+	}
+
+	@Override
+	public void fileWritten(String fileName, long bytes, long nanos)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.fileWritten(fileName, bytes, nanos);
+		}
+	}
+
+	@Override
+	public void openSCADCalled(String operation, long nanos)
+	{
+		for(RenderListener listener : listeners)
+		{
+			listener.openSCADCalled(operation, nanos);
+		}
+	}
+}
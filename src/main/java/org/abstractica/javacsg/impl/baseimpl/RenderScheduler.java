@@ -0,0 +1,156 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+// Renders cached subtrees in the background. Every cache() call becomes an independent task, so the
+// children of an assembly render concurrently while the caller goes on building the parent.
+// Every task gets a virtual thread of its own and only holds a permit while it renders, which means a task may
+// wait for the subtrees it contains without blocking the renders it is waiting for. The threads end with their
+// tasks, so there is no executor to shut down. A task that waits for another one while holding its permit
+// hands the permit back until the wait is over, so nested renders can not starve each other of permits.
+public final class RenderScheduler
+{
+	// The permits the current thread holds one of, if any.
+	private static final ThreadLocal<Semaphore> HELD = new ThreadLocal<>();
+
+	private final Semaphore permits;
+	private final int maxConcurrentRenders;
+
+	public RenderScheduler(int maxConcurrentRenders)
+	{
+		if(maxConcurrentRenders < 1)
+		{
+			throw new IllegalArgumentException("At least one concurrent render is needed: " + maxConcurrentRenders);
+		}
+		this.maxConcurrentRenders = maxConcurrentRenders;
+		this.permits = new Semaphore(maxConcurrentRenders);
+	}
+
+	public static RenderScheduler forAvailableProcessors()
+	{
+		return new RenderScheduler(Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getMaxConcurrentRenders()
+	{
+		return maxConcurrentRenders;
+	}
+
+	// The prepare step may wait for other tasks. The render step runs while holding a permit.
+	public <I, T> Future<T> submit(Callable<I> prepare, Render<I, T> render)
+	{
+		FutureTask<T> task = new FutureTask<>(() ->
+		{
+			I input = prepare.call();
+			permits.acquire();
+			HELD.set(permits);
+			try
+			{
+				return render.render(input);
+			} finally
+			{
+				HELD.remove();
+				permits.release();
+			}
+		});
+		Thread.ofVirtual().name("render").start(task);
+		return task;
+	}
+
+	public static <T> T join(Future<T> future)
+	{
+		Semaphore held = HELD.get();
+		if(held == null || future.isDone())
+		{
+			return await(future);
+		}
+		HELD.remove();
+		held.release();
+		try
+		{
+			return await(future);
+		} finally
+		{
+			held.acquireUninterruptibly();
+			HELD.set(held);
+		}
+	}
+
+	private static <T> T await(Future<T> future)
+	{
+		boolean interrupted = false;
+		try
+		{
+			while(true)
+			{
+				try
+				{
+					return future.get();
+				} catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException runtimeException)
+			{
+				throw runtimeException;
+			}
+			if(cause instanceof Error error)
+			{
+				throw error;
+			}
+			throw new RuntimeException("Could not render geometry!", cause);
+		} catch (CancellationException e)
+		{
+			throw new RuntimeException("Rendering was cancelled!", e);
+		} finally
+		{
+			if(interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// Waits for every future, so none of them is still running when the first failure is thrown.
+	public static void joinAll(List<? extends Future<?>> futures)
+	{
+		RuntimeException failure = null;
+		for(Future<?> future : futures)
+		{
+			try
+			{
+				join(future);
+			} catch (RuntimeException e)
+			{
+				if(failure == null)
+				{
+					failure = e;
+				}
+				else
+				{
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if(failure != null)
+		{
+			throw failure;
+		}
+	}
+
+	@FunctionalInterface
+	public interface Render<I, T>
+	{
+		T render(I input) throws Exception;
+	}
+}
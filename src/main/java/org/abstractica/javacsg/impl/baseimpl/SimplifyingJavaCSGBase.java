@@ -0,0 +1,597 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.*;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+// Removes redundant structure before it reaches the backend: unions and intersections of one geometry,
+// unions nested in unions, repeated operands, differences without cutouts, transforms that do nothing and
+// caches of cached geometries. The backend builds smaller trees, and trees that only differed in such
+// structure end up with the same hash.
+public class SimplifyingJavaCSGBase implements JavaCSGBase
+{
+	private final JavaCSGBase base;
+	private final Transform2D identity2D;
+	private final Transform3D identity3D;
+	// The operation and operands of the geometries built here, so the operations they are passed to can look inside.
+	// The operands are only held weakly, so a geometry that let go of its operands does not keep them alive here.
+	private final Map<Object, Operation> operations = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public SimplifyingJavaCSGBase(JavaCSGBase base)
+	{
+		this.base = base;
+		this.identity2D = base.identity2D();
+		this.identity3D = base.identity3D();
+	}
+
+	@Override
+	public boolean isMarkedOrDisabled(Geometry geometry)
+	{
+		return base.isMarkedOrDisabled(geometry);
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+		base.addRenderListener(listener);
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+		base.removeRenderListener(listener);
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices)
+	{
+		return base.polygon2D(vertices);
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths)
+	{
+		return base.polygon2D(vertices, paths);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		return base.polygon2D(xy);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		return base.polygon2D(xy, pathOffsets, pathIndices);
+	}
+
+	@Override
+	public Transform2D identity2D()
+	{
+		return identity2D;
+	}
+
+	@Override
+	public Transform2D compose2D(List<Transform2D> transforms)
+	{
+		List<Transform2D> remaining = new ArrayList<>();
+		for(Transform2D transform : transforms)
+		{
+			if(transform != identity2D)
+			{
+				remaining.add(transform);
+			}
+		}
+		if(remaining.isEmpty())
+		{
+			return identity2D;
+		}
+		return remaining.size() == 1 ? remaining.get(0) : base.compose2D(remaining);
+	}
+
+	@Override
+	public Transform2D translate2D(double x, double y)
+	{
+		return x == 0 && y == 0 ? identity2D : base.translate2D(x, y);
+	}
+
+	@Override
+	public Transform2D rotate2D(Angle angle)
+	{
+		return isFullTurns(angle) ? identity2D : base.rotate2D(angle);
+	}
+
+	@Override
+	public Transform2D scale2D(double x, double y)
+	{
+		return x == 1 && y == 1 ? identity2D : base.scale2D(x, y);
+	}
+
+	@Override
+	public Transform2D mirror2D(double normX, double normY)
+	{
+		return base.mirror2D(normX, normY);
+	}
+
+	@Override
+	public Geometry2D union2D(Iterable<Geometry2D> geometries)
+	{
+		List<Geometry2D> operands = flatten("union2D", geometries);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		return remember(base.union2D(operands), "union2D", operands);
+	}
+
+	@Override
+	public Geometry2D intersection2D(Iterable<Geometry2D> geometries)
+	{
+		List<Geometry2D> operands = flatten("intersection2D", geometries);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		return remember(base.intersection2D(operands), "intersection2D", operands);
+	}
+
+	@Override
+	public Geometry2D difference2D(Geometry2D filled, Iterable<Geometry2D> cutouts)
+	{
+		List<Geometry2D> operands = differenceOperands("difference2D", "union2D", filled, cutouts);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		Geometry2D result = base.difference2D(operands.get(0), operands.subList(1, operands.size()));
+		return remember(result, "difference2D", operands);
+	}
+
+	@Override
+	public Geometry2D hull2D(Iterable<Geometry2D> geometries)
+	{
+		return base.hull2D(geometries);
+	}
+
+	@Override
+	public Geometry2D minkowski2D(Iterable<Geometry2D> geometries)
+	{
+		List<Geometry2D> operands = list(geometries);
+		return operands.size() == 1 ? operands.get(0) : base.minkowski2D(operands);
+	}
+
+	@Override
+	public Geometry2D offset2D(double delta, boolean chamfer, Iterable<Geometry2D> geometries)
+	{
+		return base.offset2D(delta, chamfer, geometries);
+	}
+
+	@Override
+	public Geometry2D offsetRound2D(double radius, int angularResolution, Iterable<Geometry2D> geometries)
+	{
+		return base.offsetRound2D(radius, angularResolution, geometries);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, int angularResolution)
+	{
+		return base.char2D(ch, width, angularResolution);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, double height, int angularResolution)
+	{
+		return base.char2D(ch, width, height, angularResolution);
+	}
+
+	@Override
+	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
+	{
+		return base.text2D(text, letterWidth, letterHeight, angularResolution);
+	}
+
+	@Override
+	public double charHeight2D(double width)
+	{
+		return base.charHeight2D(width);
+	}
+
+	@Override
+	public double charBaseline2D(double height)
+	{
+		return base.charBaseline2D(height);
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
+	{
+		return base.polyhedron3D(vertices, faces);
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		return base.polyhedron3D(xyz, faceOffsets, faceIndices);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, Angle twist, double scale, int slices, boolean centerZ, Geometry2D geometry)
+	{
+		return base.linearExtrude(height, twist, scale, slices, centerZ, geometry);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, boolean centerZ, Geometry2D geometry)
+	{
+		return base.linearExtrude(height, centerZ, geometry);
+	}
+
+	@Override
+	public Geometry3D rotateExtrude(Angle angle, int angularResolution, Geometry2D geometry)
+	{
+		return base.rotateExtrude(angle, angularResolution, geometry);
+	}
+
+	@Override
+	public Geometry2D project(boolean cutAtZeroZ, Geometry3D geometry)
+	{
+		return base.project(cutAtZeroZ, geometry);
+	}
+
+	@Override
+	public Transform3D identity3D()
+	{
+		return identity3D;
+	}
+
+	@Override
+	public Transform3D compose3D(List<Transform3D> transforms)
+	{
+		List<Transform3D> remaining = new ArrayList<>();
+		for(Transform3D transform : transforms)
+		{
+			if(transform != identity3D)
+			{
+				remaining.add(transform);
+			}
+		}
+		if(remaining.isEmpty())
+		{
+			return identity3D;
+		}
+		return remaining.size() == 1 ? remaining.get(0) : base.compose3D(remaining);
+	}
+
+	@Override
+	public Transform3D translate3D(double x, double y, double z)
+	{
+		return x == 0 && y == 0 && z == 0 ? identity3D : base.translate3D(x, y, z);
+	}
+
+	@Override
+	public Transform3D rotate3DX(Angle angle)
+	{
+		return isFullTurns(angle) ? identity3D : base.rotate3DX(angle);
+	}
+
+	@Override
+	public Transform3D rotate3DY(Angle angle)
+	{
+		return isFullTurns(angle) ? identity3D : base.rotate3DY(angle);
+	}
+
+	@Override
+	public Transform3D rotate3DZ(Angle angle)
+	{
+		return isFullTurns(angle) ? identity3D : base.rotate3DZ(angle);
+	}
+
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		if(rotation.x() == 0 && rotation.y() == 0 && rotation.z() == 0 && rotation.w() != 0)
+		{
+			return identity3D;
+		}
+		return base.rotate3D(rotation);
+	}
+
+	@Override
+	public Transform3D scale3D(double x, double y, double z)
+	{
+		return x == 1 && y == 1 && z == 1 ? identity3D : base.scale3D(x, y, z);
+	}
+
+	@Override
+	public Transform3D mirror3D(double normX, double normY, double normZ)
+	{
+		return base.mirror3D(normX, normY, normZ);
+	}
+
+	@Override
+	public Geometry3D union3D(Iterable<Geometry3D> geometries)
+	{
+		List<Geometry3D> operands = flatten("union3D", geometries);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		return remember(base.union3D(operands), "union3D", operands);
+	}
+
+	@Override
+	public Geometry3D intersection3D(Iterable<Geometry3D> geometries)
+	{
+		List<Geometry3D> operands = flatten("intersection3D", geometries);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		return remember(base.intersection3D(operands), "intersection3D", operands);
+	}
+
+	@Override
+	public Geometry3D difference3D(Geometry3D filled, Iterable<Geometry3D> cutouts)
+	{
+		List<Geometry3D> operands = differenceOperands("difference3D", "union3D", filled, cutouts);
+		if(operands.size() == 1)
+		{
+			return operands.get(0);
+		}
+		Geometry3D result = base.difference3D(operands.get(0), operands.subList(1, operands.size()));
+		return remember(result, "difference3D", operands);
+	}
+
+	@Override
+	public Geometry3D hull3D(Iterable<Geometry3D> geometries)
+	{
+		return base.hull3D(geometries);
+	}
+
+	@Override
+	public Geometry3D minkowski3D(Iterable<Geometry3D> geometries)
+	{
+		List<Geometry3D> operands = list(geometries);
+		return operands.size() == 1 ? operands.get(0) : base.minkowski3D(operands);
+	}
+
+	@Override
+	public Geometry3D color3D(Color color, Geometry3D geometry)
+	{
+		return base.color3D(color, geometry);
+	}
+
+	@Override
+	public void view(Geometry2D geometry)
+	{
+		base.view(geometry);
+	}
+
+	@Override
+	public void view(Geometry3D geometry)
+	{
+		base.view(geometry);
+	}
+
+	@Override
+	public void view(Geometry2D geometry, int windowID)
+	{
+		base.view(geometry, windowID);
+	}
+
+	@Override
+	public void view(Geometry3D geometry, int windowID)
+	{
+		base.view(geometry, windowID);
+	}
+
+	// A cached geometry is already rendered once, so caching it again would only render it a second time.
+	@Override
+	public Geometry2D cache(Geometry2D geometry)
+	{
+		if(isOperation(geometry, "cache2D"))
+		{
+			return geometry;
+		}
+		return remember(base.cache(geometry), "cache2D", List.of());
+	}
+
+	@Override
+	public Geometry3D cache(Geometry3D geometry)
+	{
+		if(isOperation(geometry, "cache3D"))
+		{
+			return geometry;
+		}
+		return remember(base.cache(geometry), "cache3D", List.of());
+	}
+
+	@Override
+	public Geometry3D loadSTL(String fileName) throws IOException
+	{
+		return base.loadSTL(fileName);
+	}
+
+	@Override
+	public void saveSTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		base.saveSTL(fileName, geometry);
+	}
+
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		base.saveBinarySTL(fileName, geometry);
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files) throws IOException
+	{
+		base.saveSTL(files);
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files) throws IOException
+	{
+		base.saveBinarySTL(files);
+	}
+
+	@Override
+	public Geometry3D load3MF(String fileName) throws IOException
+	{
+		return base.load3MF(fileName);
+	}
+
+	@Override
+	public void save3MF(String fileName, Geometry3D geometry) throws IOException
+	{
+		base.save3MF(fileName, geometry);
+	}
+
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects) throws IOException
+	{
+		base.save3MF(fileName, objects);
+	}
+
+	private static boolean isFullTurns(Angle angle)
+	{
+		return angle.asRotations() % 1.0 == 0.0;
+	}
+
+	private boolean isOperation(Object geometry, String operation)
+	{
+		Operation known = operations.get(geometry);
+		return known != null && known.name.equals(operation);
+	}
+
+	// The operands of a geometry built by the operation, or null when it has to be kept as it is. A marked or
+	// disabled geometry would lose its mark if it was replaced by its operands.
+	private List<?> operands(Object geometry, String operation)
+	{
+		Operation known = operations.get(geometry);
+		if(known == null || !known.name.equals(operation) || base.isMarkedOrDisabled((Geometry) geometry))
+		{
+			return null;
+		}
+		return known.operands();
+	}
+
+	// The backend may prune an operation down to one of its operands and return that operand itself. It keeps
+	// what is known about it, which is what it was built by and not a list that contains itself.
+	private <G> G remember(G geometry, String operation, List<G> operands)
+	{
+		for(G operand : operands)
+		{
+			if(operand == geometry)
+			{
+				return geometry;
+			}
+		}
+		operations.put(geometry, new Operation(operation, operands));
+		return geometry;
+	}
+
+	// The operands of an associative operation, with operands built by the same operation replaced by their
+	// own operands. Both unions and intersections ignore repeated operands, so only the first one is kept.
+	@SuppressWarnings("unchecked")
+	private <G> List<G> flatten(String operation, Iterable<G> geometries)
+	{
+		List<G> result = new ArrayList<>();
+		Set<G> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(G geometry : geometries)
+		{
+			List<?> operands = operands(geometry, operation);
+			if(operands != null)
+			{
+				for(Object operand : operands)
+				{
+					if(seen.add((G) operand))
+					{
+						result.add((G) operand);
+					}
+				}
+			}
+			else if(seen.add(geometry))
+			{
+				result.add(geometry);
+			}
+		}
+		return result;
+	}
+
+	// difference(difference(a, b), c) is difference(a, b, c), and cutting out a union is cutting out its operands.
+	@SuppressWarnings("unchecked")
+	private <G> List<G> differenceOperands(String difference, String union, G filled, Iterable<G> cutouts)
+	{
+		List<G> allCutouts = new ArrayList<>();
+		List<?> operands = operands(filled, difference);
+		if(operands != null)
+		{
+			filled = (G) operands.get(0);
+			for(int i = 1; i < operands.size(); i++)
+			{
+				allCutouts.add((G) operands.get(i));
+			}
+		}
+		for(G cutout : cutouts)
+		{
+			allCutouts.add(cutout);
+		}
+		List<G> result = new ArrayList<>();
+		result.add(filled);
+		result.addAll(flatten(union, allCutouts));
+		return result;
+	}
+
+	private static <G> List<G> list(Iterable<G> geometries)
+	{
+		List<G> result = new ArrayList<>();
+		for(G geometry : geometries)
+		{
+			result.add(geometry);
+		}
+		return result;
+	}
+
+	private static final class Operation
+	{
+		private final String name;
+		private final List<WeakReference<Object>> operands;
+
+		private Operation(String name, List<?> operands)
+		{
+			this.name = name;
+			this.operands = new ArrayList<>(operands.size());
+			for(Object operand : operands)
+			{
+				this.operands.add(new WeakReference<>(operand));
+			}
+		}
+
+		// Null once one of the operands is gone.
+		private List<Object> operands()
+		{
+			List<Object> result = new ArrayList<>(operands.size());
+			for(WeakReference<Object> operand : operands)
+			{
+				Object value = operand.get();
+				if(value == null)
+				{
+					return null;
+				}
+				result.add(value);
+			}
+			return result;
+		}
+	}
+}
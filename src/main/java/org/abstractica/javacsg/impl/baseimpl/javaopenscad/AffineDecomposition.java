@@ -0,0 +1,273 @@
+package org.abstractica.javacsg.impl.baseimpl.javaopenscad;
+
+import org.abstractica.javacsg.impl.baseimpl.Affine2D;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+
+// Splits an affine matrix into translate * rotate * scale * rotate, which OpenSCAD can express with
+// at most four nodes no matter how many transformations were composed into the matrix.
+final class AffineDecomposition
+{
+	private static final double RAD_TO_DEG = 180.0 / Math.PI;
+	private static final double EPSILON = 1e-12;
+
+	private AffineDecomposition()
+	{
+	}
+
+	// Returns {tx, ty, outerDegrees, sx, sy, innerDegrees}.
+	static double[] decompose(Affine2D m)
+	{
+		double e = (m.m00() + m.m11()) / 2;
+		double f = (m.m00() - m.m11()) / 2;
+		double g = (m.m10() + m.m01()) / 2;
+		double h = (m.m10() - m.m01()) / 2;
+		double q = Math.sqrt(e * e + h * h);
+		double r = Math.sqrt(f * f + g * g);
+		double a1 = Math.atan2(g, f);
+		double a2 = Math.atan2(h, e);
+		double inner = (a2 - a1) / 2;
+		double outer = (a2 + a1) / 2;
+		return new double[]{m.m02(), m.m12(), outer * RAD_TO_DEG, q + r, q - r, inner * RAD_TO_DEG};
+	}
+
+	// Returns {tx, ty, tz, outer rotation x, y, z, sx, sy, sz, inner rotation x, y, z}.
+	// Rotations are in degrees in the order used by OpenSCAD's rotate([x, y, z]).
+	static double[] decompose(Affine3D m)
+	{
+		double[][] a =
+				{
+						{m.m00(), m.m01(), m.m02()},
+						{m.m10(), m.m11(), m.m12()},
+						{m.m20(), m.m21(), m.m22()}
+				};
+		// The singular value decomposition a = u * s * vT is found from the eigenvectors of aT * a.
+		double[][] ata = new double[3][3];
+		for(int i = 0; i < 3; i++)
+		{
+			for(int j = 0; j < 3; j++)
+			{
+				ata[i][j] = a[0][i] * a[0][j] + a[1][i] * a[1][j] + a[2][i] * a[2][j];
+			}
+		}
+		double[][] v = identity();
+		jacobi(ata, v);
+		double[] s = new double[3];
+		for(int i = 0; i < 3; i++)
+		{
+			s[i] = Math.sqrt(Math.max(ata[i][i], 0));
+		}
+		sortDescending(s, v);
+		if(determinant(v) < 0)
+		{
+			negateColumn(v, 2);
+		}
+		double[][] u = new double[3][3];
+		double max = Math.max(s[0], EPSILON);
+		int defined = 0;
+		for(int i = 0; i < 3; i++)
+		{
+			if(s[i] <= EPSILON * max)
+			{
+				break;
+			}
+			for(int row = 0; row < 3; row++)
+			{
+				u[row][i] = (a[row][0] * v[0][i] + a[row][1] * v[1][i] + a[row][2] * v[2][i]) / s[i];
+			}
+			defined++;
+		}
+		completeBasis(u, defined);
+		if(determinant(u) < 0)
+		{
+			// A mirroring matrix keeps u a rotation by moving the reflection into the scale.
+			negateColumn(u, 2);
+			s[2] = -s[2];
+		}
+		double[] result = new double[12];
+		result[0] = m.m03();
+		result[1] = m.m13();
+		result[2] = m.m23();
+		if(Math.abs(s[0] - Math.abs(s[2])) <= EPSILON * max)
+		{
+			// A uniform scale commutes with rotations, so the two rotations merge into one.
+			double k = s[2] < 0 ? -s[0] : s[0];
+			double[][] rotation = new double[3][3];
+			for(int i = 0; i < 3; i++)
+			{
+				for(int j = 0; j < 3; j++)
+				{
+					rotation[i][j] = a[i][j] / k;
+				}
+			}
+			System.arraycopy(euler(rotation), 0, result, 3, 3);
+			result[6] = k;
+			result[7] = k;
+			result[8] = k;
+			return result;
+		}
+		System.arraycopy(euler(u), 0, result, 3, 3);
+		result[6] = s[0];
+		result[7] = s[1];
+		result[8] = s[2];
+		double[][] vt = transpose(v);
+		System.arraycopy(euler(vt), 0, result, 9, 3);
+		return result;
+	}
+
+	// Angles x, y, z in degrees with r = rz * ry * rx.
+	private static double[] euler(double[][] r)
+	{
+		double cosY = Math.sqrt(r[0][0] * r[0][0] + r[1][0] * r[1][0]);
+		double y = Math.atan2(-r[2][0], cosY);
+		double x;
+		double z;
+		if(cosY > 1e-9)
+		{
+			x = Math.atan2(r[2][1], r[2][2]);
+			z = Math.atan2(r[1][0], r[0][0]);
+		}
+		else
+		{
+			// Gimbal lock: only x + z or x - z is determined, so z is chosen to be zero.
+			x = Math.atan2(-r[1][2], r[1][1]);
+			z = 0;
+		}
+		return new double[]{x * RAD_TO_DEG, y * RAD_TO_DEG, z * RAD_TO_DEG};
+	}
+
+	private static void jacobi(double[][] a, double[][] v)
+	{
+		for(int sweep = 0; sweep < 64; sweep++)
+		{
+			double off = a[0][1] * a[0][1] + a[0][2] * a[0][2] + a[1][2] * a[1][2];
+			double diagonal = a[0][0] * a[0][0] + a[1][1] * a[1][1] + a[2][2] * a[2][2];
+			if(off <= 1e-30 * Math.max(diagonal, Double.MIN_NORMAL))
+			{
+				return;
+			}
+			for(int p = 0; p < 2; p++)
+			{
+				for(int q = p + 1; q < 3; q++)
+				{
+					if(a[p][q] == 0)
+					{
+						continue;
+					}
+					double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+					double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					if(theta == 0)
+					{
+						t = 1;
+					}
+					double c = 1 / Math.sqrt(t * t + 1);
+					double s = t * c;
+					for(int k = 0; k < 3; k++)
+					{
+						double akp = a[k][p];
+						double akq = a[k][q];
+						a[k][p] = c * akp - s * akq;
+						a[k][q] = s * akp + c * akq;
+					}
+					for(int k = 0; k < 3; k++)
+					{
+						double apk = a[p][k];
+						double aqk = a[q][k];
+						a[p][k] = c * apk - s * aqk;
+						a[q][k] = s * apk + c * aqk;
+					}
+					for(int k = 0; k < 3; k++)
+					{
+						double vkp = v[k][p];
+						double vkq = v[k][q];
+						v[k][p] = c * vkp - s * vkq;
+						v[k][q] = s * vkp + c * vkq;
+					}
+				}
+			}
+		}
+	}
+
+	private static void sortDescending(double[] s, double[][] v)
+	{
+		for(int i = 0; i < 2; i++)
+		{
+			for(int j = i + 1; j < 3; j++)
+			{
+				if(s[j] > s[i])
+				{
+					double temp = s[i];
+					s[i] = s[j];
+					s[j] = temp;
+					for(int row = 0; row < 3; row++)
+					{
+						double t = v[row][i];
+						v[row][i] = v[row][j];
+						v[row][j] = t;
+					}
+				}
+			}
+		}
+	}
+
+	// Fills the undefined columns of u, which belong to zero singular values, with orthonormal vectors.
+	private static void completeBasis(double[][] u, int defined)
+	{
+		if(defined == 0)
+		{
+			u[0][0] = 1;
+			defined = 1;
+		}
+		if(defined == 1)
+		{
+			double x = u[0][0], y = u[1][0], z = u[2][0];
+			double[] other = Math.abs(x) < 0.9 ? new double[]{1, 0, 0} : new double[]{0, 1, 0};
+			double cx = y * other[2] - z * other[1];
+			double cy = z * other[0] - x * other[2];
+			double cz = x * other[1] - y * other[0];
+			double length = Math.sqrt(cx * cx + cy * cy + cz * cz);
+			u[0][1] = cx / length;
+			u[1][1] = cy / length;
+			u[2][1] = cz / length;
+			defined = 2;
+		}
+		if(defined == 2)
+		{
+			u[0][2] = u[1][0] * u[2][1] - u[2][0] * u[1][1];
+			u[1][2] = u[2][0] * u[0][1] - u[0][0] * u[2][1];
+			u[2][2] = u[0][0] * u[1][1] - u[1][0] * u[0][1];
+		}
+	}
+
+	private static double[][] identity()
+	{
+		return new double[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+	}
+
+	private static void negateColumn(double[][] m, int column)
+	{
+		for(int row = 0; row < 3; row++)
+		{
+			m[row][column] = -m[row][column];
+		}
+	}
+
+	private static double determinant(double[][] m)
+	{
+		return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1]) -
+				m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0]) +
+				m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+	}
+
+	private static double[][] transpose(double[][] m)
+	{
+		double[][] result = new double[3][3];
+		for(int i = 0; i < 3; i++)
+		{
+			for(int j = 0; j < 3; j++)
+			{
+				result[i][j] = m[j][i];
+			}
+		}
+		return result;
+	}
+}
@@ -1,7 +1,25 @@
 package org.abstractica.javacsg.impl.baseimpl.javaopenscad;
 
 import org.abstractica.javacsg.*;
+import org.abstractica.javacsg.impl.baseimpl.Affine2D;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+import org.abstractica.javacsg.impl.baseimpl.BooleanPruning;
+import org.abstractica.javacsg.impl.baseimpl.Bounds2D;
+import org.abstractica.javacsg.impl.baseimpl.Bounds3D;
+import org.abstractica.javacsg.impl.baseimpl.Coordinates;
+import org.abstractica.javacsg.impl.baseimpl.GeometryCache;
+import org.abstractica.javacsg.impl.baseimpl.GeometryHash;
+import org.abstractica.javacsg.impl.baseimpl.GeometryInterner;
+import org.abstractica.javacsg.impl.baseimpl.IndexLists;
 import org.abstractica.javacsg.impl.baseimpl.JavaCSGBase;
+import org.abstractica.javacsg.impl.baseimpl.PolygonClipper;
+import org.abstractica.javacsg.impl.baseimpl.RenderListeners;
+import org.abstractica.javacsg.impl.baseimpl.RenderScheduler;
+import org.abstractica.javacsg.impl.baseimpl.mesh.Extrusions;
+import org.abstractica.javacsg.impl.baseimpl.mesh.Mesh3D;
+import org.abstractica.javacsg.impl.baseimpl.mesh.MeshStore;
+import org.abstractica.javacsg.impl.baseimpl.mesh.STLFiles;
+import org.abstractica.javacsg.impl.baseimpl.mesh.ThreeMFFiles;
 import org.abstractica.javacsg.impl.Vector2DImpl;
 import org.abstractica.javacsg.impl.Vector3DImpl;
 import org.abstractica.javaopenscad.JavaOpenSCAD;
@@ -12,32 +30,87 @@ import org.abstractica.javaopenscad.intf.text.OpenSCADTextAttributes;
 import org.abstractica.javaopenscad.intf.text.OpenSCADTextFont;
 import org.abstractica.javaopenscad.intf.text.OpenSCADTextSize;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 {
 	private static final double DEGREES_TO_ROTATIONS = 1.0 / 360.0;
 	private static final double RADIANS_TO_ROTATIONS = 1.0 / (2.0 * Math.PI);
+	public static final int DEFAULT_MEMORY_CACHE_ENTRIES = 65536;
+	private static final Cleaner IMPORTS = Cleaner.create();
 
 	private final JavaOpenSCAD javaOpenSCAD;
+	private final RenderScheduler scheduler;
+	private final GeometryCache<Future<OpenSCADGeometry3D>> memoryCache;
+	// Renders of cached geometries kept between runs, or null to keep them for this run only.
+	private final MeshStore store;
+	private final GeometryInterner<Shared2D> interned2D = new GeometryInterner<>();
+	private final GeometryInterner<Shared3D> interned3D = new GeometryInterner<>();
+	private final RenderListeners listeners = new RenderListeners();
+	// JavaOpenSCAD makes no promise that it can be called from several threads, so every call that runs
+	// OpenSCAD or touches files goes through this lock. Models are still built and prepared concurrently.
+	private final ReentrantLock openSCADLock = new ReentrantLock();
+	// Where stored renders are written for OpenSCAD to import. Guarded by openSCADLock.
+	private Path importDirectory;
 	private final OpenSCADTextAttributes textAttributes;
 	private final double textScale;
+	// Glyph outlines at font size, one module per character and angular resolution. Sizes are scales applied
+	// to the module, so OpenSCAD tessellates a glyph once however many sizes and strings use it.
+	private final Map<Long, OpenSCADGeometry2D> glyphs = new ConcurrentHashMap<>();
+	private volatile boolean anyDisabled;
+	private volatile boolean anyMarked2D;
 
 	public JavaCSGBaseOpenSCADImpl(boolean useCache)
 	{
-		this(new JavaOpenSCADImpl(useCache));
+		this(useCache, RenderScheduler.forAvailableProcessors(), DEFAULT_MEMORY_CACHE_ENTRIES);
 	}
 
 	public JavaCSGBaseOpenSCADImpl(String cacheDirectory)
 	{
-		this(new JavaOpenSCADImpl(cacheDirectory));
+		this(cacheDirectory, RenderScheduler.forAvailableProcessors(), DEFAULT_MEMORY_CACHE_ENTRIES);
 	}
 
-	private JavaCSGBaseOpenSCADImpl(JavaOpenSCAD javaOpenSCAD)
+	public JavaCSGBaseOpenSCADImpl(String cacheDirectory, long maxCacheBytes, CacheStore remoteStore)
+	{
+		this(RenderScheduler.forAvailableProcessors(), DEFAULT_MEMORY_CACHE_ENTRIES,
+				new MeshStore(Path.of(cacheDirectory), maxCacheBytes, MeshStore.DEFAULT_MIN_NANOS, remoteStore));
+	}
+
+	public JavaCSGBaseOpenSCADImpl(boolean useCache, RenderScheduler scheduler, int memoryCacheEntries)
+	{
+		this(new JavaOpenSCADImpl(useCache), scheduler, memoryCacheEntries, null);
+	}
+
+	public JavaCSGBaseOpenSCADImpl(String cacheDirectory, RenderScheduler scheduler, int memoryCacheEntries)
+	{
+		this(new JavaOpenSCADImpl(cacheDirectory), scheduler, memoryCacheEntries, null);
+	}
+
+	// The store takes the place of JavaOpenSCAD's own cache directory, so OpenSCAD is not asked to cache anything.
+	public JavaCSGBaseOpenSCADImpl(RenderScheduler scheduler, int memoryCacheEntries, MeshStore store)
+	{
+		this(new JavaOpenSCADImpl(false), scheduler, memoryCacheEntries, store);
+	}
+
+	private JavaCSGBaseOpenSCADImpl(JavaOpenSCAD javaOpenSCAD, RenderScheduler scheduler, int memoryCacheEntries, MeshStore store)
 	{
 		this.javaOpenSCAD = javaOpenSCAD;
+		this.scheduler = scheduler;
+		this.store = store;
+		this.memoryCache = new GeometryCache<>(memoryCacheEntries);
 		OpenSCADTextFont font = javaOpenSCAD.textFont("Consolas", "Regular", "en", "latin");
 		OpenSCADTextSize textSize = javaOpenSCAD.textSize(10.0, 1);
 		OpenSCADTextAlignment alignment = javaOpenSCAD.textAlignment(
@@ -88,24 +161,39 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 	public Geometry2D union2D(Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D union = javaOpenSCAD.union2D();
+		Bounds2D bounds = Bounds2D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("union2D");
+		List<Profile> profiles = new ArrayList<>();
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			union.add(openSCADGeometry);
+			bounds = bounds.union(((Geometry2DImpl) geometry).getBounds());
+			hash.add(((Geometry2DImpl) geometry).getHash());
+			profiles.add(((Geometry2DImpl) geometry).getProfile());
 		}
-		return new Geometry2DImpl(union);
+		Profile profile = profiles.contains(null) ? null : new Profile(() -> PolygonClipper.union(contours(profiles)));
+		return intern(new Geometry2DImpl(union, bounds, hash.build(), profile));
 	}
 
 	@Override
 	public Geometry2D intersection2D(Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D intersection = javaOpenSCAD.intersection2D();
+		Bounds2D bounds = null;
+		GeometryHash.Builder hash = GeometryHash.builder("intersection2D");
+		List<Profile> profiles = new ArrayList<>();
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			intersection.add(openSCADGeometry);
+			Bounds2D childBounds = ((Geometry2DImpl) geometry).getBounds();
+			bounds = bounds == null ? childBounds : bounds.intersection(childBounds);
+			hash.add(((Geometry2DImpl) geometry).getHash());
+			profiles.add(((Geometry2DImpl) geometry).getProfile());
 		}
-		return new Geometry2DImpl(intersection);
+		Profile profile = profiles.contains(null) ? null : new Profile(() -> PolygonClipper.intersection(contours(profiles)));
+		return intern(new Geometry2DImpl(intersection, bounds == null ? Bounds2D.EMPTY : bounds, hash.build(), profile));
 	}
 
 	@Override
@@ -114,81 +202,141 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		OpenSCADGeometry2DFrom2D difference = javaOpenSCAD.difference2D();
 		OpenSCADGeometry2D openSCADFilled = ((Geometry2DImpl) filled).getOpenSCADGeometry();
 		difference.add(openSCADFilled);
+		Bounds2D bounds = ((Geometry2DImpl) filled).getBounds();
+		GeometryHash.Builder hash = GeometryHash.builder("difference2D").add(((Geometry2DImpl) filled).getHash());
+		List<Profile> profiles = new ArrayList<>();
+		profiles.add(((Geometry2DImpl) filled).getProfile());
 		for(Geometry2D cutout : cutouts)
 		{
 			OpenSCADGeometry2D openSCADCutout = ((Geometry2DImpl) cutout).getOpenSCADGeometry();
 			difference.add(openSCADCutout);
+			bounds = bounds.inexact();
+			hash.add(((Geometry2DImpl) cutout).getHash());
+			profiles.add(((Geometry2DImpl) cutout).getProfile());
 		}
-		return new Geometry2DImpl(difference);
+		Profile profile = profiles.contains(null) ? null : new Profile(() -> PolygonClipper.difference(contours(profiles)));
+		return intern(new Geometry2DImpl(difference, bounds, hash.build(), profile));
 	}
 
 	@Override
 	public Geometry2D hull2D(Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D hull = javaOpenSCAD.hull2D();
+		Bounds2D bounds = Bounds2D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("hull2D");
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			hull.add(openSCADGeometry);
+			bounds = bounds.union(((Geometry2DImpl) geometry).getBounds());
+			hash.add(((Geometry2DImpl) geometry).getHash());
 		}
-		return new Geometry2DImpl(hull);
+		return intern(new Geometry2DImpl(hull, bounds, hash.build()));
 	}
 
 	@Override
 	public Geometry2D minkowski2D(Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D minkowsky = javaOpenSCAD.minkowsky2D();
+		Bounds2D bounds = null;
+		GeometryHash.Builder hash = GeometryHash.builder("minkowski2D");
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			minkowsky.add(openSCADGeometry);
+			Bounds2D childBounds = ((Geometry2DImpl) geometry).getBounds();
+			bounds = bounds == null ? childBounds : bounds.minkowski(childBounds);
+			hash.add(((Geometry2DImpl) geometry).getHash());
 		}
-		return new Geometry2DImpl(minkowsky);
+		return intern(new Geometry2DImpl(minkowsky, bounds == null ? Bounds2D.EMPTY : bounds, hash.build()));
 	}
 
 	@Override
 	public Geometry2D offset2D(double delta, boolean chamfer, Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D offset = javaOpenSCAD.offset2D(delta, chamfer);
+		Bounds2D bounds = Bounds2D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("offset2D").add(delta).add(chamfer);
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			offset.add(openSCADGeometry);
+			bounds = bounds.union(((Geometry2DImpl) geometry).getBounds());
+			hash.add(((Geometry2DImpl) geometry).getHash());
 		}
-		return new Geometry2DImpl(offset);
+		if(delta > 0)
+		{
+			// Mitered corners can reach arbitrarily far out, chamfered corners at most delta * sqrt(2).
+			bounds = chamfer ? bounds.expanded(delta * Math.sqrt(2.0)) : Bounds2D.UNKNOWN;
+		}
+		else if(delta < 0)
+		{
+			bounds = bounds.inexact();
+		}
+		return intern(new Geometry2DImpl(offset, bounds, hash.build()));
 	}
 
 	@Override
 	public Geometry2D offsetRound2D(double radius, int angularResolution, Iterable<Geometry2D> geometries)
 	{
 		OpenSCADGeometry2DFrom2D offset = javaOpenSCAD.offsetRound2D(radius, angularResolution);
+		Bounds2D bounds = Bounds2D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("offsetRound2D").add(radius).add(angularResolution);
 		for(Geometry2D geometry : geometries)
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 			offset.add(openSCADGeometry);
+			bounds = bounds.union(((Geometry2DImpl) geometry).getBounds());
+			hash.add(((Geometry2DImpl) geometry).getHash());
 		}
-		return new Geometry2DImpl(offset);
+		bounds = radius > 0 ? bounds.expanded(radius) : bounds.inexact();
+		return intern(new Geometry2DImpl(offset, bounds, hash.build()));
 	}
 
 	@Override
 	public Geometry2D char2D(char ch, double width, int angularResolution)
 	{
-		OpenSCADGeometry2D char2D = javaOpenSCAD.text("" + ch, textAttributes, angularResolution);
+		OpenSCADGeometry2D char2D = glyph(ch, angularResolution);
 		OpenSCADGeometry2DFrom2D scale2D = javaOpenSCAD.scale2D(width*textScale, width*textScale);
 		scale2D.add(char2D);
 		OpenSCADGeometry2D result = javaOpenSCAD.module(scale2D);
-		return new Geometry2DImpl(result);
+		GeometryHash hash = GeometryHash.builder("char2D").add(ch).add(width).add(angularResolution).build();
+		return intern(new Geometry2DImpl(result, Bounds2D.UNKNOWN, hash));
 	}
 
 	@Override
 	public Geometry2D char2D(char ch, double width, double height, int angularResolution)
 	{
-
-		OpenSCADGeometry2D char2D = javaOpenSCAD.text("" + ch, textAttributes, angularResolution);
+		OpenSCADGeometry2D char2D = glyph(ch, angularResolution);
 		OpenSCADGeometry2DFrom2D scale2D = javaOpenSCAD.scale2D(this.textScale*width, this.textScale*0.5*height);
 		scale2D.add(char2D);
 		OpenSCADGeometry2D result = javaOpenSCAD.module(scale2D);
-		return new Geometry2DImpl(result);
+		GeometryHash hash = GeometryHash.builder("char2D").add(ch).add(width).add(height).add(angularResolution).build();
+		return intern(new Geometry2DImpl(result, Bounds2D.UNKNOWN, hash));
+	}
+
+	// The string is laid out in font units under a single scale. The font is monospaced, and 1 / textScale is
+	// its advance, so every letter lands where a scaled char2D translated by its letter width would.
+	@Override
+	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
+	{
+		OpenSCADGeometry2DFrom2D union = javaOpenSCAD.union2D();
+		for(int i = 0; i < text.length(); i++)
+		{
+			OpenSCADGeometry2DFrom2D translate = javaOpenSCAD.translate2D(i / textScale, 0);
+			translate.add(glyph(text.charAt(i), angularResolution));
+			union.add(translate);
+		}
+		OpenSCADGeometry2DFrom2D scale2D = javaOpenSCAD.scale2D(textScale * letterWidth, textScale * 0.5 * letterHeight);
+		scale2D.add(union);
+		GeometryHash hash = GeometryHash.builder("text2D").add(text).add(letterWidth).add(letterHeight).add(angularResolution).build();
+		return intern(new Geometry2DImpl(javaOpenSCAD.module(scale2D), Bounds2D.UNKNOWN, hash));
+	}
+
+	private OpenSCADGeometry2D glyph(char ch, int angularResolution)
+	{
+		long key = (long) ch << 32 | (angularResolution & 0xffffffffL);
+		return glyphs.computeIfAbsent(key, k -> javaOpenSCAD.module(javaOpenSCAD.text("" + ch, textAttributes, angularResolution)));
 	}
 
 	@Override
@@ -206,42 +354,153 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 	@Override
 	public Geometry2D polygon2D(Iterable<Vector2D> vertices)
 	{
-		List<OpenSCADVector2D> openSCADVertices = new ArrayList<>();
-		for(Vector2D vertex : vertices)
-		{
-			OpenSCADVector2D vector = javaOpenSCAD.vector2D(vertex.x(), vertex.y());
-			openSCADVertices.add(vector);
-		}
-		OpenSCADGeometry2D geometry = javaOpenSCAD.polygon2D(openSCADVertices);
-		OpenSCADGeometry2D result = javaOpenSCAD.module(geometry);
-		return new Geometry2DImpl(result);
+		return polygon2D(Coordinates.of2D(vertices));
 	}
 
 	@Override
 	public Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths)
 	{
-		List<OpenSCADVector2D> openSCADVertices = new ArrayList<>();
-		for(Vector2D vertex : vertices)
-		{
-			OpenSCADVector2D vector = javaOpenSCAD.vector2D(vertex.x(), vertex.y());
-			openSCADVertices.add(vector);
-		}
-		OpenSCADGeometry2D geometry = javaOpenSCAD.polygon2D(openSCADVertices, paths);
+		IndexLists lists = IndexLists.of(paths);
+		return polygon2D(Coordinates.of2D(vertices), lists.offsets(), lists.indices());
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		Coordinates.check(xy, 2);
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polygon2D"), xy);
+		double[] points = xy.clone();
+		OpenSCADGeometry2D geometry = javaOpenSCAD.polygon2D(vertices2D(points));
+		OpenSCADGeometry2D result = javaOpenSCAD.module(geometry);
+		Profile profile = new Profile(() -> List.of(points));
+		return intern(new Geometry2DImpl(result, Bounds2D.ofPolygon(xy), hash.build(), profile));
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		Coordinates.check(xy, 2);
+		IndexLists paths = new IndexLists(pathOffsets, pathIndices).copy();
+		paths.checkRange(xy.length / 2, "Path");
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polygon2DPaths"), xy);
+		paths.addTo(hash.add(xy.length / 2));
+		double[] points = xy.clone();
+		OpenSCADGeometry2D geometry = javaOpenSCAD.polygon2D(vertices2D(points), paths.asLists());
 		OpenSCADGeometry2D result = javaOpenSCAD.module(geometry);
-		return new Geometry2DImpl(result);
+		Profile profile = new Profile(() -> contours(points, paths));
+		// The paths may leave some of the vertices unused.
+		return intern(new Geometry2DImpl(result, Bounds2D.of(xy).inexact(), hash.build(), profile));
 	}
 
 	@Override
 	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
 	{
-		List<OpenSCADVector3D> openSCADVertices = new ArrayList<>();
-		for(Vector3D vertex : vertices)
+		IndexLists lists = IndexLists.of(faces);
+		return polyhedron3D(Coordinates.of3D(vertices), lists.offsets(), lists.indices());
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		Coordinates.check(xyz, 3);
+		IndexLists faces = new IndexLists(faceOffsets, faceIndices).copy();
+		faces.checkRange(xyz.length / 3, "Face");
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polyhedron3D"), xyz);
+		faces.addTo(hash.add(xyz.length / 3));
+		OpenSCADGeometry3D geometry = javaOpenSCAD.polyhedron3D(vertices3D(xyz.clone()), faces.asLists());
+		return intern(new Geometry3DImpl(geometry, Bounds3D.of(xyz), hash.build()));
+	}
+
+	private static List<double[]> contours(double[] xy, IndexLists paths)
+	{
+		List<double[]> result = new ArrayList<>(paths.count());
+		for(int path = 0; path < paths.count(); path++)
+		{
+			int start = paths.start(path);
+			double[] contour = new double[2 * (paths.end(path) - start)];
+			for(int i = 0; i < contour.length; i += 2)
+			{
+				int vertex = paths.index(start + i / 2);
+				contour[i] = xy[2 * vertex];
+				contour[i + 1] = xy[2 * vertex + 1];
+			}
+			result.add(contour);
+		}
+		return result;
+	}
+
+	private static List<List<double[]>> contours(List<Profile> profiles)
+	{
+		List<List<double[]>> result = new ArrayList<>(profiles.size());
+		for(Profile profile : profiles)
+		{
+			result.add(profile.contours());
+		}
+		return result;
+	}
+
+	// OpenSCAD wants the faces of a polyhedron clockwise when seen from outside, mesh triangles are counterclockwise.
+	private OpenSCADGeometry3D polyhedron(Mesh3D mesh)
+	{
+		if(mesh.isEmpty())
+		{
+			return javaOpenSCAD.union3D();
+		}
+		double[] xyz = new double[3 * mesh.vertexCount()];
+		for(int vertex = 0; vertex < mesh.vertexCount(); vertex++)
+		{
+			xyz[3 * vertex] = mesh.x(vertex);
+			xyz[3 * vertex + 1] = mesh.y(vertex);
+			xyz[3 * vertex + 2] = mesh.z(vertex);
+		}
+		int[] offsets = new int[mesh.triangleCount() + 1];
+		int[] indices = new int[3 * mesh.triangleCount()];
+		for(int triangle = 0; triangle < mesh.triangleCount(); triangle++)
 		{
-			OpenSCADVector3D vector = javaOpenSCAD.vector3D(vertex.x(), vertex.y(), vertex.z());
-			openSCADVertices.add(vector);
+			offsets[triangle + 1] = 3 * (triangle + 1);
+			indices[3 * triangle] = mesh.vertex(triangle, 0);
+			indices[3 * triangle + 1] = mesh.vertex(triangle, 2);
+			indices[3 * triangle + 2] = mesh.vertex(triangle, 1);
 		}
-		OpenSCADGeometry3D geometry = javaOpenSCAD.polyhedron3D(openSCADVertices, faces);
-		return new Geometry3DImpl(geometry);
+		return javaOpenSCAD.polyhedron3D(vertices3D(xyz), new IndexLists(offsets, indices).asLists());
+	}
+
+	// JavaOpenSCAD takes its vertices as objects. These views create them as they are read instead of holding
+	// one object per vertex for as long as the geometry lives.
+	private List<OpenSCADVector2D> vertices2D(double[] xy)
+	{
+		return new AbstractList<>()
+		{
+			@Override
+			public OpenSCADVector2D get(int i)
+			{
+				return javaOpenSCAD.vector2D(xy[2 * i], xy[2 * i + 1]);
+			}
+
+			@Override
+			public int size()
+			{
+				return xy.length / 2;
+			}
+		};
+	}
+
+	private List<OpenSCADVector3D> vertices3D(double[] xyz)
+	{
+		return new AbstractList<>()
+		{
+			@Override
+			public OpenSCADVector3D get(int i)
+			{
+				return javaOpenSCAD.vector3D(xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]);
+			}
+
+			@Override
+			public int size()
+			{
+				return xyz.length / 3;
+			}
+		};
 	}
 
 	@Override
@@ -250,7 +509,9 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
 		OpenSCADGeometry2DFrom3D projection = javaOpenSCAD.project(cutAtZeroZ);
 		projection.add(openSCADGeometry);
-		return new Geometry2DImpl(projection);
+		Bounds2D bounds = ((Geometry3DImpl) geometry).getBounds().projected();
+		GeometryHash hash = GeometryHash.builder("project").add(cutAtZeroZ).add(((Geometry3DImpl) geometry).getHash()).build();
+		return intern(new Geometry2DImpl(projection, cutAtZeroZ ? bounds.inexact() : bounds, hash));
 	}
 
 	@Override
@@ -289,6 +550,13 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		return new Transform3DRotateZ(angle.asRadians());
 	}
 
+	// A rotation matrix decomposes into a single rotate node.
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		return new Transform3DComposed(Affine3D.rotation(rotation.w(), rotation.x(), rotation.y(), rotation.z()));
+	}
+
 	@Override
 	public Transform3D scale3D(double x, double y, double z)
 	{
@@ -304,72 +572,122 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 	@Override
 	public Geometry3D union3D(Iterable<Geometry3D> geometries)
 	{
-		OpenSCADGeometry3DFrom3D union = javaOpenSCAD.union3D();
+		// A disabled box no longer covers what lies inside it, so nothing is pruned once anything was disabled.
+		if(!anyDisabled)
+		{
+			List<Geometry3D> operands = BooleanPruning.union(geometries, JavaCSGBaseOpenSCADImpl::bounds);
+			if(operands.size() == 1)
+			{
+				return operands.getFirst();
+			}
+			geometries = operands;
+		}
+		List<Geometry3D> children = new ArrayList<>();
+		Bounds3D bounds = Bounds3D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("union3D");
 		for(Geometry3D geometry : geometries)
 		{
-			OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-			union.add(openSCADGeometry);
+			children.add(geometry);
+			bounds = bounds.union(((Geometry3DImpl) geometry).getBounds());
+			hash.add(((Geometry3DImpl) geometry).getHash());
 		}
-		return new Geometry3DImpl(union);
+		return node3D(javaOpenSCAD::union3D, children, bounds, hash.build());
 	}
 
 	@Override
 	public Geometry3D intersection3D(Iterable<Geometry3D> geometries)
 	{
-		OpenSCADGeometry3DFrom3D intersection = javaOpenSCAD.intersection3D();
+		if(!anyDisabled)
+		{
+			List<Geometry3D> operands = BooleanPruning.intersection(geometries, JavaCSGBaseOpenSCADImpl::bounds);
+			if(operands == null)
+			{
+				return union3D(List.of());
+			}
+			if(operands.size() == 1)
+			{
+				return operands.getFirst();
+			}
+			geometries = operands;
+		}
+		List<Geometry3D> children = new ArrayList<>();
+		Bounds3D bounds = null;
+		GeometryHash.Builder hash = GeometryHash.builder("intersection3D");
 		for(Geometry3D geometry : geometries)
 		{
-			OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-			intersection.add(openSCADGeometry);
+			children.add(geometry);
+			Bounds3D childBounds = ((Geometry3DImpl) geometry).getBounds();
+			bounds = bounds == null ? childBounds : bounds.intersection(childBounds);
+			hash.add(((Geometry3DImpl) geometry).getHash());
 		}
-		return new Geometry3DImpl(intersection);
+		return node3D(javaOpenSCAD::intersection3D, children, bounds == null ? Bounds3D.EMPTY : bounds, hash.build());
 	}
 
 	@Override
 	public Geometry3D difference3D(Geometry3D solid, Iterable<Geometry3D> cutouts)
 	{
-		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) solid).getOpenSCADGeometry();
-		OpenSCADGeometry3DFrom3D difference = javaOpenSCAD.difference3D();
-		difference.add(openSCADGeometry);
+		// Pruned like the operands of union3D, so only while nothing is disabled.
+		if(!anyDisabled)
+		{
+			cutouts = BooleanPruning.cutouts(bounds(solid), cutouts, JavaCSGBaseOpenSCADImpl::bounds);
+		}
+		if(!cutouts.iterator().hasNext())
+		{
+			return solid;
+		}
+		List<Geometry3D> children = new ArrayList<>();
+		children.add(solid);
+		Bounds3D bounds = ((Geometry3DImpl) solid).getBounds();
+		GeometryHash.Builder hash = GeometryHash.builder("difference3D").add(((Geometry3DImpl) solid).getHash());
 		for(Geometry3D cutout : cutouts)
 		{
-			OpenSCADGeometry3D openSCADCutout = ((Geometry3DImpl) cutout).getOpenSCADGeometry();
-			difference.add(openSCADCutout);
+			children.add(cutout);
+			bounds = bounds.inexact();
+			hash.add(((Geometry3DImpl) cutout).getHash());
 		}
-		return new Geometry3DImpl(difference);
+		return node3D(javaOpenSCAD::difference3D, children, bounds, hash.build());
 	}
 
 	@Override
 	public Geometry3D hull3D(Iterable<Geometry3D> geometries)
 	{
-		OpenSCADGeometry3DFrom3D hull = javaOpenSCAD.hull3D();
+		List<Geometry3D> children = new ArrayList<>();
+		Bounds3D bounds = Bounds3D.EMPTY;
+		GeometryHash.Builder hash = GeometryHash.builder("hull3D");
 		for(Geometry3D geometry : geometries)
 		{
-			OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-			hull.add(openSCADGeometry);
+			children.add(geometry);
+			bounds = bounds.union(((Geometry3DImpl) geometry).getBounds());
+			hash.add(((Geometry3DImpl) geometry).getHash());
 		}
-		return new Geometry3DImpl(hull);
+		return node3D(javaOpenSCAD::hull3D, children, bounds, hash.build());
 	}
 
 	@Override
 	public Geometry3D minkowski3D(Iterable<Geometry3D> geometries)
 	{
-		OpenSCADGeometry3DFrom3D minkowsky = javaOpenSCAD.minkowsky3D();
+		List<Geometry3D> children = new ArrayList<>();
+		Bounds3D bounds = null;
+		GeometryHash.Builder hash = GeometryHash.builder("minkowski3D");
 		for(Geometry3D geometry : geometries)
 		{
-			OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-			minkowsky.add(openSCADGeometry);
+			children.add(geometry);
+			Bounds3D childBounds = ((Geometry3DImpl) geometry).getBounds();
+			bounds = bounds == null ? childBounds : bounds.minkowski(childBounds);
+			hash.add(((Geometry3DImpl) geometry).getHash());
 		}
-		return new Geometry3DImpl(minkowsky);
+		return node3D(javaOpenSCAD::minkowsky3D, children, bounds == null ? Bounds3D.EMPTY : bounds, hash.build());
 	}
 
 	@Override
 	public Geometry3D color3D(Color color, Geometry3D geometry)
 	{
-		OpenSCADGeometry3DFrom3D coloredGeometry = javaOpenSCAD.color3D(color.r(), color.g(), color.b(), color.a());
-		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-		coloredGeometry.add(openSCADGeometry);
-		return new Geometry3DImpl(coloredGeometry);
+		GeometryHash hash = GeometryHash.builder("color3D")
+				.add(color.r()).add(color.g()).add(color.b()).add(color.a())
+				.add(((Geometry3DImpl) geometry).getHash())
+				.build();
+		return node3D(() -> javaOpenSCAD.color3D(color.r(), color.g(), color.b(), color.a()), List.of(geometry),
+				((Geometry3DImpl) geometry).getBounds(), hash);
 	}
 
 	@Override
@@ -402,7 +720,20 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		OpenSCADGeometry3DFrom2D linearExtrude =
 				javaOpenSCAD.linearExtrude(height, twistDegrees, scale, slices, centerZ);
 		linearExtrude.add(openSCADGeometry);
-		return new Geometry3DImpl(linearExtrude);
+		Bounds2D profile = ((Geometry2DImpl) geometry).getBounds();
+		GeometryHash hash = GeometryHash.builder("linearExtrude")
+				.add(height).add(twistDegrees).add(scale).add(slices).add(centerZ)
+				.add(((Geometry2DImpl) geometry).getHash())
+				.build();
+		Bounds3D bounds = Bounds3D.linearExtrude(profile, height, twistDegrees, scale, centerZ);
+		Profile polygons = ((Geometry2DImpl) geometry).getProfile();
+		if(polygons == null)
+		{
+			return intern(new Geometry3DImpl(linearExtrude, bounds, hash));
+		}
+		// The profile is extruded in Java, so OpenSCAD gets one polyhedron instead of the 2D booleans to resolve.
+		return intern(new Geometry3DImpl(() -> extrudedInOpenSCAD() ? linearExtrude :
+				polyhedron(Extrusions.linear(polygons.contours(), height, twistDegrees, scale, slices, centerZ)), bounds, hash));
 	}
 
 	@Override
@@ -412,7 +743,25 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		OpenSCADGeometry3DFrom2D rotateExtrude =
 				javaOpenSCAD.rotateExtrude(angle.asDegrees(), angularResolution);
 		rotateExtrude.add(openSCADGeometry);
-		return new Geometry3DImpl(rotateExtrude);
+		Bounds2D profile = ((Geometry2DImpl) geometry).getBounds();
+		GeometryHash hash = GeometryHash.builder("rotateExtrude")
+				.add(angle.asDegrees()).add(angularResolution)
+				.add(((Geometry2DImpl) geometry).getHash())
+				.build();
+		Profile polygons = ((Geometry2DImpl) geometry).getProfile();
+		if(polygons == null)
+		{
+			return intern(new Geometry3DImpl(rotateExtrude, Bounds3D.rotateExtrude(profile), hash));
+		}
+		return intern(new Geometry3DImpl(() -> extrudedInOpenSCAD() ? rotateExtrude :
+				polyhedron(Extrusions.rotate(polygons.contours(), angle.asDegrees(), angularResolution)),
+				Bounds3D.rotateExtrude(profile), hash));
+	}
+
+	// Disabled and marked 2D geometries only keep their effect when OpenSCAD does the extrusion.
+	private boolean extrudedInOpenSCAD()
+	{
+		return anyDisabled || anyMarked2D;
 	}
 
 	@Override
@@ -433,7 +782,11 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		try
 		{
 			OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
-			javaOpenSCAD.generateOpenSCADFile("OpenSCAD/View" + windowID + ".scad", openSCADGeometry);
+			openSCAD(() ->
+			{
+				javaOpenSCAD.generateOpenSCADFile("OpenSCAD/View" + windowID + ".scad", openSCADGeometry);
+				return null;
+			});
 		} catch (IOException e)
 		{
 			throw new RuntimeException("Could not view geometry!", e);
@@ -446,7 +799,11 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		try
 		{
 			OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-			javaOpenSCAD.generateOpenSCADFile("OpenSCAD/View" + windowID + ".scad", openSCADGeometry);
+			openSCAD(() ->
+			{
+				javaOpenSCAD.generateOpenSCADFile("OpenSCAD/View" + windowID + ".scad", openSCADGeometry);
+				return null;
+			});
 		} catch (IOException e)
 		{
 			throw new RuntimeException("Could not view geometry!", e);
@@ -458,158 +815,587 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 	{
 		OpenSCADGeometry2D openSCADGeometry = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
 		OpenSCADGeometry2D cached = javaOpenSCAD.module(openSCADGeometry);
-		return new Geometry2DImpl(cached);
+		GeometryHash hash = GeometryHash.builder("cache2D").add(((Geometry2DImpl) geometry).getHash()).build();
+		return intern(new Geometry2DImpl(cached, ((Geometry2DImpl) geometry).getBounds(), hash, ((Geometry2DImpl) geometry).getProfile()));
 	}
 
 	@Override
 	public Geometry3D cache(Geometry3D geometry)
 	{
-		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
+		// The render starts right away, so sibling caches are prepared side by side while the parent is built.
+		Geometry3DImpl impl = (Geometry3DImpl) geometry;
+		Future<OpenSCADGeometry3D> cached;
+		if(anyDisabled)
+		{
+			// Disabling changes a geometry after its hash was computed, so it can not be looked up safely.
+			cached = render(impl);
+		}
+		else
+		{
+			boolean[] hit = {true};
+			cached = memoryCache.computeIfAbsent(impl.getHash(), hash ->
+			{
+				hit[0] = false;
+				return render(impl);
+			});
+			if(cached.state() == Future.State.FAILED || cached.state() == Future.State.CANCELLED)
+			{
+				memoryCache.remove(impl.getHash());
+				cached = memoryCache.computeIfAbsent(impl.getHash(), hash -> render(impl));
+			}
+			listeners.cacheAccessed(hit[0]);
+		}
+		return intern(new CachedGeometry3D(cached, impl.getBounds(), impl.getHash()));
+	}
+
+	public GeometryCache<Future<OpenSCADGeometry3D>> getMemoryCache()
+	{
+		return memoryCache;
+	}
+
+	private Future<OpenSCADGeometry3D> render(Geometry3DImpl geometry)
+	{
+		if(store != null && !anyDisabled)
+		{
+			// A render stored by an earlier run is loaded without building the geometry, so the cached parts
+			// inside it are not rendered either.
+			return scheduler.submit(() -> prepareStored(geometry), OpenSCADCall::call);
+		}
+		return scheduler.submit(geometry::getOpenSCADGeometry, openSCADGeometry ->
+		{
+			try
+			{
+				long start = System.nanoTime();
+				OpenSCADGeometry3D cached = openSCAD(() -> javaOpenSCAD.cacheGeometry3D(openSCADGeometry));
+				long nanos = System.nanoTime() - start;
+				listeners.openSCADCalled("cache3D", nanos);
+				listeners.geometryRendered(geometry, nanos);
+				return cached;
+			} catch (IOException e)
+			{
+				throw new RuntimeException("Could not cache geometry!", e);
+			}
+		});
+	}
+
+	// Looks the render up in the store. Returns the call that finishes the render once a permit is held.
+	private OpenSCADCall<OpenSCADGeometry3D> prepareStored(Geometry3DImpl geometry)
+	{
+		long start = System.nanoTime();
+		GeometryHash hash = geometry.getHash();
+		Mesh3D stored = store.load(hash);
+		if(stored == null)
+		{
+			OpenSCADGeometry3D openSCADGeometry = geometry.getOpenSCADGeometry();
+			// Another process rendering the same geometry is waited for. It may also have finished just now.
+			MeshStore.Claim claim = store.claim(hash);
+			stored = store.loadLocal(hash);
+			if(stored == null)
+			{
+				return () ->
+				{
+					try
+					{
+						return renderStored(geometry, openSCADGeometry, start);
+					} finally
+					{
+						if(claim != null)
+						{
+							claim.release();
+						}
+					}
+				};
+			}
+			if(claim != null)
+			{
+				claim.release();
+			}
+		}
 		try
 		{
-			OpenSCADGeometry3D cached = javaOpenSCAD.cacheGeometry3D(openSCADGeometry);
-			return new Geometry3DImpl(cached);
+			OpenSCADGeometry3D loaded = imported(hash, stored);
+			listeners.subtreeEvaluated("cache3D", true, System.nanoTime() - start);
+			return () -> loaded;
 		} catch (IOException e)
 		{
 			throw new RuntimeException("Could not cache geometry!", e);
 		}
+	}
+
+	// OpenSCAD writes ASCII STL, which is read back into the store.
+	private OpenSCADGeometry3D renderStored(Geometry3DImpl geometry, OpenSCADGeometry3D openSCADGeometry, long start)
+	{
+		try
+		{
+			Path ascii = Files.createTempFile("JavaCSG", ".stl");
+			try
+			{
+				long renderStart = System.nanoTime();
+				openSCAD(() ->
+				{
+					javaOpenSCAD.saveSTL(ascii.toString(), openSCADGeometry);
+					return null;
+				});
+				long nanos = System.nanoTime() - renderStart;
+				listeners.openSCADCalled("cache3D", nanos);
+				listeners.geometryRendered(geometry, nanos);
+				Mesh3D mesh = STLFiles.read(ascii);
+				store.save(geometry.getHash(), mesh);
+				OpenSCADGeometry3D result = imported(geometry.getHash(), mesh);
+				listeners.subtreeEvaluated("cache3D", false, System.nanoTime() - start);
+				return result;
+			} finally
+			{
+				Files.deleteIfExists(ascii);
+			}
+		} catch (IOException e)
+		{
+			throw new RuntimeException("Could not cache geometry!", e);
+		}
+	}
+
+	// OpenSCAD reads an imported file every time a model containing the import is rendered, so the file is kept
+	// until the import node is no longer reachable, or at the latest until the JVM exits. Every import gets a
+	// file of its own, since another import of the same geometry may outlive it.
+	private OpenSCADGeometry3D imported(GeometryHash hash, Mesh3D mesh) throws IOException
+	{
+		return openSCAD(() ->
+		{
+			if(importDirectory == null)
+			{
+				importDirectory = Files.createTempDirectory("JavaCSG");
+				importDirectory.toFile().deleteOnExit();
+			}
+			Path file = Files.createTempFile(importDirectory, hash.toString(), ".stl");
+			file.toFile().deleteOnExit();
+			OpenSCADGeometry3D node;
+			try
+			{
+				STLFiles.writeBinary(file, mesh);
+				node = javaOpenSCAD.loadSTL(file.toString());
+			} catch (IOException | RuntimeException e)
+			{
+				Files.deleteIfExists(file);
+				throw e;
+			}
+			IMPORTS.register(node, () ->
+			{
+				try
+				{
+					Files.deleteIfExists(file);
+				} catch (IOException ignored)
+				{
+					// Left for the JVM to remove on exit.
+				}
+			});
+			return node;
+		});
+	}
 
+	private OpenSCADGeometry3D wrap(OpenSCADGeometry3D geometry)
+	{
+		OpenSCADGeometry3DFrom3D union = javaOpenSCAD.union3D();
+		union.add(geometry);
+		return union;
 	}
 
+	private <T> T openSCAD(OpenSCADCall<T> call) throws IOException
+	{
+		openSCADLock.lock();
+		try
+		{
+			return call.call();
+		} finally
+		{
+			openSCADLock.unlock();
+		}
+	}
+
+	// The file is scanned once here for its bounds, so they are known without rendering the import.
 	@Override
 	public Geometry3D loadSTL(String fileName) throws IOException
 	{
-		return new Geometry3DImpl(javaOpenSCAD.loadSTL(fileName));
+		double[] b = STLFiles.bounds(Path.of(fileName));
+		Bounds3D bounds = b[0] > b[3] ? Bounds3D.EMPTY : new Bounds3D(b[0], b[1], b[2], b[3], b[4], b[5], true);
+		return intern(new Geometry3DImpl(openSCAD(() -> javaOpenSCAD.loadSTL(fileName)), bounds, fileHash("loadSTL", fileName)));
 	}
 
 	@Override
 	public void saveSTL(String fileName, Geometry3D geometry) throws IOException
 	{
 		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-		javaOpenSCAD.saveSTL(fileName, openSCADGeometry);
+		long start = System.nanoTime();
+		openSCAD(() ->
+		{
+			javaOpenSCAD.saveSTL(fileName, openSCADGeometry);
+			return null;
+		});
+		listeners.openSCADCalled("saveSTL", System.nanoTime() - start);
+	}
+
+	// OpenSCAD writes ASCII STL, which is streamed into the binary file and then deleted.
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
+		Path ascii = Files.createTempFile("JavaCSG", ".stl");
+		try
+		{
+			long start = System.nanoTime();
+			openSCAD(() ->
+			{
+				javaOpenSCAD.saveSTL(ascii.toString(), openSCADGeometry);
+				return null;
+			});
+			listeners.openSCADCalled("saveBinarySTL", System.nanoTime() - start);
+			STLFiles.convertToBinary(ascii, Path.of(fileName));
+		} finally
+		{
+			Files.deleteIfExists(ascii);
+		}
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files) throws IOException
+	{
+		saveAll(files, this::saveSTL);
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files) throws IOException
+	{
+		saveAll(files, this::saveBinarySTL);
+	}
+
+	// Every file is a separate OpenSCAD run. The models are prepared side by side, and a script can not refer to
+	// what another run computed, so the subtrees shared between the files are those that went through the memory
+	// cache.
+	private void saveAll(Map<String, Geometry3D> files, GeometryWriter writer) throws IOException
+	{
+		List<Future<Geometry3D>> saves = new ArrayList<>();
+		for(Map.Entry<String, Geometry3D> file : files.entrySet())
+		{
+			saves.add(scheduler.submit(file::getValue, geometry ->
+			{
+				try
+				{
+					writer.write(file.getKey(), geometry);
+				} catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+				return geometry;
+			}));
+		}
+		try
+		{
+			RenderScheduler.joinAll(saves);
+		} catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
 	}
 
 	@Override
 	public Geometry3D load3MF(String fileName) throws IOException
 	{
-		return new Geometry3DImpl(javaOpenSCAD.load3MF(fileName));
+		double[] b = ThreeMFFiles.bounds(Path.of(fileName));
+		Bounds3D bounds = b[0] > b[3] ? Bounds3D.EMPTY : new Bounds3D(b[0], b[1], b[2], b[3], b[4], b[5], true);
+		return intern(new Geometry3DImpl(openSCAD(() -> javaOpenSCAD.load3MF(fileName)), bounds, fileHash("load3MF", fileName)));
+	}
+
+	// A changed file must not be mistaken for the one loaded earlier.
+	private static GeometryHash fileHash(String operation, String fileName)
+	{
+		GeometryHash.Builder hash = GeometryHash.builder(operation).add(fileName);
+		File file = new File(fileName);
+		return hash.add(file.length()).add(file.lastModified()).build();
+	}
+
+	// What a geometry computes is shared with the structurally equal ones. Every call still returns its own
+	// geometry with its own OpenSCAD node, so debugMark and disable stay with the caller.
+	private Geometry2DImpl intern(Geometry2DImpl geometry)
+	{
+		geometry.shared = interned2D.intern(geometry.getHash(), geometry.shared);
+		return geometry;
+	}
+
+	private Geometry3DImpl intern(Geometry3DImpl geometry)
+	{
+		geometry.shared = interned3D.intern(geometry.getHash(), geometry.shared);
+		return geometry;
+	}
+
+	// The node is built right away when its children are. Otherwise it is built when it is first needed, so a
+	// parent of a cached geometry does not wait for the render.
+	private Geometry3DImpl lazy3D(List<Geometry3D> children, Supplier<OpenSCADGeometry3D> build, Bounds3D bounds, GeometryHash hash)
+	{
+		for(Geometry3D child : children)
+		{
+			if(!((Geometry3DImpl) child).isBuilt())
+			{
+				return intern(new Geometry3DImpl(build, bounds, hash));
+			}
+		}
+		return intern(new Geometry3DImpl(build.get(), bounds, hash));
+	}
+
+	private Geometry3DImpl node3D(Supplier<OpenSCADGeometry3DFrom3D> create, List<Geometry3D> children, Bounds3D bounds, GeometryHash hash)
+	{
+		return lazy3D(children, () ->
+		{
+			OpenSCADGeometry3DFrom3D node = create.get();
+			for(Geometry3D child : children)
+			{
+				node.add(((Geometry3DImpl) child).getOpenSCADGeometry());
+			}
+			return node;
+		}, bounds, hash);
+	}
+
+	private static Bounds3D bounds(Geometry3D geometry)
+	{
+		return ((Geometry3DImpl) geometry).getBounds();
+	}
+
+	private static GeometryHash transformedHash(Geometry2D geometry, Affine2D affine)
+	{
+		return GeometryHash.builder("transform2D").add(affine).add(((Geometry2DImpl) geometry).getHash()).build();
+	}
+
+	private static Profile transformedProfile(Geometry2D geometry, Affine2D affine)
+	{
+		Profile profile = ((Geometry2DImpl) geometry).getProfile();
+		if(profile == null)
+		{
+			return null;
+		}
+		return new Profile(() ->
+		{
+			List<double[]> result = new ArrayList<>();
+			for(double[] contour : profile.contours())
+			{
+				double[] transformed = new double[contour.length];
+				for(int i = 0; i < contour.length; i += 2)
+				{
+					transformed[i] = affine.transformX(contour[i], contour[i + 1]);
+					transformed[i + 1] = affine.transformY(contour[i], contour[i + 1]);
+				}
+				result.add(transformed);
+			}
+			return result;
+		});
+	}
+
+	private static GeometryHash transformedHash(Geometry3D geometry, Affine3D affine)
+	{
+		return GeometryHash.builder("transform3D").add(affine).add(((Geometry3DImpl) geometry).getHash()).build();
 	}
 
 	@Override
 	public void save3MF(String fileName, Geometry3D geometry) throws IOException
 	{
 		OpenSCADGeometry3D openSCADGeometry = ((Geometry3DImpl) geometry).getOpenSCADGeometry();
-		javaOpenSCAD.save3MF(fileName, openSCADGeometry);
+		long start = System.nanoTime();
+		openSCAD(() ->
+		{
+			javaOpenSCAD.save3MF(fileName, openSCADGeometry);
+			return null;
+		});
+		listeners.openSCADCalled("save3MF", System.nanoTime() - start);
+	}
+
+	// OpenSCAD exports a single object, so the objects are merged.
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects) throws IOException
+	{
+		save3MF(fileName, union3D(objects));
+	}
+
+	@Override
+	public boolean isMarkedOrDisabled(Geometry geometry)
+	{
+		if(geometry instanceof Geometry2DImpl geometry2D)
+		{
+			return geometry2D.marked || geometry2D.disabled;
+		}
+		Geometry3DImpl geometry3D = (Geometry3DImpl) geometry;
+		return geometry3D.marked || geometry3D.disabled;
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	private interface AffineTransform2D extends Transform2D
+	{
+		Affine2D getAffine();
+
+		@Override
+		default PointBuffer2D transformPoints(PointBuffer2D points)
+		{
+			return getAffine().transformPoints(points);
+		}
+	}
+
+	private interface AffineTransform3D extends Transform3D
+	{
+		Affine3D getAffine();
+
+		@Override
+		default PointBuffer3D transformPoints(PointBuffer3D points)
+		{
+			return getAffine().transformPoints(points);
+		}
 	}
 
-	private static class Transform2DComposed implements Transform2D
+	private class Transform2DComposed implements AffineTransform2D
 	{
-		private List<Transform2D> list;
+		private final Affine2D affine;
+		// The composed transforms without identities, for short chains that take fewer nodes than the
+		// decomposed matrix. Null when only the matrix is known.
+		private final List<AffineTransform2D> chain;
 
 		public Transform2DComposed(List<Transform2D> children)
 		{
+			// compose(a, b, c) applies c first, so the matrices are multiplied in list order.
+			Affine2D product = Affine2D.IDENTITY;
+			List<AffineTransform2D> flat = new ArrayList<>();
 			for(Transform2D child : children)
 			{
-				if(child instanceof Transform2DIdentity)
-				{
-					continue;
-				}
-				if(child instanceof Transform2DComposed composed)
-				{
-					if(composed.list == null)
-					{
-						continue;
-					}
-					if(list == null)
-					{
-						list = new ArrayList<>(composed.list);
-					}
-					else
-					{
-						list.addAll(composed.list);
-					}
+				AffineTransform2D transform = (AffineTransform2D) child;
+				product = product.multiply(transform.getAffine());
+				if(transform instanceof Transform2DComposed composed && composed.chain != null)
+				{
+					flat.addAll(composed.chain);
 				}
-				else
+				else if(!transform.getAffine().isIdentity())
 				{
-					if(list == null)
-					{
-						list = new ArrayList<>();
-					}
-					list.add(child);
+					flat.add(transform);
 				}
 			}
+			this.affine = product;
+			this.chain = flat;
+		}
+
+		private Transform2DComposed(Affine2D affine)
+		{
+			this(affine, null);
+		}
+
+		private Transform2DComposed(Affine2D affine, List<AffineTransform2D> chain)
+		{
+			this.affine = affine;
+			this.chain = chain;
+		}
+
+		@Override
+		public Affine2D getAffine()
+		{
+			return affine;
 		}
 
 		@Override
 		public Transform2D inverse()
 		{
-			if(list == null)
+			if(chain == null)
 			{
-				return this;
+				return new Transform2DComposed(affine.inverse());
 			}
-			List<Transform2D> inverseList = new ArrayList<>(list.size());
-			for(Transform2D t : list.reversed())
+			List<AffineTransform2D> inverses = new ArrayList<>(chain.size());
+			for(AffineTransform2D transform : chain.reversed())
 			{
-				inverseList.add(t.inverse());
+				inverses.add((AffineTransform2D) transform.inverse());
 			}
-			return new Transform2DComposed(inverseList);
+			return new Transform2DComposed(affine.inverse(), inverses);
 		}
 
 		@Override
 		public Vector2D transformPoint(Vector2D vector)
 		{
-			if(list == null)
-			{
-				return vector;
-			}
-			for(Transform2D transform : list.reversed())
-			{
-				vector = transform.transformPoint(vector);
-			}
-			return vector;
+			return affine.transformPoint(vector);
 		}
 
 		@Override
 		public Vector2D transformDirection(Vector2D vector)
 		{
-			if(list == null)
-			{
-				return vector;
-			}
-			for(Transform2D transform : list.reversed())
-			{
-				vector = transform.transformDirection(vector);
-			}
-			return vector;
+			return affine.transformDirection(vector);
 		}
 
 		@Override
 		public Geometry2D transform(Geometry2D geometry)
 		{
-			if(list == null)
+			if(affine.isIdentity())
 			{
 				return geometry;
 			}
-			for(Transform2D transform : list.reversed())
+			double[] d = AffineDecomposition.decompose(affine);
+			int nodes = (d[5] != 0 ? 1 : 0) + (d[3] != 1 || d[4] != 1 ? 1 : 0) + (d[2] != 0 ? 1 : 0) +
+					(d[0] != 0 || d[1] != 0 ? 1 : 0);
+			if(chain != null && chain.size() <= nodes)
+			{
+				Geometry2D result = geometry;
+				for(AffineTransform2D transform : chain.reversed())
+				{
+					result = transform.transform(result);
+				}
+				return result;
+			}
+			OpenSCADGeometry2D result = ((Geometry2DImpl) geometry).getOpenSCADGeometry();
+			if(d[5] != 0)
 			{
-				geometry = transform.transform(geometry);
+				OpenSCADGeometry2DFrom2D rotate = javaOpenSCAD.rotate2D(d[5]);
+				rotate.add(result);
+				result = rotate;
 			}
-			return geometry;
+			if(d[3] != 1 || d[4] != 1)
+			{
+				OpenSCADGeometry2DFrom2D scale = javaOpenSCAD.scale2D(d[3], d[4]);
+				scale.add(result);
+				result = scale;
+			}
+			if(d[2] != 0)
+			{
+				OpenSCADGeometry2DFrom2D rotate = javaOpenSCAD.rotate2D(d[2]);
+				rotate.add(result);
+				result = rotate;
+			}
+			if(d[0] != 0 || d[1] != 0)
+			{
+				OpenSCADGeometry2DFrom2D translate = javaOpenSCAD.translate2D(d[0], d[1]);
+				translate.add(result);
+				result = translate;
+			}
+			Bounds2D bounds = ((Geometry2DImpl) geometry).getBounds().transformed(affine);
+			return intern(new Geometry2DImpl(result, bounds, transformedHash(geometry, getAffine()),
+					transformedProfile(geometry, getAffine())));
 		}
 
 		@Override
 		public Transform3D asTransform3D()
 		{
-			List<Transform3D> transform3DList = new ArrayList<>();
-			for(Transform2D transform2D : list)
+			if(chain == null)
+			{
+				return new Transform3DComposed(affine.asAffine3D());
+			}
+			List<Transform3D> transforms = new ArrayList<>(chain.size());
+			for(AffineTransform2D transform : chain)
 			{
-				transform3DList.add(transform2D.asTransform3D());
+				transforms.add(transform.asTransform3D());
 			}
-			return new Transform3DComposed(transform3DList);
+			return new Transform3DComposed(transforms);
 		}
 	}
 
-	private class Transform2DTranslate implements Transform2D
+	private class Transform2DTranslate implements AffineTransform2D
 	{
 		private final double x;
 		private final double y;
@@ -620,6 +1406,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.y = y;
 		}
 
+		@Override
+		public Affine2D getAffine()
+		{
+			return Affine2D.translation(x, y);
+		}
+
 		@Override
 		public Transform2D inverse()
 		{
@@ -643,7 +1435,9 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 			OpenSCADGeometry2DFrom2D translate = javaOpenSCAD.translate2D(x, y);
 			translate.add(((Geometry2DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry2DImpl(translate);
+			Bounds2D bounds = ((Geometry2DImpl) geometry).getBounds().transformed(getAffine());
+			return intern(new Geometry2DImpl(translate, bounds, transformedHash(geometry, getAffine()),
+					transformedProfile(geometry, getAffine())));
 		}
 
 		@Override
@@ -653,7 +1447,7 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private class Transform2DRotate implements Transform2D
+	private class Transform2DRotate implements AffineTransform2D
 	{
 		private static final double RAD_TO_DEG = 180.0 / Math.PI;
 		private final double rad;
@@ -672,6 +1466,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this(angle.asRadians());
 		}
 
+		@Override
+		public Affine2D getAffine()
+		{
+			return Affine2D.rotation(rad);
+		}
+
 		@Override
 		public Transform2D inverse()
 		{
@@ -697,7 +1497,9 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 			OpenSCADGeometry2DFrom2D rotate = javaOpenSCAD.rotate2D(rad * RAD_TO_DEG);
 			rotate.add(((Geometry2DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry2DImpl(rotate);
+			Bounds2D bounds = ((Geometry2DImpl) geometry).getBounds().transformed(getAffine());
+			return intern(new Geometry2DImpl(rotate, bounds, transformedHash(geometry, getAffine()),
+					transformedProfile(geometry, getAffine())));
 		}
 
 		@Override
@@ -707,7 +1509,7 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private class Transform2DScale implements Transform2D
+	private class Transform2DScale implements AffineTransform2D
 	{
 		private final double sx;
 		private final double sy;
@@ -718,6 +1520,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.sy = sy;
 		}
 
+		@Override
+		public Affine2D getAffine()
+		{
+			return Affine2D.scaling(sx, sy);
+		}
+
 		@Override
 		public Transform2D inverse()
 		{
@@ -741,7 +1549,9 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 			OpenSCADGeometry2DFrom2D scale = javaOpenSCAD.scale2D(sx, sy);
 			scale.add(((Geometry2DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry2DImpl(scale);
+			Bounds2D bounds = ((Geometry2DImpl) geometry).getBounds().transformed(getAffine());
+			return intern(new Geometry2DImpl(scale, bounds, transformedHash(geometry, getAffine()),
+					transformedProfile(geometry, getAffine())));
 		}
 
 		@Override
@@ -751,7 +1561,7 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private static class Transform2DIdentity implements Transform2D
+	private static class Transform2DIdentity implements AffineTransform2D
 	{
 		public static final Transform2DIdentity INSTANCE = new Transform2DIdentity();
 
@@ -759,6 +1569,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 		}
 
+		@Override
+		public Affine2D getAffine()
+		{
+			return Affine2D.IDENTITY;
+		}
+
 		@Override
 		public Transform2D inverse()
 		{
@@ -790,7 +1606,7 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private class Transform2DMirror implements Transform2D
+	private class Transform2DMirror implements AffineTransform2D
 	{
 		private final double normX;
 		private final double normY;
@@ -802,6 +1618,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 
 
+		@Override
+		public Affine2D getAffine()
+		{
+			return Affine2D.mirror(normX, normY);
+		}
+
 		@Override
 		public Transform2D inverse()
 		{
@@ -828,7 +1650,9 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 			OpenSCADGeometry2DFrom2D mirror = javaOpenSCAD.mirror2D(normX, normY);
 			mirror.add(((Geometry2DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry2DImpl(mirror);
+			Bounds2D bounds = ((Geometry2DImpl) geometry).getBounds().transformed(getAffine());
+			return intern(new Geometry2DImpl(mirror, bounds, transformedHash(geometry, getAffine()),
+					transformedProfile(geometry, getAffine())));
 		}
 
 		@Override
@@ -838,103 +1662,134 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private static class Transform3DComposed implements Transform3D
+	private class Transform3DComposed implements AffineTransform3D
 	{
-		private List<Transform3D> list;
+		private final Affine3D affine;
+		// The composed transforms without identities, for short chains that take fewer nodes than the
+		// decomposed matrix. Null when only the matrix is known.
+		private final List<AffineTransform3D> chain;
 
 		public Transform3DComposed(List<Transform3D> children)
 		{
+			// compose(a, b, c) applies c first, so the matrices are multiplied in list order.
+			Affine3D product = Affine3D.IDENTITY;
+			List<AffineTransform3D> flat = new ArrayList<>();
 			for(Transform3D child : children)
 			{
-				if(child instanceof Transform3DIdentity)
+				AffineTransform3D transform = (AffineTransform3D) child;
+				product = product.multiply(transform.getAffine());
+				if(transform instanceof Transform3DComposed composed && composed.chain != null)
 				{
-					continue;
-				}
-				if(child instanceof Transform3DComposed composed)
-				{
-					if(composed.list == null)
-					{
-						continue;
-					}
-					if(list == null)
-					{
-						list = new ArrayList<>(composed.list);
-					}
-					else
-					{
-						list.addAll(composed.list);
-					}
+					flat.addAll(composed.chain);
 				}
-				else
+				else if(!transform.getAffine().isIdentity())
 				{
-					if(list == null)
-					{
-						list = new ArrayList<>();
-					}
-					list.add(child);
+					flat.add(transform);
 				}
 			}
+			this.affine = product;
+			this.chain = flat;
+		}
+
+		private Transform3DComposed(Affine3D affine)
+		{
+			this(affine, null);
+		}
+
+		private Transform3DComposed(Affine3D affine, List<AffineTransform3D> chain)
+		{
+			this.affine = affine;
+			this.chain = chain;
+		}
+
+		@Override
+		public Affine3D getAffine()
+		{
+			return affine;
 		}
 
 		@Override
 		public Transform3D inverse()
 		{
-			if(list == null)
+			if(chain == null)
 			{
-				return this;
+				return new Transform3DComposed(affine.inverse());
 			}
-			List<Transform3D> inverseList = new ArrayList<>(list.size());
-			for(Transform3D t : list.reversed())
+			List<AffineTransform3D> inverses = new ArrayList<>(chain.size());
+			for(AffineTransform3D transform : chain.reversed())
 			{
-				inverseList.add(t.inverse());
+				inverses.add((AffineTransform3D) transform.inverse());
 			}
-			return new Transform3DComposed(inverseList);
+			return new Transform3DComposed(affine.inverse(), inverses);
 		}
 
 		@Override
 		public Vector3D transformPoint(Vector3D vector)
 		{
-			if(list == null)
-			{
-				return vector;
-			}
-			for(Transform3D transform : list.reversed())
-			{
-				vector = transform.transformPoint(vector);
-			}
-			return vector;
+			return affine.transformPoint(vector);
 		}
 
 		@Override
 		public Vector3D transformDirection(Vector3D vector)
 		{
-			if(list == null)
+			return affine.transformDirection(vector);
+		}
+
+		@Override
+		public Geometry3D transform(Geometry3D geometry)
+		{
+			if(affine.isIdentity())
 			{
-				return vector;
+				return geometry;
 			}
-			for(Transform3D transform : list.reversed())
+			double[] d = AffineDecomposition.decompose(affine);
+			int nodes = (d[9] != 0 || d[10] != 0 || d[11] != 0 ? 1 : 0) + (d[6] != 1 || d[7] != 1 || d[8] != 1 ? 1 : 0) +
+					(d[3] != 0 || d[4] != 0 || d[5] != 0 ? 1 : 0) + (d[0] != 0 || d[1] != 0 || d[2] != 0 ? 1 : 0);
+			if(chain != null && chain.size() <= nodes)
 			{
-				vector = transform.transformDirection(vector);
+				Geometry3D result = geometry;
+				for(AffineTransform3D transform : chain.reversed())
+				{
+					result = transform.transform(result);
+				}
+				return result;
 			}
-			return vector;
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(affine);
+			return lazy3D(List.of(geometry), () -> decomposed(d, ((Geometry3DImpl) geometry).getOpenSCADGeometry()),
+					bounds, transformedHash(geometry, getAffine()));
 		}
 
-		@Override
-		public Geometry3D transform(Geometry3D geometry)
+		private OpenSCADGeometry3D decomposed(double[] d, OpenSCADGeometry3D result)
 		{
-			if(list == null)
+			if(d[9] != 0 || d[10] != 0 || d[11] != 0)
 			{
-				return geometry;
+				OpenSCADGeometry3DFrom3D rotate = javaOpenSCAD.rotate3D(d[9], d[10], d[11]);
+				rotate.add(result);
+				result = rotate;
 			}
-			for(Transform3D transform : list.reversed())
+			if(d[6] != 1 || d[7] != 1 || d[8] != 1)
 			{
-				geometry = transform.transform(geometry);
+				OpenSCADGeometry3DFrom3D scale = javaOpenSCAD.scale3D(d[6], d[7], d[8]);
+				scale.add(result);
+				result = scale;
 			}
-			return geometry;
+			if(d[3] != 0 || d[4] != 0 || d[5] != 0)
+			{
+				OpenSCADGeometry3DFrom3D rotate = javaOpenSCAD.rotate3D(d[3], d[4], d[5]);
+				rotate.add(result);
+				result = rotate;
+			}
+			if(d[0] != 0 || d[1] != 0 || d[2] != 0)
+			{
+				OpenSCADGeometry3DFrom3D translate = javaOpenSCAD.translate3D(d[0], d[1], d[2]);
+				translate.add(result);
+				result = translate;
+			}
+			return result;
 		}
 	}
 
-	private class Transform3DTranslate implements Transform3D
+	private class Transform3DTranslate implements AffineTransform3D
 	{
 		private final double x;
 		private final double y;
@@ -947,6 +1802,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.z = z;
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.translation(x, y, z);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -968,13 +1829,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D translate = javaOpenSCAD.translate3D(x, y, z);
-			translate.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(translate);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.translate3D(x, y, z), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
-	private class Transform3DRotateX implements Transform3D
+	private class Transform3DRotateX implements AffineTransform3D
 	{
 		private static final double RAD_TO_DEG = 180.0 / Math.PI;
 
@@ -989,6 +1849,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.cos = Math.cos(rad);
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.rotationX(rad);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1012,13 +1878,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D rotate = javaOpenSCAD.rotate3D(rad * RAD_TO_DEG, 0, 0);
-			rotate.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(rotate);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.rotate3D(rad * RAD_TO_DEG, 0, 0), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
-	private class Transform3DRotateY implements Transform3D
+	private class Transform3DRotateY implements AffineTransform3D
 	{
 		private static final double RAD_TO_DEG = 180.0 / Math.PI;
 
@@ -1033,6 +1898,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.cos = Math.cos(rad);
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.rotationY(rad);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1056,13 +1927,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D rotate = javaOpenSCAD.rotate3D(0, rad * RAD_TO_DEG, 0);
-			rotate.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(rotate);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.rotate3D(0, rad * RAD_TO_DEG, 0), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
-	private class Transform3DRotateZ implements Transform3D
+	private class Transform3DRotateZ implements AffineTransform3D
 	{
 		private static final double RAD_TO_DEG = 180.0 / Math.PI;
 
@@ -1077,6 +1947,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.cos = Math.cos(rad);
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.rotationZ(rad);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1100,13 +1976,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D rotate = javaOpenSCAD.rotate3D(0, 0, rad * RAD_TO_DEG);
-			rotate.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(rotate);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.rotate3D(0, 0, rad * RAD_TO_DEG), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
-	private class Transform3DScale implements Transform3D
+	private class Transform3DScale implements AffineTransform3D
 	{
 		private final double sx;
 		private final double sy;
@@ -1119,6 +1994,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.sz = sz;
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.scaling(sx, sy, sz);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1140,13 +2021,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D scale = javaOpenSCAD.scale3D(sx, sy, sz);
-			scale.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(scale);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.scale3D(sx, sy, sz), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
-	private static class Transform3DIdentity implements Transform3D
+	private static class Transform3DIdentity implements AffineTransform3D
 	{
 		public static final Transform3DIdentity INSTANCE = new Transform3DIdentity();
 
@@ -1154,6 +2034,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		{
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.IDENTITY;
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1179,7 +2065,7 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		}
 	}
 
-	private class Transform3DMirror implements Transform3D
+	private class Transform3DMirror implements AffineTransform3D
 	{
 		private final double normX;
 		private final double normY;
@@ -1192,6 +2078,12 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			this.normZ = normZ;
 		}
 
+		@Override
+		public Affine3D getAffine()
+		{
+			return Affine3D.mirror(normX, normY, normZ);
+		}
+
 		@Override
 		public Transform3D inverse()
 		{
@@ -1217,9 +2109,8 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 		@Override
 		public Geometry3D transform(Geometry3D geometry)
 		{
-			OpenSCADGeometry3DFrom3D mirror = javaOpenSCAD.mirror3D(normX, normY, normZ);
-			mirror.add(((Geometry3DImpl) geometry).getOpenSCADGeometry());
-			return new Geometry3DImpl(mirror);
+			Bounds3D bounds = ((Geometry3DImpl) geometry).getBounds().transformed(getAffine());
+			return node3D(() -> javaOpenSCAD.mirror3D(normX, normY, normZ), List.of(geometry), bounds, transformedHash(geometry, getAffine()));
 		}
 	}
 
@@ -1227,12 +2118,25 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 	private class Geometry2DImpl implements Geometry2D
 	{
 		private final OpenSCADGeometry2D geometry;
+		private final Bounds2D bounds;
+		private final GeometryHash hash;
+		private Shared2D shared;
+		private volatile boolean marked;
+		private volatile boolean disabled;
 		private Vector2D min;
 		private Vector2D max;
 
-		public Geometry2DImpl(OpenSCADGeometry2D geometry)
+		public Geometry2DImpl(OpenSCADGeometry2D geometry, Bounds2D bounds, GeometryHash hash)
+		{
+			this(geometry, bounds, hash, null);
+		}
+
+		public Geometry2DImpl(OpenSCADGeometry2D geometry, Bounds2D bounds, GeometryHash hash, Profile profile)
 		{
 			this.geometry = geometry;
+			this.bounds = bounds;
+			this.hash = hash;
+			this.shared = new Shared2D(profile);
 			this.min = null;
 			this.max = null;
 		}
@@ -1242,16 +2146,36 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			return geometry;
 		}
 
+		public Bounds2D getBounds()
+		{
+			return bounds;
+		}
+
+		public GeometryHash getHash()
+		{
+			return hash;
+		}
+
+		// Null unless the geometry is made of polygons, 2D transforms and 2D booleans only.
+		public Profile getProfile()
+		{
+			return shared.profile;
+		}
+
 		@Override
 		public void debugMark()
 		{
 			geometry.debugMark();
+			marked = true;
+			anyMarked2D = true;
 		}
 
 		@Override
 		public void disable()
 		{
 			geometry.disable();
+			disabled = true;
+			anyDisabled = true;
 		}
 
 		@Override
@@ -1274,43 +2198,249 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			return max;
 		}
 
+		@Override
+		public Vector2D getConservativeMin()
+		{
+			return bounds.isBounded() ? bounds.min() : getMin();
+		}
+
+		@Override
+		public Vector2D getConservativeMax()
+		{
+			return bounds.isBounded() ? bounds.max() : getMax();
+		}
+
 		private void calculateMinMax()
 		{
-			OpenSCADVector2D minOSC = javaOpenSCAD.getMin2D(this.geometry);
-			OpenSCADVector2D maxOSC = javaOpenSCAD.getMax2D(this.geometry);
-			min = new Vector2DImpl(minOSC.x(), minOSC.y());
-			max = new Vector2DImpl(maxOSC.x(), maxOSC.y());
+			// Disabled geometries are left out when rendering, which can shrink the bounds of their parents.
+			if(bounds.isExact() && !anyDisabled)
+			{
+				min = bounds.min();
+				max = bounds.max();
+				return;
+			}
+			// Equal geometries render to the same extent, unless a disabled geometry may have made them differ.
+			Vector2D[] extent = anyDisabled ? null : shared.extent;
+			if(extent == null)
+			{
+				OpenSCADVector2D minOSC;
+				OpenSCADVector2D maxOSC;
+				openSCADLock.lock();
+				try
+				{
+					minOSC = javaOpenSCAD.getMin2D(this.geometry);
+					maxOSC = javaOpenSCAD.getMax2D(this.geometry);
+				} finally
+				{
+					openSCADLock.unlock();
+				}
+				extent = new Vector2D[]{new Vector2DImpl(minOSC.x(), minOSC.y()), new Vector2DImpl(maxOSC.x(), maxOSC.y())};
+				if(!anyDisabled)
+				{
+					shared.extent = extent;
+				}
+			}
+			min = extent[0];
+			max = extent[1];
+		}
+	}
+
+	@FunctionalInterface
+	private interface GeometryWriter
+	{
+		void write(String fileName, Geometry3D geometry) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface OpenSCADCall<T>
+	{
+		T call() throws IOException;
+	}
+
+	// The even-odd contours of a 2D geometry, holding x, y per vertex. Booleans are only resolved when an
+	// extrusion first needs the contours.
+	// What structurally equal 2D geometries have in common: the profile extrusions are built from and the
+	// extent OpenSCAD rendered.
+	private static final class Shared2D
+	{
+		private final Profile profile;
+		private volatile Vector2D[] extent;
+
+		private Shared2D(Profile profile)
+		{
+			this.profile = profile;
+		}
+	}
+
+	private static final class Shared3D
+	{
+		private volatile Vector3D[] extent;
+	}
+
+	private static final class Profile
+	{
+		private volatile List<double[]> contours;
+		private Supplier<List<double[]>> pending;
+
+		private Profile(Supplier<List<double[]>> pending)
+		{
+			this.contours = null;
+			this.pending = pending;
+		}
+
+		private List<double[]> contours()
+		{
+			List<double[]> result = contours;
+			if(result == null)
+			{
+				synchronized(this)
+				{
+					result = contours;
+					if(result == null)
+					{
+						result = pending.get();
+						contours = result;
+						pending = null;
+					}
+				}
+			}
+			return result;
 		}
 	}
 
 	private class Geometry3DImpl implements Geometry3D
 	{
-		private final OpenSCADGeometry3D geometry;
+		// Not a monitor, since building may wait for a render on a virtual thread.
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile OpenSCADGeometry3D geometry;
+		private Supplier<OpenSCADGeometry3D> pending;
+		private final Bounds3D bounds;
+		private final GeometryHash hash;
+		private Shared3D shared;
+		private volatile boolean marked;
+		private volatile boolean disabled;
 		private Vector3D min;
 		private Vector3D max;
 
-		public Geometry3DImpl(OpenSCADGeometry3D geometry)
+		public Geometry3DImpl(OpenSCADGeometry3D geometry, Bounds3D bounds, GeometryHash hash)
 		{
 			this.geometry = geometry;
+			this.pending = null;
+			this.bounds = bounds;
+			this.hash = hash;
+			this.shared = new Shared3D();
+			this.min = null;
+			this.max = null;
+		}
+
+		public Geometry3DImpl(Supplier<OpenSCADGeometry3D> pending, Bounds3D bounds, GeometryHash hash)
+		{
+			this.geometry = null;
+			this.pending = pending;
+			this.bounds = bounds;
+			this.hash = hash;
+			this.shared = new Shared3D();
 			this.min = null;
 			this.max = null;
 		}
 
 		public OpenSCADGeometry3D getOpenSCADGeometry()
 		{
-			return geometry;
+			OpenSCADGeometry3D result = geometry;
+			if(result == null)
+			{
+				lock.lock();
+				try
+				{
+					result = geometry;
+					if(result == null)
+					{
+						result = build();
+						if(marked || disabled)
+						{
+							result = owned(result);
+						}
+						if(marked)
+						{
+							result.debugMark();
+						}
+						if(disabled)
+						{
+							result.disable();
+						}
+						geometry = result;
+						pending = null;
+					}
+				} finally
+				{
+					lock.unlock();
+				}
+			}
+			return result;
+		}
+
+		OpenSCADGeometry3D build()
+		{
+			return pending.get();
+		}
+
+		// The node debugMark and disable may change. Only a cached geometry's node is shared with others.
+		OpenSCADGeometry3D owned(OpenSCADGeometry3D node)
+		{
+			return node;
+		}
+
+		boolean isBuilt()
+		{
+			return geometry != null;
+		}
+
+		public Bounds3D getBounds()
+		{
+			return bounds;
+		}
+
+		public GeometryHash getHash()
+		{
+			return hash;
 		}
 
+		// A node that is not built yet gets the flag when it is.
 		@Override
 		public void debugMark()
 		{
-			geometry.debugMark();
+			lock.lock();
+			try
+			{
+				marked = true;
+				if(geometry != null)
+				{
+					geometry = owned(geometry);
+					geometry.debugMark();
+				}
+			} finally
+			{
+				lock.unlock();
+			}
 		}
 
 		@Override
 		public void disable()
 		{
-			geometry.disable();
+			lock.lock();
+			try
+			{
+				disabled = true;
+				anyDisabled = true;
+				if(geometry != null)
+				{
+					geometry = owned(geometry);
+					geometry.disable();
+				}
+			} finally
+			{
+				lock.unlock();
+			}
 		}
 
 		@Override
@@ -1333,12 +2463,78 @@ public class JavaCSGBaseOpenSCADImpl implements JavaCSGBase
 			return max;
 		}
 
+		@Override
+		public Vector3D getConservativeMin()
+		{
+			return bounds.isBounded() ? bounds.min() : getMin();
+		}
+
+		@Override
+		public Vector3D getConservativeMax()
+		{
+			return bounds.isBounded() ? bounds.max() : getMax();
+		}
+
 		private void calculateMinMax()
 		{
-			OpenSCADVector3D minOSC = javaOpenSCAD.getMin3D(this.geometry);
-			OpenSCADVector3D maxOSC = javaOpenSCAD.getMax3D(this.geometry);
-			min = new Vector3DImpl(minOSC.x(), minOSC.y(), minOSC.z());
-			max = new Vector3DImpl(maxOSC.x(), maxOSC.y(), maxOSC.z());
+			// Disabled geometries are left out when rendering, which can shrink the bounds of their parents.
+			if(bounds.isExact() && !anyDisabled)
+			{
+				min = bounds.min();
+				max = bounds.max();
+				return;
+			}
+			// Equal geometries render to the same extent, unless a disabled geometry may have made them differ.
+			Vector3D[] extent = anyDisabled ? null : shared.extent;
+			if(extent == null)
+			{
+				OpenSCADGeometry3D openSCADGeometry = getOpenSCADGeometry();
+				OpenSCADVector3D minOSC;
+				OpenSCADVector3D maxOSC;
+				openSCADLock.lock();
+				try
+				{
+					minOSC = javaOpenSCAD.getMin3D(openSCADGeometry);
+					maxOSC = javaOpenSCAD.getMax3D(openSCADGeometry);
+				} finally
+				{
+					openSCADLock.unlock();
+				}
+				extent = new Vector3D[]{
+						new Vector3DImpl(minOSC.x(), minOSC.y(), minOSC.z()),
+						new Vector3DImpl(maxOSC.x(), maxOSC.y(), maxOSC.z())};
+				if(!anyDisabled)
+				{
+					shared.extent = extent;
+				}
+			}
+			min = extent[0];
+			max = extent[1];
+		}
+	}
+
+	// The rendered node is shared by everything cached under the same hash. It is only wrapped in a node of its
+	// own once debugMark or disable is called, so those stay with the caller.
+	private class CachedGeometry3D extends Geometry3DImpl
+	{
+		private OpenSCADGeometry3D rendered;
+
+		private CachedGeometry3D(Future<OpenSCADGeometry3D> render, Bounds3D bounds, GeometryHash hash)
+		{
+			super(() -> RenderScheduler.join(render), bounds, hash);
+		}
+
+		@Override
+		OpenSCADGeometry3D build()
+		{
+			rendered = super.build();
+			return rendered;
+		}
+
+		@Override
+		OpenSCADGeometry3D owned(OpenSCADGeometry3D node)
+		{
+			return node == rendered ? wrap(node) : node;
 		}
 	}
-}
\ No newline at end of file
+}
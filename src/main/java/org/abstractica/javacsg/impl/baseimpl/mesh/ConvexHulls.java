@@ -0,0 +1,310 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class ConvexHulls
+{
+	private ConvexHulls()
+	{
+	}
+
+	// points holds x, y per point. Returns the counterclockwise hull contour without collinear points.
+	static double[] hull2D(double[] points)
+	{
+		int n = points.length / 2;
+		if(n < 3)
+		{
+			return new double[0];
+		}
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++)
+		{
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) ->
+		{
+			int c = Double.compare(points[2 * a], points[2 * b]);
+			return c != 0 ? c : Double.compare(points[2 * a + 1], points[2 * b + 1]);
+		});
+		int[] hull = new int[2 * n];
+		int k = 0;
+		for(int i = 0; i < n; i++)
+		{
+			int p = order[i];
+			while(k >= 2 && cross(points, hull[k - 2], hull[k - 1], p) <= 0)
+			{
+				k--;
+			}
+			hull[k++] = p;
+		}
+		for(int i = n - 2, lower = k + 1; i >= 0; i--)
+		{
+			int p = order[i];
+			while(k >= lower && cross(points, hull[k - 2], hull[k - 1], p) <= 0)
+			{
+				k--;
+			}
+			hull[k++] = p;
+		}
+		k--;
+		if(k < 3)
+		{
+			return new double[0];
+		}
+		double[] result = new double[2 * k];
+		for(int i = 0; i < k; i++)
+		{
+			result[2 * i] = points[2 * hull[i]];
+			result[2 * i + 1] = points[2 * hull[i] + 1];
+		}
+		return result;
+	}
+
+	private static double cross(double[] p, int o, int a, int b)
+	{
+		return (p[2 * a] - p[2 * o]) * (p[2 * b + 1] - p[2 * o + 1]) -
+				(p[2 * a + 1] - p[2 * o + 1]) * (p[2 * b] - p[2 * o]);
+	}
+
+	// points holds x, y, z per point. Returns an empty mesh if all points are coplanar.
+	static Mesh3D hull3D(double[] points)
+	{
+		double[] p = unique(points);
+		int n = p.length / 3;
+		if(n < 4)
+		{
+			return Mesh3D.EMPTY;
+		}
+		double extent = 0;
+		for(double value : p)
+		{
+			extent = Math.max(extent, Math.abs(value));
+		}
+		double eps = 1e-10 * Math.max(extent, 1.0);
+
+		int i0 = 0;
+		for(int i = 1; i < n; i++)
+		{
+			if(p[3 * i] < p[3 * i0])
+			{
+				i0 = i;
+			}
+		}
+		int i1 = -1;
+		double best = eps;
+		for(int i = 0; i < n; i++)
+		{
+			double d = distanceSquared(p, i0, i);
+			if(d > best)
+			{
+				best = d;
+				i1 = i;
+			}
+		}
+		if(i1 < 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+		int i2 = -1;
+		best = eps;
+		for(int i = 0; i < n; i++)
+		{
+			double[] c = crossProduct(p, i0, i1, i);
+			double d = c[0] * c[0] + c[1] * c[1] + c[2] * c[2];
+			if(d > best)
+			{
+				best = d;
+				i2 = i;
+			}
+		}
+		if(i2 < 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+		double[] normal = crossProduct(p, i0, i1, i2);
+		int i3 = -1;
+		best = eps;
+		for(int i = 0; i < n; i++)
+		{
+			double d = Math.abs(dot(normal, p, i, i0));
+			if(d > best)
+			{
+				best = d;
+				i3 = i;
+			}
+		}
+		if(i3 < 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+
+		List<Face> faces = new ArrayList<>();
+		if(dot(normal, p, i3, i0) > 0)
+		{
+			faces.add(new Face(p, i0, i2, i1));
+			faces.add(new Face(p, i0, i1, i3));
+			faces.add(new Face(p, i1, i2, i3));
+			faces.add(new Face(p, i2, i0, i3));
+		}
+		else
+		{
+			faces.add(new Face(p, i0, i1, i2));
+			faces.add(new Face(p, i0, i3, i1));
+			faces.add(new Face(p, i1, i3, i2));
+			faces.add(new Face(p, i2, i3, i0));
+		}
+
+		for(int i = 0; i < n; i++)
+		{
+			if(i == i0 || i == i1 || i == i2 || i == i3)
+			{
+				continue;
+			}
+			List<Face> visible = new ArrayList<>();
+			for(Face face : faces)
+			{
+				if(face.distance(p, i) > eps)
+				{
+					visible.add(face);
+				}
+			}
+			if(visible.isEmpty())
+			{
+				continue;
+			}
+			Set<Long> edges = new HashSet<>();
+			for(Face face : visible)
+			{
+				edges.add(edge(face.a, face.b));
+				edges.add(edge(face.b, face.c));
+				edges.add(edge(face.c, face.a));
+			}
+			Set<Long> horizon = new LinkedHashSet<>();
+			for(Face face : visible)
+			{
+				addIfHorizon(edges, horizon, face.a, face.b);
+				addIfHorizon(edges, horizon, face.b, face.c);
+				addIfHorizon(edges, horizon, face.c, face.a);
+			}
+			faces.removeAll(visible);
+			for(long e : horizon)
+			{
+				faces.add(new Face(p, (int) (e >>> 32), (int) e, i));
+			}
+		}
+
+		MeshBuilder builder = new MeshBuilder(false);
+		int[] index = new int[n];
+		Arrays.fill(index, -1);
+		for(Face face : faces)
+		{
+			int[] corners = {face.a, face.b, face.c};
+			for(int corner = 0; corner < 3; corner++)
+			{
+				int v = corners[corner];
+				if(index[v] < 0)
+				{
+					index[v] = builder.addVertex(p[3 * v], p[3 * v + 1], p[3 * v + 2]);
+				}
+				corners[corner] = index[v];
+			}
+			builder.addTriangle(corners[0], corners[1], corners[2], null);
+		}
+		return builder.build();
+	}
+
+	private static void addIfHorizon(Set<Long> edges, Set<Long> horizon, int a, int b)
+	{
+		if(!edges.contains(edge(b, a)))
+		{
+			horizon.add(edge(a, b));
+		}
+	}
+
+	private static long edge(int a, int b)
+	{
+		return ((long) a << 32) | (b & 0xffffffffL);
+	}
+
+	private static double[] unique(double[] points)
+	{
+		Set<List<Double>> seen = new HashSet<>();
+		double[] result = new double[points.length];
+		int count = 0;
+		for(int i = 0; i < points.length; i += 3)
+		{
+			double x = points[i] + 0.0;
+			double y = points[i + 1] + 0.0;
+			double z = points[i + 2] + 0.0;
+			if(seen.add(List.of(x, y, z)))
+			{
+				result[count++] = x;
+				result[count++] = y;
+				result[count++] = z;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	private static double distanceSquared(double[] p, int a, int b)
+	{
+		double dx = p[3 * b] - p[3 * a];
+		double dy = p[3 * b + 1] - p[3 * a + 1];
+		double dz = p[3 * b + 2] - p[3 * a + 2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private static double[] crossProduct(double[] p, int o, int a, int b)
+	{
+		double ux = p[3 * a] - p[3 * o], uy = p[3 * a + 1] - p[3 * o + 1], uz = p[3 * a + 2] - p[3 * o + 2];
+		double vx = p[3 * b] - p[3 * o], vy = p[3 * b + 1] - p[3 * o + 1], vz = p[3 * b + 2] - p[3 * o + 2];
+		return new double[]{uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx};
+	}
+
+	private static double dot(double[] normal, double[] p, int i, int o)
+	{
+		return normal[0] * (p[3 * i] - p[3 * o]) +
+				normal[1] * (p[3 * i + 1] - p[3 * o + 1]) +
+				normal[2] * (p[3 * i + 2] - p[3 * o + 2]);
+	}
+
+	private static final class Face
+	{
+		private final int a;
+		private final int b;
+		private final int c;
+		private final double nx;
+		private final double ny;
+		private final double nz;
+		private final double w;
+
+		private Face(double[] p, int a, int b, int c)
+		{
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			double[] n = crossProduct(p, a, b, c);
+			double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+			if(length > 0)
+			{
+				n[0] /= length;
+				n[1] /= length;
+				n[2] /= length;
+			}
+			this.nx = n[0];
+			this.ny = n[1];
+			this.nz = n[2];
+			this.w = nx * p[3 * a] + ny * p[3 * a + 1] + nz * p[3 * a + 2];
+		}
+
+		private double distance(double[] p, int i)
+		{
+			return nx * p[3 * i] + ny * p[3 * i + 1] + nz * p[3 * i + 2] - w;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.impl.baseimpl.PolygonClipper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Cuts a closed mesh at z = 0. Every triangle crossing the plane contributes one segment, and the segments are
+// chained into contours through the edges they cross. Vertices on the plane count as above it, so each edge
+// is either crossed or not, and both triangles sharing an edge agree on where.
+final class CrossSection
+{
+	private CrossSection()
+	{
+	}
+
+	static Region2D atZero(Mesh3D mesh)
+	{
+		// Triangles only share edges through vertex indices, so equal coordinates are welded first.
+		MeshBuilder builder = new MeshBuilder(true);
+		int[] welded = new int[mesh.vertexCount()];
+		for(int v = 0; v < welded.length; v++)
+		{
+			welded[v] = builder.addVertex(mesh.x(v), mesh.y(v), mesh.z(v));
+		}
+		long vertexCount = builder.vertexCount();
+		Map<Long, Long> next = new HashMap<>();
+		Map<Long, double[]> points = new HashMap<>();
+		int[] corners = new int[3];
+		for(int t = 0; t < mesh.triangleCount(); t++)
+		{
+			long start = -1;
+			long end = -1;
+			for(int corner = 0; corner < 3; corner++)
+			{
+				int a = mesh.vertex(t, corner);
+				int b = mesh.vertex(t, (corner + 1) % 3);
+				corners[corner] = welded[a];
+				boolean aboveA = mesh.z(a) >= 0;
+				boolean aboveB = mesh.z(b) >= 0;
+				if(aboveA == aboveB)
+				{
+					continue;
+				}
+				// The edge is keyed and cut from its lower end, so both triangles compute the same point.
+				int below = aboveA ? b : a;
+				int above = aboveA ? a : b;
+				long key = welded[below] * vertexCount + welded[above];
+				points.computeIfAbsent(key, k -> cut(mesh, below, above));
+				// Seen from above, the inside of a counterclockwise triangle's solid is to the left of the
+				// segment running from where it goes down through the plane to where it comes back up.
+				if(aboveA)
+				{
+					start = key;
+				}
+				else
+				{
+					end = key;
+				}
+			}
+			if(start >= 0 && end >= 0 && corners[0] != corners[1] && corners[1] != corners[2] && corners[2] != corners[0])
+			{
+				next.put(start, end);
+			}
+		}
+		List<double[]> contours = new ArrayList<>();
+		while(!next.isEmpty())
+		{
+			long first = next.keySet().iterator().next();
+			double[] contour = new double[16];
+			int size = 0;
+			long key = first;
+			do
+			{
+				Long following = next.remove(key);
+				if(following == null)
+				{
+					// The mesh is open here, so the chain does not close.
+					size = 0;
+					break;
+				}
+				if(size + 2 > contour.length)
+				{
+					contour = Arrays.copyOf(contour, 2 * contour.length);
+				}
+				double[] point = points.get(key);
+				contour[size++] = point[0];
+				contour[size++] = point[1];
+				key = following;
+			}
+			while(key != first);
+			if(size >= 6)
+			{
+				contours.add(Arrays.copyOf(contour, size));
+			}
+		}
+		List<double[]> result = PolygonClipper.union(List.of(contours));
+		return result.isEmpty() ? Region2D.EMPTY : new Region2D(result);
+	}
+
+	private static double[] cut(Mesh3D mesh, int below, int above)
+	{
+		double z0 = mesh.z(below);
+		double f = -z0 / (mesh.z(above) - z0);
+		return new double[]
+				{
+						mesh.x(below) + (mesh.x(above) - mesh.x(below)) * f,
+						mesh.y(below) + (mesh.y(above) - mesh.y(below)) * f
+				};
+	}
+}
@@ -0,0 +1,183 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import java.util.List;
+
+public final class Extrusions
+{
+	private Extrusions()
+	{
+	}
+
+	// Extrudes even-odd contours holding x, y per vertex, for backends that resolve their 2D geometry in Java.
+	public static Mesh3D linear(List<double[]> contours,
+	                            double height,
+	                            double twistDegrees,
+	                            double scale,
+	                            int slices,
+	                            boolean centerZ)
+	{
+		return linear(new Region2D(contours), height, twistDegrees, scale, slices, centerZ);
+	}
+
+	public static Mesh3D rotate(List<double[]> contours, double angleDegrees, int angularResolution)
+	{
+		return rotate(new Region2D(contours), angleDegrees, angularResolution);
+	}
+
+	static Mesh3D linear(Region2D region,
+	                     double height,
+	                     double twistDegrees,
+	                     double scale,
+	                     int slices,
+	                     boolean centerZ)
+	{
+		if(region.isEmpty() || height <= 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+		slices = Math.max(slices, 1);
+		double z0 = centerZ ? -height / 2 : 0;
+		double[] cos = new double[slices + 1];
+		double[] sin = new double[slices + 1];
+		double[] factor = new double[slices + 1];
+		double[] z = new double[slices + 1];
+		for(int k = 0; k <= slices; k++)
+		{
+			double t = (double) k / slices;
+			// OpenSCAD twists clockwise for positive angles.
+			double rad = -Math.toRadians(twistDegrees * t);
+			cos[k] = Math.cos(rad);
+			sin[k] = Math.sin(rad);
+			factor[k] = 1 + (scale - 1) * t;
+			z[k] = k == slices ? z0 + height : z0 + height * t;
+		}
+		MeshBuilder builder = new MeshBuilder(true);
+		List<double[]> contours = region.orientedContours();
+		for(double[] contour : contours)
+		{
+			int n = contour.length / 2;
+			int[] previous = new int[n];
+			int[] current = new int[n];
+			for(int k = 0; k <= slices; k++)
+			{
+				for(int i = 0; i < n; i++)
+				{
+					double x = contour[2 * i] * factor[k];
+					double y = contour[2 * i + 1] * factor[k];
+					current[i] = builder.addVertex(x * cos[k] - y * sin[k], x * sin[k] + y * cos[k], z[k]);
+				}
+				if(k > 0)
+				{
+					for(int i = 0; i < n; i++)
+					{
+						int j = (i + 1) % n;
+						builder.addTriangle(previous[i], previous[j], current[j], null);
+						builder.addTriangle(previous[i], current[j], current[i], null);
+					}
+				}
+				int[] temp = previous;
+				previous = current;
+				current = temp;
+			}
+		}
+		double[] triangles = region.triangles();
+		for(int i = 0; i < triangles.length; i += 6)
+		{
+			int a = builder.addVertex(triangles[i], triangles[i + 1], z[0]);
+			int b = builder.addVertex(triangles[i + 2], triangles[i + 3], z[0]);
+			int c = builder.addVertex(triangles[i + 4], triangles[i + 5], z[0]);
+			builder.addTriangle(a, c, b, null);
+			int[] top = new int[3];
+			for(int corner = 0; corner < 3; corner++)
+			{
+				double x = triangles[i + 2 * corner] * factor[slices];
+				double y = triangles[i + 2 * corner + 1] * factor[slices];
+				top[corner] = builder.addVertex(
+						x * cos[slices] - y * sin[slices],
+						x * sin[slices] + y * cos[slices],
+						z[slices]);
+			}
+			builder.addTriangle(top[0], top[1], top[2], null);
+		}
+		return builder.build();
+	}
+
+	static Mesh3D rotate(Region2D region, double angleDegrees, int angularResolution)
+	{
+		if(region.isEmpty() || angleDegrees == 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+		double sweep = Math.min(Math.abs(angleDegrees), 360.0);
+		boolean full = sweep >= 360.0;
+		int segments = full ?
+				Math.max(angularResolution, 3) :
+				Math.max((int) Math.ceil(angularResolution * sweep / 360.0), 1);
+		double step = Math.toRadians(Math.copySign(sweep, angleDegrees)) / segments;
+		boolean flip = angleDegrees < 0;
+		int rings = full ? segments : segments + 1;
+		double[] cos = new double[rings];
+		double[] sin = new double[rings];
+		for(int j = 0; j < rings; j++)
+		{
+			cos[j] = Math.cos(step * j);
+			sin[j] = Math.sin(step * j);
+		}
+		MeshBuilder builder = new MeshBuilder(true);
+		for(double[] contour : region.orientedContours())
+		{
+			int n = contour.length / 2;
+			int[][] index = new int[rings][n];
+			for(int j = 0; j < rings; j++)
+			{
+				for(int i = 0; i < n; i++)
+				{
+					double r = Math.max(contour[2 * i], 0);
+					index[j][i] = builder.addVertex(r * cos[j], r * sin[j], contour[2 * i + 1]);
+				}
+			}
+			for(int j = 0; j < segments; j++)
+			{
+				int[] a = index[j];
+				int[] b = index[(j + 1) % rings];
+				for(int i = 0; i < n; i++)
+				{
+					int k = (i + 1) % n;
+					addTriangle(builder, a[i], b[k], a[k], flip);
+					addTriangle(builder, a[i], b[i], b[k], flip);
+				}
+			}
+		}
+		if(!full)
+		{
+			double[] triangles = region.triangles();
+			for(int i = 0; i < triangles.length; i += 6)
+			{
+				int[] start = new int[3];
+				int[] end = new int[3];
+				for(int corner = 0; corner < 3; corner++)
+				{
+					double r = Math.max(triangles[i + 2 * corner], 0);
+					double y = triangles[i + 2 * corner + 1];
+					start[corner] = builder.addVertex(r, 0, y);
+					end[corner] = builder.addVertex(r * cos[segments], r * sin[segments], y);
+				}
+				addTriangle(builder, start[0], start[1], start[2], flip);
+				addTriangle(builder, end[0], end[2], end[1], flip);
+			}
+		}
+		return builder.build();
+	}
+
+	private static void addTriangle(MeshBuilder builder, int a, int b, int c, boolean flip)
+	{
+		if(flip)
+		{
+			builder.addTriangle(a, c, b, null);
+		}
+		else
+		{
+			builder.addTriangle(a, b, c, null);
+		}
+	}
+}
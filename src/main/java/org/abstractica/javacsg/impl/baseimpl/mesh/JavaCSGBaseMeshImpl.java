@@ -0,0 +1,1824 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.*;
+import org.abstractica.javacsg.impl.Vector2DImpl;
+import org.abstractica.javacsg.impl.Vector3DImpl;
+import org.abstractica.javacsg.impl.baseimpl.Affine2D;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+import org.abstractica.javacsg.impl.baseimpl.BooleanPruning;
+import org.abstractica.javacsg.impl.baseimpl.Bounds2D;
+import org.abstractica.javacsg.impl.baseimpl.Bounds3D;
+import org.abstractica.javacsg.impl.baseimpl.Coordinates;
+import org.abstractica.javacsg.impl.baseimpl.FontOutlines;
+import org.abstractica.javacsg.impl.baseimpl.GeometryHash;
+import org.abstractica.javacsg.impl.baseimpl.GeometryInterner;
+import org.abstractica.javacsg.impl.baseimpl.IndexLists;
+import org.abstractica.javacsg.impl.baseimpl.JavaCSGBase;
+import org.abstractica.javacsg.impl.baseimpl.PolygonClipper;
+import org.abstractica.javacsg.impl.baseimpl.RenderListeners;
+import org.abstractica.javacsg.impl.baseimpl.RenderScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class JavaCSGBaseMeshImpl implements JavaCSGBase
+{
+	// Only these are worth a claim file in the store. The other operations take less time than claiming does.
+	private static final Set<String> CLAIMED_OPERATIONS =
+			Set.of("union3D", "intersection3D", "difference3D", "hull3D", "minkowski3D");
+
+	private final RenderScheduler scheduler;
+	private final MeshStore store;
+	private final RenderListeners listeners = new RenderListeners();
+	private final GeometryInterner<Shared2D> interned2D = new GeometryInterner<>();
+	private final GeometryInterner<Memo<Mesh3D>> interned3D = new GeometryInterner<>();
+	// Disabling changes a geometry after its hash was computed, so stored and shared results can no longer be
+	// trusted.
+	private volatile boolean anyDisabled;
+
+	public JavaCSGBaseMeshImpl()
+	{
+		this(RenderScheduler.forAvailableProcessors());
+	}
+
+	public JavaCSGBaseMeshImpl(RenderScheduler scheduler)
+	{
+		this(scheduler, null);
+	}
+
+	public JavaCSGBaseMeshImpl(String storeDirectory)
+	{
+		this(RenderScheduler.forAvailableProcessors(), new MeshStore(Path.of(storeDirectory)));
+	}
+
+	public JavaCSGBaseMeshImpl(String storeDirectory, long maxStoreBytes)
+	{
+		this(storeDirectory, maxStoreBytes, null);
+	}
+
+	public JavaCSGBaseMeshImpl(String storeDirectory, long maxStoreBytes, CacheStore remoteStore)
+	{
+		this(RenderScheduler.forAvailableProcessors(),
+				new MeshStore(Path.of(storeDirectory), maxStoreBytes, MeshStore.DEFAULT_MIN_NANOS, remoteStore));
+	}
+
+	public JavaCSGBaseMeshImpl(RenderScheduler scheduler, MeshStore store)
+	{
+		this.scheduler = scheduler;
+		this.store = store;
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices)
+	{
+		return polygon2D(Coordinates.of2D(vertices));
+	}
+
+	@Override
+	public Geometry2D polygon2D(Iterable<Vector2D> vertices, Iterable<? extends Iterable<Integer>> paths)
+	{
+		IndexLists lists = IndexLists.of(paths);
+		return polygon2D(Coordinates.of2D(vertices), lists.offsets(), lists.indices());
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy)
+	{
+		Coordinates.check(xy, 2);
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polygon2D"), xy);
+		double[] contour = xy.clone();
+		return intern(MeshGeometry2D.region(Bounds2D.ofPolygon(contour), () -> new Region2D(List.of(contour))), hash);
+	}
+
+	@Override
+	public Geometry2D polygon2D(double[] xy, int[] pathOffsets, int[] pathIndices)
+	{
+		Coordinates.check(xy, 2);
+		IndexLists paths = new IndexLists(pathOffsets, pathIndices);
+		paths.checkRange(xy.length / 2, "Path");
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polygon2DPaths"), xy);
+		paths.addTo(hash.add(xy.length / 2));
+		List<double[]> contours = new ArrayList<>(paths.count());
+		for(int path = 0; path < paths.count(); path++)
+		{
+			double[] contour = new double[2 * (paths.end(path) - paths.start(path))];
+			for(int i = paths.start(path), j = 0; i < paths.end(path); i++)
+			{
+				contour[j++] = xy[2 * paths.index(i)];
+				contour[j++] = xy[2 * paths.index(i) + 1];
+			}
+			contours.add(contour);
+		}
+		return intern(MeshGeometry2D.region(new Region2D(contours)), hash);
+	}
+
+	@Override
+	public Transform2D identity2D()
+	{
+		return MeshTransform2D.IDENTITY;
+	}
+
+	@Override
+	public Transform2D compose2D(List<Transform2D> transforms)
+	{
+		Affine2D result = Affine2D.IDENTITY;
+		for(Transform2D transform : transforms)
+		{
+			result = result.multiply(((MeshTransform2D) transform).affine);
+		}
+		return new MeshTransform2D(this, result);
+	}
+
+	@Override
+	public Transform2D translate2D(double x, double y)
+	{
+		return new MeshTransform2D(this, Affine2D.translation(x, y));
+	}
+
+	@Override
+	public Transform2D rotate2D(Angle angle)
+	{
+		return new MeshTransform2D(this, Affine2D.rotation(angle.asRadians()));
+	}
+
+	@Override
+	public Transform2D scale2D(double x, double y)
+	{
+		return new MeshTransform2D(this, Affine2D.scaling(x, y));
+	}
+
+	@Override
+	public Transform2D mirror2D(double normX, double normY)
+	{
+		return new MeshTransform2D(this, Affine2D.mirror(normX, normY));
+	}
+
+	@Override
+	public Geometry2D union2D(Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		return intern(MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, children), hash2D("union2D", children));
+	}
+
+	@Override
+	public Geometry2D intersection2D(Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		return intern(MeshGeometry2D.operation(MeshGeometry2D.Kind.INTERSECTION, children), hash2D("intersection2D", children));
+	}
+
+	@Override
+	public Geometry2D difference2D(Geometry2D filled, Iterable<Geometry2D> cutouts)
+	{
+		List<MeshGeometry2D> children = new ArrayList<>();
+		children.add((MeshGeometry2D) filled);
+		children.addAll(children2D(cutouts));
+		return intern(MeshGeometry2D.operation(MeshGeometry2D.Kind.DIFFERENCE, children), hash2D("difference2D", children));
+	}
+
+	@Override
+	public Geometry2D hull2D(Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		Bounds2D bounds = Bounds2D.EMPTY;
+		for(MeshGeometry2D child : children)
+		{
+			bounds = bounds.union(child.bounds);
+		}
+		return intern(MeshGeometry2D.region(bounds, () ->
+		{
+			List<double[]> all = new ArrayList<>();
+			for(MeshGeometry2D child : children)
+			{
+				all.add(child.triangles());
+			}
+			double[] hull = ConvexHulls.hull2D(concat(all));
+			return hull.length == 0 ? Region2D.EMPTY : new Region2D(List.of(hull));
+		}), hash2D("hull2D", children));
+	}
+
+	@Override
+	public Geometry2D minkowski2D(Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		Bounds2D bounds = children.isEmpty() ? Bounds2D.EMPTY : children.getFirst().bounds;
+		for(int i = 1; i < children.size(); i++)
+		{
+			bounds = bounds.minkowski(children.get(i).bounds);
+		}
+		return intern(MeshGeometry2D.lazy(bounds, () ->
+		{
+			if(children.isEmpty())
+			{
+				return MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, List.of());
+			}
+			MeshGeometry2D result = children.getFirst();
+			for(int i = 1; i < children.size(); i++)
+			{
+				result = minkowski2D(result, children.get(i));
+			}
+			return result;
+		}), hash2D("minkowski2D", children));
+	}
+
+	// Minkowski sums distribute over unions, so the sum is the union of the sums of all pairs of triangles.
+	private static MeshGeometry2D minkowski2D(MeshGeometry2D a, MeshGeometry2D b)
+	{
+		double[] ta = a.triangles();
+		double[] tb = b.triangles();
+		if(isConvex2D(ta) && isConvex2D(tb))
+		{
+			return MeshGeometry2D.region(hullOfSums2D(ta, 0, ta.length, tb, 0, tb.length));
+		}
+		List<MeshGeometry2D> parts = new ArrayList<>();
+		for(int i = 0; i < ta.length; i += 6)
+		{
+			for(int j = 0; j < tb.length; j += 6)
+			{
+				parts.add(MeshGeometry2D.region(hullOfSums2D(ta, i, i + 6, tb, j, j + 6)));
+			}
+		}
+		return MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, parts);
+	}
+
+	private static Region2D hullOfSums2D(double[] a, int aFrom, int aTo, double[] b, int bFrom, int bTo)
+	{
+		double[] sums = new double[(aTo - aFrom) * (bTo - bFrom) / 2];
+		int k = 0;
+		for(int i = aFrom; i < aTo; i += 2)
+		{
+			for(int j = bFrom; j < bTo; j += 2)
+			{
+				sums[k++] = a[i] + b[j];
+				sums[k++] = a[i + 1] + b[j + 1];
+			}
+		}
+		double[] hull = ConvexHulls.hull2D(sums);
+		return hull.length == 0 ? Region2D.EMPTY : new Region2D(List.of(hull));
+	}
+
+	private static boolean isConvex2D(double[] triangles)
+	{
+		double area = 0;
+		for(int i = 0; i < triangles.length; i += 6)
+		{
+			area += Region2D.signedArea(new double[]
+					{
+							triangles[i], triangles[i + 1],
+							triangles[i + 2], triangles[i + 3],
+							triangles[i + 4], triangles[i + 5]
+					});
+		}
+		double[] hull = ConvexHulls.hull2D(triangles);
+		double hullArea = hull.length == 0 ? 0 : Region2D.signedArea(hull);
+		return Math.abs(hullArea - area) <= 1e-9 * Math.max(hullArea, 1.0);
+	}
+
+	@Override
+	public Geometry2D offset2D(double delta, boolean chamfer, Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		GeometryHash.Builder hash = hash2D("offset2D", children).add(delta).add(chamfer);
+		MeshGeometry2D union = MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, children);
+		if(delta == 0)
+		{
+			return intern(union, hash);
+		}
+		double d = Math.abs(delta);
+		Function<MeshGeometry2D, MeshGeometry2D> grow =
+				geometry -> MeshGeometry2D.region(Offsets.grown(geometry.resolve(), d, chamfer));
+		if(delta > 0)
+		{
+			// Miters reach arbitrarily far out of sharp corners.
+			Bounds2D bounds = chamfer ? union.bounds.expanded(d * Math.sqrt(2.0)) : Bounds2D.UNKNOWN;
+			return intern(MeshGeometry2D.lazy(bounds, () -> grow.apply(union)), hash);
+		}
+		return intern(MeshGeometry2D.lazy(union.bounds.inexact(), () -> shrunk(union, d, grow)), hash);
+	}
+
+	@Override
+	public Geometry2D offsetRound2D(double radius, int angularResolution, Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> children = children2D(geometries);
+		GeometryHash.Builder hash = hash2D("offsetRound2D", children).add(radius).add(angularResolution);
+		MeshGeometry2D union = MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, children);
+		if(radius == 0)
+		{
+			return intern(union, hash);
+		}
+		int segments = Math.max(angularResolution, 3);
+		double r = Math.abs(radius);
+		double[] circle = new double[2 * segments];
+		for(int i = 0; i < segments; i++)
+		{
+			double angle = 2 * Math.PI * i / segments;
+			circle[2 * i] = r * Math.cos(angle);
+			circle[2 * i + 1] = r * Math.sin(angle);
+		}
+		MeshGeometry2D disc = MeshGeometry2D.region(new Region2D(List.of(circle)));
+		if(radius > 0)
+		{
+			return intern(MeshGeometry2D.lazy(union.bounds.expanded(r), () -> minkowski2D(union, disc)), hash);
+		}
+		return intern(MeshGeometry2D.lazy(union.bounds.inexact(), () ->
+				shrunk(union, r, outside -> minkowski2D(outside, disc))), hash);
+	}
+
+	// Shrinking is growing the complement: cut away everything the grown outside covers.
+	private static MeshGeometry2D shrunk(MeshGeometry2D geometry, double distance, Function<MeshGeometry2D, MeshGeometry2D> grow)
+	{
+		double[] bounds = bounds2D(geometry.triangles());
+		if(bounds[0] > bounds[2])
+		{
+			return geometry;
+		}
+		double margin = 2 * distance + 1;
+		double[] box =
+				{
+						bounds[0] - margin, bounds[1] - margin,
+						bounds[2] + margin, bounds[1] - margin,
+						bounds[2] + margin, bounds[3] + margin,
+						bounds[0] - margin, bounds[3] + margin
+				};
+		MeshGeometry2D outside = MeshGeometry2D.operation(MeshGeometry2D.Kind.DIFFERENCE,
+				List.of(MeshGeometry2D.region(new Region2D(List.of(box))), geometry));
+		return MeshGeometry2D.operation(MeshGeometry2D.Kind.DIFFERENCE, List.of(geometry, grow.apply(outside)));
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, int angularResolution)
+	{
+		return char2D(ch, width, charHeight2D(width), angularResolution);
+	}
+
+	@Override
+	public Geometry2D char2D(char ch, double width, double height, int angularResolution)
+	{
+		return text2D(String.valueOf(ch), width, height, angularResolution);
+	}
+
+	// Text is made from the outlines of the monospaced font of the Java runtime, with its baseline on the x axis.
+	// Curves are flattened as finely as a circle as high as the letters would be at the angular resolution.
+	@Override
+	public Geometry2D text2D(String text, double letterWidth, double letterHeight, int angularResolution)
+	{
+		GeometryHash.Builder hash = GeometryHash.builder("text2D")
+				.add(text).add(letterWidth).add(letterHeight).add(angularResolution);
+		double flatness = 0.5 * letterHeight * (1 - Math.cos(Math.PI / Math.max(angularResolution, 3)));
+		return intern(MeshGeometry2D.region(Bounds2D.UNKNOWN, () ->
+		{
+			FontOutlines.Contours contours = FontOutlines.monospaced().layout(text, letterWidth, letterHeight, flatness);
+			double[] xy = contours.xy();
+			int[] offsets = contours.pathOffsets();
+			int[] indices = contours.pathIndices();
+			List<double[]> paths = new ArrayList<>(offsets.length);
+			for(int path = 0; path + 1 < offsets.length; path++)
+			{
+				double[] contour = new double[2 * (offsets[path + 1] - offsets[path])];
+				for(int i = offsets[path]; i < offsets[path + 1]; i++)
+				{
+					int target = 2 * (i - offsets[path]);
+					contour[target] = xy[2 * indices[i]];
+					contour[target + 1] = xy[2 * indices[i] + 1];
+				}
+				paths.add(contour);
+			}
+			return paths.isEmpty() ? Region2D.EMPTY : new Region2D(paths);
+		}), hash);
+	}
+
+	@Override
+	public double charHeight2D(double width)
+	{
+		return 2 * width;
+	}
+
+	@Override
+	public double charBaseline2D(double height)
+	{
+		return 0.2 * height;
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(Iterable<Vector3D> vertices, Iterable<? extends Iterable<Integer>> faces)
+	{
+		IndexLists lists = IndexLists.of(faces);
+		return polyhedron3D(Coordinates.of3D(vertices), lists.offsets(), lists.indices());
+	}
+
+	@Override
+	public Geometry3D polyhedron3D(double[] xyz, int[] faceOffsets, int[] faceIndices)
+	{
+		Coordinates.check(xyz, 3);
+		IndexLists faces = new IndexLists(faceOffsets, faceIndices);
+		faces.checkRange(xyz.length / 3, "Face");
+		GeometryHash.Builder hash = Coordinates.addTo(GeometryHash.builder("polyhedron3D"), xyz);
+		faces.addTo(hash.add(xyz.length / 3));
+		// The mesh is built lazily, so keep copies the caller cannot change in the meantime.
+		double[] coordinates = xyz.clone();
+		IndexLists faceLists = faces.copy();
+		return intern(new MeshGeometry3D(Bounds3D.of(coordinates), () ->
+		{
+			MeshBuilder builder = new MeshBuilder(false);
+			for(int i = 0; i < coordinates.length; i += 3)
+			{
+				builder.addVertex(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+			}
+			for(int face = 0; face < faceLists.count(); face++)
+			{
+				addFace(builder, coordinates, faceLists, face);
+			}
+			return builder.build();
+		}), hash);
+	}
+
+	private static void addFace(MeshBuilder builder, double[] xyz, IndexLists faces, int faceNumber)
+	{
+		int start = faces.start(faceNumber);
+		int size = faces.end(faceNumber) - start;
+		if(size < 3)
+		{
+			return;
+		}
+		// OpenSCAD faces are clockwise when seen from outside, mesh triangles are counterclockwise.
+		if(size == 3)
+		{
+			builder.addTriangle(faces.index(start + 2), faces.index(start + 1), faces.index(start), null);
+			return;
+		}
+		int[] face = new int[size];
+		for(int i = 0; i < size; i++)
+		{
+			face[i] = faces.index(start + size - 1 - i);
+		}
+		// Newell's method gives a robust normal for the (nearly) planar face.
+		double nx = 0, ny = 0, nz = 0;
+		for(int i = 0; i < face.length; i++)
+		{
+			int a = 3 * face[i];
+			int b = 3 * face[(i + 1) % face.length];
+			nx += (xyz[a + 1] - xyz[b + 1]) * (xyz[a + 2] + xyz[b + 2]);
+			ny += (xyz[a + 2] - xyz[b + 2]) * (xyz[a] + xyz[b]);
+			nz += (xyz[a] - xyz[b]) * (xyz[a + 1] + xyz[b + 1]);
+		}
+		double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+		int axis = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+		double[] data = new double[2 * face.length];
+		for(int i = 0; i < face.length; i++)
+		{
+			int v = 3 * face[i];
+			data[2 * i] = axis == 0 ? xyz[v + 1] : axis == 1 ? xyz[v + 2] : xyz[v];
+			data[2 * i + 1] = axis == 0 ? xyz[v + 2] : axis == 1 ? xyz[v] : xyz[v + 1];
+		}
+		// The triangulator returns counterclockwise triangles in the projection plane.
+		boolean flip = (axis == 0 ? nx : axis == 1 ? ny : nz) < 0;
+		int[] triangles = Triangulator.triangulate(data, new int[0]);
+		for(int i = 0; i < triangles.length; i += 3)
+		{
+			int a = face[triangles[i]];
+			int b = face[triangles[i + 1]];
+			int c = face[triangles[i + 2]];
+			if(flip)
+			{
+				builder.addTriangle(a, c, b, null);
+			}
+			else
+			{
+				builder.addTriangle(a, b, c, null);
+			}
+		}
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height,
+	                                Angle twist,
+	                                double scale,
+	                                int slices,
+	                                boolean centerZ,
+	                                Geometry2D geometry)
+	{
+		return linearExtrude(height, twist.asDegrees(), scale, slices, centerZ, geometry);
+	}
+
+	@Override
+	public Geometry3D linearExtrude(double height, boolean centerZ, Geometry2D geometry)
+	{
+		return linearExtrude(height, 0, 1, 1, centerZ, geometry);
+	}
+
+	private Geometry3D linearExtrude(double height,
+	                                 double twistDegrees,
+	                                 double scale,
+	                                 int slices,
+	                                 boolean centerZ,
+	                                 Geometry2D geometry)
+	{
+		MeshGeometry2D shape = (MeshGeometry2D) geometry;
+		Bounds3D bounds = Bounds3D.linearExtrude(shape.bounds, height, twistDegrees, scale, centerZ);
+		GeometryHash.Builder hash = GeometryHash.builder("linearExtrude")
+				.add(height).add(twistDegrees).add(scale).add(slices).add(centerZ)
+				.add(shape.hash);
+		return intern(new MeshGeometry3D(bounds, () -> shape.extrude(Affine2D.IDENTITY,
+				region -> Extrusions.linear(region, height, twistDegrees, scale, slices, centerZ))), hash);
+	}
+
+	@Override
+	public Geometry3D rotateExtrude(Angle angle, int angularResolution, Geometry2D geometry)
+	{
+		MeshGeometry2D shape = (MeshGeometry2D) geometry;
+		double degrees = angle.asDegrees();
+		GeometryHash.Builder hash = GeometryHash.builder("rotateExtrude")
+				.add(degrees).add(angularResolution)
+				.add(shape.hash);
+		return intern(new MeshGeometry3D(Bounds3D.rotateExtrude(shape.bounds), () -> shape.extrude(Affine2D.IDENTITY,
+				region -> Extrusions.rotate(region, degrees, angularResolution))), hash);
+	}
+
+	@Override
+	public Geometry2D project(boolean cutAtZeroZ, Geometry3D geometry)
+	{
+		MeshGeometry3D source = (MeshGeometry3D) geometry;
+		if(cutAtZeroZ)
+		{
+			GeometryHash.Builder hash = GeometryHash.builder("project").add(true).add(source.hash);
+			return intern(MeshGeometry2D.region(source.bounds.projected().inexact(), () -> CrossSection.atZero(source.mesh())), hash);
+		}
+		// The shadow of a closed mesh is the union of the shadows of its upward facing triangles.
+		GeometryHash.Builder hash = GeometryHash.builder("project").add(false).add(source.hash);
+		return intern(MeshGeometry2D.lazy(source.bounds.projected(), () ->
+		{
+			Mesh3D mesh = source.mesh();
+			List<MeshGeometry2D> parts = new ArrayList<>();
+			for(int t = 0; t < mesh.triangleCount(); t++)
+			{
+				int a = mesh.vertex(t, 0);
+				int b = mesh.vertex(t, 1);
+				int c = mesh.vertex(t, 2);
+				double[] triangle = {mesh.x(a), mesh.y(a), mesh.x(b), mesh.y(b), mesh.x(c), mesh.y(c)};
+				if(Region2D.signedArea(triangle) > 1e-12)
+				{
+					parts.add(MeshGeometry2D.region(new Region2D(List.of(triangle))));
+				}
+			}
+			return MeshGeometry2D.operation(MeshGeometry2D.Kind.UNION, parts);
+		}), hash);
+	}
+
+	@Override
+	public Transform3D identity3D()
+	{
+		return MeshTransform3D.IDENTITY;
+	}
+
+	@Override
+	public Transform3D compose3D(List<Transform3D> transforms)
+	{
+		Affine3D result = Affine3D.IDENTITY;
+		for(Transform3D transform : transforms)
+		{
+			result = result.multiply(((MeshTransform3D) transform).affine);
+		}
+		return new MeshTransform3D(this, result);
+	}
+
+	@Override
+	public Transform3D translate3D(double x, double y, double z)
+	{
+		return new MeshTransform3D(this, Affine3D.translation(x, y, z));
+	}
+
+	@Override
+	public Transform3D rotate3DX(Angle angle)
+	{
+		return new MeshTransform3D(this, Affine3D.rotationX(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3DY(Angle angle)
+	{
+		return new MeshTransform3D(this, Affine3D.rotationY(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3DZ(Angle angle)
+	{
+		return new MeshTransform3D(this, Affine3D.rotationZ(angle.asRadians()));
+	}
+
+	@Override
+	public Transform3D rotate3D(Quaternion rotation)
+	{
+		return new MeshTransform3D(this, Affine3D.rotation(rotation.w(), rotation.x(), rotation.y(), rotation.z()));
+	}
+
+	@Override
+	public Transform3D scale3D(double x, double y, double z)
+	{
+		return new MeshTransform3D(this, Affine3D.scaling(x, y, z));
+	}
+
+	@Override
+	public Transform3D mirror3D(double normX, double normY, double normZ)
+	{
+		return new MeshTransform3D(this, Affine3D.mirror(normX, normY, normZ));
+	}
+
+	@Override
+	public Geometry3D union3D(Iterable<Geometry3D> geometries)
+	{
+		// A disabled box no longer covers what lies inside it, so nothing is pruned once anything was disabled.
+		boolean prune = !anyDisabled;
+		List<MeshGeometry3D> children = prune ?
+				BooleanPruning.union(children3D(geometries), child -> child.bounds) : children3D(geometries);
+		if(prune && children.size() == 1)
+		{
+			return children.getFirst();
+		}
+		Bounds3D bounds = Bounds3D.EMPTY;
+		for(MeshGeometry3D child : children)
+		{
+			bounds = bounds.union(child.bounds);
+		}
+		return intern(new MeshGeometry3D(bounds, children, () -> union(meshes(children))), hash3D("union3D", children));
+	}
+
+	@Override
+	public Geometry3D intersection3D(Iterable<Geometry3D> geometries)
+	{
+		boolean prune = !anyDisabled;
+		List<MeshGeometry3D> children = prune ?
+				BooleanPruning.intersection(children3D(geometries), child -> child.bounds) : children3D(geometries);
+		if(children == null)
+		{
+			return union3D(List.of());
+		}
+		if(prune && children.size() == 1)
+		{
+			return children.getFirst();
+		}
+		Bounds3D bounds = children.isEmpty() ? Bounds3D.EMPTY : children.getFirst().bounds;
+		for(int i = 1; i < children.size(); i++)
+		{
+			bounds = bounds.intersection(children.get(i).bounds);
+		}
+		return intern(new MeshGeometry3D(bounds, children, () ->
+		{
+			List<Mesh3D> meshes = meshes(children);
+			if(meshes.isEmpty())
+			{
+				return Mesh3D.EMPTY;
+			}
+			Mesh3D result = meshes.getFirst();
+			for(int i = 1; i < meshes.size(); i++)
+			{
+				result = MeshBooleans.intersection(result, meshes.get(i));
+			}
+			return result;
+		}), hash3D("intersection3D", children));
+	}
+
+	@Override
+	public Geometry3D difference3D(Geometry3D filled, Iterable<Geometry3D> cutouts)
+	{
+		MeshGeometry3D solid = (MeshGeometry3D) filled;
+		// Pruned like the operands of union3D, so only while nothing is disabled.
+		List<MeshGeometry3D> children = anyDisabled ?
+				children3D(cutouts) : BooleanPruning.cutouts(solid.bounds, children3D(cutouts), child -> child.bounds);
+		if(children.isEmpty())
+		{
+			return solid;
+		}
+		List<MeshGeometry3D> operands = new ArrayList<>();
+		operands.add(solid);
+		operands.addAll(children);
+		return intern(new MeshGeometry3D(solid.bounds.inexact(), operands,
+				() -> LocalDifference.difference(solid.mesh(), meshes(children))), hash3D("difference3D", operands));
+	}
+
+	@Override
+	public Geometry3D hull3D(Iterable<Geometry3D> geometries)
+	{
+		List<MeshGeometry3D> children = children3D(geometries);
+		Bounds3D bounds = Bounds3D.EMPTY;
+		for(MeshGeometry3D child : children)
+		{
+			bounds = bounds.union(child.bounds);
+		}
+		return intern(new MeshGeometry3D(bounds, children, () ->
+		{
+			List<double[]> all = new ArrayList<>();
+			for(Mesh3D mesh : meshes(children))
+			{
+				all.add(mesh.vertexArray());
+			}
+			return ConvexHulls.hull3D(concat(all));
+		}), hash3D("hull3D", children));
+	}
+
+	@Override
+	public Geometry3D minkowski3D(Iterable<Geometry3D> geometries)
+	{
+		List<MeshGeometry3D> children = children3D(geometries);
+		Bounds3D bounds = children.isEmpty() ? Bounds3D.EMPTY : children.getFirst().bounds;
+		for(int i = 1; i < children.size(); i++)
+		{
+			bounds = bounds.minkowski(children.get(i).bounds);
+		}
+		return intern(new MeshGeometry3D(bounds, children, () ->
+		{
+			List<Mesh3D> meshes = meshes(children);
+			if(meshes.isEmpty())
+			{
+				return Mesh3D.EMPTY;
+			}
+			Mesh3D result = meshes.getFirst();
+			for(int i = 1; i < meshes.size(); i++)
+			{
+				result = minkowski3D(result, meshes.get(i));
+			}
+			return result;
+		}), hash3D("minkowski3D", children));
+	}
+
+	private static Mesh3D minkowski3D(Mesh3D a, Mesh3D b)
+	{
+		if(a.isEmpty() || b.isEmpty())
+		{
+			return Mesh3D.EMPTY;
+		}
+		Mesh3D hullA = ConvexHulls.hull3D(a.vertexArray());
+		Mesh3D hullB = ConvexHulls.hull3D(b.vertexArray());
+		boolean convexA = isConvex3D(a, hullA);
+		boolean convexB = isConvex3D(b, hullB);
+		if(convexA && convexB)
+		{
+			return ConvexHulls.hull3D(sums(hullA.vertexArray(), hullB.vertexArray()));
+		}
+		if(convexA)
+		{
+			return minkowskiWithConvex(b, hullA);
+		}
+		if(convexB)
+		{
+			return minkowskiWithConvex(a, hullB);
+		}
+		return minkowskiOfConvexParts(a, b);
+	}
+
+	// Minkowski sums distribute over unions, so the solid with fewer triangles is split into convex parts and the
+	// other one is summed with each of them. This takes a hull per triangle of the other solid and convex part,
+	// where the sums of all pairs of triangles would take one per pair.
+	private static Mesh3D minkowskiOfConvexParts(Mesh3D a, Mesh3D b)
+	{
+		Mesh3D smaller = a.triangleCount() <= b.triangleCount() ? a : b;
+		Mesh3D larger = smaller == a ? b : a;
+		List<Mesh3D> parts = new ArrayList<>();
+		for(Mesh3D convex : MeshBooleans.convexParts(smaller))
+		{
+			addSweep(parts, larger, convex);
+		}
+		return union(parts);
+	}
+
+	private static void triangleCoordinates(Mesh3D mesh, int triangle, double[] coords)
+	{
+		for(int corner = 0; corner < 3; corner++)
+		{
+			int v = mesh.vertex(triangle, corner);
+			coords[3 * corner] = mesh.x(v);
+			coords[3 * corner + 1] = mesh.y(v);
+			coords[3 * corner + 2] = mesh.z(v);
+		}
+	}
+
+	private static Mesh3D minkowskiWithConvex(Mesh3D a, Mesh3D convex)
+	{
+		List<Mesh3D> parts = new ArrayList<>();
+		addSweep(parts, a, convex);
+		return union(parts);
+	}
+
+	// For a convex b, the sum is a moved by a point of b together with the boundary of a swept by b.
+	private static void addSweep(List<Mesh3D> parts, Mesh3D a, Mesh3D convex)
+	{
+		double[] b = convex.vertexArray();
+		parts.add(a.transformed(Affine3D.translation(b[0], b[1], b[2])));
+		double[] triangle = new double[9];
+		for(int t = 0; t < a.triangleCount(); t++)
+		{
+			triangleCoordinates(a, t, triangle);
+			parts.add(ConvexHulls.hull3D(sums(triangle, b)));
+		}
+	}
+
+	private static boolean isConvex3D(Mesh3D mesh, Mesh3D hull)
+	{
+		double hullVolume = hull.volume();
+		return Math.abs(hullVolume - mesh.volume()) <= 1e-9 * Math.max(hullVolume, 1.0);
+	}
+
+	private static double[] sums(double[] a, double[] b)
+	{
+		double[] result = new double[a.length * b.length / 3];
+		int k = 0;
+		for(int i = 0; i < a.length; i += 3)
+		{
+			for(int j = 0; j < b.length; j += 3)
+			{
+				result[k++] = a[i] + b[j];
+				result[k++] = a[i + 1] + b[j + 1];
+				result[k++] = a[i + 2] + b[j + 2];
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Geometry3D color3D(Color color, Geometry3D geometry)
+	{
+		MeshGeometry3D child = (MeshGeometry3D) geometry;
+		GeometryHash.Builder hash = GeometryHash.builder("color3D")
+				.add(color.r()).add(color.g()).add(color.b()).add(color.a())
+				.add(child.hash);
+		return intern(new MeshGeometry3D(child.bounds, List.of(child), () -> child.mesh().colored(color)), hash);
+	}
+
+	@Override
+	public void view(Geometry2D geometry)
+	{
+		view(geometry, 0);
+	}
+
+	@Override
+	public void view(Geometry3D geometry)
+	{
+		view(geometry, 0);
+	}
+
+	@Override
+	public void view(Geometry2D geometry, int windowID)
+	{
+		try
+		{
+			ScadFiles.write2D(Path.of("OpenSCAD/View" + windowID + ".scad"), ((MeshGeometry2D) geometry).triangles());
+		} catch (IOException e)
+		{
+			throw new RuntimeException("Could not view geometry!", e);
+		}
+	}
+
+	@Override
+	public void view(Geometry3D geometry, int windowID)
+	{
+		try
+		{
+			ScadFiles.write(Path.of("OpenSCAD/View" + windowID + ".scad"), ((MeshGeometry3D) geometry).mesh());
+		} catch (IOException e)
+		{
+			throw new RuntimeException("Could not view geometry!", e);
+		}
+	}
+
+	@Override
+	public Geometry2D cache(Geometry2D geometry)
+	{
+		return geometry;
+	}
+
+	@Override
+	public Geometry3D cache(Geometry3D geometry)
+	{
+		// Evaluation starts right away, so sibling caches built before their parent are evaluated side by side.
+		// The caches the mesh contains are waited for in the prepare step, which holds no permit, and the mesh
+		// itself is evaluated while holding one.
+		MeshGeometry3D meshGeometry = (MeshGeometry3D) geometry;
+		Future<Mesh3D> mesh = scheduler.submit(() ->
+		{
+			awaitCaches(meshGeometry);
+			return meshGeometry;
+		}, source ->
+		{
+			long start = System.nanoTime();
+			Mesh3D result = source.mesh();
+			listeners.geometryRendered(geometry, System.nanoTime() - start);
+			return result;
+		});
+		// The mesh is shared through the geometry the cache waits for, so the cache itself is not interned.
+		MeshGeometry3D result = new MeshGeometry3D(meshGeometry.bounds, () -> RenderScheduler.join(mesh));
+		result.hash = meshGeometry.hash;
+		result.base = this;
+		result.render = mesh;
+		return result;
+	}
+
+	// Waits for the caches in a subtree that is not evaluated yet. A cache reached through a 2D geometry is not
+	// found here, and is waited for during evaluation instead.
+	private static void awaitCaches(MeshGeometry3D root)
+	{
+		Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<MeshGeometry3D> stack = new ArrayDeque<>();
+		stack.push(root);
+		while(!stack.isEmpty())
+		{
+			MeshGeometry3D node = stack.pop();
+			if(node.isEvaluated() || !visited.add(node))
+			{
+				continue;
+			}
+			if(node.render != null)
+			{
+				RenderScheduler.join(node.render);
+			}
+			else
+			{
+				node.children.forEach(stack::push);
+			}
+		}
+	}
+
+	@Override
+	public Geometry3D loadSTL(String fileName) throws IOException
+	{
+		Mesh3D mesh = STLFiles.read(Path.of(fileName));
+		File file = new File(fileName);
+		GeometryHash.Builder hash = GeometryHash.builder("loadSTL").add(fileName).add(file.length()).add(file.lastModified());
+		return intern(new MeshGeometry3D(bounds(mesh), () -> mesh), hash);
+	}
+
+	@Override
+	public void saveSTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		STLFiles.writeASCII(Path.of(fileName), ((MeshGeometry3D) geometry).mesh());
+	}
+
+	@Override
+	public void saveBinarySTL(String fileName, Geometry3D geometry) throws IOException
+	{
+		STLFiles.writeBinary(Path.of(fileName), ((MeshGeometry3D) geometry).mesh());
+	}
+
+	@Override
+	public void saveSTL(Map<String, Geometry3D> files) throws IOException
+	{
+		saveAll(files, STLFiles::writeASCII);
+	}
+
+	@Override
+	public void saveBinarySTL(Map<String, Geometry3D> files) throws IOException
+	{
+		saveAll(files, STLFiles::writeBinary);
+	}
+
+	// The subtrees that several of the geometries contain are evaluated first, each of them once, so the
+	// geometries evaluated side by side afterwards never wait for each other or compute the same thing twice.
+	private void saveAll(Map<String, Geometry3D> files, MeshWriter writer) throws IOException
+	{
+		evaluateShared(children3D(files.values()));
+		List<Future<Mesh3D>> saves = new ArrayList<>();
+		for(Map.Entry<String, Geometry3D> file : files.entrySet())
+		{
+			MeshGeometry3D geometry = (MeshGeometry3D) file.getValue();
+			saves.add(scheduler.submit(() -> geometry, root ->
+			{
+				Mesh3D mesh = root.mesh();
+				try
+				{
+					writer.write(Path.of(file.getKey()), mesh);
+				} catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+				return mesh;
+			}));
+		}
+		try
+		{
+			RenderScheduler.joinAll(saves);
+		} catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	private void evaluateShared(List<MeshGeometry3D> roots)
+	{
+		List<Future<Mesh3D>> shared = new ArrayList<>();
+		for(MeshGeometry3D subtree : sharedSubtrees(roots))
+		{
+			shared.add(scheduler.submit(() -> subtree, MeshGeometry3D::mesh));
+		}
+		RenderScheduler.joinAll(shared);
+	}
+
+	// Returns the largest subtrees that are contained in more than one of the roots and not evaluated yet.
+	// Structurally equal subtrees count as one, since evaluating one of them evaluates all.
+	private static List<MeshGeometry3D> sharedSubtrees(List<MeshGeometry3D> roots)
+	{
+		Map<Object, Integer> uses = new IdentityHashMap<>();
+		for(MeshGeometry3D root : roots)
+		{
+			Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			Deque<MeshGeometry3D> stack = new ArrayDeque<>();
+			stack.push(root);
+			while(!stack.isEmpty())
+			{
+				MeshGeometry3D node = stack.pop();
+				if(!node.isEvaluated() && visited.add(node.key()))
+				{
+					uses.merge(node.key(), 1, Integer::sum);
+					node.children.forEach(stack::push);
+				}
+			}
+		}
+		List<MeshGeometry3D> result = new ArrayList<>();
+		Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<MeshGeometry3D> stack = new ArrayDeque<>(roots);
+		while(!stack.isEmpty())
+		{
+			MeshGeometry3D node = stack.pop();
+			if(!visited.add(node.key()) || !uses.containsKey(node.key()))
+			{
+				continue;
+			}
+			if(uses.get(node.key()) > 1)
+			{
+				result.add(node);
+			}
+			else
+			{
+				node.children.forEach(stack::push);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Geometry3D load3MF(String fileName) throws IOException
+	{
+		// The build items are kept side by side, like the shells of an STL file.
+		Mesh3D mesh = Mesh3D.concat(ThreeMFFiles.read(Path.of(fileName)));
+		File file = new File(fileName);
+		GeometryHash.Builder hash = GeometryHash.builder("load3MF").add(fileName).add(file.length()).add(file.lastModified());
+		return intern(new MeshGeometry3D(bounds(mesh), () -> mesh), hash);
+	}
+
+	@Override
+	public void save3MF(String fileName, Geometry3D geometry) throws IOException
+	{
+		ThreeMFFiles.write(Path.of(fileName), List.of(((MeshGeometry3D) geometry).mesh()));
+	}
+
+	// The objects are evaluated side by side, sharing their common subtrees like a batch of STL files.
+	@Override
+	public void save3MF(String fileName, List<Geometry3D> objects) throws IOException
+	{
+		List<MeshGeometry3D> roots = children3D(objects);
+		evaluateShared(roots);
+		List<Future<Mesh3D>> meshes = new ArrayList<>();
+		for(MeshGeometry3D root : roots)
+		{
+			meshes.add(scheduler.submit(() -> root, MeshGeometry3D::mesh));
+		}
+		RenderScheduler.joinAll(meshes);
+		List<Mesh3D> result = new ArrayList<>(meshes.size());
+		for(Future<Mesh3D> mesh : meshes)
+		{
+			result.add(RenderScheduler.join(mesh));
+		}
+		ThreeMFFiles.write(Path.of(fileName), result);
+	}
+
+	@Override
+	public boolean isMarkedOrDisabled(Geometry geometry)
+	{
+		if(geometry instanceof MeshGeometry2D geometry2D)
+		{
+			return geometry2D.marked || geometry2D.disabled;
+		}
+		MeshGeometry3D geometry3D = (MeshGeometry3D) geometry;
+		return geometry3D.marked || geometry3D.disabled;
+	}
+
+	@Override
+	public void addRenderListener(RenderListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeRenderListener(RenderListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	// Geometries returned to the caller are hashed, and what they compute is shared with the structurally equal
+	// ones. Every call still returns its own geometry, so debugMark and disable stay with the caller. The nodes
+	// built while evaluating them are not interned.
+	private MeshGeometry2D intern(MeshGeometry2D geometry, GeometryHash.Builder hash)
+	{
+		geometry.hash = hash.build();
+		geometry.base = this;
+		geometry.shared = interned2D.intern(geometry.hash, new Shared2D());
+		return geometry;
+	}
+
+	private MeshGeometry3D intern(MeshGeometry3D geometry, GeometryHash.Builder hash)
+	{
+		geometry.hash = hash.build();
+		geometry.operation = hash.operation();
+		geometry.base = this;
+		geometry.shared = interned3D.intern(geometry.hash, new Memo<>());
+		return geometry;
+	}
+
+	// With a store, a subtree evaluated in an earlier run is loaded instead of computed, and its children are
+	// never looked at. Only the subtrees that changed since then are computed again.
+	private Mesh3D evaluate(MeshGeometry3D geometry, Supplier<Mesh3D> supplier)
+	{
+		boolean useStore = store != null && !anyDisabled;
+		long start = System.nanoTime();
+		MeshStore.Claim claim = null;
+		if(useStore)
+		{
+			Mesh3D stored = store.load(geometry.hash);
+			if(stored == null && CLAIMED_OPERATIONS.contains(geometry.operation))
+			{
+				// Another process computing the same subtree is waited for. It may also have finished just now.
+				claim = store.claim(geometry.hash);
+				stored = store.loadLocal(geometry.hash);
+			}
+			if(stored != null)
+			{
+				if(claim != null)
+				{
+					claim.release();
+				}
+				listeners.subtreeEvaluated(geometry.operation, true, System.nanoTime() - start);
+				return stored;
+			}
+		}
+		try
+		{
+			Mesh3D result = supplier.get();
+			long nanos = System.nanoTime() - start;
+			if(useStore && nanos >= store.getMinNanos())
+			{
+				store.save(geometry.hash, result);
+			}
+			listeners.subtreeEvaluated(geometry.operation, false, nanos);
+			return result;
+		} finally
+		{
+			if(claim != null)
+			{
+				claim.release();
+			}
+		}
+	}
+
+	private static GeometryHash.Builder hash2D(String operation, List<MeshGeometry2D> children)
+	{
+		GeometryHash.Builder hash = GeometryHash.builder(operation);
+		for(MeshGeometry2D child : children)
+		{
+			hash.add(child.hash);
+		}
+		return hash;
+	}
+
+	private static GeometryHash.Builder hash3D(String operation, List<MeshGeometry3D> children)
+	{
+		GeometryHash.Builder hash = GeometryHash.builder(operation);
+		for(MeshGeometry3D child : children)
+		{
+			hash.add(child.hash);
+		}
+		return hash;
+	}
+
+	private static List<MeshGeometry2D> children2D(Iterable<Geometry2D> geometries)
+	{
+		List<MeshGeometry2D> result = new ArrayList<>();
+		for(Geometry2D geometry : geometries)
+		{
+			result.add((MeshGeometry2D) geometry);
+		}
+		return result;
+	}
+
+	private static List<MeshGeometry3D> children3D(Iterable<Geometry3D> geometries)
+	{
+		List<MeshGeometry3D> result = new ArrayList<>();
+		for(Geometry3D geometry : geometries)
+		{
+			result.add((MeshGeometry3D) geometry);
+		}
+		return result;
+	}
+
+	private static List<Mesh3D> meshes(List<MeshGeometry3D> geometries)
+	{
+		List<Mesh3D> result = new ArrayList<>(geometries.size());
+		for(MeshGeometry3D geometry : geometries)
+		{
+			result.add(geometry.mesh());
+		}
+		return result;
+	}
+
+	// Unions are evaluated as a balanced tree, so intermediate meshes stay small.
+	private static Mesh3D union(List<Mesh3D> meshes)
+	{
+		if(meshes.isEmpty())
+		{
+			return Mesh3D.EMPTY;
+		}
+		List<Mesh3D> level = meshes;
+		while(level.size() > 1)
+		{
+			List<Mesh3D> next = new ArrayList<>((level.size() + 1) / 2);
+			for(int i = 0; i < level.size(); i += 2)
+			{
+				next.add(i + 1 < level.size() ? MeshBooleans.union(level.get(i), level.get(i + 1)) : level.get(i));
+			}
+			level = next;
+		}
+		return level.getFirst();
+	}
+
+	private static double[] concat(List<double[]> arrays)
+	{
+		int length = 0;
+		for(double[] array : arrays)
+		{
+			length += array.length;
+		}
+		double[] result = new double[length];
+		int offset = 0;
+		for(double[] array : arrays)
+		{
+			System.arraycopy(array, 0, result, offset, array.length);
+			offset += array.length;
+		}
+		return result;
+	}
+
+	private static Bounds3D bounds(Mesh3D mesh)
+	{
+		double[] b = mesh.bounds();
+		return mesh.isEmpty() ? Bounds3D.EMPTY : new Bounds3D(b[0], b[1], b[2], b[3], b[4], b[5], true);
+	}
+
+	// Returns {minX, minY, maxX, maxY}. No triangles gives min > max.
+	private static double[] bounds2D(double[] triangles)
+	{
+		double[] result = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for(int i = 0; i < triangles.length; i += 2)
+		{
+			result[0] = Math.min(result[0], triangles[i]);
+			result[1] = Math.min(result[1], triangles[i + 1]);
+			result[2] = Math.max(result[2], triangles[i]);
+			result[3] = Math.max(result[3], triangles[i + 1]);
+		}
+		return result;
+	}
+
+	private static class MeshTransform2D implements Transform2D
+	{
+		private static final MeshTransform2D IDENTITY = new MeshTransform2D(null, Affine2D.IDENTITY);
+
+		// The backend that created the transform, null for the shared identity.
+		private final JavaCSGBaseMeshImpl base;
+		private final Affine2D affine;
+
+		private MeshTransform2D(JavaCSGBaseMeshImpl base, Affine2D affine)
+		{
+			this.base = base;
+			this.affine = affine;
+		}
+
+		@Override
+		public Transform2D inverse()
+		{
+			return new MeshTransform2D(base, affine.inverse());
+		}
+
+		@Override
+		public Vector2D transformPoint(Vector2D vector)
+		{
+			return affine.transformPoint(vector);
+		}
+
+		@Override
+		public PointBuffer2D transformPoints(PointBuffer2D points)
+		{
+			return affine.transformPoints(points);
+		}
+
+		@Override
+		public Vector2D transformDirection(Vector2D vector)
+		{
+			return affine.transformDirection(vector);
+		}
+
+		@Override
+		public Geometry2D transform(Geometry2D geometry)
+		{
+			if(affine.isIdentity())
+			{
+				return geometry;
+			}
+			MeshGeometry2D child = (MeshGeometry2D) geometry;
+			GeometryHash.Builder hash = GeometryHash.builder("transform2D").add(affine).add(child.hash);
+			return base.intern(MeshGeometry2D.transform(affine, child), hash);
+		}
+
+		@Override
+		public Transform3D asTransform3D()
+		{
+			return new MeshTransform3D(base, affine.asAffine3D());
+		}
+	}
+
+	private static class MeshTransform3D implements Transform3D
+	{
+		private static final MeshTransform3D IDENTITY = new MeshTransform3D(null, Affine3D.IDENTITY);
+
+		// The backend that created the transform, null for the shared identity.
+		private final JavaCSGBaseMeshImpl base;
+		private final Affine3D affine;
+
+		private MeshTransform3D(JavaCSGBaseMeshImpl base, Affine3D affine)
+		{
+			this.base = base;
+			this.affine = affine;
+		}
+
+		@Override
+		public Transform3D inverse()
+		{
+			return new MeshTransform3D(base, affine.inverse());
+		}
+
+		@Override
+		public Vector3D transformPoint(Vector3D vector)
+		{
+			return affine.transformPoint(vector);
+		}
+
+		@Override
+		public PointBuffer3D transformPoints(PointBuffer3D points)
+		{
+			return affine.transformPoints(points);
+		}
+
+		@Override
+		public Vector3D transformDirection(Vector3D vector)
+		{
+			return affine.transformDirection(vector);
+		}
+
+		@Override
+		public Geometry3D transform(Geometry3D geometry)
+		{
+			if(affine.isIdentity())
+			{
+				return geometry;
+			}
+			MeshGeometry3D child = (MeshGeometry3D) geometry;
+			GeometryHash.Builder hash = GeometryHash.builder("transform3D").add(affine).add(child.hash);
+			return base.intern(new MeshGeometry3D(child.bounds.transformed(affine), List.of(child),
+					() -> child.mesh().transformed(affine)), hash);
+		}
+	}
+
+	// 2D geometries are kept as an expression tree over polygon regions. Booleans are resolved in 2D, so
+	// extruding a tree extrudes a single region.
+	private static class MeshGeometry2D implements Geometry2D
+	{
+		private enum Kind
+		{
+			REGION, LAZY, TRANSFORM, UNION, INTERSECTION, DIFFERENCE
+		}
+
+		private final Kind kind;
+		private final List<MeshGeometry2D> children;
+		private final Affine2D affine;
+		private final Bounds2D bounds;
+		private GeometryHash hash;
+		// Set when the geometry is interned.
+		private JavaCSGBaseMeshImpl base;
+		private Shared2D shared;
+		private Supplier<Region2D> regionSupplier;
+		private Supplier<MeshGeometry2D> lazySupplier;
+		private final Memo<Region2D> region = new Memo<>();
+		private final Memo<MeshGeometry2D> lazy = new Memo<>();
+		private final Memo<double[]> triangles = new Memo<>();
+		private volatile boolean marked;
+		private volatile boolean disabled;
+
+		private MeshGeometry2D(Kind kind, List<MeshGeometry2D> children, Affine2D affine, Bounds2D bounds)
+		{
+			this.kind = kind;
+			this.children = children;
+			this.affine = affine;
+			this.bounds = bounds;
+		}
+
+		private static MeshGeometry2D region(Region2D region)
+		{
+			MeshGeometry2D result = new MeshGeometry2D(Kind.REGION, List.of(), Affine2D.IDENTITY, region.bounds());
+			result.region.set(region);
+			return result;
+		}
+
+		private static MeshGeometry2D region(Bounds2D bounds, Supplier<Region2D> supplier)
+		{
+			MeshGeometry2D result = new MeshGeometry2D(Kind.REGION, List.of(), Affine2D.IDENTITY, bounds);
+			result.regionSupplier = supplier;
+			return result;
+		}
+
+		private static MeshGeometry2D lazy(Bounds2D bounds, Supplier<MeshGeometry2D> supplier)
+		{
+			MeshGeometry2D result = new MeshGeometry2D(Kind.LAZY, List.of(), Affine2D.IDENTITY, bounds);
+			result.lazySupplier = supplier;
+			return result;
+		}
+
+		private static MeshGeometry2D transform(Affine2D affine, MeshGeometry2D child)
+		{
+			return new MeshGeometry2D(Kind.TRANSFORM, List.of(child), affine, child.bounds.transformed(affine));
+		}
+
+		private static MeshGeometry2D operation(Kind kind, List<MeshGeometry2D> children)
+		{
+			Bounds2D bounds = children.isEmpty() ? Bounds2D.EMPTY : children.getFirst().bounds;
+			for(int i = 1; i < children.size(); i++)
+			{
+				Bounds2D childBounds = children.get(i).bounds;
+				bounds = switch(kind)
+				{
+					case UNION -> bounds.union(childBounds);
+					case INTERSECTION -> bounds.intersection(childBounds);
+					default -> bounds.inexact();
+				};
+			}
+			return new MeshGeometry2D(kind, List.copyOf(children), Affine2D.IDENTITY, bounds);
+		}
+
+		// Equal geometries share what they computed, unless a disabled geometry may have made them differ.
+		private <T> T memo(Memo<T> own, Function<Shared2D, Memo<T>> field, Supplier<T> supplier)
+		{
+			return own.get(() -> shared == null || base.anyDisabled ? supplier.get() : field.apply(shared).get(supplier));
+		}
+
+		private Region2D region()
+		{
+			return memo(region, common -> common.region, () ->
+			{
+				Region2D result = regionSupplier.get();
+				regionSupplier = null;
+				return result;
+			});
+		}
+
+		private MeshGeometry2D resolved()
+		{
+			return memo(lazy, common -> common.lazy, () ->
+			{
+				MeshGeometry2D result = lazySupplier.get();
+				lazySupplier = null;
+				return result;
+			});
+		}
+
+		private Mesh3D extrude(Affine2D transform, Function<Region2D, Mesh3D> extruder)
+		{
+			if(disabled)
+			{
+				return Mesh3D.EMPTY;
+			}
+			switch(kind)
+			{
+				case REGION ->
+				{
+					return extruder.apply(region().transformed(transform));
+				}
+				case LAZY ->
+				{
+					return resolved().extrude(transform, extruder);
+				}
+				case TRANSFORM ->
+				{
+					return children.getFirst().extrude(transform.multiply(affine), extruder);
+				}
+				default ->
+				{
+					return extruder.apply(combined().transformed(transform));
+				}
+			}
+		}
+
+		// The region covered by this geometry.
+		private Region2D resolve()
+		{
+			if(disabled)
+			{
+				return Region2D.EMPTY;
+			}
+			return switch(kind)
+			{
+				case REGION -> region();
+				case LAZY -> resolved().resolve();
+				case TRANSFORM -> children.getFirst().resolve().transformed(affine);
+				default -> combined();
+			};
+		}
+
+		// The region of a boolean, clipped once and kept.
+		private Region2D combined()
+		{
+			return memo(region, common -> common.region, () ->
+			{
+				List<List<double[]>> operands = new ArrayList<>(children.size());
+				for(MeshGeometry2D child : children)
+				{
+					operands.add(child.resolve().contours());
+				}
+				List<double[]> contours = switch(kind)
+				{
+					case UNION -> PolygonClipper.union(operands);
+					case INTERSECTION -> PolygonClipper.intersection(operands);
+					default -> PolygonClipper.difference(operands);
+				};
+				return contours.isEmpty() ? Region2D.EMPTY : new Region2D(contours);
+			});
+		}
+
+		// Returns x0, y0, x1, y1, x2, y2 for each counterclockwise triangle covering this geometry.
+		private double[] triangles()
+		{
+			if(disabled)
+			{
+				return new double[0];
+			}
+			return memo(triangles, common -> common.triangles, this::computeTriangles);
+		}
+
+		private double[] computeTriangles()
+		{
+			switch(kind)
+			{
+				case REGION ->
+				{
+					return region().triangles();
+				}
+				case LAZY ->
+				{
+					return resolved().triangles();
+				}
+				case TRANSFORM ->
+				{
+					double[] source = children.getFirst().triangles();
+					double[] result = new double[source.length];
+					boolean flip = affine.determinant() < 0;
+					for(int i = 0; i < source.length; i += 2)
+					{
+						// Swapping the last two corners keeps mirrored triangles counterclockwise.
+						int target = flip && i % 6 != 0 ? (i % 6 == 2 ? i + 2 : i - 2) : i;
+						result[target] = affine.transformX(source[i], source[i + 1]);
+						result[target + 1] = affine.transformY(source[i], source[i + 1]);
+					}
+					return result;
+				}
+				default ->
+				{
+					return combined().triangles();
+				}
+			}
+		}
+
+		@Override
+		public void debugMark()
+		{
+			marked = true;
+		}
+
+		@Override
+		public void disable()
+		{
+			disabled = true;
+			base.anyDisabled = true;
+		}
+
+		@Override
+		public Vector2D getMin()
+		{
+			double[] bounds = bounds2D(triangles());
+			if(bounds[0] > bounds[2])
+			{
+				return new Vector2DImpl(0, 0);
+			}
+			return new Vector2DImpl(bounds[0], bounds[1]);
+		}
+
+		@Override
+		public Vector2D getMax()
+		{
+			double[] bounds = bounds2D(triangles());
+			if(bounds[0] > bounds[2])
+			{
+				return new Vector2DImpl(0, 0);
+			}
+			return new Vector2DImpl(bounds[2], bounds[3]);
+		}
+
+		@Override
+		public Vector2D getConservativeMin()
+		{
+			return bounds.isBounded() ? bounds.min() : getMin();
+		}
+
+		@Override
+		public Vector2D getConservativeMax()
+		{
+			return bounds.isBounded() ? bounds.max() : getMax();
+		}
+	}
+
+	@FunctionalInterface
+	private interface MeshWriter
+	{
+		void write(Path file, Mesh3D mesh) throws IOException;
+	}
+
+	private static class MeshGeometry3D implements Geometry3D
+	{
+		private final Bounds3D bounds;
+		private GeometryHash hash;
+		private JavaCSGBaseMeshImpl base;
+		// Set when the geometry is interned. Cached geometries share the hash of their source but are not
+		// evaluated themselves, so they have neither.
+		private String operation;
+		private Memo<Mesh3D> shared;
+		// The 3D operands, so a batch can find the subtrees its geometries have in common. Like the supplier,
+		// they are let go once the mesh is known.
+		private List<MeshGeometry3D> children;
+		private Supplier<Mesh3D> supplier;
+		// The evaluation a cached geometry waits for, and null for every other geometry.
+		private Future<Mesh3D> render;
+		private final Memo<Mesh3D> mesh = new Memo<>();
+		private volatile boolean marked;
+		private volatile boolean disabled;
+
+		private MeshGeometry3D(Bounds3D bounds, Supplier<Mesh3D> supplier)
+		{
+			this(bounds, List.of(), supplier);
+		}
+
+		private MeshGeometry3D(Bounds3D bounds, List<MeshGeometry3D> children, Supplier<Mesh3D> supplier)
+		{
+			this.bounds = bounds;
+			this.children = children;
+			this.supplier = supplier;
+		}
+
+		private Mesh3D mesh()
+		{
+			if(disabled)
+			{
+				return Mesh3D.EMPTY;
+			}
+			return mesh.get(() ->
+			{
+				// Equal geometries share their mesh, unless a disabled geometry may have made them differ.
+				Mesh3D result = shared == null ? supplier.get() : base.anyDisabled ?
+						base.evaluate(this, supplier) : shared.get(() -> base.evaluate(this, supplier));
+				supplier = null;
+				children = List.of();
+				return result;
+			});
+		}
+
+		private boolean isEvaluated()
+		{
+			return mesh.peek() != null || (shared != null && !base.anyDisabled && shared.peek() != null);
+		}
+
+		// Structurally equal geometries share their key.
+		private Object key()
+		{
+			return shared == null ? this : shared;
+		}
+
+		@Override
+		public void debugMark()
+		{
+			marked = true;
+		}
+
+		@Override
+		public void disable()
+		{
+			disabled = true;
+			base.anyDisabled = true;
+		}
+
+		@Override
+		public Vector3D getMin()
+		{
+			double[] bounds = mesh().bounds();
+			if(bounds[0] > bounds[3])
+			{
+				return new Vector3DImpl(0, 0, 0);
+			}
+			return new Vector3DImpl(bounds[0], bounds[1], bounds[2]);
+		}
+
+		@Override
+		public Vector3D getMax()
+		{
+			double[] bounds = mesh().bounds();
+			if(bounds[0] > bounds[3])
+			{
+				return new Vector3DImpl(0, 0, 0);
+			}
+			return new Vector3DImpl(bounds[3], bounds[4], bounds[5]);
+		}
+
+		@Override
+		public Vector3D getConservativeMin()
+		{
+			return bounds.isBounded() ? bounds.min() : getMin();
+		}
+
+		@Override
+		public Vector3D getConservativeMax()
+		{
+			return bounds.isBounded() ? bounds.max() : getMax();
+		}
+	}
+
+	// The results structurally equal 2D geometries have in common.
+	private static final class Shared2D
+	{
+		private final Memo<Region2D> region = new Memo<>();
+		private final Memo<MeshGeometry2D> lazy = new Memo<>();
+		private final Memo<double[]> triangles = new Memo<>();
+	}
+
+	// A value computed once, by the first caller that needs it.
+	// Not a monitor, since the supplier may wait for other evaluations on a virtual thread.
+	private static final class Memo<T>
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile T value;
+
+		private T get(Supplier<T> supplier)
+		{
+			T result = value;
+			if(result == null)
+			{
+				lock.lock();
+				try
+				{
+					result = value;
+					if(result == null)
+					{
+						result = supplier.get();
+						value = result;
+					}
+				} finally
+				{
+					lock.unlock();
+				}
+			}
+			return result;
+		}
+
+		private T peek()
+		{
+			return value;
+		}
+
+		private void set(T value)
+		{
+			this.value = value;
+		}
+	}
+}
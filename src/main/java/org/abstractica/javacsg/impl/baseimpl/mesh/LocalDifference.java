@@ -0,0 +1,260 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+// Subtracts many cutouts from a solid without running every cutout against the whole solid.
+// The cutouts are split in two at the median of their centers along the axis they are most spread out on, the
+// way a bounding volume hierarchy is built, and the solid is cut into the two matching halves. Each half only
+// sees the cutouts that reach into it, and large halves are evaluated in parallel. The halves overlap a little,
+// so the faces closing each half lie outside the part of it that is kept, and stitching the halves together
+// is a matter of keeping each half's own side of the split plane. The halves are triangulated independently,
+// so their edges along the plane are re-split to match while stitching.
+final class LocalDifference
+{
+	private static final double EPSILON = 1e-5;
+
+	// Below this many cutouts, subtracting them one by one is cheaper than splitting the solid.
+	private static final int LEAF_CUTOUTS = 8;
+	private static final int PARALLEL_CUTOUTS = 64;
+	private static final int MAX_DEPTH = 40;
+
+	private LocalDifference()
+	{
+	}
+
+	static Mesh3D difference(Mesh3D solid, List<Mesh3D> cutouts)
+	{
+		List<Cutout> list = new ArrayList<>(cutouts.size());
+		for(Mesh3D cutout : cutouts)
+		{
+			if(!cutout.isEmpty())
+			{
+				list.add(new Cutout(cutout));
+			}
+		}
+		return subtract(solid, list, 0);
+	}
+
+	private static Mesh3D subtract(Mesh3D solid, List<Cutout> cutouts, int depth)
+	{
+		if(solid.isEmpty())
+		{
+			return solid;
+		}
+		double[] bounds = solid.bounds();
+		List<Cutout> local = new ArrayList<>();
+		for(Cutout cutout : cutouts)
+		{
+			if(cutout.overlaps(bounds))
+			{
+				local.add(cutout);
+			}
+		}
+		if(local.size() <= LEAF_CUTOUTS || depth >= MAX_DEPTH)
+		{
+			return subtractAll(solid, local);
+		}
+		int axis = splitAxis(local);
+		local.sort(Comparator.comparingDouble(cutout -> cutout.center(axis)));
+		double split = local.get(local.size() / 2).center(axis);
+		double size = 0;
+		for(int i = 0; i < 3; i++)
+		{
+			size = Math.max(size, bounds[i + 3] - bounds[i]);
+		}
+		double overlap = 1e-3 * size + 10 * EPSILON;
+		if(split - overlap <= bounds[axis] || split + overlap >= bounds[axis + 3])
+		{
+			return subtractAll(solid, local);
+		}
+		List<Cutout> below = new ArrayList<>();
+		List<Cutout> above = new ArrayList<>();
+		for(Cutout cutout : local)
+		{
+			if(cutout.bounds[axis] < split + overlap)
+			{
+				below.add(cutout);
+			}
+			if(cutout.bounds[axis + 3] > split - overlap)
+			{
+				above.add(cutout);
+			}
+		}
+		if(below.size() == local.size() && above.size() == local.size())
+		{
+			return subtractAll(solid, local);
+		}
+		double pad = overlap + size;
+		double[] belowBox = {bounds[0] - pad, bounds[1] - pad, bounds[2] - pad, bounds[3] + pad, bounds[4] + pad, bounds[5] + pad};
+		double[] aboveBox = belowBox.clone();
+		belowBox[axis + 3] = split + overlap;
+		aboveBox[axis] = split - overlap;
+		Mesh3D belowResult;
+		Mesh3D aboveResult;
+		if(local.size() >= PARALLEL_CUTOUTS)
+		{
+			ForkJoinTask<Mesh3D> task = ForkJoinTask.adapt(() ->
+					subtract(MeshBooleans.intersection(solid, box(aboveBox)), above, depth + 1)).fork();
+			belowResult = subtract(MeshBooleans.intersection(solid, box(belowBox)), below, depth + 1);
+			aboveResult = task.join();
+		}
+		else
+		{
+			belowResult = subtract(MeshBooleans.intersection(solid, box(belowBox)), below, depth + 1);
+			aboveResult = subtract(MeshBooleans.intersection(solid, box(aboveBox)), above, depth + 1);
+		}
+		List<double[]> polygons = new ArrayList<>();
+		List<Color> colors = new ArrayList<>();
+		keepSide(polygons, colors, belowResult, axis, split, true);
+		keepSide(polygons, colors, aboveResult, axis, split, false);
+		return SeamRepair.toMesh(polygons, colors, EPSILON);
+	}
+
+	private static Mesh3D subtractAll(Mesh3D solid, List<Cutout> cutouts)
+	{
+		Mesh3D result = solid;
+		for(Cutout cutout : cutouts)
+		{
+			result = MeshBooleans.difference(result, cutout.mesh);
+		}
+		return result;
+	}
+
+	private static int splitAxis(List<Cutout> cutouts)
+	{
+		double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+		double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for(Cutout cutout : cutouts)
+		{
+			for(int i = 0; i < 3; i++)
+			{
+				min[i] = Math.min(min[i], cutout.center(i));
+				max[i] = Math.max(max[i], cutout.center(i));
+			}
+		}
+		int axis = 0;
+		for(int i = 1; i < 3; i++)
+		{
+			if(max[i] - min[i] > max[axis] - min[axis])
+			{
+				axis = i;
+			}
+		}
+		return axis;
+	}
+
+	// Adds the part of the mesh on one side of the plane where the given coordinate equals split. Faces lying in
+	// the plane belong to the side above it, so a face both halves have in common is only kept once.
+	private static void keepSide(List<double[]> polygons, List<Color> colors, Mesh3D mesh, int axis, double split, boolean below)
+	{
+		double sign = below ? 1 : -1;
+		double[] coords = new double[9];
+		double[] distances = new double[3];
+		double[] polygon = new double[12];
+		for(int t = 0; t < mesh.triangleCount(); t++)
+		{
+			boolean anyInside = false;
+			boolean anyOutside = false;
+			for(int corner = 0; corner < 3; corner++)
+			{
+				int v = mesh.vertex(t, corner);
+				coords[3 * corner] = mesh.x(v);
+				coords[3 * corner + 1] = mesh.y(v);
+				coords[3 * corner + 2] = mesh.z(v);
+				double distance = sign * (coords[3 * corner + axis] - split);
+				if(Math.abs(distance) <= EPSILON)
+				{
+					// Points on the plane are moved onto it exactly, so both halves weld to the same vertices.
+					coords[3 * corner + axis] = split;
+					distance = 0;
+				}
+				distances[corner] = distance;
+				anyInside |= distance < 0;
+				anyOutside |= distance > 0;
+			}
+			Color color = mesh.color(t);
+			if(!anyOutside && (anyInside || !below))
+			{
+				polygons.add(coords.clone());
+				colors.add(color);
+			}
+			else if(anyInside && anyOutside)
+			{
+				int count = 0;
+				for(int i = 0; i < 3; i++)
+				{
+					int j = (i + 1) % 3;
+					if(distances[i] <= 0)
+					{
+						System.arraycopy(coords, 3 * i, polygon, 3 * count++, 3);
+					}
+					if((distances[i] < 0 && distances[j] > 0) || (distances[i] > 0 && distances[j] < 0))
+					{
+						double f = distances[i] / (distances[i] - distances[j]);
+						for(int k = 0; k < 3; k++)
+						{
+							polygon[3 * count + k] = coords[3 * i + k] + (coords[3 * j + k] - coords[3 * i + k]) * f;
+						}
+						polygon[3 * count + axis] = split;
+						count++;
+					}
+				}
+				polygons.add(Arrays.copyOf(polygon, 3 * count));
+				colors.add(color);
+			}
+		}
+	}
+
+	// b holds {minX, minY, minZ, maxX, maxY, maxZ}.
+	private static Mesh3D box(double[] b)
+	{
+		MeshBuilder builder = new MeshBuilder(false);
+		for(int i = 0; i < 8; i++)
+		{
+			builder.addVertex(b[3 * (i & 1)], b[1 + 3 * ((i >> 1) & 1)], b[2 + 3 * ((i >> 2) & 1)]);
+		}
+		int[][] faces = {{0, 2, 3, 1}, {4, 5, 7, 6}, {0, 1, 5, 4}, {2, 6, 7, 3}, {0, 4, 6, 2}, {1, 3, 7, 5}};
+		for(int[] face : faces)
+		{
+			builder.addTriangle(face[0], face[1], face[2], null);
+			builder.addTriangle(face[0], face[2], face[3], null);
+		}
+		return builder.build();
+	}
+
+	private static final class Cutout
+	{
+		private final Mesh3D mesh;
+		private final double[] bounds;
+
+		private Cutout(Mesh3D mesh)
+		{
+			this.mesh = mesh;
+			this.bounds = mesh.bounds();
+		}
+
+		private double center(int axis)
+		{
+			return (bounds[axis] + bounds[axis + 3]) / 2;
+		}
+
+		// Touching counts as overlapping, since a cutout touching the solid may still change its faces.
+		private boolean overlaps(double[] other)
+		{
+			for(int i = 0; i < 3; i++)
+			{
+				if(bounds[i] > other[i + 3] || bounds[i + 3] < other[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+
+import java.util.List;
+
+public final class Mesh3D
+{
+	public static final Mesh3D EMPTY = new Mesh3D(new double[0], new int[0], null);
+
+	private final double[] vertices;
+	private final int[] triangles;
+	private final Color[] colors;
+	private volatile double[] bounds;
+
+	// vertices holds x, y, z per vertex, triangles holds three counterclockwise vertex indices per
+	// triangle (seen from outside) and colors is either null or holds one, possibly null, color per triangle.
+	Mesh3D(double[] vertices, int[] triangles, Color[] colors)
+	{
+		this.vertices = vertices;
+		this.triangles = triangles;
+		this.colors = colors;
+	}
+
+	public int vertexCount()
+	{
+		return vertices.length / 3;
+	}
+
+	public int triangleCount()
+	{
+		return triangles.length / 3;
+	}
+
+	public boolean isEmpty()
+	{
+		return triangles.length == 0;
+	}
+
+	public double x(int vertex)
+	{
+		return vertices[3 * vertex];
+	}
+
+	public double y(int vertex)
+	{
+		return vertices[3 * vertex + 1];
+	}
+
+	public double z(int vertex)
+	{
+		return vertices[3 * vertex + 2];
+	}
+
+	public int vertex(int triangle, int corner)
+	{
+		return triangles[3 * triangle + corner];
+	}
+
+	public Color color(int triangle)
+	{
+		return colors == null ? null : colors[triangle];
+	}
+
+	public boolean hasColors()
+	{
+		return colors != null;
+	}
+
+	double[] vertexArray()
+	{
+		return vertices;
+	}
+
+	int[] triangleArray()
+	{
+		return triangles;
+	}
+
+	public Mesh3D transformed(Affine3D transform)
+	{
+		if(transform.isIdentity() || isEmpty())
+		{
+			return this;
+		}
+		double[] newVertices = new double[vertices.length];
+		for(int i = 0; i < vertices.length; i += 3)
+		{
+			double x = vertices[i];
+			double y = vertices[i + 1];
+			double z = vertices[i + 2];
+			newVertices[i] = transform.transformX(x, y, z);
+			newVertices[i + 1] = transform.transformY(x, y, z);
+			newVertices[i + 2] = transform.transformZ(x, y, z);
+		}
+		int[] newTriangles = triangles;
+		if(transform.determinant() < 0)
+		{
+			newTriangles = new int[triangles.length];
+			for(int i = 0; i < triangles.length; i += 3)
+			{
+				newTriangles[i] = triangles[i];
+				newTriangles[i + 1] = triangles[i + 2];
+				newTriangles[i + 2] = triangles[i + 1];
+			}
+		}
+		return new Mesh3D(newVertices, newTriangles, colors);
+	}
+
+	// Colors every triangle that does not already have a color. Like OpenSCAD, the innermost color wins.
+	public Mesh3D colored(Color color)
+	{
+		int count = triangleCount();
+		Color[] newColors = new Color[count];
+		for(int i = 0; i < count; i++)
+		{
+			Color old = color(i);
+			newColors[i] = old != null ? old : color;
+		}
+		return new Mesh3D(vertices, triangles, newColors);
+	}
+
+	public static Mesh3D concat(List<Mesh3D> meshes)
+	{
+		int vertexLength = 0;
+		int triangleLength = 0;
+		boolean anyColors = false;
+		Mesh3D nonEmpty = null;
+		int nonEmptyCount = 0;
+		for(Mesh3D mesh : meshes)
+		{
+			vertexLength += mesh.vertices.length;
+			triangleLength += mesh.triangles.length;
+			anyColors |= mesh.colors != null;
+			if(!mesh.isEmpty())
+			{
+				nonEmpty = mesh;
+				nonEmptyCount++;
+			}
+		}
+		if(nonEmptyCount == 0)
+		{
+			return EMPTY;
+		}
+		if(nonEmptyCount == 1)
+		{
+			return nonEmpty;
+		}
+		double[] vertices = new double[vertexLength];
+		int[] triangles = new int[triangleLength];
+		Color[] colors = anyColors ? new Color[triangleLength / 3] : null;
+		int vertexOffset = 0;
+		int triangleOffset = 0;
+		for(Mesh3D mesh : meshes)
+		{
+			System.arraycopy(mesh.vertices, 0, vertices, vertexOffset, mesh.vertices.length);
+			int indexOffset = vertexOffset / 3;
+			for(int i = 0; i < mesh.triangles.length; i++)
+			{
+				triangles[triangleOffset + i] = mesh.triangles[i] + indexOffset;
+			}
+			if(mesh.colors != null)
+			{
+				System.arraycopy(mesh.colors, 0, colors, triangleOffset / 3, mesh.colors.length);
+			}
+			vertexOffset += mesh.vertices.length;
+			triangleOffset += mesh.triangles.length;
+		}
+		return new Mesh3D(vertices, triangles, colors);
+	}
+
+	public double volume()
+	{
+		double sum = 0;
+		for(int i = 0; i < triangles.length; i += 3)
+		{
+			int a = 3 * triangles[i];
+			int b = 3 * triangles[i + 1];
+			int c = 3 * triangles[i + 2];
+			double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+			double bx = vertices[b], by = vertices[b + 1], bz = vertices[b + 2];
+			double cx = vertices[c], cy = vertices[c + 1], cz = vertices[c + 2];
+			sum += ax * (by * cz - bz * cy) - ay * (bx * cz - bz * cx) + az * (bx * cy - by * cx);
+		}
+		return sum / 6.0;
+	}
+
+	// Returns {minX, minY, minZ, maxX, maxY, maxZ}. An empty mesh has min > max.
+	public double[] bounds()
+	{
+		double[] result = bounds;
+		if(result == null)
+		{
+			result = new double[]
+					{
+							Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+							Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+					};
+			for(int i = 0; i < triangles.length; i++)
+			{
+				int v = 3 * triangles[i];
+				for(int axis = 0; axis < 3; axis++)
+				{
+					double value = vertices[v + axis];
+					if(value < result[axis])
+					{
+						result[axis] = value;
+					}
+					if(value > result[axis + 3])
+					{
+						result[axis + 3] = value;
+					}
+				}
+			}
+			bounds = result;
+		}
+		return result.clone();
+	}
+}
@@ -0,0 +1,617 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Boolean operations on closed triangle meshes using BSP trees, following the classic csg.js algorithm.
+// All tree walks are iterative, so large meshes do not overflow the call stack.
+final class MeshBooleans
+{
+	private static final double EPSILON = 1e-5;
+
+	private static final int COPLANAR = 0;
+	private static final int FRONT = 1;
+	private static final int BACK = 2;
+	private static final int SPANNING = 3;
+
+	private MeshBooleans()
+	{
+	}
+
+	static Mesh3D union(Mesh3D a, Mesh3D b)
+	{
+		if(a.isEmpty())
+		{
+			return b;
+		}
+		if(b.isEmpty())
+		{
+			return a;
+		}
+		Node nodeA = new Node(toPolygons(a));
+		Node nodeB = new Node(toPolygons(b));
+		clipTo(nodeA, nodeB);
+		clipTo(nodeB, nodeA);
+		invert(nodeB);
+		clipTo(nodeB, nodeA);
+		invert(nodeB);
+		build(nodeA, allPolygons(nodeB));
+		return toMesh(allPolygons(nodeA));
+	}
+
+	static Mesh3D difference(Mesh3D a, Mesh3D b)
+	{
+		if(a.isEmpty() || b.isEmpty())
+		{
+			return a;
+		}
+		Node nodeA = new Node(toPolygons(a));
+		Node nodeB = new Node(toPolygons(b));
+		invert(nodeA);
+		clipTo(nodeA, nodeB);
+		clipTo(nodeB, nodeA);
+		invert(nodeB);
+		clipTo(nodeB, nodeA);
+		invert(nodeB);
+		build(nodeA, allPolygons(nodeB));
+		invert(nodeA);
+		return toMesh(allPolygons(nodeA));
+	}
+
+	static Mesh3D intersection(Mesh3D a, Mesh3D b)
+	{
+		if(a.isEmpty() || b.isEmpty())
+		{
+			return Mesh3D.EMPTY;
+		}
+		Node nodeA = new Node(toPolygons(a));
+		Node nodeB = new Node(toPolygons(b));
+		invert(nodeA);
+		clipTo(nodeB, nodeA);
+		invert(nodeB);
+		clipTo(nodeA, nodeB);
+		clipTo(nodeB, nodeA);
+		build(nodeA, allPolygons(nodeB));
+		invert(nodeA);
+		return toMesh(allPolygons(nodeA));
+	}
+
+	// Splits a closed mesh into convex hulls whose union is the solid. The space reached at a node of the BSP tree is
+	// convex, and the solid is the space behind the nodes without a back subtree. Starting from the bounding box,
+	// each node cuts the space it is given into the parts in front of and behind its plane.
+	static List<Mesh3D> convexParts(Mesh3D mesh)
+	{
+		List<Mesh3D> result = new ArrayList<>();
+		if(mesh.isEmpty())
+		{
+			return result;
+		}
+		double[] bounds = mesh.bounds();
+		double[] corners = new double[24];
+		for(int i = 0; i < 8; i++)
+		{
+			corners[3 * i] = bounds[(i & 1) == 0 ? 0 : 3];
+			corners[3 * i + 1] = bounds[(i & 2) == 0 ? 1 : 4];
+			corners[3 * i + 2] = bounds[(i & 4) == 0 ? 2 : 5];
+		}
+		Mesh3D box = ConvexHulls.hull3D(corners);
+		if(box.isEmpty())
+		{
+			return result;
+		}
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<Mesh3D> cells = new ArrayDeque<>();
+		nodes.push(new Node(toPolygons(mesh)));
+		cells.push(box);
+		while(!nodes.isEmpty())
+		{
+			Node node = nodes.pop();
+			Mesh3D cell = cells.pop();
+			if(node.plane == null)
+			{
+				continue;
+			}
+			Mesh3D front = node.plane.cut(cell, false);
+			Mesh3D back = node.plane.cut(cell, true);
+			if(!front.isEmpty() && node.front != null)
+			{
+				nodes.push(node.front);
+				cells.push(front);
+			}
+			if(!back.isEmpty())
+			{
+				if(node.back != null)
+				{
+					nodes.push(node.back);
+					cells.push(back);
+				}
+				else
+				{
+					result.add(back);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static List<Polygon> toPolygons(Mesh3D mesh)
+	{
+		int count = mesh.triangleCount();
+		List<Polygon> result = new ArrayList<>(count);
+		for(int t = 0; t < count; t++)
+		{
+			int a = mesh.vertex(t, 0);
+			int b = mesh.vertex(t, 1);
+			int c = mesh.vertex(t, 2);
+			double[] coords =
+					{
+							mesh.x(a), mesh.y(a), mesh.z(a),
+							mesh.x(b), mesh.y(b), mesh.z(b),
+							mesh.x(c), mesh.y(c), mesh.z(c)
+					};
+			Plane plane = Plane.fromPoints(coords);
+			if(plane != null)
+			{
+				result.add(new Polygon(coords, plane, mesh.color(t)));
+			}
+		}
+		return result;
+	}
+
+	// A polygon is only split by the planes of its own subtree, so its neighbours are not split where it is.
+	// The seams are closed again while triangulating.
+	private static Mesh3D toMesh(List<Polygon> polygons)
+	{
+		List<double[]> coords = new ArrayList<>(polygons.size());
+		List<Color> colors = new ArrayList<>(polygons.size());
+		for(Polygon polygon : polygons)
+		{
+			coords.add(polygon.coords);
+			colors.add(polygon.color);
+		}
+		return SeamRepair.toMesh(coords, colors, EPSILON);
+	}
+
+	private static void invert(Node root)
+	{
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while(!stack.isEmpty())
+		{
+			Node node = stack.pop();
+			List<Polygon> polygons = node.polygons;
+			for(int i = 0; i < polygons.size(); i++)
+			{
+				polygons.set(i, polygons.get(i).flipped());
+			}
+			if(node.plane != null)
+			{
+				node.plane = node.plane.flipped();
+			}
+			Node temp = node.front;
+			node.front = node.back;
+			node.back = temp;
+			if(node.front != null)
+			{
+				stack.push(node.front);
+			}
+			if(node.back != null)
+			{
+				stack.push(node.back);
+			}
+		}
+	}
+
+	// Removes all parts of the polygons that are inside the solid represented by the tree.
+	private static List<Polygon> clipPolygons(Node root, List<Polygon> polygons)
+	{
+		if(root.plane == null)
+		{
+			return new ArrayList<>(polygons);
+		}
+		List<Polygon> result = new ArrayList<>();
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<List<Polygon>> lists = new ArrayDeque<>();
+		nodes.push(root);
+		lists.push(polygons);
+		while(!nodes.isEmpty())
+		{
+			Node node = nodes.pop();
+			List<Polygon> input = lists.pop();
+			List<Polygon> front = new ArrayList<>();
+			List<Polygon> back = new ArrayList<>();
+			for(Polygon polygon : input)
+			{
+				node.plane.split(polygon, front, back, front, back);
+			}
+			if(!front.isEmpty())
+			{
+				if(node.front != null)
+				{
+					nodes.push(node.front);
+					lists.push(front);
+				}
+				else
+				{
+					result.addAll(front);
+				}
+			}
+			if(!back.isEmpty() && node.back != null)
+			{
+				nodes.push(node.back);
+				lists.push(back);
+			}
+		}
+		return result;
+	}
+
+	// Removes all polygons in the first tree that are inside the second tree.
+	private static void clipTo(Node node, Node other)
+	{
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(node);
+		while(!stack.isEmpty())
+		{
+			Node current = stack.pop();
+			current.polygons = clipPolygons(other, current.polygons);
+			if(current.front != null)
+			{
+				stack.push(current.front);
+			}
+			if(current.back != null)
+			{
+				stack.push(current.back);
+			}
+		}
+	}
+
+	private static List<Polygon> allPolygons(Node root)
+	{
+		List<Polygon> result = new ArrayList<>();
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while(!stack.isEmpty())
+		{
+			Node node = stack.pop();
+			result.addAll(node.polygons);
+			if(node.front != null)
+			{
+				stack.push(node.front);
+			}
+			if(node.back != null)
+			{
+				stack.push(node.back);
+			}
+		}
+		return result;
+	}
+
+	private static void build(Node root, List<Polygon> polygons)
+	{
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<List<Polygon>> lists = new ArrayDeque<>();
+		nodes.push(root);
+		lists.push(polygons);
+		while(!nodes.isEmpty())
+		{
+			Node node = nodes.pop();
+			List<Polygon> input = lists.pop();
+			if(input.isEmpty())
+			{
+				continue;
+			}
+			if(node.plane == null)
+			{
+				node.plane = input.get(input.size() / 2).plane;
+			}
+			List<Polygon> front = new ArrayList<>();
+			List<Polygon> back = new ArrayList<>();
+			for(Polygon polygon : input)
+			{
+				node.plane.split(polygon, node.polygons, node.polygons, front, back);
+			}
+			if(!front.isEmpty())
+			{
+				if(node.front == null)
+				{
+					node.front = new Node();
+				}
+				nodes.push(node.front);
+				lists.push(front);
+			}
+			if(!back.isEmpty())
+			{
+				if(node.back == null)
+				{
+					node.back = new Node();
+				}
+				nodes.push(node.back);
+				lists.push(back);
+			}
+		}
+	}
+
+	private static final class Node
+	{
+		private Plane plane;
+		private Node front;
+		private Node back;
+		private List<Polygon> polygons = new ArrayList<>();
+
+		private Node()
+		{
+		}
+
+		private Node(List<Polygon> polygons)
+		{
+			build(this, polygons);
+		}
+	}
+
+	private static final class Polygon
+	{
+		private final double[] coords;
+		private final Plane plane;
+		private final Color color;
+
+		private Polygon(double[] coords, Plane plane, Color color)
+		{
+			this.coords = coords;
+			this.plane = plane;
+			this.color = color;
+		}
+
+		private Polygon flipped()
+		{
+			int count = coords.length / 3;
+			double[] reversed = new double[coords.length];
+			for(int i = 0; i < count; i++)
+			{
+				int j = count - 1 - i;
+				reversed[3 * i] = coords[3 * j];
+				reversed[3 * i + 1] = coords[3 * j + 1];
+				reversed[3 * i + 2] = coords[3 * j + 2];
+			}
+			return new Polygon(reversed, plane.flipped(), color);
+		}
+	}
+
+	private static final class Plane
+	{
+		private final double nx;
+		private final double ny;
+		private final double nz;
+		private final double w;
+
+		private Plane(double nx, double ny, double nz, double w)
+		{
+			this.nx = nx;
+			this.ny = ny;
+			this.nz = nz;
+			this.w = w;
+		}
+
+		private static Plane fromPoints(double[] c)
+		{
+			double ux = c[3] - c[0], uy = c[4] - c[1], uz = c[5] - c[2];
+			double vx = c[6] - c[0], vy = c[7] - c[1], vz = c[8] - c[2];
+			double nx = uy * vz - uz * vy;
+			double ny = uz * vx - ux * vz;
+			double nz = ux * vy - uy * vx;
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if(length < 1e-12)
+			{
+				return null;
+			}
+			nx /= length;
+			ny /= length;
+			nz /= length;
+			return new Plane(nx, ny, nz, nx * c[0] + ny * c[1] + nz * c[2]);
+		}
+
+		private Plane flipped()
+		{
+			return new Plane(-nx, -ny, -nz, -w);
+		}
+
+		// The part of a convex hull on one side of the plane, which is the hull of its corners on that side and the
+		// points where its edges cross the plane. A flat side of the hull is made of several triangles, and the
+		// vertices and edges inside it are left out, or the hulls would gain points with every cut.
+		private Mesh3D cut(Mesh3D hull, boolean keepBack)
+		{
+			int count = hull.vertexCount();
+			double[] distances = new double[count];
+			boolean inside = false;
+			boolean outside = false;
+			for(int v = 0; v < count; v++)
+			{
+				double t = nx * hull.x(v) + ny * hull.y(v) + nz * hull.z(v) - w;
+				distances[v] = keepBack ? -t : t;
+				inside |= distances[v] > EPSILON;
+				outside |= distances[v] < -EPSILON;
+			}
+			if(!inside)
+			{
+				return Mesh3D.EMPTY;
+			}
+			if(!outside)
+			{
+				return hull;
+			}
+			int triangles = hull.triangleCount();
+			Plane[] faces = new Plane[triangles];
+			Map<Long, Integer> edges = new HashMap<>();
+			List<List<Plane>> sides = new ArrayList<>(count);
+			for(int v = 0; v < count; v++)
+			{
+				sides.add(new ArrayList<>());
+			}
+			double[] coords = new double[9];
+			for(int t = 0; t < triangles; t++)
+			{
+				for(int corner = 0; corner < 3; corner++)
+				{
+					int v = hull.vertex(t, corner);
+					coords[3 * corner] = hull.x(v);
+					coords[3 * corner + 1] = hull.y(v);
+					coords[3 * corner + 2] = hull.z(v);
+					edges.put(edge(v, hull.vertex(t, (corner + 1) % 3)), t);
+				}
+				faces[t] = Plane.fromPoints(coords);
+				for(int corner = 0; corner < 3; corner++)
+				{
+					addSide(sides.get(hull.vertex(t, corner)), faces[t]);
+				}
+			}
+			double[] points = new double[3 * (count + 2 * triangles)];
+			int k = 0;
+			for(int v = 0; v < count; v++)
+			{
+				if(distances[v] >= -EPSILON && sides.get(v).size() >= 3)
+				{
+					points[k++] = hull.x(v);
+					points[k++] = hull.y(v);
+					points[k++] = hull.z(v);
+				}
+			}
+			for(int t = 0; t < triangles; t++)
+			{
+				for(int corner = 0; corner < 3; corner++)
+				{
+					int i = hull.vertex(t, corner);
+					int j = hull.vertex(t, (corner + 1) % 3);
+					// Each edge is shared by two triangles and is only cut once.
+					if(i < j && (distances[i] > EPSILON && distances[j] < -EPSILON ||
+							distances[i] < -EPSILON && distances[j] > EPSILON))
+					{
+						Integer other = edges.get(edge(j, i));
+						if(other != null && sameSide(faces[t], faces[other]))
+						{
+							continue;
+						}
+						double f = distances[i] / (distances[i] - distances[j]);
+						points[k++] = hull.x(i) + (hull.x(j) - hull.x(i)) * f;
+						points[k++] = hull.y(i) + (hull.y(j) - hull.y(i)) * f;
+						points[k++] = hull.z(i) + (hull.z(j) - hull.z(i)) * f;
+					}
+				}
+			}
+			return ConvexHulls.hull3D(Arrays.copyOf(points, k));
+		}
+
+		private static long edge(int a, int b)
+		{
+			return ((long) a << 32) | (b & 0xffffffffL);
+		}
+
+		private static void addSide(List<Plane> sides, Plane face)
+		{
+			if(face == null)
+			{
+				return;
+			}
+			for(Plane side : sides)
+			{
+				if(sameSide(side, face))
+				{
+					return;
+				}
+			}
+			sides.add(face);
+		}
+
+		private static boolean sameSide(Plane a, Plane b)
+		{
+			return a != null && b != null && a.nx * b.nx + a.ny * b.ny + a.nz * b.nz > 1 - 1e-9;
+		}
+
+		private void split(Polygon polygon,
+		                   List<Polygon> coplanarFront,
+		                   List<Polygon> coplanarBack,
+		                   List<Polygon> front,
+		                   List<Polygon> back)
+		{
+			double[] c = polygon.coords;
+			int count = c.length / 3;
+			int polygonType = 0;
+			int[] types = new int[count];
+			double[] distances = new double[count];
+			for(int i = 0; i < count; i++)
+			{
+				double t = nx * c[3 * i] + ny * c[3 * i + 1] + nz * c[3 * i + 2] - w;
+				int type = t < -EPSILON ? BACK : t > EPSILON ? FRONT : COPLANAR;
+				polygonType |= type;
+				types[i] = type;
+				distances[i] = t;
+			}
+			switch(polygonType)
+			{
+				case COPLANAR ->
+				{
+					Plane p = polygon.plane;
+					if(nx * p.nx + ny * p.ny + nz * p.nz > 0)
+					{
+						coplanarFront.add(polygon);
+					}
+					else
+					{
+						coplanarBack.add(polygon);
+					}
+				}
+				case FRONT -> front.add(polygon);
+				case BACK -> back.add(polygon);
+				default ->
+				{
+					double[] f = new double[3 * (count + 2)];
+					double[] b = new double[3 * (count + 2)];
+					int fCount = 0;
+					int bCount = 0;
+					for(int i = 0; i < count; i++)
+					{
+						int j = (i + 1) % count;
+						int ti = types[i];
+						int tj = types[j];
+						if(ti != BACK)
+						{
+							System.arraycopy(c, 3 * i, f, 3 * fCount++, 3);
+						}
+						if(ti != FRONT)
+						{
+							System.arraycopy(c, 3 * i, b, 3 * bCount++, 3);
+						}
+						if((ti | tj) == SPANNING)
+						{
+							double t = distances[i] / (distances[i] - distances[j]);
+							double x = c[3 * i] + (c[3 * j] - c[3 * i]) * t;
+							double y = c[3 * i + 1] + (c[3 * j + 1] - c[3 * i + 1]) * t;
+							double z = c[3 * i + 2] + (c[3 * j + 2] - c[3 * i + 2]) * t;
+							f[3 * fCount] = x;
+							f[3 * fCount + 1] = y;
+							f[3 * fCount + 2] = z;
+							fCount++;
+							b[3 * bCount] = x;
+							b[3 * bCount + 1] = y;
+							b[3 * bCount + 2] = z;
+							bCount++;
+						}
+					}
+					if(fCount >= 3)
+					{
+						front.add(new Polygon(Arrays.copyOf(f, 3 * fCount), polygon.plane, polygon.color));
+					}
+					if(bCount >= 3)
+					{
+						back.add(new Polygon(Arrays.copyOf(b, 3 * bCount), polygon.plane, polygon.color));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.util.Arrays;
+
+final class MeshBuilder
+{
+	// An open addressing table of vertex index + 1 per slot, with 0 marking an empty slot. It is kept at most
+	// half full, and it holds no boxed keys, so welding a mesh of millions of vertices costs a few bytes per vertex.
+	private int[] index;
+	private double[] vertices;
+	private int vertexCount;
+	private int[] triangles;
+	private int triangleCount;
+	private Color[] colors;
+
+	MeshBuilder(boolean weld)
+	{
+		this.index = weld ? new int[256] : null;
+		this.vertices = new double[3 * 64];
+		this.triangles = new int[3 * 64];
+	}
+
+	int vertexCount()
+	{
+		return vertexCount;
+	}
+
+	int addVertex(double x, double y, double z)
+	{
+		// Adding 0.0 turns -0.0 into 0.0, so both weld to the same vertex.
+		x += 0.0;
+		y += 0.0;
+		z += 0.0;
+		int slot = -1;
+		if(index != null)
+		{
+			int mask = index.length - 1;
+			slot = hash(x, y, z) & mask;
+			for(int entry = index[slot]; entry != 0; entry = index[slot])
+			{
+				int i = 3 * (entry - 1);
+				if(vertices[i] == x && vertices[i + 1] == y && vertices[i + 2] == z)
+				{
+					return entry - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+		if(3 * vertexCount + 3 > vertices.length)
+		{
+			vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+		}
+		int i = 3 * vertexCount;
+		vertices[i] = x;
+		vertices[i + 1] = y;
+		vertices[i + 2] = z;
+		int vertex = vertexCount++;
+		if(index != null)
+		{
+			index[slot] = vertex + 1;
+			if(2 * vertexCount > index.length)
+			{
+				rehash(2 * index.length);
+			}
+		}
+		return vertex;
+	}
+
+	private void rehash(int capacity)
+	{
+		int[] newIndex = new int[capacity];
+		int mask = capacity - 1;
+		for(int v = 0; v < vertexCount; v++)
+		{
+			int i = 3 * v;
+			int slot = hash(vertices[i], vertices[i + 1], vertices[i + 2]) & mask;
+			while(newIndex[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			newIndex[slot] = v + 1;
+		}
+		index = newIndex;
+	}
+
+	private static int hash(double x, double y, double z)
+	{
+		long h = Double.doubleToLongBits(x);
+		h = h * 0x9e3779b97f4a7c15L + Double.doubleToLongBits(y);
+		h = h * 0x9e3779b97f4a7c15L + Double.doubleToLongBits(z);
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	void addTriangle(int a, int b, int c, Color color)
+	{
+		if(a == b || b == c || c == a)
+		{
+			return;
+		}
+		if(3 * triangleCount + 3 > triangles.length)
+		{
+			triangles = Arrays.copyOf(triangles, 2 * triangles.length);
+		}
+		int i = 3 * triangleCount;
+		triangles[i] = a;
+		triangles[i + 1] = b;
+		triangles[i + 2] = c;
+		if(color != null && colors == null)
+		{
+			colors = new Color[triangles.length / 3];
+		}
+		if(colors != null)
+		{
+			if(colors.length < triangles.length / 3)
+			{
+				colors = Arrays.copyOf(colors, triangles.length / 3);
+			}
+			colors[triangleCount] = color;
+		}
+		triangleCount++;
+	}
+
+	Mesh3D build()
+	{
+		if(triangleCount == 0)
+		{
+			return Mesh3D.EMPTY;
+		}
+		return new Mesh3D(
+				Arrays.copyOf(vertices, 3 * vertexCount),
+				Arrays.copyOf(triangles, 3 * triangleCount),
+				colors == null ? null : Arrays.copyOf(colors, triangleCount));
+	}
+}
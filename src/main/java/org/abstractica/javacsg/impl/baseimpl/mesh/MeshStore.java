@@ -0,0 +1,680 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.CacheStore;
+import org.abstractica.javacsg.Color;
+import org.abstractica.javacsg.impl.ColorImpl;
+import org.abstractica.javacsg.impl.baseimpl.GeometryHash;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Meshes of evaluated subtrees kept in a directory between runs, one compressed file per structural hash.
+// Several processes may share the directory. Files only appear under their final name once they are complete,
+// and a process about to compute a subtree first leaves a claim file, so the others wait for its result instead
+// of computing the same subtree. The least recently used files are removed when the directory grows too large.
+// A remote store shares the meshes further, between machines.
+public final class MeshStore
+{
+	public static final long DEFAULT_MIN_NANOS = 10_000_000L;
+	public static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+	private static final int MAGIC = 0x324d434a; // "JCM2"
+	private static final String SUFFIX = ".mesh";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final String CLAIM_SUFFIX = ".claim";
+	private static final int BUFFER_BYTES = 1 << 16;
+	// A claim or temporary file this old was left by a run that crashed or hangs.
+	private static final long STALE_MILLIS = 30 * 60 * 1000L;
+	private static final long POLL_MILLIS = 50;
+	// Remote keys name the format, so stores shared by different versions of JavaCSG do not mix them up.
+	private static final String REMOTE_PREFIX = "javacsg-mesh2-";
+	// Claims name the process that made them as pid@host, the way the JVM names itself. The host is empty when
+	// it has no name, and claims made there are only ever stale by age.
+	private static final String HOST = hostName();
+	private static final String OWNER = ProcessHandle.current().pid() + "@" + HOST;
+	private static final int MAX_CONCURRENT_UPLOADS = 4;
+	private static final long UPLOAD_GRACE_SECONDS = 60;
+
+	private final Path directory;
+	private final long maxBytes;
+	private final long minNanos;
+	// The sizes of the files this process knows of. Other processes add files too, so it is only a lower bound.
+	private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+	private final AtomicLong bytes = new AtomicLong();
+	private final CacheStore remote;
+	// A remote store that failed is left alone for the rest of the run, so a server that is down costs one
+	// timeout and not one per subtree.
+	private volatile boolean remoteFailed;
+	private final Semaphore uploadPermits = new Semaphore(MAX_CONCURRENT_UPLOADS);
+	private ExecutorService uploads;
+
+	public MeshStore(Path directory)
+	{
+		this(directory, DEFAULT_MAX_BYTES, DEFAULT_MIN_NANOS, null);
+	}
+
+	// Subtrees that take less than minNanos to compute are cheaper to compute again than to load. The remote
+	// store may be null. If not, it is read from when a mesh is not in the directory, and written to in the
+	// background whenever a mesh is saved.
+	public MeshStore(Path directory, long maxBytes, long minNanos, CacheStore remote)
+	{
+		if(maxBytes < 0)
+		{
+			throw new IllegalArgumentException("The store size can not be negative: " + maxBytes);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.minNanos = minNanos;
+		this.remote = remote;
+		try
+		{
+			Files.createDirectories(directory);
+			long staleBefore = System.currentTimeMillis() - STALE_MILLIS;
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+			{
+				for(Path file : files)
+				{
+					String name = file.getFileName().toString();
+					if(name.endsWith(SUFFIX))
+					{
+						long size = Files.size(file);
+						sizes.put(name.substring(0, name.length() - SUFFIX.length()), size);
+						bytes.addAndGet(size);
+					}
+					else if((name.endsWith(TEMP_SUFFIX) || name.endsWith(CLAIM_SUFFIX)) &&
+							Files.getLastModifiedTime(file).toMillis() < staleBefore)
+					{
+						Files.deleteIfExists(file);
+					}
+				}
+			}
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException("Could not open the mesh store " + directory, e);
+		}
+		if(bytes.get() > maxBytes)
+		{
+			evict();
+		}
+	}
+
+	public long getMinNanos()
+	{
+		return minNanos;
+	}
+
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	// Returns null if the mesh is neither in the directory nor in the remote store.
+	public Mesh3D load(GeometryHash hash)
+	{
+		Mesh3D mesh = loadLocal(hash);
+		return mesh != null ? mesh : loadRemote(hash.toString());
+	}
+
+	// Returns null if the mesh is not in the directory. A file that can not be read is removed and counts as not stored.
+	public Mesh3D loadLocal(GeometryHash hash)
+	{
+		String key = hash.toString();
+		Path file = meshFile(key);
+		try
+		{
+			Mesh3D mesh = read(file);
+			// The modification time doubles as the time of last use, which is what eviction goes by.
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return mesh;
+		} catch (NoSuchFileException e)
+		{
+			forget(key);
+			return null;
+		} catch (IOException | RuntimeException e)
+		{
+			forget(key);
+			try
+			{
+				Files.deleteIfExists(file);
+			} catch (IOException ignored)
+			{
+			}
+			return null;
+		}
+	}
+
+	// Claims the right to compute a mesh, waiting while another process holds the claim. Returns null when the
+	// mesh was stored in the meantime, and otherwise a claim to release once the mesh is saved or given up on.
+	public Claim claim(GeometryHash hash)
+	{
+		String key = hash.toString();
+		Path claimFile = directory.resolve(key + CLAIM_SUFFIX);
+		while(true)
+		{
+			try
+			{
+				Files.writeString(claimFile, OWNER, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+				return new Claim(claimFile);
+			} catch (FileAlreadyExistsException e)
+			{
+				if(Files.exists(meshFile(key)))
+				{
+					return null;
+				}
+				if(isStale(claimFile))
+				{
+					try
+					{
+						Files.deleteIfExists(claimFile);
+					} catch (IOException ignored)
+					{
+					}
+					continue;
+				}
+			} catch (IOException e)
+			{
+				// Without claims, processes may compute the same mesh twice, which is wasteful but harmless.
+				return new Claim(null);
+			}
+			try
+			{
+				Thread.sleep(POLL_MILLIS);
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return new Claim(null);
+			}
+		}
+	}
+
+	public void save(GeometryHash hash, Mesh3D mesh)
+	{
+		String key = hash.toString();
+		Path file = publish(key, temp -> write(temp, mesh));
+		if(file != null && remote != null && !remoteFailed)
+		{
+			try
+			{
+				upload(key, Files.readAllBytes(file));
+			} catch (IOException ignored)
+			{
+				// Evicted again already.
+			}
+		}
+	}
+
+	// Read-through: a mesh found in the remote store is kept in the directory as well.
+	private Mesh3D loadRemote(String key)
+	{
+		if(remote == null || remoteFailed)
+		{
+			return null;
+		}
+		byte[] data;
+		try
+		{
+			data = remote.load(REMOTE_PREFIX + key);
+		} catch (IOException | RuntimeException e)
+		{
+			remoteFailed = true;
+			return null;
+		}
+		if(data == null)
+		{
+			return null;
+		}
+		Mesh3D mesh;
+		try
+		{
+			mesh = read(new ByteArrayInputStream(data), REMOTE_PREFIX + key);
+		} catch (IOException | RuntimeException e)
+		{
+			return null;
+		}
+		publish(key, temp -> Files.write(temp, data));
+		return mesh;
+	}
+
+	// Write-behind: the render goes on while the mesh is uploaded.
+	private void upload(String key, byte[] data)
+	{
+		uploads().execute(() ->
+		{
+			uploadPermits.acquireUninterruptibly();
+			try
+			{
+				if(!remoteFailed)
+				{
+					remote.save(REMOTE_PREFIX + key, data);
+				}
+			} catch (IOException | RuntimeException e)
+			{
+				remoteFailed = true;
+			} finally
+			{
+				uploadPermits.release();
+			}
+		});
+	}
+
+	// Uploads still running when the JVM exits are waited for a while, so a short run still shares its results.
+	private synchronized ExecutorService uploads()
+	{
+		if(uploads == null)
+		{
+			ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+			Runtime.getRuntime().addShutdownHook(new Thread(() ->
+			{
+				executor.shutdown();
+				try
+				{
+					executor.awaitTermination(UPLOAD_GRACE_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException ignored)
+				{
+				}
+			}));
+			uploads = executor;
+		}
+		return uploads;
+	}
+
+	// The mesh is written to a temporary file first, so a concurrent or interrupted run never sees half a mesh.
+	// Returns the file, or null if it could not be written or is too large to keep.
+	private Path publish(String key, FileWriter writer)
+	{
+		Path file = meshFile(key);
+		Path temp = null;
+		try
+		{
+			temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+			writer.write(temp);
+			long size = Files.size(temp);
+			if(size > maxBytes)
+			{
+				Files.delete(temp);
+				return null;
+			}
+			try
+			{
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Long old = sizes.put(key, size);
+			bytes.addAndGet(old == null ? size : size - old);
+		} catch (IOException e)
+		{
+			// The store only saves time, so a mesh that can not be saved is simply computed again next run.
+			if(temp != null)
+			{
+				try
+				{
+					Files.deleteIfExists(temp);
+				} catch (IOException ignored)
+				{
+				}
+			}
+			return null;
+		}
+		if(bytes.get() > maxBytes)
+		{
+			evict();
+		}
+		return file;
+	}
+
+	// Removes the least recently used meshes until the store is down to three quarters of its maximum size. The
+	// directory is listed again, so the files other processes stored count as well.
+	private synchronized void evict()
+	{
+		List<Entry> entries = new ArrayList<>();
+		long total = 0;
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX))
+		{
+			for(Path file : files)
+			{
+				try
+				{
+					Entry entry = new Entry(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+					entries.add(entry);
+					total += entry.size;
+				} catch (IOException ignored)
+				{
+					// Removed by another process while listing.
+				}
+			}
+		} catch (IOException e)
+		{
+			return;
+		}
+		entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+		long target = maxBytes - maxBytes / 4;
+		sizes.clear();
+		long remaining = total;
+		for(int i = 0; i < entries.size(); i++)
+		{
+			Entry entry = entries.get(i);
+			String name = entry.file.getFileName().toString();
+			String key = name.substring(0, name.length() - SUFFIX.length());
+			// The mesh used last is kept even if it is larger than the target on its own.
+			if(remaining > target && i < entries.size() - 1)
+			{
+				try
+				{
+					Files.deleteIfExists(entry.file);
+					remaining -= entry.size;
+					continue;
+				} catch (IOException ignored)
+				{
+					// Still open elsewhere on a system that does not allow that. It goes next time.
+				}
+			}
+			sizes.put(key, entry.size);
+		}
+		bytes.set(remaining);
+	}
+
+	private void forget(String key)
+	{
+		Long size = sizes.remove(key);
+		if(size != null)
+		{
+			bytes.addAndGet(-size);
+		}
+	}
+
+	private static String hostName()
+	{
+		try
+		{
+			return InetAddress.getLocalHost().getHostName();
+		} catch (IOException e)
+		{
+			return "";
+		}
+	}
+
+	private Path meshFile(String key)
+	{
+		return directory.resolve(key + SUFFIX);
+	}
+
+	// A claim is stale when the process that made it is gone, or when it is older than any render should take.
+	// Whether the process is gone can only be told on the host that made the claim, since the directory may be
+	// shared with other machines, where the same process id means another process.
+	private static boolean isStale(Path claimFile)
+	{
+		try
+		{
+			if(Files.getLastModifiedTime(claimFile).toMillis() < System.currentTimeMillis() - STALE_MILLIS)
+			{
+				return true;
+			}
+			String owner = Files.readString(claimFile).trim();
+			int at = owner.indexOf('@');
+			if(at < 0)
+			{
+				return false;
+			}
+			String host = owner.substring(at + 1);
+			if(host.isEmpty() || !host.equals(HOST))
+			{
+				return false;
+			}
+			long pid = Long.parseLong(owner.substring(0, at));
+			return ProcessHandle.of(pid).map(process -> !process.isAlive()).orElse(true);
+		} catch (NumberFormatException e)
+		{
+			// Still being written, so not stale yet.
+			return false;
+		} catch (IOException e)
+		{
+			// Released while looking at it.
+			return false;
+		}
+	}
+
+	// The header is stored as is and holds the size of the compressed payload when inflated.
+	private static void write(Path file, Mesh3D mesh) throws IOException
+	{
+		List<Color> palette = new ArrayList<>();
+		int[] colorIndices = null;
+		if(mesh.hasColors())
+		{
+			Map<Color, Integer> indices = new IdentityHashMap<>();
+			colorIndices = new int[mesh.triangleCount()];
+			for(int i = 0; i < colorIndices.length; i++)
+			{
+				Color color = mesh.color(i);
+				if(color == null)
+				{
+					colorIndices[i] = -1;
+					continue;
+				}
+				Integer index = indices.get(color);
+				if(index == null)
+				{
+					index = palette.size();
+					indices.put(color, index);
+					palette.add(color);
+				}
+				colorIndices[i] = index;
+			}
+		}
+		long length = 3L * Integer.BYTES + 4L * Double.BYTES * palette.size() +
+				(long) Double.BYTES * mesh.vertexArray().length + (long) Integer.BYTES * mesh.triangleArray().length +
+				(colorIndices == null ? 0 : (long) Integer.BYTES * colorIndices.length);
+		if(length > Integer.MAX_VALUE - 16)
+		{
+			throw new IOException("The mesh is too large to store");
+		}
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try(OutputStream out = Files.newOutputStream(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt((int) length);
+			drain(out, buffer);
+			DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, BUFFER_BYTES);
+			buffer.putInt(mesh.vertexCount()).putInt(mesh.triangleCount());
+			buffer.putInt(colorIndices == null ? -1 : palette.size());
+			for(Color color : palette)
+			{
+				if(buffer.remaining() < 4 * Double.BYTES)
+				{
+					drain(deflated, buffer);
+				}
+				buffer.putDouble(color.r()).putDouble(color.g()).putDouble(color.b()).putDouble(color.a());
+			}
+			for(double value : mesh.vertexArray())
+			{
+				if(buffer.remaining() < Double.BYTES)
+				{
+					drain(deflated, buffer);
+				}
+				buffer.putDouble(value);
+			}
+			for(int value : mesh.triangleArray())
+			{
+				if(buffer.remaining() < Integer.BYTES)
+				{
+					drain(deflated, buffer);
+				}
+				buffer.putInt(value);
+			}
+			if(colorIndices != null)
+			{
+				for(int value : colorIndices)
+				{
+					if(buffer.remaining() < Integer.BYTES)
+					{
+						drain(deflated, buffer);
+					}
+					buffer.putInt(value);
+				}
+			}
+			drain(deflated, buffer);
+			deflated.finish();
+		} finally
+		{
+			deflater.end();
+		}
+	}
+
+	private static void drain(OutputStream out, ByteBuffer buffer) throws IOException
+	{
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	private static Mesh3D read(Path file) throws IOException
+	{
+		try(InputStream in = Files.newInputStream(file))
+		{
+			return read(in, file.toString());
+		}
+	}
+
+	private static Mesh3D read(InputStream in, String source) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.wrap(in.readNBytes(2 * Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+		if(header.remaining() < 2 * Integer.BYTES || header.getInt() != MAGIC)
+		{
+			throw new IOException("Not a stored mesh: " + source);
+		}
+		int length = header.getInt();
+		if(length < 3 * Integer.BYTES)
+		{
+			throw new IOException("Not a stored mesh: " + source);
+		}
+		byte[] data;
+		Inflater inflater = new Inflater();
+		try
+		{
+			data = new InflaterInputStream(in, inflater, BUFFER_BYTES).readNBytes(length);
+		} finally
+		{
+			inflater.end();
+		}
+		if(data.length != length)
+		{
+			throw new IOException("Stored mesh is truncated: " + source);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		int vertexCount = buffer.getInt();
+		int triangleCount = buffer.getInt();
+		int paletteSize = buffer.getInt();
+		long expected = 4L * Double.BYTES * Math.max(paletteSize, 0) + 3L * Double.BYTES * vertexCount +
+				3L * Integer.BYTES * triangleCount + (paletteSize < 0 ? 0 : (long) Integer.BYTES * triangleCount);
+		if(vertexCount < 0 || triangleCount < 0 || paletteSize < -1 || buffer.remaining() != expected)
+		{
+			throw new IOException("Stored mesh has the wrong size: " + source);
+		}
+		Color[] palette = new Color[Math.max(paletteSize, 0)];
+		for(int i = 0; i < palette.length; i++)
+		{
+			palette[i] = new ColorImpl(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		}
+		double[] vertices = new double[3 * vertexCount];
+		buffer.asDoubleBuffer().get(vertices);
+		buffer.position(buffer.position() + Double.BYTES * vertices.length);
+		int[] triangles = new int[3 * triangleCount];
+		buffer.asIntBuffer().get(triangles);
+		buffer.position(buffer.position() + Integer.BYTES * triangles.length);
+		for(int vertex : triangles)
+		{
+			if(vertex < 0 || vertex >= vertexCount)
+			{
+				throw new IOException("Stored mesh has a triangle with vertex " + vertex + " of " + vertexCount + ": " + source);
+			}
+		}
+		Color[] colors = null;
+		if(paletteSize >= 0)
+		{
+			colors = new Color[triangleCount];
+			for(int i = 0; i < triangleCount; i++)
+			{
+				int index = buffer.getInt();
+				if(index < -1 || index >= paletteSize)
+				{
+					throw new IOException("Stored mesh has a triangle with color " + index + " of " + paletteSize + ": " + source);
+				}
+				colors[i] = index < 0 ? null : palette[index];
+			}
+		}
+		return new Mesh3D(vertices, triangles, colors);
+	}
+
+	@FunctionalInterface
+	private interface FileWriter
+	{
+		void write(Path file) throws IOException;
+	}
+
+	public static final class Claim
+	{
+		private final Path file;
+
+		private Claim(Path file)
+		{
+			this.file = file;
+		}
+
+		public void release()
+		{
+			if(file != null)
+			{
+				try
+				{
+					Files.deleteIfExists(file);
+				} catch (IOException ignored)
+				{
+				}
+			}
+		}
+	}
+
+	private static final class Entry
+	{
+		private final Path file;
+		private final long size;
+		private final long lastUsed;
+
+		private Entry(Path file, long size, long lastUsed)
+		{
+			this.file = file;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.impl.baseimpl.PolygonClipper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Grows regions with straight edges, like OpenSCAD's offset with a delta. Every edge is pushed out by the
+// distance, and the gap opening at each convex corner is filled with a mitered or chamfered corner piece. The
+// region, the pushed edges and the corner pieces are then unioned. Shrinking is left to the caller, as growing
+// the complement.
+final class Offsets
+{
+	private static final double EPSILON = 1e-12;
+	// OpenSCAD hands Clipper a miter limit of a million, so only corners that nearly turn back are squared off.
+	private static final double MIN_MITER = 2.0 / (1e6 * 1e6);
+
+	private Offsets()
+	{
+	}
+
+	static Region2D grown(Region2D region, double delta, boolean chamfer)
+	{
+		// The clipper returns simple contours with the filled area to the left, so the outside is to the right.
+		List<double[]> contours = PolygonClipper.union(List.of(region.contours()));
+		List<List<double[]>> parts = new ArrayList<>();
+		parts.add(contours);
+		for(double[] contour : contours)
+		{
+			int count = contour.length / 2;
+			for(int i = 0; i < count; i++)
+			{
+				int j = (i + 1) % count;
+				int k = (i + 2) % count;
+				double ax = contour[2 * i], ay = contour[2 * i + 1];
+				double bx = contour[2 * j], by = contour[2 * j + 1];
+				double cx = contour[2 * k], cy = contour[2 * k + 1];
+				double t1x = bx - ax, t1y = by - ay;
+				double t2x = cx - bx, t2y = cy - by;
+				double length1 = Math.hypot(t1x, t1y);
+				double length2 = Math.hypot(t2x, t2y);
+				if(length1 <= EPSILON || length2 <= EPSILON)
+				{
+					continue;
+				}
+				t1x /= length1;
+				t1y /= length1;
+				t2x /= length2;
+				t2y /= length2;
+				double nx = delta * t1y, ny = -delta * t1x;
+				parts.add(List.of(new double[]{ax, ay, bx, by, bx + nx, by + ny, ax + nx, ay + ny}));
+				double cross = t1x * t2y - t1y * t2x;
+				double dot = t1x * t2x + t1y * t2y;
+				// A turn to the left is a convex corner, and so is turning back along the same line.
+				if(cross > EPSILON || (cross >= -EPSILON && dot < 0))
+				{
+					parts.add(List.of(corner(bx, by, t1x, t1y, t2x, t2y, delta, chamfer)));
+				}
+			}
+		}
+		List<double[]> result = PolygonClipper.union(parts);
+		return result.isEmpty() ? Region2D.EMPTY : new Region2D(result);
+	}
+
+	// The piece between the corner b and the pushed edges meeting there. The edges run along the unit vectors t1
+	// and t2. A chamfer cuts the corner off at the offset distance from b, like Clipper's square joins.
+	private static double[] corner(double bx, double by, double t1x, double t1y, double t2x, double t2y, double delta, boolean chamfer)
+	{
+		double n1x = t1y, n1y = -t1x;
+		double n2x = t2y, n2y = -t2x;
+		double p1x = bx + delta * n1x, p1y = by + delta * n1y;
+		double p2x = bx + delta * n2x, p2y = by + delta * n2y;
+		double cos = n1x * n2x + n1y * n2y;
+		if(!chamfer && 1 + cos >= MIN_MITER)
+		{
+			double f = delta / (1 + cos);
+			return new double[]{bx, by, p1x, p1y, bx + f * (n1x + n2x), by + f * (n1y + n2y), p2x, p2y};
+		}
+		double mx = n1x + n2x, my = n1y + n2y;
+		double length = Math.hypot(mx, my);
+		if(length <= EPSILON)
+		{
+			mx = t1x;
+			my = t1y;
+		}
+		else
+		{
+			mx /= length;
+			my /= length;
+		}
+		double s = delta * (1 - (n1x * mx + n1y * my)) / (t1x * mx + t1y * my);
+		return new double[]{bx, by, p1x, p1y, p1x + s * t1x, p1y + s * t1y, p2x - s * t2x, p2y - s * t2y, p2x, p2y};
+	}
+}
@@ -0,0 +1,297 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.impl.baseimpl.Affine2D;
+import org.abstractica.javacsg.impl.baseimpl.Bounds2D;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A planar region bounded by closed contours. Overlapping contours are combined using the even-odd rule,
+// so nested contours become holes, islands in holes and so on, just like the paths of an OpenSCAD polygon.
+final class Region2D
+{
+	static final Region2D EMPTY = new Region2D(List.of());
+
+	private final List<double[]> contours;
+	private volatile Oriented oriented;
+	private volatile double[] triangles;
+
+	// Every contour holds x, y per vertex and is implicitly closed.
+	Region2D(List<double[]> contours)
+	{
+		List<double[]> cleaned = new ArrayList<>(contours.size());
+		for(double[] contour : contours)
+		{
+			double[] clean = removeDuplicates(contour);
+			if(clean.length >= 6)
+			{
+				cleaned.add(clean);
+			}
+		}
+		this.contours = cleaned;
+	}
+
+	boolean isEmpty()
+	{
+		return contours.isEmpty();
+	}
+
+	List<double[]> contours()
+	{
+		return contours;
+	}
+
+	Bounds2D bounds()
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for(double[] contour : contours)
+		{
+			for(int i = 0; i < contour.length; i += 2)
+			{
+				minX = Math.min(minX, contour[i]);
+				minY = Math.min(minY, contour[i + 1]);
+				maxX = Math.max(maxX, contour[i]);
+				maxY = Math.max(maxY, contour[i + 1]);
+			}
+		}
+		return new Bounds2D(minX, minY, maxX, maxY, true);
+	}
+
+	Region2D transformed(Affine2D transform)
+	{
+		if(transform.isIdentity() || isEmpty())
+		{
+			return this;
+		}
+		List<double[]> result = new ArrayList<>(contours.size());
+		for(double[] contour : contours)
+		{
+			double[] transformed = new double[contour.length];
+			for(int i = 0; i < contour.length; i += 2)
+			{
+				double x = contour[i];
+				double y = contour[i + 1];
+				transformed[i] = transform.transformX(x, y);
+				transformed[i + 1] = transform.transformY(x, y);
+			}
+			result.add(transformed);
+		}
+		return new Region2D(result);
+	}
+
+	// Returns the contours with outer boundaries counterclockwise and holes clockwise,
+	// so the filled area is always to the left of every edge.
+	List<double[]> orientedContours()
+	{
+		return oriented().contours;
+	}
+
+	// Returns x0, y0, x1, y1, x2, y2 for each counterclockwise triangle covering the region.
+	double[] triangles()
+	{
+		double[] result = triangles;
+		if(result == null)
+		{
+			result = triangulate();
+			triangles = result;
+		}
+		return result;
+	}
+
+	private double[] triangulate()
+	{
+		Oriented o = oriented();
+		List<double[]> result = new ArrayList<>();
+		int count = 0;
+		for(int i = 0; i < o.contours.size(); i++)
+		{
+			if(o.depth[i] % 2 != 0)
+			{
+				continue;
+			}
+			List<double[]> rings = new ArrayList<>();
+			rings.add(o.contours.get(i));
+			for(int j = 0; j < o.contours.size(); j++)
+			{
+				if(o.parent[j] == i)
+				{
+					rings.add(o.contours.get(j));
+				}
+			}
+			int length = 0;
+			for(double[] ring : rings)
+			{
+				length += ring.length;
+			}
+			double[] data = new double[length];
+			int[] holeIndices = new int[rings.size() - 1];
+			int offset = 0;
+			for(int r = 0; r < rings.size(); r++)
+			{
+				double[] ring = rings.get(r);
+				if(r > 0)
+				{
+					holeIndices[r - 1] = offset / 2;
+				}
+				System.arraycopy(ring, 0, data, offset, ring.length);
+				offset += ring.length;
+			}
+			int[] indices = Triangulator.triangulate(data, holeIndices);
+			double[] coords = new double[2 * indices.length];
+			for(int k = 0; k < indices.length; k++)
+			{
+				coords[2 * k] = data[2 * indices[k]];
+				coords[2 * k + 1] = data[2 * indices[k] + 1];
+			}
+			result.add(coords);
+			count += coords.length;
+		}
+		double[] all = new double[count];
+		int offset = 0;
+		for(double[] coords : result)
+		{
+			System.arraycopy(coords, 0, all, offset, coords.length);
+			offset += coords.length;
+		}
+		return all;
+	}
+
+	private Oriented oriented()
+	{
+		Oriented result = oriented;
+		if(result == null)
+		{
+			result = new Oriented(contours);
+			oriented = result;
+		}
+		return result;
+	}
+
+	static double signedArea(double[] contour)
+	{
+		double sum = 0;
+		int n = contour.length;
+		for(int i = 0, j = n - 2; i < n; i += 2)
+		{
+			sum += contour[j] * contour[i + 1] - contour[i] * contour[j + 1];
+			j = i;
+		}
+		return sum / 2;
+	}
+
+	static boolean contains(double[] contour, double x, double y)
+	{
+		boolean inside = false;
+		int n = contour.length;
+		for(int i = 0, j = n - 2; i < n; i += 2)
+		{
+			double xi = contour[i], yi = contour[i + 1];
+			double xj = contour[j], yj = contour[j + 1];
+			if((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi)
+			{
+				inside = !inside;
+			}
+			j = i;
+		}
+		return inside;
+	}
+
+	private static double[] reversed(double[] contour)
+	{
+		int n = contour.length / 2;
+		double[] result = new double[contour.length];
+		for(int i = 0; i < n; i++)
+		{
+			result[2 * i] = contour[2 * (n - 1 - i)];
+			result[2 * i + 1] = contour[2 * (n - 1 - i) + 1];
+		}
+		return result;
+	}
+
+	private static double[] removeDuplicates(double[] contour)
+	{
+		double[] result = new double[contour.length];
+		int count = 0;
+		for(int i = 0; i < contour.length; i += 2)
+		{
+			double x = contour[i];
+			double y = contour[i + 1];
+			if(count > 0 && result[count - 2] == x && result[count - 1] == y)
+			{
+				continue;
+			}
+			result[count++] = x;
+			result[count++] = y;
+		}
+		while(count >= 4 && result[0] == result[count - 2] && result[1] == result[count - 1])
+		{
+			count -= 2;
+		}
+		if(count == result.length)
+		{
+			return result;
+		}
+		double[] trimmed = new double[count];
+		System.arraycopy(result, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+	private static final class Oriented
+	{
+		private final List<double[]> contours;
+		private final int[] depth;
+		private final int[] parent;
+
+		private Oriented(List<double[]> input)
+		{
+			int n = input.size();
+			double[] areas = new double[n];
+			for(int i = 0; i < n; i++)
+			{
+				areas[i] = Math.abs(signedArea(input.get(i)));
+			}
+			depth = new int[n];
+			parent = new int[n];
+			for(int i = 0; i < n; i++)
+			{
+				double[] contour = input.get(i);
+				double x = contour[0];
+				double y = contour[1];
+				int bestParent = -1;
+				for(int j = 0; j < n; j++)
+				{
+					if(j == i || areas[j] < areas[i] || (areas[j] == areas[i] && j > i))
+					{
+						continue;
+					}
+					if(contains(input.get(j), x, y))
+					{
+						depth[i]++;
+						if(bestParent < 0 || areas[j] < areas[bestParent])
+						{
+							bestParent = j;
+						}
+					}
+				}
+				parent[i] = bestParent;
+			}
+			for(int i = 0; i < n; i++)
+			{
+				// Only a hole directly inside an outer boundary is cut out of that boundary.
+				if(depth[i] % 2 == 0 || parent[i] < 0 || depth[parent[i]] != depth[i] - 1)
+				{
+					parent[i] = -1;
+				}
+			}
+			contours = new ArrayList<>(n);
+			for(int i = 0; i < n; i++)
+			{
+				double[] contour = input.get(i);
+				boolean counterclockwise = signedArea(contour) > 0;
+				boolean outer = depth[i] % 2 == 0;
+				contours.add(counterclockwise == outer ? contour : reversed(contour));
+			}
+		}
+	}
+}
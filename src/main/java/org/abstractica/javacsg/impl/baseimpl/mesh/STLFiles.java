@@ -0,0 +1,349 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class STLFiles
+{
+	private static final int HEADER_BYTES = 84;
+	private static final int TRIANGLE_BYTES = 50;
+	// Large files are mapped a window at a time, since a single mapping can not exceed 2 GB.
+	private static final int TRIANGLES_PER_WINDOW = 1 << 20;
+	private static final int TRIANGLES_PER_WRITE = 1 << 12;
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private STLFiles()
+	{
+	}
+
+	static void writeASCII(Path path, Mesh3D mesh) throws IOException
+	{
+		createParent(path);
+		try(BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII))
+		{
+			out.write("solid JavaCSG\n");
+			int count = mesh.triangleCount();
+			for(int t = 0; t < count; t++)
+			{
+				int a = mesh.vertex(t, 0);
+				int b = mesh.vertex(t, 1);
+				int c = mesh.vertex(t, 2);
+				double ux = mesh.x(b) - mesh.x(a), uy = mesh.y(b) - mesh.y(a), uz = mesh.z(b) - mesh.z(a);
+				double vx = mesh.x(c) - mesh.x(a), vy = mesh.y(c) - mesh.y(a), vz = mesh.z(c) - mesh.z(a);
+				double nx = uy * vz - uz * vy;
+				double ny = uz * vx - ux * vz;
+				double nz = ux * vy - uy * vx;
+				double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+				if(length > 0)
+				{
+					nx /= length;
+					ny /= length;
+					nz /= length;
+				}
+				out.write(String.format(Locale.ROOT, "  facet normal %s %s %s\n", nx, ny, nz));
+				out.write("    outer loop\n");
+				for(int v : new int[]{a, b, c})
+				{
+					out.write(String.format(Locale.ROOT, "      vertex %s %s %s\n", mesh.x(v), mesh.y(v), mesh.z(v)));
+				}
+				out.write("    endloop\n");
+				out.write("  endfacet\n");
+			}
+			out.write("endsolid JavaCSG\n");
+		}
+	}
+
+	// The triangles are written through one reused buffer. The file is not mapped, since a mapping stays open until
+	// it is garbage collected, and on Windows an open mapping keeps the file from being written again.
+	public static void writeBinary(Path path, Mesh3D mesh) throws IOException
+	{
+		createParent(path);
+		int count = mesh.triangleCount();
+		try(FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE))
+		{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(TRIANGLE_BYTES * TRIANGLES_PER_WRITE).order(ByteOrder.LITTLE_ENDIAN);
+			putHeader(buffer, count);
+			for(int t = 0; t < count; t++)
+			{
+				if(buffer.remaining() < TRIANGLE_BYTES)
+				{
+					writeFully(channel, buffer.flip());
+					buffer.clear();
+				}
+				int a = mesh.vertex(t, 0);
+				int b = mesh.vertex(t, 1);
+				int c = mesh.vertex(t, 2);
+				putTriangle(buffer,
+						mesh.x(a), mesh.y(a), mesh.z(a),
+						mesh.x(b), mesh.y(b), mesh.z(b),
+						mesh.x(c), mesh.y(c), mesh.z(c));
+			}
+			writeFully(channel, buffer.flip());
+		}
+	}
+
+	// Converts an STL file of either kind to binary STL. An ASCII file is streamed a line at a time and the
+	// triangle count is filled in once the whole file has been read, so the input is never held in memory.
+	public static void convertToBinary(Path source, Path target) throws IOException
+	{
+		createParent(target);
+		if(isBinary(source))
+		{
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		try(FileChannel channel = FileChannel.open(target,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE))
+		{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(TRIANGLE_BYTES * TRIANGLES_PER_WRITE).order(ByteOrder.LITTLE_ENDIAN);
+			channel.position(HEADER_BYTES);
+			long count = scanASCII(source, (ax, ay, az, bx, by, bz, cx, cy, cz) ->
+			{
+				if(!buffer.hasRemaining())
+				{
+					writeFully(channel, buffer.flip());
+					buffer.clear();
+				}
+				putTriangle(buffer, ax, ay, az, bx, by, bz, cx, cy, cz);
+			});
+			if(count > 0xffffffffL)
+			{
+				throw new IOException("Too many triangles for a binary STL file: " + count);
+			}
+			writeFully(channel, buffer.flip());
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			putHeader(header, (int) count);
+			channel.position(0);
+			writeFully(channel, header.flip());
+		}
+	}
+
+	private static boolean isBinary(Path path) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return binaryTriangleCount(channel) >= 0;
+		}
+	}
+
+	// Returns the number of triangles in a binary STL file, or -1 if the file is not binary STL.
+	private static long binaryTriangleCount(FileChannel channel) throws IOException
+	{
+		long size = channel.size();
+		if(size < HEADER_BYTES)
+		{
+			return -1;
+		}
+		ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		while(count.hasRemaining())
+		{
+			if(channel.read(count, 80 + count.position()) < 0)
+			{
+				return -1;
+			}
+		}
+		long triangles = count.getInt(0) & 0xffffffffL;
+		return HEADER_BYTES + TRIANGLE_BYTES * triangles == size ? triangles : -1;
+	}
+
+	// The header must not start with "solid", or readers would take the file for ASCII STL.
+	private static void putHeader(ByteBuffer buffer, int count)
+	{
+		byte[] text = "Binary STL written by JavaCSG".getBytes(StandardCharsets.US_ASCII);
+		buffer.put(text);
+		for(int i = text.length; i < 80; i++)
+		{
+			buffer.put((byte) ' ');
+		}
+		buffer.putInt(count);
+	}
+
+	private static void putTriangle(ByteBuffer buffer,
+	                                double ax, double ay, double az,
+	                                double bx, double by, double bz,
+	                                double cx, double cy, double cz)
+	{
+		double ux = bx - ax, uy = by - ay, uz = bz - az;
+		double vx = cx - ax, vy = cy - ay, vz = cz - az;
+		double nx = uy * vz - uz * vy;
+		double ny = uz * vx - ux * vz;
+		double nz = ux * vy - uy * vx;
+		double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if(length > 0)
+		{
+			nx /= length;
+			ny /= length;
+			nz /= length;
+		}
+		buffer.putFloat((float) nx).putFloat((float) ny).putFloat((float) nz);
+		buffer.putFloat((float) ax).putFloat((float) ay).putFloat((float) az);
+		buffer.putFloat((float) bx).putFloat((float) by).putFloat((float) bz);
+		buffer.putFloat((float) cx).putFloat((float) cy).putFloat((float) cz);
+		buffer.putShort((short) 0);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	private static void createParent(Path path) throws IOException
+	{
+		Path parent = path.toAbsolutePath().getParent();
+		if(parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+	}
+
+	// Vertices are welded as they are read, so the file is never held in memory as a whole.
+	public static Mesh3D read(Path path) throws IOException
+	{
+		MeshBuilder builder = new MeshBuilder(true);
+		scan(path, (ax, ay, az, bx, by, bz, cx, cy, cz) -> builder.addTriangle(
+				builder.addVertex(ax, ay, az),
+				builder.addVertex(bx, by, bz),
+				builder.addVertex(cx, cy, cz),
+				null));
+		return builder.build();
+	}
+
+	// Returns {minX, minY, minZ, maxX, maxY, maxZ} of the triangles in the file. An empty file has min > max.
+	public static double[] bounds(Path path) throws IOException
+	{
+		double[] bounds =
+				{
+						Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+						Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+				};
+		scan(path, (ax, ay, az, bx, by, bz, cx, cy, cz) ->
+		{
+			include(bounds, ax, ay, az);
+			include(bounds, bx, by, bz);
+			include(bounds, cx, cy, cz);
+		});
+		return bounds;
+	}
+
+	private static void include(double[] bounds, double x, double y, double z)
+	{
+		bounds[0] = Math.min(bounds[0], x);
+		bounds[1] = Math.min(bounds[1], y);
+		bounds[2] = Math.min(bounds[2], z);
+		bounds[3] = Math.max(bounds[3], x);
+		bounds[4] = Math.max(bounds[4], y);
+		bounds[5] = Math.max(bounds[5], z);
+	}
+
+	private static void scan(Path path, TriangleSink sink) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			long count = binaryTriangleCount(channel);
+			if(count >= 0)
+			{
+				scanBinary(channel, count, sink);
+				return;
+			}
+		}
+		scanASCII(path, sink);
+	}
+
+	// The triangles are read straight from the mapped file, so a binary file is never copied onto the heap.
+	private static void scanBinary(FileChannel channel, long count, TriangleSink sink) throws IOException
+	{
+		for(long first = 0; first < count; first += TRIANGLES_PER_WINDOW)
+		{
+			long last = Math.min(count, first + TRIANGLES_PER_WINDOW);
+			long position = HEADER_BYTES + TRIANGLE_BYTES * first;
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, TRIANGLE_BYTES * (last - first));
+			window.order(ByteOrder.LITTLE_ENDIAN);
+			// Each triangle starts with its normal, which is skipped.
+			for(int o = 12; o < window.limit(); o += TRIANGLE_BYTES)
+			{
+				sink.triangle(
+						window.getFloat(o), window.getFloat(o + 4), window.getFloat(o + 8),
+						window.getFloat(o + 12), window.getFloat(o + 16), window.getFloat(o + 20),
+						window.getFloat(o + 24), window.getFloat(o + 28), window.getFloat(o + 32));
+			}
+		}
+	}
+
+	// Returns the number of triangles read.
+	private static long scanASCII(Path path, TriangleSink sink) throws IOException
+	{
+		double[] corners = new double[9];
+		int corner = 0;
+		long count = 0;
+		try(BufferedReader in = Files.newBufferedReader(path, StandardCharsets.US_ASCII))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				String[] tokens = WHITESPACE.split(line.trim());
+				for(int i = 0; i < tokens.length; i++)
+				{
+					if(!tokens[i].equals("vertex"))
+					{
+						continue;
+					}
+					if(i + 3 >= tokens.length)
+					{
+						throw new IOException("Invalid vertex in STL file: " + line);
+					}
+					try
+					{
+						corners[3 * corner] = Double.parseDouble(tokens[i + 1]);
+						corners[3 * corner + 1] = Double.parseDouble(tokens[i + 2]);
+						corners[3 * corner + 2] = Double.parseDouble(tokens[i + 3]);
+					} catch(NumberFormatException e)
+					{
+						throw new IOException("Invalid vertex in STL file: " + line, e);
+					}
+					i += 3;
+					if(++corner == 3)
+					{
+						sink.triangle(
+								corners[0], corners[1], corners[2],
+								corners[3], corners[4], corners[5],
+								corners[6], corners[7], corners[8]);
+						corner = 0;
+						count++;
+					}
+				}
+			}
+		}
+		if(corner != 0)
+		{
+			throw new IOException("Unexpected end of STL file!");
+		}
+		return count;
+	}
+
+	private interface TriangleSink
+	{
+		void triangle(double ax, double ay, double az,
+		              double bx, double by, double bz,
+		              double cx, double cy, double cz) throws IOException;
+	}
+}
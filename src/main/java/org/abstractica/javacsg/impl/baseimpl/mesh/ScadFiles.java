@@ -0,0 +1,116 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Writes meshes as plain OpenSCAD files, so they can be inspected in the OpenSCAD viewer.
+final class ScadFiles
+{
+	private ScadFiles()
+	{
+	}
+
+	static void write(Path path, Mesh3D mesh) throws IOException
+	{
+		try(Writer out = open(path))
+		{
+			Map<Color, List<Integer>> groups = new IdentityHashMap<>();
+			List<Integer> uncolored = new ArrayList<>();
+			for(int t = 0; t < mesh.triangleCount(); t++)
+			{
+				Color color = mesh.color(t);
+				if(color == null)
+				{
+					uncolored.add(t);
+				}
+				else
+				{
+					groups.computeIfAbsent(color, c -> new ArrayList<>()).add(t);
+				}
+			}
+			if(!uncolored.isEmpty() || groups.isEmpty())
+			{
+				writePolyhedron(out, mesh, uncolored);
+			}
+			for(Map.Entry<Color, List<Integer>> entry : groups.entrySet())
+			{
+				Color c = entry.getKey();
+				out.write(String.format(Locale.ROOT, "color([%s, %s, %s, %s])\n", c.r(), c.g(), c.b(), c.a()));
+				writePolyhedron(out, mesh, entry.getValue());
+			}
+		}
+	}
+
+	// triangles holds x0, y0, x1, y1, x2, y2 per triangle.
+	static void write2D(Path path, double[] triangles) throws IOException
+	{
+		try(Writer out = open(path))
+		{
+			StringBuilder points = new StringBuilder();
+			StringBuilder paths = new StringBuilder();
+			for(int i = 0; i < triangles.length; i += 2)
+			{
+				if(i > 0)
+				{
+					points.append(", ");
+				}
+				points.append(String.format(Locale.ROOT, "[%s, %s]", triangles[i], triangles[i + 1]));
+			}
+			for(int t = 0; t < triangles.length / 6; t++)
+			{
+				if(t > 0)
+				{
+					paths.append(", ");
+				}
+				paths.append('[').append(3 * t).append(", ").append(3 * t + 1).append(", ").append(3 * t + 2).append(']');
+			}
+			out.write("polygon(points = [" + points + "], paths = [" + paths + "]);\n");
+		}
+	}
+
+	private static Writer open(Path path) throws IOException
+	{
+		Path parent = path.toAbsolutePath().getParent();
+		if(parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+		return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+	}
+
+	private static void writePolyhedron(Writer out, Mesh3D mesh, List<Integer> triangles) throws IOException
+	{
+		StringBuilder points = new StringBuilder();
+		for(int v = 0; v < mesh.vertexCount(); v++)
+		{
+			if(v > 0)
+			{
+				points.append(", ");
+			}
+			points.append(String.format(Locale.ROOT, "[%s, %s, %s]", mesh.x(v), mesh.y(v), mesh.z(v)));
+		}
+		StringBuilder faces = new StringBuilder();
+		for(int t : triangles)
+		{
+			if(!faces.isEmpty())
+			{
+				faces.append(", ");
+			}
+			// OpenSCAD expects clockwise faces when seen from outside.
+			faces.append('[').append(mesh.vertex(t, 0)).append(", ")
+					.append(mesh.vertex(t, 2)).append(", ")
+					.append(mesh.vertex(t, 1)).append(']');
+		}
+		out.write("polyhedron(points = [" + points + "], faces = [" + faces + "]);\n");
+	}
+}
@@ -0,0 +1,586 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns convex planar polygons into a closed triangle mesh. Cutting polygons apart, as the BSP booleans and the
+// local differences do, splits an edge on one side without splitting it on the other, and computes the same
+// point twice with different rounding. Vertices closer than the tolerance are welded, and every vertex lying on
+// an edge that has no opposite edge is inserted into that edge, so each edge is matched by one running the
+// other way again. Points computed near the tolerance can still end up just too far apart to weld, leaving a
+// hole no wider than the tolerance, and such slivers are filled at the end.
+final class SeamRepair
+{
+	private SeamRepair()
+	{
+	}
+
+	// polygons hold x, y, z per vertex and colors holds one, possibly null, color per polygon.
+	static Mesh3D toMesh(List<double[]> polygons, List<Color> colors, double tolerance)
+	{
+		int vertices = 0;
+		for(double[] polygon : polygons)
+		{
+			vertices += polygon.length / 3;
+		}
+		Welder welder = new Welder(tolerance, vertices);
+		int[][] rings = new int[polygons.size()][];
+		int edgeCount = 0;
+		for(int p = 0; p < rings.length; p++)
+		{
+			rings[p] = ring(welder, polygons.get(p));
+			if(rings[p] != null)
+			{
+				edgeCount += rings[p].length;
+			}
+		}
+		LongIntMap edges = new LongIntMap(edgeCount);
+		for(int[] ring : rings)
+		{
+			if(ring != null)
+			{
+				for(int i = 0; i < ring.length; i++)
+				{
+					edges.add(edge(ring[i], ring[(i + 1) % ring.length]), 1);
+				}
+			}
+		}
+		// Only vertices of open edges can lie on other open edges.
+		boolean[] open = new boolean[welder.count];
+		int openCount = 0;
+		for(int[] ring : rings)
+		{
+			for(int i = 0; ring != null && i < ring.length; i++)
+			{
+				int a = ring[i];
+				int b = ring[(i + 1) % ring.length];
+				if(excess(edges, edge(a, b)) > 0)
+				{
+					openCount += (open[a] ? 0 : 1) + (open[b] ? 0 : 1);
+					open[a] = true;
+					open[b] = true;
+				}
+			}
+		}
+		Candidates candidates = new Candidates(welder, open, openCount);
+		MeshBuilder builder = new MeshBuilder(false);
+		for(int v = 0; v < welder.count; v++)
+		{
+			builder.addVertex(welder.x(v), welder.y(v), welder.z(v));
+		}
+		List<Insert> inserts = new ArrayList<>();
+		for(int p = 0; p < rings.length; p++)
+		{
+			int[] ring = rings[p];
+			if(ring == null)
+			{
+				continue;
+			}
+			int[] result = new int[2 * ring.length];
+			int size = 0;
+			for(int i = 0; i < ring.length; i++)
+			{
+				int a = ring[i];
+				int b = ring[(i + 1) % ring.length];
+				if(size + 1 > result.length)
+				{
+					result = Arrays.copyOf(result, 2 * result.length);
+				}
+				result[size++] = a;
+				if(open[a] && open[b] && excess(edges, edge(a, b)) > 0)
+				{
+					inserts.clear();
+					candidates.onEdge(a, b, inserts);
+					inserts.sort((u, w) -> Double.compare(u.t, w.t));
+					if(size + inserts.size() > result.length)
+					{
+						result = Arrays.copyOf(result, 2 * (size + inserts.size()));
+					}
+					for(Insert insert : inserts)
+					{
+						result[size++] = insert.vertex;
+					}
+				}
+			}
+			triangulate(builder, welder, result, size, colors.get(p));
+		}
+		return fillSlivers(builder.build(), tolerance);
+	}
+
+	// The welded vertices of a polygon, without repeats, or null when fewer than three are left.
+	private static int[] ring(Welder welder, double[] coords)
+	{
+		int count = coords.length / 3;
+		int[] ring = new int[count];
+		int size = 0;
+		for(int i = 0; i < count; i++)
+		{
+			int v = welder.add(coords[3 * i], coords[3 * i + 1], coords[3 * i + 2]);
+			if(size == 0 || ring[size - 1] != v)
+			{
+				ring[size++] = v;
+			}
+		}
+		while(size > 1 && ring[size - 1] == ring[0])
+		{
+			size--;
+		}
+		return size < 3 ? null : Arrays.copyOf(ring, size);
+	}
+
+	// Clips ears of the convex polygon. Inserted vertices lie on the line through their neighbours, so corners are
+	// clipped first, and never one that would leave the remaining vertices on a single line. A sliver without such
+	// a corner is still triangulated from its widest corner, since dropping it would open the mesh again.
+	private static void triangulate(MeshBuilder builder, Welder welder, int[] ring, int size, Color color)
+	{
+		int[] polygon = Arrays.copyOf(ring, size);
+		int n = size;
+		while(n > 3)
+		{
+			int ear = -1;
+			int widest = 0;
+			double widestDistance = -1;
+			for(int i = 0; i < n && ear < 0; i++)
+			{
+				int previous = polygon[(i + n - 1) % n];
+				int next = polygon[(i + 1) % n];
+				double distance = welder.lineDistanceSquared(polygon[i], previous, next);
+				if(distance > welder.tolerance * welder.tolerance && !remainingOnLine(welder, polygon, n, i))
+				{
+					ear = i;
+				}
+				if(distance > widestDistance)
+				{
+					widest = i;
+					widestDistance = distance;
+				}
+			}
+			if(ear < 0)
+			{
+				ear = widest;
+			}
+			builder.addTriangle(polygon[(ear + n - 1) % n], polygon[ear], polygon[(ear + 1) % n], color);
+			System.arraycopy(polygon, ear + 1, polygon, ear, n - ear - 1);
+			n--;
+		}
+		builder.addTriangle(polygon[0], polygon[1], polygon[2], color);
+	}
+
+	private static boolean remainingOnLine(Welder welder, int[] polygon, int n, int ear)
+	{
+		int previous = polygon[(ear + n - 1) % n];
+		int next = polygon[(ear + 1) % n];
+		for(int k = 2; k < n - 1; k++)
+		{
+			if(welder.lineDistanceSquared(polygon[(ear + k) % n], previous, next) > welder.tolerance * welder.tolerance)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Fills the loops of open edges that enclose next to no area. Wider holes are left alone, since filling them
+	// would hide a real defect.
+	private static Mesh3D fillSlivers(Mesh3D mesh, double tolerance)
+	{
+		int[] triangles = mesh.triangleArray();
+		LongIntMap edges = new LongIntMap(triangles.length);
+		for(int i = 0; i < triangles.length; i++)
+		{
+			edges.add(edge(triangles[i], triangles[i - i % 3 + (i + 1) % 3]), 1);
+		}
+		// The open edges by the vertex they start at, with a triangle each belongs to for its color. An edge is
+		// open as many times as it outnumbers the edges running the other way.
+		Map<Integer, List<int[]>> open = new HashMap<>();
+		for(int i = 0; i < triangles.length; i++)
+		{
+			int a = triangles[i];
+			int b = triangles[i - i % 3 + (i + 1) % 3];
+			int excess = excess(edges, edge(a, b));
+			if(excess > 0)
+			{
+				edges.add(edge(a, b), -excess);
+				for(int k = 0; k < excess; k++)
+				{
+					open.computeIfAbsent(a, v -> new ArrayList<>()).add(new int[]{b, i / 3});
+				}
+			}
+		}
+		if(open.isEmpty())
+		{
+			return mesh;
+		}
+		int[] added = new int[3 * 64];
+		List<Color> addedColors = new ArrayList<>();
+		int addedSize = 0;
+		List<Integer> path = new ArrayList<>();
+		List<Integer> pathTriangles = new ArrayList<>();
+		for(int start : new ArrayList<>(open.keySet()))
+		{
+			path.clear();
+			pathTriangles.clear();
+			int current = start;
+			while(true)
+			{
+				List<int[]> out = open.get(current);
+				if(out == null || out.isEmpty())
+				{
+					break;
+				}
+				int[] next = out.remove(out.size() - 1);
+				path.add(current);
+				pathTriangles.add(next[1]);
+				current = next[0];
+				int loopStart = path.indexOf(current);
+				if(loopStart >= 0)
+				{
+					List<Integer> loop = path.subList(loopStart, path.size());
+					if(loop.size() >= 3 && isSliver(mesh, loop, tolerance))
+					{
+						Color color = mesh.color(pathTriangles.get(loopStart));
+						for(int k = 1; k + 1 < loop.size(); k++)
+						{
+							if(addedSize + 3 > added.length)
+							{
+								added = Arrays.copyOf(added, 2 * added.length);
+							}
+							// The filling runs against the loop, so it matches the open edges.
+							added[addedSize++] = loop.get(0);
+							added[addedSize++] = loop.get(k + 1);
+							added[addedSize++] = loop.get(k);
+							addedColors.add(color);
+						}
+					}
+					loop.clear();
+					pathTriangles.subList(loopStart, pathTriangles.size()).clear();
+				}
+			}
+		}
+		if(addedSize == 0)
+		{
+			return mesh;
+		}
+		int[] newTriangles = Arrays.copyOf(triangles, triangles.length + addedSize);
+		System.arraycopy(added, 0, newTriangles, triangles.length, addedSize);
+		Color[] newColors = null;
+		if(mesh.hasColors())
+		{
+			newColors = new Color[newTriangles.length / 3];
+			for(int t = 0; t < mesh.triangleCount(); t++)
+			{
+				newColors[t] = mesh.color(t);
+			}
+			for(int t = 0; t < addedColors.size(); t++)
+			{
+				newColors[mesh.triangleCount() + t] = addedColors.get(t);
+			}
+		}
+		return new Mesh3D(mesh.vertexArray(), newTriangles, newColors);
+	}
+
+	// Whether the loop encloses less area than a strip as wide as ten times the tolerance along its perimeter.
+	private static boolean isSliver(Mesh3D mesh, List<Integer> loop, double tolerance)
+	{
+		double ax = 0;
+		double ay = 0;
+		double az = 0;
+		double perimeter = 0;
+		for(int i = 0; i < loop.size(); i++)
+		{
+			int a = loop.get(i);
+			int b = loop.get((i + 1) % loop.size());
+			ax += (mesh.y(a) - mesh.y(b)) * (mesh.z(a) + mesh.z(b));
+			ay += (mesh.z(a) - mesh.z(b)) * (mesh.x(a) + mesh.x(b));
+			az += (mesh.x(a) - mesh.x(b)) * (mesh.y(a) + mesh.y(b));
+			double dx = mesh.x(b) - mesh.x(a), dy = mesh.y(b) - mesh.y(a), dz = mesh.z(b) - mesh.z(a);
+			perimeter += Math.sqrt(dx * dx + dy * dy + dz * dz);
+		}
+		double area = 0.5 * Math.sqrt(ax * ax + ay * ay + az * az);
+		return area <= 10 * tolerance * perimeter;
+	}
+
+	private static long edge(int a, int b)
+	{
+		return (long) a << 32 | (b & 0xffffffffL);
+	}
+
+	private static long reversed(long edge)
+	{
+		return edge << 32 | edge >>> 32;
+	}
+
+	// How many more times the edge runs this way than the other way.
+	private static int excess(LongIntMap counts, long edge)
+	{
+		return counts.get(edge, 0) - counts.get(reversed(edge), 0);
+	}
+
+	// An open addressing table from long to int without boxing, sized for its entries up front.
+	private static final class LongIntMap
+	{
+		private final long[] keys;
+		private final int[] values;
+		private final boolean[] used;
+
+		private LongIntMap(int entries)
+		{
+			int capacity = Integer.highestOneBit(Math.max(2 * entries, 16) - 1) << 1;
+			this.keys = new long[capacity];
+			this.values = new int[capacity];
+			this.used = new boolean[capacity];
+		}
+
+		private int slot(long key)
+		{
+			long h = key * 0x9e3779b97f4a7c15L;
+			int mask = keys.length - 1;
+			int slot = (int) (h ^ h >>> 32) & mask;
+			while(used[slot] && keys[slot] != key)
+			{
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private int get(long key, int missing)
+		{
+			int slot = slot(key);
+			return used[slot] ? values[slot] : missing;
+		}
+
+		private void put(long key, int value)
+		{
+			int slot = slot(key);
+			used[slot] = true;
+			keys[slot] = key;
+			values[slot] = value;
+		}
+
+		private void add(long key, int value)
+		{
+			put(key, get(key, 0) + value);
+		}
+	}
+
+	private static final class Insert
+	{
+		private final int vertex;
+		private final double t;
+
+		private Insert(int vertex, double t)
+		{
+			this.vertex = vertex;
+			this.t = t;
+		}
+	}
+
+	// Merges vertices closer than the tolerance, using a hash of cells four times as large as the tolerance. A
+	// point only looks into the neighbouring cells its tolerance reaches, which is usually none of them.
+	private static final class Welder
+	{
+		private final double tolerance;
+		private final double cellSize;
+		private final LongIntMap cells;
+		private double[] coords = new double[3 * 256];
+		private int[] next = new int[256];
+		private int count;
+
+		private Welder(double tolerance, int vertices)
+		{
+			this.tolerance = tolerance;
+			this.cells = new LongIntMap(vertices);
+			this.cellSize = 4 * tolerance;
+		}
+
+		private int add(double x, double y, double z)
+		{
+			long cx = (long) Math.floor(x / cellSize);
+			long cy = (long) Math.floor(y / cellSize);
+			long cz = (long) Math.floor(z / cellSize);
+			double squared = tolerance * tolerance;
+			long toX = reach(x, cx, 1);
+			long toY = reach(y, cy, 1);
+			long toZ = reach(z, cz, 1);
+			for(long dx = reach(x, cx, -1); dx <= toX; dx++)
+			{
+				for(long dy = reach(y, cy, -1); dy <= toY; dy++)
+				{
+					for(long dz = reach(z, cz, -1); dz <= toZ; dz++)
+					{
+						for(int v = cells.get(cell(cx + dx, cy + dy, cz + dz), -1); v >= 0; v = next[v])
+						{
+							double ex = coords[3 * v] - x;
+							double ey = coords[3 * v + 1] - y;
+							double ez = coords[3 * v + 2] - z;
+							if(ex * ex + ey * ey + ez * ez <= squared)
+							{
+								return v;
+							}
+						}
+					}
+				}
+			}
+			if(3 * count + 3 > coords.length)
+			{
+				coords = Arrays.copyOf(coords, 2 * coords.length);
+				next = Arrays.copyOf(next, 2 * next.length);
+			}
+			coords[3 * count] = x;
+			coords[3 * count + 1] = y;
+			coords[3 * count + 2] = z;
+			// Cells of different coordinates may share a key, which only costs a few distance tests.
+			long key = cell(cx, cy, cz);
+			next[count] = cells.get(key, -1);
+			cells.put(key, count);
+			return count++;
+		}
+
+		// Whether the tolerance around the coordinate reaches into the neighbouring cell on the given side.
+		private long reach(double coordinate, long cell, int side)
+		{
+			if(side < 0)
+			{
+				return coordinate - tolerance < cell * cellSize ? -1 : 0;
+			}
+			return coordinate + tolerance >= (cell + 1) * cellSize ? 1 : 0;
+		}
+
+		private static long cell(long x, long y, long z)
+		{
+			long h = x * 0x9e3779b97f4a7c15L + y;
+			h = h * 0x9e3779b97f4a7c15L + z;
+			return h ^ h >>> 29;
+		}
+
+		private double x(int v)
+		{
+			return coords[3 * v];
+		}
+
+		private double y(int v)
+		{
+			return coords[3 * v + 1];
+		}
+
+		private double z(int v)
+		{
+			return coords[3 * v + 2];
+		}
+
+		// The squared distance of v from the line through a and b.
+		private double lineDistanceSquared(int v, int a, int b)
+		{
+			double dx = x(b) - x(a), dy = y(b) - y(a), dz = z(b) - z(a);
+			double px = x(v) - x(a), py = y(v) - y(a), pz = z(v) - z(a);
+			double cx = py * dz - pz * dy;
+			double cy = pz * dx - px * dz;
+			double cz = px * dy - py * dx;
+			double squaredLength = dx * dx + dy * dy + dz * dz;
+			return squaredLength == 0 ? px * px + py * py + pz * pz : (cx * cx + cy * cy + cz * cz) / squaredLength;
+		}
+	}
+
+	// The vertices of open edges, sorted along each axis. An edge is searched along the axis it spans least, so
+	// the edges of axis aligned cuts only look at the vertices in a thin slab.
+	private static final class Candidates
+	{
+		private final Welder welder;
+		private final int[][] sorted = new int[3][];
+		private final double[][] keys = new double[3][];
+
+		private Candidates(Welder welder, boolean[] open, int openCount)
+		{
+			this.welder = welder;
+			Integer[] vertices = new Integer[openCount];
+			int n = 0;
+			for(int v = 0; v < open.length; v++)
+			{
+				if(open[v])
+				{
+					vertices[n++] = v;
+				}
+			}
+			for(int axis = 0; axis < 3; axis++)
+			{
+				int a = axis;
+				Arrays.sort(vertices, (u, w) -> Double.compare(coordinate(u, a), coordinate(w, a)));
+				sorted[axis] = new int[openCount];
+				keys[axis] = new double[openCount];
+				for(int i = 0; i < openCount; i++)
+				{
+					sorted[axis][i] = vertices[i];
+					keys[axis][i] = coordinate(vertices[i], axis);
+				}
+			}
+		}
+
+		private double coordinate(int v, int axis)
+		{
+			return welder.coords[3 * v + axis];
+		}
+
+		// Adds the vertices lying strictly between a and b, within the tolerance of the segment.
+		private void onEdge(int a, int b, List<Insert> result)
+		{
+			double ax = welder.x(a), ay = welder.y(a), az = welder.z(a);
+			double dx = welder.x(b) - ax, dy = welder.y(b) - ay, dz = welder.z(b) - az;
+			double squaredLength = dx * dx + dy * dy + dz * dz;
+			double tolerance = welder.tolerance;
+			if(squaredLength <= tolerance * tolerance)
+			{
+				return;
+			}
+			double[] extent = {Math.abs(dx), Math.abs(dy), Math.abs(dz)};
+			int axis = extent[0] <= extent[1] && extent[0] <= extent[2] ? 0 : extent[1] <= extent[2] ? 1 : 2;
+			double from = Math.min(coordinate(a, axis), coordinate(b, axis)) - tolerance;
+			double to = Math.max(coordinate(a, axis), coordinate(b, axis)) + tolerance;
+			double[] axisKeys = keys[axis];
+			int i = lowerBound(axisKeys, from);
+			double margin = tolerance / Math.sqrt(squaredLength);
+			for(; i < axisKeys.length && axisKeys[i] <= to; i++)
+			{
+				int v = sorted[axis][i];
+				if(v == a || v == b)
+				{
+					continue;
+				}
+				double px = welder.x(v) - ax, py = welder.y(v) - ay, pz = welder.z(v) - az;
+				double t = (px * dx + py * dy + pz * dz) / squaredLength;
+				if(t <= margin || t >= 1 - margin)
+				{
+					continue;
+				}
+				double ex = px - t * dx, ey = py - t * dy, ez = pz - t * dz;
+				if(ex * ex + ey * ey + ez * ez <= tolerance * tolerance)
+				{
+					result.add(new Insert(v, t));
+				}
+			}
+		}
+
+		private static int lowerBound(double[] values, double value)
+		{
+			int low = 0;
+			int high = values.length;
+			while(low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if(values[middle] < value)
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,413 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// A 3MF file is a ZIP package holding an XML model. The model is generated and deflated in chunks side by side,
+// and the chunks are written in order as they complete, so the model text is never held in memory as a whole.
+// Each chunk ends with a sync flush, which makes the deflated chunks one valid deflate stream when concatenated.
+public final class ThreeMFFiles
+{
+	private static final String CORE_NAMESPACE = "http://schemas.microsoft.com/3dmanufacturing/core/2015/02";
+	private static final String MODEL_ENTRY = "3D/3dmodel.model";
+	private static final String CONTENT_TYPES =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">\n" +
+			" <Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>\n" +
+			" <Default Extension=\"model\" ContentType=\"application/vnd.ms-package.3dmanufacturing-3dmodel+xml\"/>\n" +
+			"</Types>\n";
+	private static final String RELATIONSHIPS =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">\n" +
+			" <Relationship Target=\"/" + MODEL_ENTRY + "\" Id=\"rel0\" " +
+			"Type=\"http://schemas.microsoft.com/3dmanufacturing/2013/01/3dmodel\"/>\n" +
+			"</Relationships>\n";
+	// All colors are base materials of this group.
+	private static final int MATERIALS_ID = 1;
+	// Vertices and triangles per chunk, which makes a chunk about a megabyte of text.
+	private static final int ELEMENTS_PER_CHUNK = 1 << 14;
+	private static final int BUFFER_BYTES = 1 << 16;
+	// An empty final block, which ends the deflate stream after the last sync flushed chunk.
+	private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+
+	private ThreeMFFiles()
+	{
+	}
+
+	// Every mesh becomes an object of its own, placed where it is. Empty meshes are left out.
+	public static void write(Path path, List<Mesh3D> objects) throws IOException
+	{
+		List<Mesh3D> meshes = new ArrayList<>();
+		for(Mesh3D mesh : objects)
+		{
+			if(!mesh.isEmpty())
+			{
+				meshes.add(mesh);
+			}
+		}
+		List<String> palette = new ArrayList<>();
+		List<Map<Color, Integer>> materials = materials(meshes, palette);
+		try(ZipWriter zip = new ZipWriter(path))
+		{
+			writeEntry(zip, "[Content_Types].xml", List.of(() -> ascii(CONTENT_TYPES)));
+			writeEntry(zip, "_rels/.rels", List.of(() -> ascii(RELATIONSHIPS)));
+			writeEntry(zip, MODEL_ENTRY, modelChunks(meshes, palette, materials));
+		}
+	}
+
+	// Returns the build items of a 3MF file, each with its objects placed as the file says.
+	static List<Mesh3D> read(Path path) throws IOException
+	{
+		return ThreeMFReader.read(path);
+	}
+
+	// Returns {minX, minY, minZ, maxX, maxY, maxZ} of the build items of a 3MF file. An empty file has min > max.
+	public static double[] bounds(Path path) throws IOException
+	{
+		return ThreeMFReader.bounds(path);
+	}
+
+	// Colors are told apart by their display color, so equal colors from different parts share a material.
+	// Returns the material index of every color, per mesh. A mesh without colors gets null.
+	private static List<Map<Color, Integer>> materials(List<Mesh3D> meshes, List<String> palette)
+	{
+		Map<String, Integer> indices = new HashMap<>();
+		List<Map<Color, Integer>> result = new ArrayList<>(meshes.size());
+		for(Mesh3D mesh : meshes)
+		{
+			if(!mesh.hasColors())
+			{
+				result.add(null);
+				continue;
+			}
+			Map<Color, Integer> materials = new IdentityHashMap<>();
+			for(int t = 0; t < mesh.triangleCount(); t++)
+			{
+				Color color = mesh.color(t);
+				if(color != null && !materials.containsKey(color))
+				{
+					String displayColor = displayColor(color);
+					Integer index = indices.get(displayColor);
+					if(index == null)
+					{
+						index = palette.size();
+						indices.put(displayColor, index);
+						palette.add(displayColor);
+					}
+					materials.put(color, index);
+				}
+			}
+			result.add(materials.isEmpty() ? null : materials);
+		}
+		return result;
+	}
+
+	private static List<Supplier<byte[]>> modelChunks(List<Mesh3D> meshes, List<String> palette, List<Map<Color, Integer>> materials)
+	{
+		List<Supplier<byte[]>> chunks = new ArrayList<>();
+		chunks.add(() ->
+		{
+			StringBuilder text = new StringBuilder();
+			text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			text.append("<model unit=\"millimeter\" xml:lang=\"en-US\" xmlns=\"").append(CORE_NAMESPACE).append("\">\n");
+			text.append(" <metadata name=\"Application\">JavaCSG</metadata>\n");
+			text.append(" <resources>\n");
+			if(!palette.isEmpty())
+			{
+				text.append("  <basematerials id=\"").append(MATERIALS_ID).append("\">\n");
+				for(String displayColor : palette)
+				{
+					text.append("   <base name=\"").append(displayColor).append("\" displaycolor=\"").append(displayColor).append("\"/>\n");
+				}
+				text.append("  </basematerials>\n");
+			}
+			return ascii(text);
+		});
+		for(int i = 0; i < meshes.size(); i++)
+		{
+			Mesh3D mesh = meshes.get(i);
+			int id = objectId(i);
+			Map<Color, Integer> objectMaterials = materials.get(i);
+			int defaultMaterial = objectMaterials == null ? -1 : defaultMaterial(mesh, objectMaterials);
+			long elements = (long) mesh.vertexCount() + mesh.triangleCount();
+			for(long first = 0; first < elements; first += ELEMENTS_PER_CHUNK)
+			{
+				int from = (int) first;
+				int to = (int) Math.min(elements, first + ELEMENTS_PER_CHUNK);
+				chunks.add(() -> ascii(objectText(mesh, id, objectMaterials, defaultMaterial, from, to)));
+			}
+		}
+		chunks.add(() ->
+		{
+			StringBuilder text = new StringBuilder();
+			text.append(" </resources>\n");
+			text.append(" <build>\n");
+			for(int i = 0; i < meshes.size(); i++)
+			{
+				text.append("  <item objectid=\"").append(objectId(i)).append("\"/>\n");
+			}
+			text.append(" </build>\n");
+			text.append("</model>\n");
+			return ascii(text);
+		});
+		return chunks;
+	}
+
+	private static int objectId(int object)
+	{
+		return MATERIALS_ID + 1 + object;
+	}
+
+	// The elements of an object are its vertices followed by its triangles. This writes elements from to to,
+	// along with the tags around them.
+	private static StringBuilder objectText(Mesh3D mesh, int id, Map<Color, Integer> materials, int defaultMaterial, int from, int to)
+	{
+		int vertexCount = mesh.vertexCount();
+		int elements = vertexCount + mesh.triangleCount();
+		StringBuilder text = new StringBuilder((to - from) * 48);
+		for(int e = from; e < to; e++)
+		{
+			if(e == 0)
+			{
+				text.append("  <object id=\"").append(id).append("\" type=\"model\"");
+				if(materials != null)
+				{
+					text.append(" pid=\"").append(MATERIALS_ID).append("\" pindex=\"").append(defaultMaterial).append('"');
+				}
+				text.append(">\n   <mesh>\n    <vertices>\n");
+			}
+			if(e == vertexCount)
+			{
+				text.append("    </vertices>\n    <triangles>\n");
+			}
+			if(e < vertexCount)
+			{
+				text.append("     <vertex x=\"");
+				appendNumber(text, mesh.x(e));
+				text.append("\" y=\"");
+				appendNumber(text, mesh.y(e));
+				text.append("\" z=\"");
+				appendNumber(text, mesh.z(e));
+				text.append("\"/>\n");
+			}
+			else
+			{
+				int t = e - vertexCount;
+				text.append("     <triangle v1=\"").append(mesh.vertex(t, 0))
+						.append("\" v2=\"").append(mesh.vertex(t, 1))
+						.append("\" v3=\"").append(mesh.vertex(t, 2)).append('"');
+				if(materials != null)
+				{
+					Color color = mesh.color(t);
+					int material = color == null ? defaultMaterial : materials.get(color);
+					if(material != defaultMaterial)
+					{
+						text.append(" p1=\"").append(material).append('"');
+					}
+				}
+				text.append("/>\n");
+			}
+			if(e == elements - 1)
+			{
+				text.append("    </triangles>\n   </mesh>\n  </object>\n");
+			}
+		}
+		return text;
+	}
+
+	// Triangles without a color of their own get the color of the first colored triangle, since 3MF has no way
+	// to leave some triangles of a colored object without a color.
+	private static int defaultMaterial(Mesh3D mesh, Map<Color, Integer> materials)
+	{
+		for(int t = 0; t < mesh.triangleCount(); t++)
+		{
+			Color color = mesh.color(t);
+			if(color != null)
+			{
+				return materials.get(color);
+			}
+		}
+		return 0;
+	}
+
+	// Whole numbers, which are common in models, are written without a fraction.
+	private static void appendNumber(StringBuilder text, double value)
+	{
+		long whole = (long) value;
+		if(whole == value && Math.abs(whole) < 1L << 53)
+		{
+			text.append(whole);
+		}
+		else
+		{
+			text.append(value);
+		}
+	}
+
+	private static String displayColor(Color color)
+	{
+		return String.format(Locale.ROOT, "#%02X%02X%02X%02X", channel(color.r()), channel(color.g()), channel(color.b()), channel(color.a()));
+	}
+
+	private static int channel(double value)
+	{
+		return (int) Math.round(Math.max(0, Math.min(1, value)) * 255);
+	}
+
+	private static byte[] ascii(CharSequence text)
+	{
+		return text.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	// Chunks are generated and deflated in the common pool, a bounded number ahead of the one being written,
+	// and their checksums are combined as they are written.
+	private static void writeEntry(ZipWriter zip, String name, List<Supplier<byte[]>> chunks) throws IOException
+	{
+		int ahead = 2 * Runtime.getRuntime().availableProcessors();
+		Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+		int next = 0;
+		long crc = 0;
+		long size = 0;
+		zip.beginEntry(name);
+		try
+		{
+			while(next < chunks.size() || !pending.isEmpty())
+			{
+				while(next < chunks.size() && pending.size() < ahead)
+				{
+					Supplier<byte[]> text = chunks.get(next++);
+					pending.add(ForkJoinTask.adapt(() -> deflate(text.get())).fork());
+				}
+				Chunk chunk = pending.remove().join();
+				zip.write(chunk.deflated);
+				crc = combineCRC(crc, chunk.crc, chunk.size);
+				size += chunk.size;
+			}
+		} finally
+		{
+			// A failed write leaves nobody to take the chunks still being deflated.
+			pending.forEach(task -> task.cancel(false));
+		}
+		zip.write(FINAL_BLOCK);
+		zip.endEntry(crc, size);
+	}
+
+	private static Chunk deflate(byte[] text)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(text);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try
+		{
+			deflater.setInput(text);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(text.length / 4 + 64);
+			byte[] buffer = new byte[BUFFER_BYTES];
+			int count;
+			// A sync flush is complete when it leaves room in the buffer.
+			do
+			{
+				count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+				out.write(buffer, 0, count);
+			} while(count == buffer.length);
+			return new Chunk(out.toByteArray(), crc.getValue(), text.length);
+		} finally
+		{
+			deflater.end();
+		}
+	}
+
+	// The checksum of two pieces of data from their own checksums, as crc32_combine in zlib does it. This is
+	// what lets the chunks be checksummed side by side.
+	private static long combineCRC(long crc1, long crc2, long length2)
+	{
+		if(length2 <= 0)
+		{
+			return crc1;
+		}
+		long[] even = new long[32];
+		long[] odd = new long[32];
+		// The operator for one zero bit.
+		odd[0] = 0xedb88320L;
+		long row = 1;
+		for(int n = 1; n < 32; n++)
+		{
+			odd[n] = row;
+			row <<= 1;
+		}
+		// The operators for two and four zero bits.
+		square(even, odd);
+		square(odd, even);
+		// Applies length2 zero bytes to crc1, one bit of the length at a time.
+		do
+		{
+			square(even, odd);
+			if((length2 & 1) != 0)
+			{
+				crc1 = times(even, crc1);
+			}
+			length2 >>= 1;
+			if(length2 == 0)
+			{
+				break;
+			}
+			square(odd, even);
+			if((length2 & 1) != 0)
+			{
+				crc1 = times(odd, crc1);
+			}
+			length2 >>= 1;
+		} while(length2 != 0);
+		return crc1 ^ crc2;
+	}
+
+	private static long times(long[] matrix, long vector)
+	{
+		long sum = 0;
+		for(int i = 0; vector != 0; i++, vector >>>= 1)
+		{
+			if((vector & 1) != 0)
+			{
+				sum ^= matrix[i];
+			}
+		}
+		return sum;
+	}
+
+	private static void square(long[] result, long[] matrix)
+	{
+		for(int n = 0; n < 32; n++)
+		{
+			result[n] = times(matrix, matrix[n]);
+		}
+	}
+
+	private static final class Chunk
+	{
+		private final byte[] deflated;
+		private final long crc;
+		private final long size;
+
+		private Chunk(byte[] deflated, long crc, long size)
+		{
+			this.deflated = deflated;
+			this.crc = crc;
+			this.size = size;
+		}
+	}
+}
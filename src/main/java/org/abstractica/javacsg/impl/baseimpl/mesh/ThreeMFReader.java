@@ -0,0 +1,502 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+import org.abstractica.javacsg.impl.ColorImpl;
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Reads the model parts of a 3MF file with a streaming XML parser, straight into the arrays of the meshes, so a
+// file is never held in memory as a tree of elements. An object used by several components or build items is
+// read once and placed once per use. Objects in other model parts, as the production extension allows, are read
+// when a component or build item first refers to them.
+final class ThreeMFReader
+{
+	private static final String DEFAULT_MODEL = "3D/3dmodel.model";
+	private static final String MODEL_RELATIONSHIP = "http://schemas.microsoft.com/3dmanufacturing/2013/01/3dmodel";
+	private static final String PRODUCTION_NAMESPACE = "http://schemas.microsoft.com/3dmanufacturing/production/2015/06";
+	// Deeper nesting than this is taken for components that contain themselves.
+	private static final int MAX_DEPTH = 64;
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final ZipFile zip;
+	private final String fileName;
+	// When only the bounds are wanted, triangles and colors are skipped.
+	private final boolean verticesOnly;
+	private final XMLInputFactory factory;
+	private final Map<String, Part> parts = new HashMap<>();
+
+	private ThreeMFReader(ZipFile zip, String fileName, boolean verticesOnly)
+	{
+		this.zip = zip;
+		this.fileName = fileName;
+		this.verticesOnly = verticesOnly;
+		this.factory = XMLInputFactory.newFactory();
+		// A model has no use for a DTD, and resolving one could reach outside the file.
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	static List<Mesh3D> read(Path path) throws IOException
+	{
+		try(ZipFile zip = new ZipFile(path.toFile()))
+		{
+			ThreeMFReader reader = new ThreeMFReader(zip, path.toString(), false);
+			List<Mesh3D> items = new ArrayList<>();
+			for(Placement item : reader.part(reader.rootModel()).items)
+			{
+				List<Mesh3D> meshes = new ArrayList<>();
+				reader.place(item, Affine3D.IDENTITY, 0, (mesh, transform) -> meshes.add(mesh.transformed(transform)));
+				items.add(Mesh3D.concat(meshes));
+			}
+			return items;
+		}
+	}
+
+	// Returns {minX, minY, minZ, maxX, maxY, maxZ} of the build items. An empty file has min > max.
+	static double[] bounds(Path path) throws IOException
+	{
+		try(ZipFile zip = new ZipFile(path.toFile()))
+		{
+			ThreeMFReader reader = new ThreeMFReader(zip, path.toString(), true);
+			double[] bounds =
+					{
+							Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+							Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+					};
+			for(Placement item : reader.part(reader.rootModel()).items)
+			{
+				reader.place(item, Affine3D.IDENTITY, 0, (mesh, transform) ->
+				{
+					for(int v = 0; v < mesh.vertexCount(); v++)
+					{
+						double x = mesh.x(v), y = mesh.y(v), z = mesh.z(v);
+						double tx = transform.transformX(x, y, z);
+						double ty = transform.transformY(x, y, z);
+						double tz = transform.transformZ(x, y, z);
+						bounds[0] = Math.min(bounds[0], tx);
+						bounds[1] = Math.min(bounds[1], ty);
+						bounds[2] = Math.min(bounds[2], tz);
+						bounds[3] = Math.max(bounds[3], tx);
+						bounds[4] = Math.max(bounds[4], ty);
+						bounds[5] = Math.max(bounds[5], tz);
+					}
+				});
+			}
+			return bounds;
+		}
+	}
+
+	private void place(Placement placement, Affine3D transform, int depth, MeshSink sink) throws IOException
+	{
+		if(depth > MAX_DEPTH)
+		{
+			throw new IOException("Components are nested too deeply in 3MF file: " + fileName);
+		}
+		ModelObject object = part(placement.part).objects.get(placement.objectId);
+		if(object == null)
+		{
+			throw new IOException("Missing object " + placement.objectId + " in 3MF file: " + fileName);
+		}
+		// The transform of a component applies before the transform of what contains it.
+		Affine3D placed = transform.multiply(placement.transform);
+		if(object.mesh != null)
+		{
+			sink.mesh(object.mesh, placed);
+		}
+		for(Placement component : object.components)
+		{
+			place(component, placed, depth + 1, sink);
+		}
+	}
+
+	// The root model part is the target of the 3D model relationship of the package.
+	private String rootModel() throws IOException
+	{
+		ZipEntry relationships = zip.getEntry("_rels/.rels");
+		if(relationships == null)
+		{
+			return DEFAULT_MODEL;
+		}
+		try(InputStream in = zip.getInputStream(relationships))
+		{
+			XMLStreamReader xml = factory.createXMLStreamReader(in);
+			try
+			{
+				while(xml.hasNext())
+				{
+					if(xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Relationship") &&
+							MODEL_RELATIONSHIP.equals(xml.getAttributeValue(null, "Type")))
+					{
+						String target = xml.getAttributeValue(null, "Target");
+						if(target != null)
+						{
+							return partName(target);
+						}
+					}
+				}
+			} finally
+			{
+				xml.close();
+			}
+		} catch (XMLStreamException e)
+		{
+			throw new IOException("Invalid relationships in 3MF file: " + fileName, e);
+		}
+		return DEFAULT_MODEL;
+	}
+
+	private Part part(String name) throws IOException
+	{
+		Part part = parts.get(name);
+		if(part == null)
+		{
+			ZipEntry entry = zip.getEntry(name);
+			if(entry == null)
+			{
+				throw new IOException("Missing model part " + name + " in 3MF file: " + fileName);
+			}
+			try(InputStream in = new BufferedInputStream(zip.getInputStream(entry), BUFFER_BYTES))
+			{
+				part = parsePart(name, in);
+			} catch (XMLStreamException | NumberFormatException e)
+			{
+				throw new IOException("Invalid model part " + name + " in 3MF file: " + fileName, e);
+			}
+			parts.put(name, part);
+		}
+		return part;
+	}
+
+	private Part parsePart(String name, InputStream in) throws XMLStreamException, IOException
+	{
+		Part part = new Part();
+		double scale = 1;
+		Map<Integer, Color[]> propertyGroups = new HashMap<>();
+		int groupId = -1;
+		List<Color> group = null;
+		ObjectReader object = null;
+		XMLStreamReader xml = factory.createXMLStreamReader(in);
+		try
+		{
+			while(xml.hasNext())
+			{
+				int event = xml.next();
+				if(event == XMLStreamConstants.END_ELEMENT)
+				{
+					String element = xml.getLocalName();
+					if(group != null && (element.equals("basematerials") || element.equals("colorgroup")))
+					{
+						propertyGroups.put(groupId, group.toArray(new Color[0]));
+						group = null;
+					}
+					else if(object != null && element.equals("object"))
+					{
+						part.objects.put(object.id, object.build());
+						object = null;
+					}
+					continue;
+				}
+				if(event != XMLStreamConstants.START_ELEMENT)
+				{
+					continue;
+				}
+				switch(xml.getLocalName())
+				{
+					case "vertex" ->
+					{
+						if(object != null)
+						{
+							object.addVertex(
+									scale * number(xml, "x"),
+									scale * number(xml, "y"),
+									scale * number(xml, "z"));
+						}
+					}
+					case "triangle" ->
+					{
+						if(object != null && !verticesOnly)
+						{
+							object.addTriangle(integer(xml, "v1"), integer(xml, "v2"), integer(xml, "v3"),
+									color(propertyGroups, object, xml.getAttributeValue(null, "pid"), xml.getAttributeValue(null, "p1")));
+						}
+					}
+					case "object" ->
+					{
+						String pid = xml.getAttributeValue(null, "pid");
+						String pindex = xml.getAttributeValue(null, "pindex");
+						object = new ObjectReader(integer(xml, "id"),
+								pid == null ? -1 : Integer.parseInt(pid),
+								pindex == null ? 0 : Integer.parseInt(pindex));
+					}
+					case "component" ->
+					{
+						if(object != null)
+						{
+							object.components.add(placement(xml, name, scale));
+						}
+					}
+					case "item" -> part.items.add(placement(xml, name, scale));
+					case "base" ->
+					{
+						if(group != null)
+						{
+							group.add(parseColor(xml.getAttributeValue(null, "displaycolor")));
+						}
+					}
+					case "color" ->
+					{
+						if(group != null)
+						{
+							group.add(parseColor(xml.getAttributeValue(null, "color")));
+						}
+					}
+					case "basematerials", "colorgroup" ->
+					{
+						groupId = integer(xml, "id");
+						group = new ArrayList<>();
+					}
+					case "model" -> scale = unitScale(xml.getAttributeValue(null, "unit"));
+					default ->
+					{
+					}
+				}
+			}
+		} finally
+		{
+			xml.close();
+		}
+		return part;
+	}
+
+	private Placement placement(XMLStreamReader xml, String part, double scale) throws IOException
+	{
+		String path = xml.getAttributeValue(PRODUCTION_NAMESPACE, "path");
+		return new Placement(path == null ? part : partName(path), integer(xml, "objectid"),
+				transform(xml.getAttributeValue(null, "transform"), scale));
+	}
+
+	// A triangle without a property of its own has the property of its object. Properties other than colors,
+	// such as textures, are left out.
+	private static Color color(Map<Integer, Color[]> propertyGroups, ObjectReader object, String pid, String p1)
+	{
+		int group = pid != null ? Integer.parseInt(pid) : object.pid;
+		int index = p1 != null ? Integer.parseInt(p1) : pid == null ? object.pindex : -1;
+		Color[] colors = propertyGroups.get(group);
+		return colors != null && index >= 0 && index < colors.length ? colors[index] : null;
+	}
+
+	// A 3MF transform is a 4 by 3 matrix applied to row vectors, so it is transposed here. Its translation is
+	// in the unit of the model part it is in.
+	private static Affine3D transform(String text, double scale) throws IOException
+	{
+		if(text == null)
+		{
+			return Affine3D.IDENTITY;
+		}
+		String[] values = text.trim().split("\\s+");
+		if(values.length != 12)
+		{
+			throw new IOException("Invalid transform in 3MF file: " + text);
+		}
+		double[] m = new double[12];
+		for(int i = 0; i < 12; i++)
+		{
+			m[i] = Double.parseDouble(values[i]);
+		}
+		return new Affine3D(
+				m[0], m[3], m[6], scale * m[9],
+				m[1], m[4], m[7], scale * m[10],
+				m[2], m[5], m[8], scale * m[11]);
+	}
+
+	private static double unitScale(String unit) throws IOException
+	{
+		if(unit == null)
+		{
+			return 1;
+		}
+		return switch(unit)
+		{
+			case "micron" -> 0.001;
+			case "millimeter" -> 1;
+			case "centimeter" -> 10;
+			case "inch" -> 25.4;
+			case "foot" -> 304.8;
+			case "meter" -> 1000;
+			default -> throw new IOException("Unknown unit in 3MF file: " + unit);
+		};
+	}
+
+	// Colors are written as #RRGGBB or #RRGGBBAA.
+	private static Color parseColor(String text)
+	{
+		if(text == null || text.length() != 7 && text.length() != 9 || text.charAt(0) != '#')
+		{
+			// A color that can not be read still takes its place in the group, so the indices stay right.
+			return null;
+		}
+		int r = Integer.parseInt(text, 1, 3, 16);
+		int g = Integer.parseInt(text, 3, 5, 16);
+		int b = Integer.parseInt(text, 5, 7, 16);
+		int a = text.length() == 9 ? Integer.parseInt(text, 7, 9, 16) : 255;
+		return new ColorImpl(r / 255.0, g / 255.0, b / 255.0, a / 255.0);
+	}
+
+	private static String partName(String path)
+	{
+		return path.startsWith("/") ? path.substring(1) : path;
+	}
+
+	private static double number(XMLStreamReader xml, String attribute) throws IOException
+	{
+		return Double.parseDouble(required(xml, attribute));
+	}
+
+	private static int integer(XMLStreamReader xml, String attribute) throws IOException
+	{
+		return Integer.parseInt(required(xml, attribute));
+	}
+
+	private static String required(XMLStreamReader xml, String attribute) throws IOException
+	{
+		String value = xml.getAttributeValue(null, attribute);
+		if(value == null)
+		{
+			throw new IOException("Missing attribute " + attribute + " on " + xml.getLocalName() + " in 3MF file!");
+		}
+		return value;
+	}
+
+	@FunctionalInterface
+	private interface MeshSink
+	{
+		void mesh(Mesh3D mesh, Affine3D transform);
+	}
+
+	private static final class Part
+	{
+		private final Map<Integer, ModelObject> objects = new HashMap<>();
+		private final List<Placement> items = new ArrayList<>();
+	}
+
+	// A build item or component: an object, in the part it is defined in, and where to place it.
+	private static final class Placement
+	{
+		private final String part;
+		private final int objectId;
+		private final Affine3D transform;
+
+		private Placement(String part, int objectId, Affine3D transform)
+		{
+			this.part = part;
+			this.objectId = objectId;
+			this.transform = transform;
+		}
+	}
+
+	private static final class ModelObject
+	{
+		private final Mesh3D mesh;
+		private final List<Placement> components;
+
+		private ModelObject(Mesh3D mesh, List<Placement> components)
+		{
+			this.mesh = mesh;
+			this.components = components;
+		}
+	}
+
+	// Collects the mesh of an object in growing arrays, as the vertices and triangles stream past.
+	private static final class ObjectReader
+	{
+		private final int id;
+		private final int pid;
+		private final int pindex;
+		private final List<Placement> components = new ArrayList<>();
+		private double[] vertices = new double[3 * 64];
+		private int vertexCount;
+		private int[] triangles = new int[3 * 64];
+		private int triangleCount;
+		private Color[] colors;
+
+		private ObjectReader(int id, int pid, int pindex)
+		{
+			this.id = id;
+			this.pid = pid;
+			this.pindex = pindex;
+		}
+
+		private void addVertex(double x, double y, double z)
+		{
+			if(3 * vertexCount + 3 > vertices.length)
+			{
+				vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+			}
+			int i = 3 * vertexCount++;
+			vertices[i] = x;
+			vertices[i + 1] = y;
+			vertices[i + 2] = z;
+		}
+
+		private void addTriangle(int a, int b, int c, Color color) throws IOException
+		{
+			if(a < 0 || b < 0 || c < 0 || a >= vertexCount || b >= vertexCount || c >= vertexCount)
+			{
+				throw new IOException("Triangle refers to a missing vertex in 3MF file!");
+			}
+			if(3 * triangleCount + 3 > triangles.length)
+			{
+				triangles = Arrays.copyOf(triangles, 2 * triangles.length);
+			}
+			int i = 3 * triangleCount;
+			triangles[i] = a;
+			triangles[i + 1] = b;
+			triangles[i + 2] = c;
+			if(color != null && colors == null)
+			{
+				colors = new Color[triangles.length / 3];
+			}
+			if(colors != null)
+			{
+				if(colors.length < triangles.length / 3)
+				{
+					colors = Arrays.copyOf(colors, triangles.length / 3);
+				}
+				colors[triangleCount] = color;
+			}
+			triangleCount++;
+		}
+
+		// An object made of components has no mesh.
+		private ModelObject build()
+		{
+			Mesh3D mesh = null;
+			if(vertexCount > 0)
+			{
+				mesh = new Mesh3D(
+						Arrays.copyOf(vertices, 3 * vertexCount),
+						Arrays.copyOf(triangles, 3 * triangleCount),
+						colors == null ? null : Arrays.copyOf(colors, triangleCount));
+			}
+			vertices = null;
+			triangles = null;
+			colors = null;
+			return new ModelObject(mesh, components);
+		}
+	}
+}
@@ -0,0 +1,504 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Ear clipping triangulation of a polygon with holes, ported from the earcut algorithm.
+// Holes are joined to the outer ring by bridges before clipping ears.
+final class Triangulator
+{
+	private Triangulator()
+	{
+	}
+
+	// data holds x, y per vertex, holeIndices holds the vertex index where each hole begins.
+	// Returns three vertex indices per triangle.
+	static int[] triangulate(double[] data, int[] holeIndices)
+	{
+		boolean hasHoles = holeIndices.length > 0;
+		int outerLength = hasHoles ? holeIndices[0] * 2 : data.length;
+		Node outerNode = linkedList(data, 0, outerLength, true);
+		IntList triangles = new IntList();
+		if(outerNode == null || outerNode.next == outerNode.prev)
+		{
+			return triangles.toArray();
+		}
+		if(hasHoles)
+		{
+			outerNode = eliminateHoles(data, holeIndices, outerNode);
+		}
+		earcutLinked(outerNode, triangles, 0);
+		return triangles.toArray();
+	}
+
+	private static Node linkedList(double[] data, int start, int end, boolean clockwise)
+	{
+		Node last = null;
+		if(clockwise == (signedArea(data, start, end) > 0))
+		{
+			for(int i = start; i < end; i += 2)
+			{
+				last = insertNode(i / 2, data[i], data[i + 1], last);
+			}
+		}
+		else
+		{
+			for(int i = end - 2; i >= start; i -= 2)
+			{
+				last = insertNode(i / 2, data[i], data[i + 1], last);
+			}
+		}
+		if(last != null && equals(last, last.next))
+		{
+			removeNode(last);
+			last = last.next;
+		}
+		return last;
+	}
+
+	private static Node filterPoints(Node start, Node end)
+	{
+		if(start == null)
+		{
+			return null;
+		}
+		if(end == null)
+		{
+			end = start;
+		}
+		Node p = start;
+		boolean again;
+		do
+		{
+			again = false;
+			if(!p.steiner && (equals(p, p.next) || area(p.prev, p, p.next) == 0))
+			{
+				removeNode(p);
+				p = end = p.prev;
+				if(p == p.next)
+				{
+					break;
+				}
+				again = true;
+			}
+			else
+			{
+				p = p.next;
+			}
+		} while(again || p != end);
+		return end;
+	}
+
+	private static void earcutLinked(Node ear, IntList triangles, int pass)
+	{
+		if(ear == null)
+		{
+			return;
+		}
+		Node stop = ear;
+		while(ear.prev != ear.next)
+		{
+			Node prev = ear.prev;
+			Node next = ear.next;
+			if(isEar(ear))
+			{
+				triangles.add(prev.index);
+				triangles.add(ear.index);
+				triangles.add(next.index);
+				removeNode(ear);
+				ear = next.next;
+				stop = next.next;
+				continue;
+			}
+			ear = next;
+			if(ear == stop)
+			{
+				if(pass == 0)
+				{
+					earcutLinked(filterPoints(ear, null), triangles, 1);
+				}
+				else if(pass == 1)
+				{
+					ear = cureLocalIntersections(filterPoints(ear, null), triangles);
+					earcutLinked(ear, triangles, 2);
+				}
+				else if(pass == 2)
+				{
+					splitEarcut(ear, triangles);
+				}
+				break;
+			}
+		}
+	}
+
+	private static boolean isEar(Node ear)
+	{
+		Node a = ear.prev;
+		Node b = ear;
+		Node c = ear.next;
+		if(area(a, b, c) >= 0)
+		{
+			return false;
+		}
+		double minX = Math.min(a.x, Math.min(b.x, c.x));
+		double minY = Math.min(a.y, Math.min(b.y, c.y));
+		double maxX = Math.max(a.x, Math.max(b.x, c.x));
+		double maxY = Math.max(a.y, Math.max(b.y, c.y));
+		Node p = c.next;
+		while(p != a)
+		{
+			if(p.x >= minX && p.x <= maxX && p.y >= minY && p.y <= maxY &&
+					pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) &&
+					area(p.prev, p, p.next) >= 0)
+			{
+				return false;
+			}
+			p = p.next;
+		}
+		return true;
+	}
+
+	private static Node cureLocalIntersections(Node start, IntList triangles)
+	{
+		Node p = start;
+		do
+		{
+			Node a = p.prev;
+			Node b = p.next.next;
+			if(!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a))
+			{
+				triangles.add(a.index);
+				triangles.add(p.index);
+				triangles.add(b.index);
+				removeNode(p);
+				removeNode(p.next);
+				p = start = b;
+			}
+			p = p.next;
+		} while(p != start);
+		return filterPoints(p, null);
+	}
+
+	private static void splitEarcut(Node start, IntList triangles)
+	{
+		Node a = start;
+		do
+		{
+			Node b = a.next.next;
+			while(b != a.prev)
+			{
+				if(a.index != b.index && isValidDiagonal(a, b))
+				{
+					Node c = splitPolygon(a, b);
+					a = filterPoints(a, a.next);
+					c = filterPoints(c, c.next);
+					earcutLinked(a, triangles, 0);
+					earcutLinked(c, triangles, 0);
+					return;
+				}
+				b = b.next;
+			}
+			a = a.next;
+		} while(a != start);
+	}
+
+	private static Node eliminateHoles(double[] data, int[] holeIndices, Node outerNode)
+	{
+		List<Node> queue = new ArrayList<>();
+		for(int i = 0; i < holeIndices.length; i++)
+		{
+			int start = holeIndices[i] * 2;
+			int end = i < holeIndices.length - 1 ? holeIndices[i + 1] * 2 : data.length;
+			Node list = linkedList(data, start, end, false);
+			if(list == null)
+			{
+				continue;
+			}
+			if(list == list.next)
+			{
+				list.steiner = true;
+			}
+			queue.add(getLeftmost(list));
+		}
+		queue.sort((a, b) -> a.x != b.x ? Double.compare(a.x, b.x) : Double.compare(a.y, b.y));
+		for(Node hole : queue)
+		{
+			outerNode = eliminateHole(hole, outerNode);
+		}
+		return outerNode;
+	}
+
+	private static Node eliminateHole(Node hole, Node outerNode)
+	{
+		Node bridge = findHoleBridge(hole, outerNode);
+		if(bridge == null)
+		{
+			return outerNode;
+		}
+		Node bridgeReverse = splitPolygon(bridge, hole);
+		filterPoints(bridgeReverse, bridgeReverse.next);
+		return filterPoints(bridge, bridge.next);
+	}
+
+	private static Node findHoleBridge(Node hole, Node outerNode)
+	{
+		Node p = outerNode;
+		double hx = hole.x;
+		double hy = hole.y;
+		double qx = Double.NEGATIVE_INFINITY;
+		Node m = null;
+		do
+		{
+			if(hy <= p.y && hy >= p.next.y && p.next.y != p.y)
+			{
+				double x = p.x + (hy - p.y) * (p.next.x - p.x) / (p.next.y - p.y);
+				if(x <= hx && x > qx)
+				{
+					qx = x;
+					m = p.x < p.next.x ? p : p.next;
+					if(x == hx)
+					{
+						return m;
+					}
+				}
+			}
+			p = p.next;
+		} while(p != outerNode);
+		if(m == null)
+		{
+			return null;
+		}
+		Node stop = m;
+		double mx = m.x;
+		double my = m.y;
+		double tanMin = Double.POSITIVE_INFINITY;
+		p = m;
+		do
+		{
+			if(hx >= p.x && p.x >= mx && hx != p.x &&
+					pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y))
+			{
+				double tan = Math.abs(hy - p.y) / (hx - p.x);
+				if(locallyInside(p, hole) &&
+						(tan < tanMin || (tan == tanMin && (p.x > m.x || (p.x == m.x && sectorContainsSector(m, p))))))
+				{
+					m = p;
+					tanMin = tan;
+				}
+			}
+			p = p.next;
+		} while(p != stop);
+		return m;
+	}
+
+	private static boolean sectorContainsSector(Node m, Node p)
+	{
+		return area(m.prev, m, p.prev) < 0 && area(p.next, m, m.next) < 0;
+	}
+
+	private static Node getLeftmost(Node start)
+	{
+		Node p = start;
+		Node leftmost = start;
+		do
+		{
+			if(p.x < leftmost.x || (p.x == leftmost.x && p.y < leftmost.y))
+			{
+				leftmost = p;
+			}
+			p = p.next;
+		} while(p != start);
+		return leftmost;
+	}
+
+	private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py)
+	{
+		return (cx - px) * (ay - py) >= (ax - px) * (cy - py) &&
+				(ax - px) * (by - py) >= (bx - px) * (ay - py) &&
+				(bx - px) * (cy - py) >= (cx - px) * (by - py);
+	}
+
+	private static boolean isValidDiagonal(Node a, Node b)
+	{
+		return a.next.index != b.index && a.prev.index != b.index && !intersectsPolygon(a, b) &&
+				(locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b) &&
+						(area(a.prev, a, b.prev) != 0 || area(a, b.prev, b) != 0) ||
+						equals(a, b) && area(a.prev, a, a.next) > 0 && area(b.prev, b, b.next) > 0);
+	}
+
+	private static double area(Node p, Node q, Node r)
+	{
+		return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+	}
+
+	private static boolean equals(Node p1, Node p2)
+	{
+		return p1.x == p2.x && p1.y == p2.y;
+	}
+
+	private static boolean intersects(Node p1, Node q1, Node p2, Node q2)
+	{
+		int o1 = sign(area(p1, q1, p2));
+		int o2 = sign(area(p1, q1, q2));
+		int o3 = sign(area(p2, q2, p1));
+		int o4 = sign(area(p2, q2, q1));
+		if(o1 != o2 && o3 != o4)
+		{
+			return true;
+		}
+		if(o1 == 0 && onSegment(p1, p2, q1))
+		{
+			return true;
+		}
+		if(o2 == 0 && onSegment(p1, q2, q1))
+		{
+			return true;
+		}
+		if(o3 == 0 && onSegment(p2, p1, q2))
+		{
+			return true;
+		}
+		return o4 == 0 && onSegment(p2, q1, q2);
+	}
+
+	private static boolean onSegment(Node p, Node q, Node r)
+	{
+		return q.x <= Math.max(p.x, r.x) && q.x >= Math.min(p.x, r.x) &&
+				q.y <= Math.max(p.y, r.y) && q.y >= Math.min(p.y, r.y);
+	}
+
+	private static int sign(double value)
+	{
+		return value > 0 ? 1 : value < 0 ? -1 : 0;
+	}
+
+	private static boolean intersectsPolygon(Node a, Node b)
+	{
+		Node p = a;
+		do
+		{
+			if(p.index != a.index && p.next.index != a.index && p.index != b.index && p.next.index != b.index &&
+					intersects(p, p.next, a, b))
+			{
+				return true;
+			}
+			p = p.next;
+		} while(p != a);
+		return false;
+	}
+
+	private static boolean locallyInside(Node a, Node b)
+	{
+		return area(a.prev, a, a.next) < 0 ?
+				area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0 :
+				area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
+	}
+
+	private static boolean middleInside(Node a, Node b)
+	{
+		Node p = a;
+		boolean inside = false;
+		double px = (a.x + b.x) / 2;
+		double py = (a.y + b.y) / 2;
+		do
+		{
+			if(((p.y > py) != (p.next.y > py)) && p.next.y != p.y &&
+					(px < (p.next.x - p.x) * (py - p.y) / (p.next.y - p.y) + p.x))
+			{
+				inside = !inside;
+			}
+			p = p.next;
+		} while(p != a);
+		return inside;
+	}
+
+	private static Node splitPolygon(Node a, Node b)
+	{
+		Node a2 = new Node(a.index, a.x, a.y);
+		Node b2 = new Node(b.index, b.x, b.y);
+		Node an = a.next;
+		Node bp = b.prev;
+		a.next = b;
+		b.prev = a;
+		a2.next = an;
+		an.prev = a2;
+		b2.next = a2;
+		a2.prev = b2;
+		bp.next = b2;
+		b2.prev = bp;
+		return b2;
+	}
+
+	private static Node insertNode(int index, double x, double y, Node last)
+	{
+		Node p = new Node(index, x, y);
+		if(last == null)
+		{
+			p.prev = p;
+			p.next = p;
+		}
+		else
+		{
+			p.next = last.next;
+			p.prev = last;
+			last.next.prev = p;
+			last.next = p;
+		}
+		return p;
+	}
+
+	private static void removeNode(Node p)
+	{
+		p.next.prev = p.prev;
+		p.prev.next = p.next;
+	}
+
+	private static double signedArea(double[] data, int start, int end)
+	{
+		double sum = 0;
+		for(int i = start, j = end - 2; i < end; i += 2)
+		{
+			sum += (data[j] - data[i]) * (data[i + 1] + data[j + 1]);
+			j = i;
+		}
+		return sum;
+	}
+
+	private static final class Node
+	{
+		private final int index;
+		private final double x;
+		private final double y;
+		private Node prev;
+		private Node next;
+		private boolean steiner;
+
+		private Node(int index, double x, double y)
+		{
+			this.index = index;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	private static final class IntList
+	{
+		private int[] values = new int[48];
+		private int size;
+
+		private void add(int value)
+		{
+			if(size == values.length)
+			{
+				values = Arrays.copyOf(values, 2 * size);
+			}
+			values[size++] = value;
+		}
+
+		private int[] toArray()
+		{
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
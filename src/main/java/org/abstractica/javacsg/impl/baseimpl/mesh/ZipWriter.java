@@ -0,0 +1,168 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes a ZIP file whose entries are deflated by the caller. java.util.zip deflates everything itself, so it
+// can not write data that was deflated in pieces side by side. The sizes and checksum of an entry are filled
+// into its header once the entry is complete, so readers never need a data descriptor.
+final class ZipWriter implements Closeable
+{
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final short VERSION = 20;
+	private static final short DEFLATED = 8;
+	// The offset of the checksum in a local header.
+	private static final int CRC_OFFSET = 14;
+	private static final long MAX_SIZE = 0xffffffffL;
+
+	private final FileChannel channel;
+	private final List<Entry> entries = new ArrayList<>();
+	private final short time;
+	private final short date;
+	private Entry current;
+
+	ZipWriter(Path path) throws IOException
+	{
+		Path parent = path.toAbsolutePath().getParent();
+		if(parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+		this.channel = FileChannel.open(path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		LocalDateTime now = LocalDateTime.now();
+		this.time = (short) (now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() / 2);
+		this.date = (short) (Math.max(now.getYear() - 1980, 0) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth());
+	}
+
+	void beginEntry(String name) throws IOException
+	{
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		current = new Entry(nameBytes, checkedOffset(channel.position()));
+		ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOCAL_HEADER);
+		header.putShort(VERSION);
+		header.putShort((short) 0);
+		header.putShort(DEFLATED);
+		header.putShort(time);
+		header.putShort(date);
+		// Checksum and sizes, filled in by endEntry.
+		header.putInt(0).putInt(0).putInt(0);
+		header.putShort((short) nameBytes.length);
+		header.putShort((short) 0);
+		header.put(nameBytes);
+		writeFully(header.flip());
+		current.dataOffset = channel.position();
+	}
+
+	// Appends deflated data to the current entry.
+	void write(byte[] deflated) throws IOException
+	{
+		writeFully(ByteBuffer.wrap(deflated));
+	}
+
+	void endEntry(long crc, long size) throws IOException
+	{
+		long end = channel.position();
+		long compressedSize = end - current.dataOffset;
+		if(size > MAX_SIZE || compressedSize > MAX_SIZE)
+		{
+			throw new IOException("Entry is too large for a ZIP file: " + new String(current.name, StandardCharsets.UTF_8));
+		}
+		current.crc = (int) crc;
+		current.compressedSize = (int) compressedSize;
+		current.size = (int) size;
+		ByteBuffer sizes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		sizes.putInt(current.crc).putInt(current.compressedSize).putInt(current.size);
+		sizes.flip();
+		while(sizes.hasRemaining())
+		{
+			channel.write(sizes, current.headerOffset + CRC_OFFSET + sizes.position());
+		}
+		entries.add(current);
+		current = null;
+	}
+
+	// Writes the central directory and closes the file.
+	@Override
+	public void close() throws IOException
+	{
+		try(channel)
+		{
+			long start = checkedOffset(channel.position());
+			for(Entry entry : entries)
+			{
+				ByteBuffer header = ByteBuffer.allocate(46 + entry.name.length).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(CENTRAL_HEADER);
+				header.putShort(VERSION);
+				header.putShort(VERSION);
+				header.putShort((short) 0);
+				header.putShort(DEFLATED);
+				header.putShort(time);
+				header.putShort(date);
+				header.putInt(entry.crc).putInt(entry.compressedSize).putInt(entry.size);
+				header.putShort((short) entry.name.length);
+				// Extra field, comment, disk, internal and external attributes.
+				header.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+				header.putInt((int) entry.headerOffset);
+				header.put(entry.name);
+				writeFully(header.flip());
+			}
+			long end = checkedOffset(channel.position());
+			ByteBuffer trailer = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+			trailer.putInt(END_OF_CENTRAL_DIRECTORY);
+			trailer.putShort((short) 0).putShort((short) 0);
+			trailer.putShort((short) entries.size()).putShort((short) entries.size());
+			trailer.putInt((int) (end - start)).putInt((int) start);
+			trailer.putShort((short) 0);
+			writeFully(trailer.flip());
+		}
+	}
+
+	private static long checkedOffset(long offset) throws IOException
+	{
+		if(offset > MAX_SIZE)
+		{
+			throw new IOException("File is too large for a ZIP file without ZIP64 extensions!");
+		}
+		return offset;
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	private static final class Entry
+	{
+		private final byte[] name;
+		private final long headerOffset;
+		private long dataOffset;
+		private int crc;
+		private int compressedSize;
+		private int size;
+
+		private Entry(byte[] name, long headerOffset)
+		{
+			this.name = name;
+			this.headerOffset = headerOffset;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.abstractica.javacsg.impl;
+
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.JavaCSG;
+import org.abstractica.javacsg.Quaternion;
+import org.abstractica.javacsg.Transform3D;
+import org.abstractica.javacsg.Vector3D;
+import org.abstractica.javacsg.impl.baseimpl.RenderScheduler;
+import org.abstractica.javacsg.impl.baseimpl.mesh.JavaCSGBaseMeshImpl;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuaternionTest
+{
+	private static final double EPSILON = 1e-9;
+
+	private final JavaCSG csg = new JavaCSGImpl(new JavaCSGBaseMeshImpl(new RenderScheduler(1)));
+
+	@Test
+	void axisAngleMatchesEulerRotations()
+	{
+		Vector3D axisZ = csg.vector3D(0, 0, 2);
+		Transform3D quaternion = csg.rotate3D(csg.quaternion(axisZ, csg.degrees(90)));
+		Transform3D euler = csg.rotate3DZ(csg.degrees(90));
+		assertClose(csg.vector3D(0, 1, 0), quaternion.transformPoint(csg.vector3D(1, 0, 0)));
+		Vector3D point = csg.vector3D(3, -2, 5);
+		assertClose(euler.transformPoint(point), quaternion.transformPoint(point));
+		Transform3D aroundX = csg.rotate3D(csg.quaternion(csg.vector3D(1, 0, 0), csg.degrees(30)));
+		assertClose(csg.rotate3DX(csg.degrees(30)).transformPoint(point), aroundX.transformPoint(point));
+	}
+
+	@Test
+	void vectorIntoVector()
+	{
+		double[][] pairs =
+				{
+						{1, 0, 0, 0, 1, 0},
+						{1, 2, 3, -2, 0.5, 4},
+						{0, 0, 1, 0, 0, 1},
+						{0, 0, 1, 1e-9, 0, -1},
+						{1, 2, 3, -1, -2, -3},
+						{0, 5, 0, 0, -1, 0}
+				};
+		for(double[] pair : pairs)
+		{
+			Vector3D from = csg.vector3D(pair[0], pair[1], pair[2]);
+			Vector3D to = csg.vector3D(pair[3], pair[4], pair[5]);
+			Vector3D rotated = csg.rotate3DVectorIntoVector(from, to).transformDirection(from);
+			assertClose(csg.mul(to, csg.length(from) / csg.length(to)), rotated);
+		}
+	}
+
+	// The product rotates by the second quaternion first, like compose3D applies its last transform first.
+	@Test
+	void productComposesLikeTransforms()
+	{
+		Quaternion first = csg.quaternion(csg.vector3D(1, 1, 0), csg.degrees(40));
+		Quaternion second = csg.quaternion(csg.vector3D(0, 1, 2), csg.degrees(-75));
+		Vector3D point = csg.vector3D(1, -4, 2);
+		Vector3D composed = csg.compose3D(csg.rotate3D(first), csg.rotate3D(second)).transformPoint(point);
+		assertClose(composed, csg.rotate3D(csg.mul(first, second)).transformPoint(point));
+		Quaternion inverse = csg.inverse(first);
+		assertClose(point, csg.rotate3D(csg.mul(inverse, first)).transformPoint(point));
+	}
+
+	@Test
+	void slerpTurnsAtConstantSpeed()
+	{
+		Quaternion identity = csg.quaternion(1, 0, 0, 0);
+		Quaternion quarter = csg.quaternion(csg.vector3D(0, 0, 1), csg.degrees(90));
+		Vector3D point = csg.vector3D(1, 0, 0);
+		double halfway = Math.sqrt(0.5);
+		assertClose(csg.vector3D(halfway, halfway, 0), csg.rotate3D(csg.slerp(identity, quarter, 0.5)).transformPoint(point));
+		assertClose(csg.rotate3D(quarter).transformPoint(point), csg.rotate3D(csg.slerp(identity, quarter, 1)).transformPoint(point));
+	}
+
+	@Test
+	void geometryIsRotated()
+	{
+		Geometry3D box = csg.translate3D(2, 0, 0).transform(csg.box3D(1, 1, 1, false));
+		Geometry3D rotated = csg.rotate3D(csg.quaternion(csg.vector3D(0, 0, 1), csg.degrees(90))).transform(box);
+		Geometry3D euler = csg.rotate3DZ(csg.degrees(90)).transform(box);
+		assertClose(euler.getMin(), rotated.getMin());
+		assertClose(euler.getMax(), rotated.getMax());
+		assertEquals(1.5, rotated.getMin().y(), EPSILON);
+	}
+
+	private static void assertClose(Vector3D expected, Vector3D actual)
+	{
+		assertEquals(expected.x(), actual.x(), EPSILON);
+		assertEquals(expected.y(), actual.y(), EPSILON);
+		assertEquals(expected.z(), actual.z(), EPSILON);
+	}
+}
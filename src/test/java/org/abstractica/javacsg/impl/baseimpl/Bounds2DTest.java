@@ -0,0 +1,25 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bounds2DTest
+{
+	@Test
+	void rectangleFillsItsBounds()
+	{
+		assertTrue(Bounds2D.ofPolygon(new double[]{0, 0, 2, 0, 2, 1, 0, 1}).isFilled());
+		assertTrue(Bounds2D.ofPolygon(new double[]{2, 1, 2, 0, 0, 0, 0, 1}).isFilled());
+	}
+
+	@Test
+	void pointsOnTheCornersAloneDoNotFill()
+	{
+		// Goes back and forth along the sides, and never reaches one corner.
+		assertFalse(Bounds2D.ofPolygon(new double[]{0, 0, 1, 0, 1, 1, 1, 0}).isFilled());
+		// Crosses itself.
+		assertFalse(Bounds2D.ofPolygon(new double[]{0, 0, 1, 1, 1, 0, 0, 1}).isFilled());
+	}
+}
@@ -0,0 +1,91 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GeometryHashTest
+{
+	@Test
+	void equalStructuresHashEqually()
+	{
+		GeometryHash first = box(1, 2, 3);
+		GeometryHash second = box(1, 2, 3);
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(first.toString(), second.toString());
+		assertEquals(32, first.toString().length());
+	}
+
+	@Test
+	void parametersAndChildrenAreTold()
+	{
+		GeometryHash box = box(1, 2, 3);
+		assertNotEquals(box, box(1, 2, 4));
+		assertNotEquals(box, box(2, 1, 3));
+		assertNotEquals(box, GeometryHash.builder("sphere").add(1.0).add(2.0).add(3.0).build());
+		GeometryHash other = box(4, 5, 6);
+		assertNotEquals(union(box, other), union(other, box));
+		assertNotEquals(union(box, other), union(box, other, box));
+		assertEquals(union(box, other), union(box(1, 2, 3), box(4, 5, 6)));
+	}
+
+	@Test
+	void negativeZeroIsZero()
+	{
+		assertEquals(box(0, 1, 1), box(-0.0, 1, 1));
+	}
+
+	// Strings are length prefixed, so moving characters from one string to the next changes the hash.
+	@Test
+	void stringsDoNotRunTogether()
+	{
+		GeometryHash ab = GeometryHash.builder("text").add("ab").add("c").build();
+		GeometryHash bc = GeometryHash.builder("text").add("a").add("bc").build();
+		assertNotEquals(ab, bc);
+	}
+
+	@Test
+	void transformsAreTold()
+	{
+		GeometryHash box = box(1, 1, 1);
+		GeometryHash moved = GeometryHash.builder("transform3D").add(Affine3D.translation(1, 0, 0)).add(box).build();
+		GeometryHash movedAgain = GeometryHash.builder("transform3D").add(Affine3D.translation(1, 0, 0)).add(box).build();
+		GeometryHash movedElsewhere = GeometryHash.builder("transform3D").add(Affine3D.translation(0, 1, 0)).add(box).build();
+		assertEquals(moved, movedAgain);
+		assertNotEquals(moved, movedElsewhere);
+	}
+
+	@Test
+	void internerSharesTheFirstValue()
+	{
+		GeometryInterner<Object> interner = new GeometryInterner<>();
+		Object first = new Object();
+		Object second = new Object();
+		Object other = new Object();
+		assertSame(first, interner.intern(box(1, 2, 3), first));
+		assertSame(first, interner.intern(box(1, 2, 3), second));
+		assertSame(other, interner.intern(box(3, 2, 1), other));
+		assertEquals(2, interner.size());
+		// Both values are used again here, so neither can be collected before the size is taken.
+		assertSame(first, interner.intern(box(1, 2, 3), other));
+		assertSame(other, interner.intern(box(3, 2, 1), first));
+	}
+
+	private static GeometryHash box(double x, double y, double z)
+	{
+		return GeometryHash.builder("box").add(x).add(y).add(z).build();
+	}
+
+	private static GeometryHash union(GeometryHash... children)
+	{
+		GeometryHash.Builder hash = GeometryHash.builder("union3D");
+		for(GeometryHash child : children)
+		{
+			hash.add(child);
+		}
+		return hash.build();
+	}
+}
@@ -0,0 +1,135 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolygonClipperTest
+{
+	private static final double[] A = square(0, 0, 2);
+	private static final double[] B = square(1, 1, 2);
+
+	@Test
+	void overlappingSquares()
+	{
+		assertEquals(7, area(PolygonClipper.union(List.of(List.of(A), List.of(B)))), 1e-9);
+		assertEquals(1, area(PolygonClipper.intersection(List.of(List.of(A), List.of(B)))), 1e-9);
+		assertEquals(3, area(PolygonClipper.difference(List.of(List.of(A), List.of(B)))), 1e-9);
+	}
+
+	@Test
+	void touchingSquaresMerge()
+	{
+		List<double[]> result = PolygonClipper.union(List.of(List.of(A), List.of(square(2, 0, 2))));
+		assertEquals(8, area(result), 1e-9);
+		assertTrue(PolygonClipper.intersection(List.of(List.of(A), List.of(square(2, 0, 2)))).isEmpty());
+	}
+
+	// The contours of one operand combine by the even-odd rule, whichever way they run.
+	@Test
+	void contoursOfAnOperandAreEvenOdd()
+	{
+		double[] outer = square(0, 0, 4);
+		double[] inner = square(1, 1, 2);
+		assertEquals(12, area(PolygonClipper.union(List.of(List.of(outer, inner)))), 1e-9);
+		assertEquals(12, area(PolygonClipper.union(List.of(List.of(outer, reversed(inner))))), 1e-9);
+	}
+
+	@Test
+	void holesRunClockwise()
+	{
+		List<double[]> result = PolygonClipper.difference(List.of(List.of(square(0, 0, 4)), List.of(square(1, 1, 2))));
+		assertEquals(2, result.size());
+		int outer = 0;
+		int holes = 0;
+		for(double[] contour : result)
+		{
+			if(signedArea(contour) > 0)
+			{
+				outer++;
+			}
+			else
+			{
+				holes++;
+			}
+		}
+		assertEquals(1, outer);
+		assertEquals(1, holes);
+		assertEquals(12, area(result), 1e-9);
+	}
+
+	@Test
+	void emptyOperands()
+	{
+		assertTrue(PolygonClipper.union(List.of()).isEmpty());
+		assertTrue(PolygonClipper.difference(List.of(List.of(), List.of(A))).isEmpty());
+		assertTrue(PolygonClipper.intersection(List.of(List.of(A), List.of(square(5, 5, 1)))).isEmpty());
+		assertEquals(4, area(PolygonClipper.difference(List.of(List.of(A), List.of()))), 1e-9);
+	}
+
+	// Coordinates that are not on the grid are snapped to it, which moves them by far less than this.
+	@Test
+	void curvedShapesKeepTheirArea()
+	{
+		double[] circle = circle(0, 0, 10, 96);
+		double[] shifted = circle(5, 0, 10, 96);
+		double union = area(PolygonClipper.union(List.of(List.of(circle), List.of(shifted))));
+		double intersection = area(PolygonClipper.intersection(List.of(List.of(circle), List.of(shifted))));
+		assertEquals(2 * signedArea(circle), union + intersection, 1e-6);
+		assertEquals(signedArea(circle), area(PolygonClipper.union(List.of(List.of(circle), List.of(circle)))), 1e-6);
+	}
+
+	private static double area(List<double[]> contours)
+	{
+		double area = 0;
+		for(double[] contour : contours)
+		{
+			area += signedArea(contour);
+		}
+		return area;
+	}
+
+	private static double signedArea(double[] contour)
+	{
+		double area = 0;
+		int count = contour.length / 2;
+		for(int i = 0; i < count; i++)
+		{
+			int j = (i + 1) % count;
+			area += contour[2 * i] * contour[2 * j + 1] - contour[2 * j] * contour[2 * i + 1];
+		}
+		return area / 2;
+	}
+
+	private static double[] square(double x, double y, double size)
+	{
+		return new double[]{x, y, x + size, y, x + size, y + size, x, y + size};
+	}
+
+	private static double[] circle(double x, double y, double radius, int segments)
+	{
+		double[] circle = new double[2 * segments];
+		for(int i = 0; i < segments; i++)
+		{
+			double angle = 2 * Math.PI * i / segments;
+			circle[2 * i] = x + radius * Math.cos(angle);
+			circle[2 * i + 1] = y + radius * Math.sin(angle);
+		}
+		return circle;
+	}
+
+	private static double[] reversed(double[] contour)
+	{
+		double[] result = new double[contour.length];
+		int count = contour.length / 2;
+		for(int i = 0; i < count; i++)
+		{
+			result[2 * i] = contour[2 * (count - 1 - i)];
+			result[2 * i + 1] = contour[2 * (count - 1 - i) + 1];
+		}
+		return result;
+	}
+}
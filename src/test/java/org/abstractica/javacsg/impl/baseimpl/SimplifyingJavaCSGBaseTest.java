@@ -0,0 +1,66 @@
+package org.abstractica.javacsg.impl.baseimpl;
+
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.impl.baseimpl.mesh.JavaCSGBaseMeshImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SimplifyingJavaCSGBaseTest
+{
+	@Test
+	void nestedUnionsAreFlattened()
+	{
+		JavaCSGBase base = new SimplifyingJavaCSGBase(new JavaCSGBaseMeshImpl(new RenderScheduler(1)));
+		Geometry3D inner = base.union3D(List.of(box(base, 0), box(base, 2)));
+		Geometry3D outer = base.union3D(List.of(inner, box(base, 4)));
+		Geometry3D flat = base.union3D(List.of(box(base, 0), box(base, 2), box(base, 4)));
+		assertEquals(0, outer.getMin().x(), 1e-9);
+		assertEquals(5, outer.getMax().x(), 1e-9);
+		assertEquals(flat.getMax().x(), outer.getMax().x(), 1e-9);
+	}
+
+	@Test
+	void disabledUnionIsNotFlattened()
+	{
+		JavaCSGBase base = new SimplifyingJavaCSGBase(new JavaCSGBaseMeshImpl(new RenderScheduler(1)));
+		Geometry3D inner = base.union3D(List.of(box(base, 0), box(base, 2)));
+		inner.disable();
+		Geometry3D outer = base.union3D(List.of(inner, box(base, 4)));
+		assertEquals(4, outer.getMin().x(), 1e-9);
+	}
+
+	@Test
+	void disabledDifferenceIsNotFlattened()
+	{
+		JavaCSGBase base = new SimplifyingJavaCSGBase(new JavaCSGBaseMeshImpl(new RenderScheduler(1)));
+		Geometry3D inner = base.difference3D(box(base, 0), List.of(box(base, 0.5)));
+		inner.disable();
+		Geometry3D outer = base.difference3D(inner, List.of(box(base, 0.75)));
+		assertEquals(0, outer.getMax().x(), 1e-9);
+	}
+
+	@Test
+	void prunedOperationKeepsWhatItsResultWas()
+	{
+		JavaCSGBase base = new SimplifyingJavaCSGBase(new JavaCSGBaseMeshImpl(new RenderScheduler(1)));
+		Geometry3D filled = base.cache(base.scale3D(4, 4, 4).transform(box(base, 0)));
+		Geometry3D inside = base.translate3D(1, 1, 1).transform(box(base, 0));
+		Geometry3D union = base.union3D(List.of(filled, inside));
+		assertSame(filled, union);
+		assertSame(filled, base.cache(union));
+		Geometry3D outer = base.union3D(List.of(union, box(base, 10)));
+		assertEquals(0, outer.getMin().x(), 1e-9);
+		assertEquals(11, outer.getMax().x(), 1e-9);
+		assertEquals(4, outer.getMax().z(), 1e-9);
+	}
+
+	private static Geometry3D box(JavaCSGBase base, double x)
+	{
+		Geometry3D box = base.linearExtrude(1, false, base.polygon2D(new double[]{0, 0, 1, 0, 1, 1, 0, 1}));
+		return base.translate3D(x, 0, 0).transform(box);
+	}
+}
@@ -0,0 +1,132 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Geometry2D;
+import org.abstractica.javacsg.Geometry3D;
+import org.abstractica.javacsg.RenderListener;
+import org.abstractica.javacsg.impl.baseimpl.RenderScheduler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaCSGBaseMeshImplTest
+{
+	@Test
+	void disablingLeavesEqualGeometriesAlone()
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry3D kept = box(base, 0);
+		Geometry3D disabled = box(base, 0);
+		assertNotSame(kept, disabled);
+		disabled.disable();
+		Geometry3D other = box(base, 2);
+		assertEquals(0, base.union3D(List.of(kept, other)).getMin().x(), 1e-9);
+		assertEquals(2, base.union3D(List.of(disabled, other)).getMin().x(), 1e-9);
+	}
+
+	@Test
+	void equalGeometriesShareTheirMesh()
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry3D first = base.union3D(List.of(box(base, 0), box(base, 0.5)));
+		Geometry3D second = base.union3D(List.of(box(base, 0), box(base, 0.5)));
+		assertNotSame(first, second);
+		first.getMin();
+		int[] evaluated = {0};
+		base.addRenderListener(new RenderListener()
+		{
+			@Override
+			public void subtreeEvaluated(String operation, boolean reused, long nanos)
+			{
+				evaluated[0]++;
+			}
+		});
+		assertEquals(1.5, second.getMax().x(), 1e-9);
+		assertEquals(0, evaluated[0]);
+	}
+
+	// With a single permit, a cache waiting for the caches inside it must not keep them from being evaluated.
+	@Test
+	void nestedCachesShareOnePermit()
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+		{
+			Geometry3D left = base.cache(box(base, 0));
+			Geometry3D right = base.translate3D(2, 0, 0).transform(base.cache(box(base, 0)));
+			Geometry3D outer = base.cache(base.union3D(List.of(left, right)));
+			Geometry3D projected = base.linearExtrude(1, false, base.project(false, base.cache(box(base, 4))));
+			Geometry3D all = base.cache(base.union3D(List.of(outer, projected)));
+			assertEquals(5, all.getMax().x(), 1e-9);
+		});
+	}
+
+	@Test
+	void offsetMitersOrChamfersTheCorners(@TempDir Path directory) throws IOException
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry2D square = base.polygon2D(new double[]{0, 0, 10, 0, 10, 10, 0, 10});
+		assertEquals(144, area(base, base.offset2D(1, false, List.of(square)), directory), 1e-6);
+		assertEquals(144 - 4 * (3 - 2 * Math.sqrt(2)), area(base, base.offset2D(1, true, List.of(square)), directory), 1e-6);
+		Geometry2D shrunk = base.offset2D(-1, false, List.of(square));
+		assertEquals(1, shrunk.getMin().x(), 1e-9);
+		assertEquals(9, shrunk.getMax().y(), 1e-9);
+	}
+
+	@Test
+	void cuttingProjectionIsTheCrossSection(@TempDir Path directory) throws IOException
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry3D wedge = base.polyhedron3D(new double[]{0, 0, -1, 4, 0, -1, 0, 4, -1, 0, 0, 3},
+				new int[]{0, 3, 6, 9, 12}, new int[]{0, 2, 1, 0, 1, 3, 1, 2, 3, 2, 0, 3});
+		Geometry2D section = base.project(true, wedge);
+		assertEquals(4.5, area(base, section, directory), 1e-9);
+		assertEquals(3, section.getMax().x(), 1e-9);
+	}
+
+	@Test
+	void minkowskiOfTwoNonConvexSolids(@TempDir Path directory) throws IOException
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry2D l = base.polygon2D(new double[]{0, 0, 2, 0, 2, 1, 1, 1, 1, 2, 0, 2});
+		Geometry3D solid = base.linearExtrude(1, false, l);
+		Geometry3D sum = base.minkowski3D(List.of(solid, solid));
+		assertEquals(26, volume(base, sum, directory), 1e-6);
+		assertEquals(4, sum.getMax().x(), 1e-9);
+	}
+
+	@Test
+	void textIsMadeOfFontOutlines()
+	{
+		JavaCSGBaseMeshImpl base = new JavaCSGBaseMeshImpl(new RenderScheduler(1));
+		Geometry2D text = base.text2D("AB", 5, 10, 16);
+		assertTrue(text.getMax().x() > 5 && text.getMax().x() <= 10.5);
+		assertTrue(text.getMin().y() > -1 && text.getMax().y() < 10);
+	}
+
+	private static double area(JavaCSGBaseMeshImpl base, Geometry2D geometry, Path directory) throws IOException
+	{
+		return volume(base, base.linearExtrude(1, false, geometry), directory);
+	}
+
+	private static double volume(JavaCSGBaseMeshImpl base, Geometry3D geometry, Path directory) throws IOException
+	{
+		Path file = directory.resolve("volume.stl");
+		base.saveBinarySTL(file.toString(), geometry);
+		return STLFiles.read(file).volume();
+	}
+
+	private static Geometry3D box(JavaCSGBaseMeshImpl base, double x)
+	{
+		Geometry3D box = base.linearExtrude(1, false, base.polygon2D(new double[]{0, 0, 1, 0, 1, 1, 0, 1}));
+		return base.translate3D(x, 0, 0).transform(box);
+	}
+}
@@ -0,0 +1,48 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalDifferenceTest
+{
+	@Test
+	void matchesSubtractingOneByOne()
+	{
+		Mesh3D plate = TestMeshes.box(-50, -50, 0, 50, 50, 5);
+		List<Mesh3D> holes = new ArrayList<>();
+		for(int i = 0; i < 16; i++)
+		{
+			holes.add(TestMeshes.cylinder(-36 + 24 * (i % 4), -36 + 24 * (i / 4), -1, 4, 7, 16));
+		}
+		Mesh3D local = LocalDifference.difference(plate, holes);
+		Mesh3D oneByOne = plate;
+		for(Mesh3D hole : holes)
+		{
+			oneByOne = MeshBooleans.difference(oneByOne, hole);
+		}
+		double expected = 100 * 100 * 5 - 16 * TestMeshes.prismVolume(4, 5, 16);
+		assertEquals(expected, oneByOne.volume(), 1e-6);
+		assertEquals(oneByOne.volume(), local.volume(), 1e-6);
+		assertEquals(0, TestMeshes.openEdges(TestMeshes.welded(oneByOne)));
+		assertEquals(0, TestMeshes.openEdges(TestMeshes.welded(local)));
+	}
+
+	@Test
+	void seamsBetweenHalvesAreClosed()
+	{
+		// Many small holes, so the solid is split several times and the seams cross each other.
+		Mesh3D plate = TestMeshes.box(-50, -50, 0, 50, 50, 5);
+		List<Mesh3D> holes = new ArrayList<>();
+		for(int i = 0; i < 36; i++)
+		{
+			holes.add(TestMeshes.cylinder(-40 + 16 * (i % 6), -40 + 16 * (i / 6), -1, 4, 7, 32));
+		}
+		Mesh3D local = LocalDifference.difference(plate, holes);
+		assertEquals(100 * 100 * 5 - 36 * TestMeshes.prismVolume(4, 5, 32), local.volume(), 1e-6);
+		assertEquals(0, TestMeshes.openEdges(TestMeshes.welded(local)));
+	}
+}
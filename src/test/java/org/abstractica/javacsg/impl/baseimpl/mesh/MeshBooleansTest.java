@@ -0,0 +1,106 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MeshBooleansTest
+{
+	private static final double PLATE = 100 * 100 * 5;
+
+	private final Mesh3D plate = TestMeshes.box(-50, -50, 0, 50, 50, 5);
+	private final Mesh3D hole = TestMeshes.cylinder(0, 0, -1, 10, 7, 64);
+	private final double holeVolume = TestMeshes.prismVolume(10, 5, 64);
+
+	@Test
+	void differenceIsClosed()
+	{
+		Mesh3D result = MeshBooleans.difference(plate, hole);
+		assertEquals(PLATE - holeVolume, result.volume(), 1e-6);
+		assertClosed(result);
+	}
+
+	@Test
+	void unionIsClosed()
+	{
+		Mesh3D result = MeshBooleans.union(plate, hole);
+		assertEquals(PLATE + TestMeshes.prismVolume(10, 2, 64), result.volume(), 1e-6);
+		assertClosed(result);
+	}
+
+	@Test
+	void intersectionIsClosed()
+	{
+		Mesh3D result = MeshBooleans.intersection(plate, hole);
+		assertEquals(holeVolume, result.volume(), 1e-6);
+		assertClosed(result);
+	}
+
+	@Test
+	void repeatedDifferencesStayClosed()
+	{
+		Mesh3D result = plate;
+		for(int i = 0; i < 4; i++)
+		{
+			double x = i % 2 == 0 ? -25 : 25;
+			double y = i < 2 ? -25 : 25;
+			result = MeshBooleans.difference(result, TestMeshes.cylinder(x, y, -1, 5, 7, 32));
+		}
+		assertEquals(PLATE - 4 * TestMeshes.prismVolume(5, 5, 32), result.volume(), 1e-6);
+		assertClosed(result);
+	}
+
+	@Test
+	void overlappingSpheresUnionIsClosed()
+	{
+		Mesh3D a = sphere(0, 0, 0);
+		Mesh3D b = sphere(7, 3, 2);
+		Mesh3D result = MeshBooleans.union(a, b);
+		assertClosed(result);
+		double overlap = MeshBooleans.intersection(a, b).volume();
+		assertEquals(a.volume() + b.volume() - overlap, result.volume(), 1e-6);
+	}
+
+	@Test
+	void convexPartsFillTheSolid()
+	{
+		Mesh3D solid = MeshBooleans.difference(plate, hole);
+		double volume = 0;
+		for(Mesh3D part : MeshBooleans.convexParts(solid))
+		{
+			volume += part.volume();
+		}
+		assertEquals(solid.volume(), volume, 1e-6);
+	}
+
+	private static Mesh3D sphere(double x, double y, double z)
+	{
+		return ConvexHulls.hull3D(spherePoints(x, y, z));
+	}
+
+	private static double[] spherePoints(double x, double y, double z)
+	{
+		int rings = 12;
+		int segments = 24;
+		double[] points = new double[3 * rings * segments];
+		int i = 0;
+		for(int ring = 0; ring < rings; ring++)
+		{
+			double phi = Math.PI * (ring + 0.5) / rings;
+			for(int segment = 0; segment < segments; segment++)
+			{
+				double theta = 2 * Math.PI * segment / segments;
+				points[i++] = x + 10 * Math.sin(phi) * Math.cos(theta);
+				points[i++] = y + 10 * Math.sin(phi) * Math.sin(theta);
+				points[i++] = z + 10 * Math.cos(phi);
+			}
+		}
+		return points;
+	}
+
+	// Measured the way a slicer sees the mesh, after welding equal coordinates.
+	private static void assertClosed(Mesh3D mesh)
+	{
+		assertEquals(0, TestMeshes.openEdges(TestMeshes.welded(mesh)));
+	}
+}
@@ -0,0 +1,99 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.impl.baseimpl.GeometryHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class MeshStoreTest
+{
+	private final GeometryHash hash = GeometryHash.builder("box").add(1.0).add(2.0).add(3.0).build();
+	private final Mesh3D box = TestMeshes.box(0, 0, 0, 1, 2, 3);
+
+	@Test
+	void storedMeshIsLoaded(@TempDir Path directory)
+	{
+		MeshStore store = new MeshStore(directory);
+		store.save(hash, box);
+		Mesh3D loaded = store.loadLocal(hash);
+		assertNotNull(loaded);
+		assertEquals(box.volume(), loaded.volume(), 1e-9);
+	}
+
+	@Test
+	void triangleOutsideTheVerticesIsRejected(@TempDir Path directory) throws IOException
+	{
+		MeshStore store = new MeshStore(directory);
+		store.save(hash, box);
+		Path file = directory.resolve(hash + ".mesh");
+		ByteBuffer payload = payload(file);
+		// The first corner of the first triangle, after the counts and the vertices.
+		payload.putInt(3 * Integer.BYTES + 3 * Double.BYTES * box.vertexCount(), box.vertexCount());
+		rewrite(file, payload);
+		assertNull(store.loadLocal(hash));
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void truncatedMeshIsRejected(@TempDir Path directory) throws IOException
+	{
+		MeshStore store = new MeshStore(directory);
+		store.save(hash, box);
+		Path file = directory.resolve(hash + ".mesh");
+		ByteBuffer payload = payload(file);
+		payload.putInt(Integer.BYTES, box.triangleCount() + 1);
+		rewrite(file, payload);
+		assertNull(store.loadLocal(hash));
+	}
+
+	@Test
+	void claimOfAProcessThatIsGoneIsTakenOver(@TempDir Path directory) throws IOException
+	{
+		MeshStore store = new MeshStore(directory);
+		Path claimFile = directory.resolve(hash + ".claim");
+		long pid = ProcessHandle.current().pid();
+		Files.writeString(claimFile, Long.MAX_VALUE + "@" + InetAddress.getLocalHost().getHostName());
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertNotNull(store.claim(hash)));
+		assertEquals(pid + "@" + InetAddress.getLocalHost().getHostName(), Files.readString(claimFile));
+	}
+
+	private static ByteBuffer payload(Path file) throws IOException
+	{
+		try(InputStream in = Files.newInputStream(file))
+		{
+			in.readNBytes(2 * Integer.BYTES);
+			return ByteBuffer.wrap(new InflaterInputStream(in).readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	private static void rewrite(Path file, ByteBuffer payload) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(InputStream in = Files.newInputStream(file))
+		{
+			out.write(in.readNBytes(2 * Integer.BYTES));
+		}
+		try(DeflaterOutputStream deflated = new DeflaterOutputStream(out))
+		{
+			deflated.write(payload.array());
+		}
+		Files.write(file, out.toByteArray());
+	}
+}
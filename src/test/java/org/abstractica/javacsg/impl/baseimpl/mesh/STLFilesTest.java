@@ -0,0 +1,69 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class STLFilesTest
+{
+	// Binary STL holds floats.
+	private static final double FLOAT_EPSILON = 1e-5;
+
+	private final Mesh3D mesh = MeshBooleans.difference(TestMeshes.box(-5, -5, 0, 5, 5, 2), TestMeshes.cylinder(0, 0, -1, 3, 4, 32));
+
+	@Test
+	void binaryRoundTrip(@TempDir Path directory) throws IOException
+	{
+		Path file = directory.resolve("part.stl");
+		STLFiles.writeBinary(file, mesh);
+		assertEquals(84 + 50L * mesh.triangleCount(), Files.size(file));
+		Mesh3D read = STLFiles.read(file);
+		assertEquals(mesh.triangleCount(), read.triangleCount());
+		assertEquals(mesh.vertexCount(), read.vertexCount());
+		assertEquals(mesh.volume(), read.volume(), 1e-3);
+		assertArrayEquals(mesh.bounds(), STLFiles.bounds(file), FLOAT_EPSILON);
+	}
+
+	@Test
+	void exportingAgainReplacesTheFile(@TempDir Path directory) throws IOException
+	{
+		Path file = directory.resolve("part.stl");
+		STLFiles.writeBinary(file, mesh);
+		Mesh3D box = TestMeshes.box(0, 0, 0, 1, 2, 3);
+		STLFiles.writeBinary(file, box);
+		assertEquals(84 + 50L * box.triangleCount(), Files.size(file));
+		assertEquals(6, STLFiles.read(file).volume(), 1e-6);
+	}
+
+	@Test
+	void asciiIsReadAndConvertedToBinary(@TempDir Path directory) throws IOException
+	{
+		Path ascii = directory.resolve("ascii.stl");
+		Path binary = directory.resolve("binary.stl");
+		STLFiles.writeASCII(ascii, mesh);
+		Mesh3D read = STLFiles.read(ascii);
+		assertEquals(mesh.triangleCount(), read.triangleCount());
+		assertEquals(mesh.volume(), read.volume(), 1e-9);
+		STLFiles.convertToBinary(ascii, binary);
+		assertEquals(84 + 50L * mesh.triangleCount(), Files.size(binary));
+		assertEquals(mesh.volume(), STLFiles.read(binary).volume(), 1e-3);
+		assertArrayEquals(STLFiles.bounds(ascii), STLFiles.bounds(binary), FLOAT_EPSILON);
+	}
+
+	@Test
+	void emptyMeshHasNoBounds(@TempDir Path directory) throws IOException
+	{
+		Path file = directory.resolve("empty.stl");
+		STLFiles.writeBinary(file, Mesh3D.EMPTY);
+		assertTrue(STLFiles.read(file).isEmpty());
+		double[] bounds = STLFiles.bounds(file);
+		assertTrue(bounds[0] > bounds[3]);
+	}
+}
@@ -0,0 +1,79 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.impl.baseimpl.Affine3D;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Closed meshes to test with, and the checks the tests share.
+final class TestMeshes
+{
+	private TestMeshes()
+	{
+	}
+
+	static Mesh3D box(double x0, double y0, double z0, double x1, double y1, double z1)
+	{
+		double[] square = {0, 0, x1 - x0, 0, x1 - x0, y1 - y0, 0, y1 - y0};
+		return Extrusions.linear(List.of(square), z1 - z0, 0, 1, 1, false)
+				.transformed(Affine3D.translation(x0, y0, z0));
+	}
+
+	static Mesh3D cylinder(double x, double y, double z0, double radius, double height, int segments)
+	{
+		double[] circle = new double[2 * segments];
+		for(int i = 0; i < segments; i++)
+		{
+			double angle = 2 * Math.PI * i / segments;
+			circle[2 * i] = radius * Math.cos(angle);
+			circle[2 * i + 1] = radius * Math.sin(angle);
+		}
+		return Extrusions.linear(List.of(circle), height, 0, 1, 1, false)
+				.transformed(Affine3D.translation(x, y, z0));
+	}
+
+	static double prismVolume(double radius, double height, int segments)
+	{
+		return 0.5 * segments * radius * radius * Math.sin(2 * Math.PI / segments) * height;
+	}
+
+	// The number of directed edges that no edge running the other way matches. A closed mesh has none.
+	static int openEdges(Mesh3D mesh)
+	{
+		Map<Long, Integer> balance = new HashMap<>();
+		for(int t = 0; t < mesh.triangleCount(); t++)
+		{
+			for(int corner = 0; corner < 3; corner++)
+			{
+				int a = mesh.vertex(t, corner);
+				int b = mesh.vertex(t, (corner + 1) % 3);
+				balance.merge((long) a << 32 | b, 1, Integer::sum);
+				balance.merge((long) b << 32 | a, -1, Integer::sum);
+			}
+		}
+		int open = 0;
+		for(int count : balance.values())
+		{
+			open += Math.max(count, 0);
+		}
+		return open;
+	}
+
+	// Welds vertices at equal coordinates, like reading the mesh back from an STL file does.
+	static Mesh3D welded(Mesh3D mesh)
+	{
+		MeshBuilder builder = new MeshBuilder(true);
+		for(int t = 0; t < mesh.triangleCount(); t++)
+		{
+			int[] corners = new int[3];
+			for(int corner = 0; corner < 3; corner++)
+			{
+				int v = mesh.vertex(t, corner);
+				corners[corner] = builder.addVertex(mesh.x(v), mesh.y(v), mesh.z(v));
+			}
+			builder.addTriangle(corners[0], corners[1], corners[2], mesh.color(t));
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,61 @@
+package org.abstractica.javacsg.impl.baseimpl.mesh;
+
+import org.abstractica.javacsg.Color;
+import org.abstractica.javacsg.impl.ColorImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ThreeMFFilesTest
+{
+	@Test
+	void objectsAndColorsRoundTrip(@TempDir Path directory) throws IOException
+	{
+		Mesh3D box = TestMeshes.box(0, 0, 0, 10, 10, 2);
+		Mesh3D peg = TestMeshes.cylinder(20, 0, 0, 2.5, 7.25, 48).colored(new ColorImpl(1, 0.5, 0, 1));
+		Path file = directory.resolve("parts.3mf");
+		ThreeMFFiles.write(file, List.of(box, Mesh3D.EMPTY, peg));
+		List<Mesh3D> items = ThreeMFFiles.read(file);
+		assertEquals(2, items.size());
+		assertEquals(box.triangleCount(), items.get(0).triangleCount());
+		assertEquals(box.volume(), items.get(0).volume(), 1e-9);
+		assertNull(items.get(0).color(0));
+		assertEquals(peg.volume(), items.get(1).volume(), 1e-9);
+		Color color = items.get(1).color(0);
+		assertEquals(1, color.r(), 1e-9);
+		assertEquals(128 / 255.0, color.g(), 1e-9);
+		assertEquals(0, color.b(), 1e-9);
+		assertArrayEquals(new double[]{0, -2.5, 0, 22.5, 10, 7.25}, rounded(ThreeMFFiles.bounds(file)), 1e-9);
+	}
+
+	// A mesh this large is written in several chunks, which are deflated separately and joined.
+	@Test
+	void largeMeshRoundTrips(@TempDir Path directory) throws IOException
+	{
+		Mesh3D cylinder = TestMeshes.cylinder(0, 0, 0, 50, 10, 20000);
+		Path file = directory.resolve("large.3mf");
+		ThreeMFFiles.write(file, List.of(cylinder));
+		List<Mesh3D> items = ThreeMFFiles.read(file);
+		assertEquals(1, items.size());
+		assertEquals(cylinder.vertexCount(), items.get(0).vertexCount());
+		assertEquals(cylinder.triangleCount(), items.get(0).triangleCount());
+		assertEquals(cylinder.volume(), items.get(0).volume(), 1e-6);
+	}
+
+	private static double[] rounded(double[] bounds)
+	{
+		double[] result = bounds.clone();
+		for(int i = 0; i < result.length; i++)
+		{
+			result[i] = Math.round(result[i] * 1e6) / 1e6;
+		}
+		return result;
+	}
+}